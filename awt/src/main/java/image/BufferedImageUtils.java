@@ -0,0 +1,107 @@
+package image;
+
+import symbol.BinarizedImage;
+import symbol.ModuleMatrix;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Util class converting between the headless module matrices of the core and java.awt images, for applications that
+ * already work with {@link BufferedImage}, write formats other than PNG and SVG through ImageIO, or detect symbols in
+ * photographs read by ImageIO.
+ */
+public class BufferedImageUtils {
+
+    private static final int BLACK_PIXEL = 0x000000;
+
+    private static final int WHITE_PIXEL = 0xFFFFFF;
+
+    /**
+     * Draw a symbol into an image with one pixel per module and no quiet zone
+     *
+     * @param symbol The modules of the symbol
+     * @return The image of the symbol
+     */
+    public static BufferedImage toImage(ModuleMatrix symbol) {
+        return render(symbol, 1, 0);
+    }
+
+    /**
+     * Render a symbol to an image with a quiet zone, scaled so that each module takes up scale x scale pixels
+     *
+     * @param symbol The modules of the symbol
+     * @param scale The number of pixels per module along each side
+     * @param quietZoneWidth The width of the quiet zone in modules, such as {@link symbol.SymbolRenderer#QUIET_ZONE_WIDTH}
+     * @return The rendered image
+     */
+    public static BufferedImage render(ModuleMatrix symbol, int scale, int quietZoneWidth) {
+        int sideLength = symbol.getSideLength();
+        int imageSideLength = (sideLength + 2 * quietZoneWidth) * scale;
+        BufferedImage image = new BufferedImage(imageSideLength, imageSideLength, BufferedImage.TYPE_INT_RGB);
+
+        int[] row = new int[imageSideLength];
+        for (int y = 0; y < imageSideLength; y++) {
+            int i = y / scale - quietZoneWidth;
+            for (int x = 0; x < imageSideLength; x++) {
+                int j = x / scale - quietZoneWidth;
+                boolean dark = i >= 0 && i < sideLength && j >= 0 && j < sideLength && symbol.isDark(i, j);
+                row[x] = dark ? BLACK_PIXEL : WHITE_PIXEL;
+            }
+            image.setRGB(0, y, imageSideLength, 1, row, 0, imageSideLength);
+        }
+        return image;
+    }
+
+    /**
+     * Read the modules of a symbol from an image with one pixel per module, in which black pixels are dark modules
+     *
+     * @param image The image of the symbol, which must be square
+     * @return The modules of the symbol
+     */
+    public static ModuleMatrix fromImage(BufferedImage image) {
+        if (image.getWidth() != image.getHeight()) {
+            throw new IllegalArgumentException(String.format("Image of %sx%s pixels is not square", image.getWidth(), image.getHeight()));
+        }
+        ModuleMatrix symbol = new ModuleMatrix(image.getWidth());
+        for (int i = 0; i < image.getHeight(); i++) {
+            for (int j = 0; j < image.getWidth(); j++) {
+                symbol.setDark(i, j, (image.getRGB(j, i) & WHITE_PIXEL) == BLACK_PIXEL);
+            }
+        }
+        return symbol;
+    }
+
+    /**
+     * Binarize an image, such as a photograph, for {@link symbol.SymbolDetector}
+     *
+     * @param image The image to binarize, in any color model
+     * @return The binarized image
+     */
+    public static BinarizedImage binarize(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        return BinarizedImage.binarizeRgb(image.getRGB(0, 0, width, height, null, 0, width), width, height);
+    }
+
+    /**
+     * Render a symbol and write it with ImageIO in any format it supports, such as BMP, GIF or JPEG
+     *
+     * @param symbol The modules of the symbol
+     * @param scale The number of pixels per module along each side
+     * @param quietZoneWidth The width of the quiet zone in modules
+     * @param formatName The informal name of the format
+     * @param out The stream to write the image to
+     * @throws IOException If the image could not be written
+     * @throws IllegalArgumentException If ImageIO has no writer for the format
+     */
+    public static void write(ModuleMatrix symbol, int scale, int quietZoneWidth, String formatName, OutputStream out) throws IOException {
+        // images are written straight to the stream instead of through a temporary file
+        ImageIO.setUseCache(false);
+        if (!ImageIO.write(render(symbol, scale, quietZoneWidth), formatName, out)) {
+            throw new IllegalArgumentException(String.format("Format %s has no ImageIO writer", formatName));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import data.CharsetDataEncoder;
+import data.DataEncodationUtils;
+import model.BinaryData;
+import model.ErrorCorrectionLevel;
+import model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Benchmark of encoding text in a character set with an ECI header, comparing transcoding through
+ * String.getBytes and a list of characters with transcoding straight into the data bit stream.
+ */
+@State(Scope.Thread)
+public class CharsetEncodingBenchmark {
+
+    @Param({"UTF-8", "Shift_JIS", "ISO-8859-1"})
+    public String charset;
+
+    @Param({"10", "40"})
+    public int version;
+
+    private CharsetDataEncoder encoder;
+
+    private Version symbolVersion;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new CharsetDataEncoder(Charset.forName(charset));
+        symbolVersion = new Version(version);
+        String alphabet = charset.equals("ISO-8859-1") ? "abcdefghijklmnopqrstuvwxyzàéîõü" : "abcdefghijklmnopqrstuvwxyzあいうえお漢字";
+        // fill about half of the symbol so that multi-byte characters still fit
+        text = SymbolState.randomText(SymbolState.getCapacity(encoder, symbolVersion, ErrorCorrectionLevel.L) / 2, alphabet);
+    }
+
+    @Benchmark
+    public List<Integer> encodeCharacterList() {
+        List<Integer> characters = DataEncodationUtils.getCharacters(text, encoder);
+        return DataEncodationUtils.getDataCodewords(encoder, characters, symbolVersion, ErrorCorrectionLevel.L);
+    }
+
+    @Benchmark
+    public List<Integer> encodeStreaming() {
+        BinaryData binaryData = new BinaryData();
+        encoder.encode(text, symbolVersion, binaryData);
+        return DataEncodationUtils.getDataCodewords(binaryData, symbolVersion, ErrorCorrectionLevel.L);
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import data.ByteDataEncoder;
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import data.NumericDataEncoder;
+import model.ErrorCorrectionLevel;
+import model.Mode;
+import model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Benchmark of data encodation for each mode, from characters to terminated and padded data codewords.
+ */
+@State(Scope.Benchmark)
+public class DataEncodingBenchmark {
+
+    @Param({"NUMERIC", "BYTE"})
+    public Mode mode;
+
+    @Param({"1", "10", "25", "40"})
+    public int version;
+
+    @Param({"L", "M", "Q", "H"})
+    public ErrorCorrectionLevel errorCorrectionLevel;
+
+    private DataEncoder encoder;
+
+    private Version symbolVersion;
+
+    private String text;
+
+    private List<Integer> characters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        symbolVersion = new Version(version);
+        encoder = mode == Mode.NUMERIC ? new NumericDataEncoder() : new ByteDataEncoder();
+        String alphabet = mode == Mode.NUMERIC ? "0123456789" : "abcdefghijklmnopqrstuvwxyz0123456789";
+        text = SymbolState.randomText(SymbolState.getCapacity(encoder, symbolVersion, errorCorrectionLevel), alphabet);
+        characters = DataEncodationUtils.getCharacters(text, encoder);
+    }
+
+    @Benchmark
+    public List<Integer> getCharacters() {
+        return DataEncodationUtils.getCharacters(text, encoder);
+    }
+
+    @Benchmark
+    public List<Integer> getDataCodewords() {
+        return DataEncodationUtils.getDataCodewords(encoder, characters, symbolVersion, errorCorrectionLevel);
+    }
+}
@@ -0,0 +1,32 @@
+package benchmark;
+
+import model.DecodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.DecodedSymbol;
+import symbol.SymbolDecoder;
+
+/**
+ * Benchmark of decoding a symbol from its module matrix, including error correction of every block.
+ */
+@State(Scope.Thread)
+public class DecodeBenchmark {
+
+    private SymbolDecoder decoder;
+
+    private boolean[][] modules;
+
+    @Setup(Level.Trial)
+    public void setUp(SymbolState state) {
+        decoder = new SymbolDecoder();
+        modules = state.symbol.toArray();
+    }
+
+    @Benchmark
+    public DecodedSymbol decode() throws DecodeException {
+        return decoder.decode(modules);
+    }
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+import image.BufferedImageUtils;
+import model.DecodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.BinarizedImage;
+import symbol.SymbolDetector;
+import symbol.SymbolRenderer;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Benchmark of locating a symbol in a rendered image: binarization on its own and the full detection
+ * including finder pattern scanning and perspective sampling of the module matrix.
+ */
+@State(Scope.Thread)
+public class DetectBenchmark {
+
+    private SymbolDetector detector;
+
+    private BufferedImage image;
+
+    private BinarizedImage binarized;
+
+    @Setup(Level.Trial)
+    public void setUp(SymbolState state) {
+        detector = new SymbolDetector();
+        image = BufferedImageUtils.render(state.symbol, 4, SymbolRenderer.QUIET_ZONE_WIDTH);
+        binarized = BufferedImageUtils.binarize(image);
+    }
+
+    @Benchmark
+    public BinarizedImage binarize() {
+        return BufferedImageUtils.binarize(image);
+    }
+
+    @Benchmark
+    public boolean[][] detect() throws DecodeException {
+        return detector.detect(binarized);
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark;
+
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import model.ErrorCorrectionLevel;
+import model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.EncodedSymbol;
+import symbol.EncodingPlan;
+import symbol.IncrementalEncoder;
+import symbol.SymbolEncoder;
+
+/**
+ * Benchmark of encoding serial numbers of a fixed shape, comparing a full encode with an encode through a
+ * precompiled plan and an incremental encode from the previous serial number
+ */
+@State(Scope.Thread)
+public class EncodingPlanBenchmark {
+
+    @Param({"123456789012", "https://example.com/t/ABCDEFGH12345678"})
+    public String template;
+
+    /** The version of the symbols, or 0 for the smallest version that can hold the template */
+    @Param({"0", "5"})
+    public int version;
+
+    private SymbolEncoder encoder;
+
+    private EncodingPlan plan;
+
+    private IncrementalEncoder incrementalEncoder;
+
+    private String[] payloads;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new SymbolEncoder();
+        if (version == 0) {
+            plan = EncodingPlan.compile(template, ErrorCorrectionLevel.M);
+        } else {
+            DataEncoder dataEncoder = DataEncodationUtils.getEncoder(template);
+            plan = EncodingPlan.compile(dataEncoder, DataEncodationUtils.getCharacters(template, dataEncoder).size(),
+                    new Version(version), ErrorCorrectionLevel.M);
+        }
+        incrementalEncoder = new IncrementalEncoder(plan);
+        // consecutive serial numbers, differing only in the last characters
+        payloads = new String[1000];
+        String prefix = template.substring(0, template.length() - 4);
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = prefix + String.format("%04d", i);
+        }
+    }
+
+    @Benchmark
+    public EncodedSymbol encode() {
+        return encoder.encode(nextPayload(), ErrorCorrectionLevel.M, plan.getVersion(), plan.getVersion(), null);
+    }
+
+    @Benchmark
+    public EncodedSymbol encodeWithPlan() {
+        return encoder.encode(plan, nextPayload());
+    }
+
+    @Benchmark
+    public EncodedSymbol encodeIncrementally() {
+        return incrementalEncoder.encode(nextPayload());
+    }
+
+    private String nextPayload() {
+        next = (next + 1) % payloads.length;
+        return payloads[next];
+    }
+}
@@ -0,0 +1,37 @@
+package benchmark;
+
+import metrics.HistogramEncodeListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.EncodedSymbol;
+import symbol.SymbolEncoder;
+
+/**
+ * Benchmark of the whole encoding process, from text to the masked symbol with the lowest penalty score.
+ */
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+
+    private SymbolEncoder encoder;
+
+    private SymbolEncoder instrumentedEncoder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new SymbolEncoder();
+        instrumentedEncoder = new SymbolEncoder(new HistogramEncodeListener());
+    }
+
+    @Benchmark
+    public EncodedSymbol encode(SymbolState state) {
+        return encoder.encode(state.text, state.errorCorrectionLevel);
+    }
+
+    @Benchmark
+    public EncodedSymbol encodeWithListener(SymbolState state) {
+        return instrumentedEncoder.encode(state.text, state.errorCorrectionLevel);
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import error.ErrorCorrectionUtils;
+import model.BinaryData;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.SymbolInfo;
+import model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Benchmark of Reed-Solomon error correction codeword generation for a single block, whose size is
+ * determined by the version and error correction level, and for all blocks of a symbol including interleaving.
+ * The BCH codes of the format and version information are benchmarked as well.
+ */
+@State(Scope.Benchmark)
+public class ErrorCorrectionBenchmark {
+
+    private List<Integer> block;
+
+    private int errorCorrectionCodewords;
+
+    private SymbolInfo formatInfoSymbol;
+
+    @Setup(Level.Trial)
+    public void setUp(SymbolState state) {
+        block = state.getFirstDataBlock();
+        errorCorrectionCodewords = state.symbolInfo.getBlockInfo(1).getErrorCorrectionCodewords();
+        formatInfoSymbol = new SymbolInfo(new Version(1), ErrorCorrectionLevel.M, MaskPattern.FIVE);
+    }
+
+    @Benchmark
+    public List<Integer> reedSolomonBlock() {
+        return ErrorCorrectionUtils.getErrorCorrectionCodewords(block, errorCorrectionCodewords);
+    }
+
+    @Benchmark
+    public List<Integer> reedSolomonSymbol(SymbolState state) {
+        return ErrorCorrectionUtils.getFinalCodewordSequence(state.dataCodewords, state.symbolInfo);
+    }
+
+    @Benchmark
+    public BinaryData bchFormatInfo() {
+        return formatInfoSymbol.getFormatInfo();
+    }
+
+    @Benchmark
+    public BinaryData bchVersionInfo(SymbolState state) {
+        BinaryData versionInfo = new BinaryData();
+        versionInfo.appendInt(state.version, Version.INDICATOR_LENGTH_IN_BITS);
+        ErrorCorrectionUtils.appendErrorCorrectionBitsToVersionInfo(versionInfo);
+        return versionInfo;
+    }
+}
@@ -0,0 +1,47 @@
+package benchmark;
+
+import data.Gs1Encoder;
+import model.BinaryData;
+import model.ErrorCorrectionLevel;
+import model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of parsing GS1 element strings and encoding them in FNC1 mode with the cheapest segmentation
+ */
+@State(Scope.Thread)
+public class Gs1Benchmark {
+
+    @Param({"(01)09501101530003(17)250101(10)ABC123",
+            "(00)123456789012345678(400)PO-1234(3103)000189(21)SERIAL%42(91)abcdefghijklmnopqrstuvwxyz0123456789"})
+    public String elementString;
+
+    private Gs1Encoder encoder;
+
+    private Version version;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new Gs1Encoder();
+        encoder.parse(elementString);
+        version = encoder.getMinimumVersion(ErrorCorrectionLevel.M);
+    }
+
+    @Benchmark
+    public int parse() {
+        return encoder.parse(elementString).getLength();
+    }
+
+    @Benchmark
+    public BinaryData parseAndEncode() {
+        encoder.parse(elementString);
+        BinaryData binaryData = new BinaryData();
+        encoder.encode(version, binaryData);
+        return binaryData;
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import model.CodewordCapacity;
+import model.ErrorCorrectionLevel;
+import model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.EncodedSymbol;
+import symbol.LowMemorySymbolEncoder;
+import symbol.SymbolEncoder;
+
+import java.util.Random;
+
+/**
+ * Benchmark of encoding the largest Byte mode payload of a version, comparing {@link SymbolEncoder} with the off-heap
+ * arena of {@link LowMemorySymbolEncoder}. Compare {@code gc.alloc.rate.norm} for the heap bytes of each encode.
+ */
+@State(Scope.Thread)
+public class LowMemoryBenchmark {
+
+    @Param({"10", "40"})
+    public int version;
+
+    @Param({"L", "H"})
+    public ErrorCorrectionLevel errorCorrectionLevel;
+
+    private SymbolEncoder encoder;
+
+    private LowMemorySymbolEncoder lowMemoryEncoder;
+
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new SymbolEncoder();
+        lowMemoryEncoder = new LowMemorySymbolEncoder();
+        // the mode indicator and a 16 bit character count indicator leave the rest of the capacity for characters
+        int numCharacters = (CodewordCapacity.getDataCodewords(new Version(version), errorCorrectionLevel) * 8 - 20) / 8;
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < numCharacters; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        payload = builder.toString();
+    }
+
+    @Benchmark
+    public EncodedSymbol encode() {
+        return encoder.encode(payload, errorCorrectionLevel);
+    }
+
+    @Benchmark
+    public int encodeLowMemory() {
+        lowMemoryEncoder.encode(payload, errorCorrectionLevel);
+        return lowMemoryEncoder.getPenaltyScore();
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import data.DataEncodationUtils;
+import data.NumericDataEncoder;
+import model.ErrorCorrectionLevel;
+import model.MicroCodewordCapacity;
+import model.MicroVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.EncodedMicroSymbol;
+import symbol.EncodedSymbol;
+import symbol.MicroSymbolEncoder;
+import symbol.SymbolEncoder;
+
+/**
+ * Benchmark of encoding a numeric text that fills a Micro QR symbol of each version at error correction level L,
+ * compared with encoding the same text in the smallest QR symbol that holds it.
+ */
+@State(Scope.Benchmark)
+public class MicroSymbolBenchmark {
+
+    @Param({"1", "2", "3", "4"})
+    public int version;
+
+    private MicroSymbolEncoder microEncoder;
+
+    private SymbolEncoder encoder;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        microEncoder = new MicroSymbolEncoder();
+        encoder = new SymbolEncoder();
+        MicroVersion microVersion = new MicroVersion(version);
+        NumericDataEncoder numericEncoder = new NumericDataEncoder();
+        int capacityInBits = MicroCodewordCapacity.getDataCapacityInBits(microVersion, ErrorCorrectionLevel.L);
+        int numCharacters = 0;
+        while (numericEncoder.getEncodedBitStreamLength(numCharacters + 1, microVersion) <= capacityInBits) {
+            numCharacters++;
+        }
+        text = SymbolState.randomText(numCharacters, "0123456789");
+        // fail fast if the text does not fill the expected version
+        DataEncodationUtils.getDataCodewords(numericEncoder, DataEncodationUtils.getCharacters(text, numericEncoder),
+                microVersion, ErrorCorrectionLevel.L);
+    }
+
+    @Benchmark
+    public EncodedMicroSymbol encodeMicro() {
+        return microEncoder.encode(text, ErrorCorrectionLevel.L);
+    }
+
+    @Benchmark
+    public EncodedSymbol encode() {
+        return encoder.encode(text, ErrorCorrectionLevel.L);
+    }
+}
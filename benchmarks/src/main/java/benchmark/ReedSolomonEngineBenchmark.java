@@ -0,0 +1,64 @@
+package benchmark;
+
+import error.ReedSolomonEncoder;
+import error.ReedSolomonEncoders;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.SymbolInfo;
+import model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Benchmark of generating the error correction codewords of every block of a symbol with each Reed-Solomon engine
+ */
+@State(Scope.Thread)
+@Fork(jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ReedSolomonEngineBenchmark {
+
+    @Param({"reference", "log", "table", "parallel", "vector"})
+    public String engine;
+
+    @Param({"5", "10", "25", "40"})
+    public int version;
+
+    @Param({"L", "H"})
+    public ErrorCorrectionLevel errorCorrectionLevel;
+
+    private ReedSolomonEncoder encoder;
+
+    private byte[] data;
+
+    private int[] blockLengths;
+
+    private int numErrorCorrectionCodewords;
+
+    private byte[] errorCorrection;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = ReedSolomonEncoders.get(engine);
+        SymbolInfo symbolInfo = new SymbolInfo(new Version(version), errorCorrectionLevel, MaskPattern.ONE);
+        blockLengths = new int[symbolInfo.getNumberOfBlocks()];
+        for (int b = 0; b < blockLengths.length; b++) {
+            blockLengths[b] = symbolInfo.getBlockInfo(b + 1).getDataCodewords();
+        }
+        numErrorCorrectionCodewords = symbolInfo.getBlockInfo(1).getErrorCorrectionCodewords();
+        data = new byte[symbolInfo.getDataCodewords()];
+        new Random(0).nextBytes(data);
+        errorCorrection = new byte[blockLengths.length * numErrorCorrectionCodewords];
+    }
+
+    @Benchmark
+    public byte[] encodeBlocks() {
+        encoder.encodeBlocks(data, blockLengths, numErrorCorrectionCodewords, errorCorrection);
+        return errorCorrection;
+    }
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.SymbolRenderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmark of rendering a finished symbol to each output format.
+ */
+@State(Scope.Benchmark)
+public class RenderingBenchmark {
+
+    @Param({"PNG", "SVG", "ZPL", "ESCPOS"})
+    public String format;
+
+    @Param({"4"})
+    public int scale;
+
+    private SymbolRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        renderer = new SymbolRenderer(scale);
+    }
+
+    @Benchmark
+    public void render(SymbolState state) throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        if ("PNG".equals(format)) {
+            renderer.writePng(state.symbol, out);
+        } else if ("ZPL".equals(format)) {
+            renderer.writeZpl(state.symbol, out);
+        } else if ("ESCPOS".equals(format)) {
+            renderer.writeEscPos(state.symbol, out);
+        } else {
+            renderer.writeSvg(state.symbol, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package benchmark;
+
+import metrics.Histogram;
+import server.EncodingServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Load test of {@link EncodingServer} over localhost. A number of clients send requests in a closed loop for a fixed
+ * time, first for distinct payloads so that every response is encoded, then again for payloads whose ETags they already
+ * hold so that every response is 304 Not Modified. Throughput and latency percentiles are printed for both phases, and
+ * the test fails if any response has an unexpected status or if the second phase encoded anything.
+ * <br />
+ * {@code java -cp benchmarks/target/benchmarks.jar benchmark.ServerLoadTest [clients] [seconds] [format]}
+ */
+public class ServerLoadTest {
+
+    private static final int DEFAULT_CLIENTS = 16;
+
+    private static final int DEFAULT_SECONDS = 5;
+
+    /** The number of payloads revalidated in the second phase */
+    private static final int CACHED_PAYLOADS = 256;
+
+    private static final int PAYLOAD_LENGTH = 100;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        String format = args.length > 2 ? args[2] : "png";
+
+        EncodingServer server = new EncodingServer(new InetSocketAddress("localhost", 0));
+        server.start();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        // the client completes responses on its own executor, since the clients block every thread of this one
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String base = "http://localhost:" + server.getPort() + EncodingServer.ENCODE_PATH + "?format=" + format + "&data=";
+        boolean passed = true;
+        try {
+            List<String> payloads = new ArrayList<>();
+            List<String> etags = new ArrayList<>();
+            Random random = new Random(0);
+            for (int n = 0; n < CACHED_PAYLOADS; n++) {
+                String payload = randomPayload(random);
+                HttpResponse<byte[]> response = client.send(request(base, payload, null), HttpResponse.BodyHandlers.ofByteArray());
+                payloads.add(payload);
+                etags.add(response.headers().firstValue("ETag").orElseThrow());
+            }
+
+            passed &= run("encode", clients, seconds, executor, c -> {
+                Random clientRandom = new Random(c);
+                return () -> request(base, randomPayload(clientRandom), null);
+            }, client, 200);
+
+            long encodedBefore = server.getEncodedResponses();
+            passed &= run("304", clients, seconds, executor, c -> {
+                Random clientRandom = new Random(c);
+                return () -> {
+                    int n = clientRandom.nextInt(CACHED_PAYLOADS);
+                    return request(base, payloads.get(n), etags.get(n));
+                };
+            }, client, 304);
+            long encodedDuring = server.getEncodedResponses() - encodedBefore;
+            System.out.printf("encodes during the 304 phase: %d%n", encodedDuring);
+            passed &= encodedDuring == 0;
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+        System.out.println(passed ? "passed" : "FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private interface RequestSource {
+        HttpRequest next();
+    }
+
+    private interface RequestSourceFactory {
+        RequestSource forClient(int client);
+    }
+
+    /**
+     * Run a closed loop of requests from each client for a time and print the results
+     *
+     * @return true if every response had the expected status
+     */
+    private static boolean run(String name, int clients, int seconds, ExecutorService executor, RequestSourceFactory sources,
+                               HttpClient client, int expectedStatus) throws Exception {
+        Histogram latencies = new Histogram();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            RequestSource source = sources.forClient(c);
+            results.add(executor.submit(() -> {
+                long requests = 0;
+                long unexpected = 0;
+                long bytes = 0;
+                while (running.get()) {
+                    long begin = System.nanoTime();
+                    HttpResponse<byte[]> response = client.send(source.next(), HttpResponse.BodyHandlers.ofByteArray());
+                    latencies.record(System.nanoTime() - begin);
+                    requests++;
+                    bytes += response.body().length;
+                    if (response.statusCode() != expectedStatus) {
+                        unexpected++;
+                    }
+                }
+                return new long[] { requests, unexpected, bytes };
+            }));
+        }
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        long requests = 0;
+        long unexpected = 0;
+        long bytes = 0;
+        for (Future<long[]> result : results) {
+            long[] counts = result.get();
+            requests += counts[0];
+            unexpected += counts[1];
+            bytes += counts[2];
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-6s %8.0f req/s  p50 %6.2f ms  p99 %6.2f ms  p99.9 %6.2f ms  max %6.2f ms  %6.1f MB/s  %d unexpected of %d%n",
+                name, requests / elapsed, millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMax()), bytes / elapsed / 1e6, unexpected, requests);
+        return unexpected == 0;
+    }
+
+    private static HttpRequest request(String base, String payload, String etag) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + URLEncoder.encode(payload, StandardCharsets.UTF_8)));
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return builder.build();
+    }
+
+    private static String randomPayload(Random random) {
+        StringBuilder payload = new StringBuilder("https://example.com/");
+        while (payload.length() < PAYLOAD_LENGTH) {
+            payload.append((char) ('a' + random.nextInt(26)));
+        }
+        return payload.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
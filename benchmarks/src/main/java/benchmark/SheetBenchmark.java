@@ -0,0 +1,54 @@
+package benchmark;
+
+import model.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.SheetCompositor;
+import symbol.SheetFormat;
+import symbol.SheetLayout;
+import symbol.SymbolEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark of encoding a full A4 label sheet of 5 x 7 symbols at 600 dpi and writing it to each sheet format, with
+ * one stripe rendering thread and with one per processor.
+ */
+@State(Scope.Benchmark)
+public class SheetBenchmark {
+
+    @Param({"PNG", "TIFF", "PDF"})
+    public SheetFormat format;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private SheetCompositor compositor;
+
+    private List<String> payloads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SheetLayout layout = SheetLayout.ofMillimeters(SheetLayout.A4_WIDTH_MILLIMETERS, SheetLayout.A4_HEIGHT_MILLIMETERS,
+                600, 10, 5, 7, 8);
+        // 0 threads stands for one per processor
+        int numThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        compositor = new SheetCompositor(new SymbolEncoder(), ErrorCorrectionLevel.M, layout, numThreads);
+        payloads = new ArrayList<>();
+        for (int n = 0; n < layout.getCells(); n++) {
+            payloads.add(String.format("https://example.com/item/%05d", n));
+        }
+    }
+
+    @Benchmark
+    public int sheet() throws IOException, InterruptedException {
+        return compositor.write(payloads.iterator(), format, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,120 @@
+package benchmark;
+
+import model.ErrorCorrectionLevel;
+import symbol.LowMemorySymbolEncoder;
+import symbol.SymbolEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cold start benchmark, which JMH cannot measure since it warms up a long-lived JVM. Each run starts a new JVM that
+ * encodes one symbol and exits, and the time to the first symbol is measured both from inside the JVM, from the start
+ * of main, and from outside it, from process start to exit. Both encoders are measured with and without an AppCDS
+ * archive, which is recorded by a first training run with {@code -XX:ArchiveClassesAtExit}.
+ * <br />
+ * {@code java -cp benchmarks/target/benchmarks.jar benchmark.StartupBenchmark [runs]}
+ */
+public class StartupBenchmark {
+
+    private static final int DEFAULT_RUNS = 10;
+
+    private static final String CHILD = "--child";
+
+    private static final String FULL = "full";
+
+    private static final String LOW_MEMORY = "low-memory";
+
+    private static final String PAYLOAD = "https://example.com/item/12345";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 2 && args[0].equals(CHILD)) {
+            long start = System.nanoTime();
+            encode(args[1]);
+            System.out.println(System.nanoTime() - start);
+            return;
+        }
+
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+        Path directory = Files.createTempDirectory("qrcode-cds");
+        try {
+            System.out.printf("%-12s %-6s %20s %20s%n", "encoder", "cds", "first symbol (ms)", "process (ms)");
+            for (String scenario : Arrays.asList(FULL, LOW_MEMORY)) {
+                Path archive = directory.resolve(scenario + ".jsa");
+                run(scenario, "-XX:ArchiveClassesAtExit=" + archive);
+                report(scenario, "off", runs, "-Xshare:auto");
+                report(scenario, "on", runs, "-XX:SharedArchiveFile=" + archive);
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void encode(String scenario) throws IOException {
+        if (scenario.equals(LOW_MEMORY)) {
+            LowMemorySymbolEncoder encoder = new LowMemorySymbolEncoder();
+            encoder.encode(PAYLOAD, ErrorCorrectionLevel.M);
+            encoder.writePbm(1, Channels.newChannel(new ByteArrayOutputStream()));
+        } else {
+            new SymbolEncoder().encode(PAYLOAD, ErrorCorrectionLevel.M);
+        }
+    }
+
+    private static void report(String scenario, String cds, int runs, String option) throws IOException, InterruptedException {
+        long[] firstSymbol = new long[runs];
+        long[] process = new long[runs];
+        for (int n = 0; n < runs; n++) {
+            long start = System.nanoTime();
+            firstSymbol[n] = run(scenario, option);
+            process[n] = System.nanoTime() - start;
+        }
+        System.out.printf("%-12s %-6s %20s %20s%n", scenario, cds, summarize(firstSymbol), summarize(process));
+    }
+
+    /**
+     * Run a child JVM that encodes one symbol
+     *
+     * @return The nanoseconds from the start of its main method to the first symbol
+     */
+    private static long run(String scenario, String option) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add(option);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupBenchmark.class.getName());
+        command.add(CHILD);
+        command.add(scenario);
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            // the JVM also logs archive warnings to standard output, after the child's own line
+            output = new String(in.readAllBytes(), StandardCharsets.US_ASCII).split("\n", 2)[0].trim();
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException(String.format("%s run with %s exited with status %s", scenario, option, process.exitValue()));
+        }
+        return Long.parseLong(output);
+    }
+
+    /** The median and minimum of a number of runs, in milliseconds */
+    private static String summarize(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("%.1f (min %.1f)", sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6);
+    }
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import model.ErrorCorrectionLevel;
+import model.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.EncodedSymbol;
+import symbol.StructuredAppendEncoder;
+import symbol.SymbolEncoder;
+
+import java.util.List;
+
+/**
+ * Benchmark of encoding a text that fills a version 40 symbol as a single symbol and as a Structured Append
+ * sequence of smaller symbols encoded in parallel.
+ */
+@State(Scope.Benchmark)
+public class StructuredAppendBenchmark {
+
+    @Param({"10", "20", "30"})
+    public int maximumVersion;
+
+    private SymbolEncoder encoder;
+
+    private StructuredAppendEncoder structuredAppendEncoder;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new SymbolEncoder();
+        structuredAppendEncoder = new StructuredAppendEncoder();
+        text = SymbolState.randomText(2900, "abcdefghijklmnopqrstuvwxyz0123456789");
+    }
+
+    @Benchmark
+    public EncodedSymbol encodeSingle() {
+        return encoder.encode(text, ErrorCorrectionLevel.L);
+    }
+
+    @Benchmark
+    public List<EncodedSymbol> encodeStructuredAppend() {
+        return structuredAppendEncoder.encode(text, ErrorCorrectionLevel.L, new Version(maximumVersion));
+    }
+}
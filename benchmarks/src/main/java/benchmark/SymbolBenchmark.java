@@ -0,0 +1,54 @@
+package benchmark;
+
+import model.Coordinate;
+import model.SymbolInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.MaskEvaluationUtils;
+import symbol.ModuleMatrix;
+import symbol.SymbolGenerator;
+
+import java.util.List;
+
+/**
+ * Benchmark of the symbol construction stages: function pattern drawing, codeword placement and
+ * mask penalty scoring.
+ */
+@State(Scope.Benchmark)
+public class SymbolBenchmark {
+
+    private SymbolGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = new SymbolGenerator();
+    }
+
+    @Benchmark
+    public SymbolInfo symbolInfo(SymbolState state) {
+        return new SymbolInfo(state.symbolVersion, state.errorCorrectionLevel, state.symbolInfo.getMaskPattern());
+    }
+
+    @Benchmark
+    public ModuleMatrix functionPatterns(SymbolState state) {
+        return generator.generateSymbol(state.symbolInfo);
+    }
+
+    @Benchmark
+    public List<Coordinate> dataModuleCoordinates(SymbolState state) {
+        return generator.getDataModuleCoordinates(state.symbolInfo);
+    }
+
+    @Benchmark
+    public ModuleMatrix placement(SymbolState state) {
+        return generator.generateSymbol(state.symbolInfo, state.codewords, state.dataModuleCoordinates);
+    }
+
+    @Benchmark
+    public int maskScoring(SymbolState state) {
+        return MaskEvaluationUtils.getPenaltyScore(state.symbol);
+    }
+}
@@ -0,0 +1,98 @@
+package benchmark;
+
+import data.ByteDataEncoder;
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import error.ErrorCorrectionUtils;
+import model.Coordinate;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.SymbolInfo;
+import model.Version;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import symbol.ModuleMatrix;
+import symbol.SymbolGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark state holding the output of every pipeline stage for a symbol of a given version and
+ * error correction level, so that each stage can be measured in isolation from the ones before it.
+ */
+@State(Scope.Benchmark)
+public class SymbolState {
+
+    @Param({"1", "10", "25", "40"})
+    public int version;
+
+    @Param({"L", "M", "Q", "H"})
+    public ErrorCorrectionLevel errorCorrectionLevel;
+
+    public Version symbolVersion;
+
+    public SymbolInfo symbolInfo;
+
+    /** Text that fills the data capacity of the symbol in Byte mode */
+    public String text;
+
+    public List<Integer> dataCodewords;
+
+    public List<Integer> codewords;
+
+    public List<Coordinate> dataModuleCoordinates;
+
+    public ModuleMatrix symbol;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        symbolVersion = new Version(version);
+        symbolInfo = new SymbolInfo(symbolVersion, errorCorrectionLevel, MaskPattern.ZERO);
+
+        DataEncoder encoder = new ByteDataEncoder();
+        text = randomText(getCapacity(encoder, symbolVersion, errorCorrectionLevel), "abcdefghijklmnopqrstuvwxyz0123456789");
+        dataCodewords = DataEncodationUtils.getDataCodewords(
+                encoder, DataEncodationUtils.getCharacters(text, encoder), symbolVersion, errorCorrectionLevel);
+        codewords = ErrorCorrectionUtils.getFinalCodewordSequence(dataCodewords, symbolInfo);
+
+        SymbolGenerator generator = new SymbolGenerator();
+        dataModuleCoordinates = generator.getDataModuleCoordinates(symbolInfo);
+        symbol = generator.generateSymbol(symbolInfo, codewords, dataModuleCoordinates);
+    }
+
+    /**
+     * Get the largest number of characters an encoder can fit in a symbol
+     */
+    static int getCapacity(DataEncoder encoder, Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        int capacityInBits = new SymbolInfo(version, errorCorrectionLevel, MaskPattern.ZERO).getDataCodewords() * 8;
+        int numCharacters = 0;
+        while (encoder.getEncodedBitStreamLength(numCharacters + 1, version) <= capacityInBits) {
+            numCharacters++;
+        }
+        return numCharacters;
+    }
+
+    /**
+     * Generate a reproducible random text of a given length from an alphabet
+     */
+    static String randomText(int length, String alphabet) {
+        Random random = new Random(length);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Get one block worth of data codewords of the symbol
+     */
+    List<Integer> getFirstDataBlock() {
+        return new ArrayList<>(dataCodewords.subList(0, symbolInfo.getBlockInfo(1).getDataCodewords()));
+    }
+}
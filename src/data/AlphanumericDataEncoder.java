@@ -0,0 +1,92 @@
+package data;
+
+import model.BinaryData;
+import model.MicroVersion;
+import model.Mode;
+import model.Version;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Data encoder for the Alphanumeric mode, whose characters are the digits 0-9, the upper case letters A-Z
+ * and the symbols space, $, %, *, +, -, ., / and :, each given by its value in table 5 of the QR Code
+ * specification ISO/IEC 18004.
+ */
+public class AlphanumericDataEncoder implements DataEncoder {
+
+    /** The characters of the Alphanumeric mode, indexed by their value */
+    public static final String CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+
+    /** The value of each ASCII character in the Alphanumeric mode, or -1 if it cannot be encoded */
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < CHARACTERS.length(); i++) {
+            VALUES[CHARACTERS.charAt(i)] = i;
+        }
+    }
+
+    /**
+     * Get the value of a character in the Alphanumeric mode
+     *
+     * @param c The character
+     * @return The value of the character, or -1 if it cannot be encoded in the Alphanumeric mode
+     */
+    public static int getValue(char c) {
+        return c < VALUES.length ? VALUES[c] : -1;
+    }
+
+    @Override
+    public Mode getMode() {
+        return Mode.ALPHANUMERIC;
+    }
+
+    @Override
+    public void encode(List<Integer> data, Version version, BinaryData binaryData) {
+        binaryData.appendInt(getMode().getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
+        binaryData.appendInt(data.size(), version.getCharacterCountIndicatorLength(getMode()));
+        appendCharacters(data, binaryData);
+    }
+
+    @Override
+    public void encode(List<Integer> data, MicroVersion version, BinaryData binaryData) {
+        binaryData.appendInt(version.getModeIndicator(getMode()), version.getModeIndicatorLength());
+        binaryData.appendInt(data.size(), version.getCharacterCountIndicatorLength(getMode()));
+        appendCharacters(data, binaryData);
+    }
+
+    private void appendCharacters(List<Integer> data, BinaryData binaryData) {
+        // characters are taken in pairs of 11 bits, with a final odd character in 6 bits
+        int i = 0;
+        for (; i + 1 < data.size(); i += 2) {
+            binaryData.appendInt(data.get(i) * 45 + data.get(i + 1), 11);
+        }
+        if (i < data.size()) {
+            binaryData.appendInt(data.get(i), 6);
+        }
+    }
+
+    @Override
+    public int getEncodedBitStreamLength(int numCharacters, Version version) {
+        int C = version.getCharacterCountIndicatorLength(getMode());
+        return 4 + C + getCharacterBitsLength(numCharacters);
+    }
+
+    @Override
+    public int getEncodedBitStreamLength(int numCharacters, MicroVersion version) {
+        int C = version.getCharacterCountIndicatorLength(getMode());
+        return version.getModeIndicatorLength() + C + getCharacterBitsLength(numCharacters);
+    }
+
+    /**
+     * Get the number of bits the characters take up, without the mode and character count indicators
+     *
+     * @param numCharacters The number of characters
+     * @return The number of bits of the characters
+     */
+    static int getCharacterBitsLength(int numCharacters) {
+        return 11 * (numCharacters / 2) + 6 * (numCharacters % 2);
+    }
+}
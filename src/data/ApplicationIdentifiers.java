@@ -0,0 +1,124 @@
+package data;
+
+/**
+ * Dictionary of GS1 Application Identifiers, giving the length of the data field that follows each one as
+ * described by section 3 of the GS1 General Specifications. Application Identifiers are 2, 3 or 4 digits long,
+ * and the dictionary is a table indexed by the digits, so a lookup is a single array access.
+ */
+public class ApplicationIdentifiers {
+
+    /** The largest length of a data field */
+    public static final int MAXIMUM_DATA_LENGTH = 90;
+
+    /** Flag set in a table entry when the data field has a variable length, up to the length in the entry */
+    private static final int VARIABLE_LENGTH = 0x100;
+
+    /** The first index of the Application Identifiers of each number of digits in the table */
+    private static final int[] TABLE_OFFSETS = { -1, -1, 0, 100, 1100 };
+
+    /** The data field length of each Application Identifier, or 0 for Application Identifiers that are not defined */
+    private static final short[] DATA_LENGTHS = new short[11100];
+
+    /**
+     * The 2 digit prefixes of the Application Identifiers whose element string has a predefined length,
+     * which are the only ones not followed by a separator when another element string comes after them
+     */
+    private static final boolean[] PREDEFINED_LENGTH_PREFIXES = new boolean[100];
+
+    /**
+     * The Application Identifiers with an 'n' in place of a digit that can be any value, followed by
+     * F for a fixed length data field or V for a variable length one and the length of the field
+     */
+    private static final String[] DEFINITIONS = {
+            "00 F18", "01 F14", "02 F14", "03 F14", "10 V20", "11 F6", "12 F6", "13 F6", "15 F6", "16 F6", "17 F6",
+            "20 F2", "21 V20", "22 V20", "235 V28", "240 V30", "241 V30", "242 V6", "243 V20", "250 V30", "251 V30",
+            "253 V30", "254 V20", "255 V25", "30 V8",
+            "310n F6", "311n F6", "312n F6", "313n F6", "314n F6", "315n F6", "316n F6",
+            "320n F6", "321n F6", "322n F6", "323n F6", "324n F6", "325n F6", "326n F6", "327n F6", "328n F6", "329n F6",
+            "330n F6", "331n F6", "332n F6", "333n F6", "334n F6", "335n F6", "336n F6", "337n F6",
+            "340n F6", "341n F6", "342n F6", "343n F6", "344n F6", "345n F6", "346n F6", "347n F6", "348n F6", "349n F6",
+            "350n F6", "351n F6", "352n F6", "353n F6", "354n F6", "355n F6", "356n F6", "357n F6",
+            "360n F6", "361n F6", "362n F6", "363n F6", "364n F6", "365n F6", "366n F6", "367n F6", "368n F6", "369n F6",
+            "37 V8", "390n V15", "391n V18", "392n V15", "393n V18", "394n F4", "395n F6",
+            "400 V30", "401 V30", "402 F17", "403 V30", "410 F13", "411 F13", "412 F13", "413 F13", "414 F13", "415 F13",
+            "416 F13", "417 F13", "420 V20", "421 V12", "422 F3", "423 V15", "424 F3", "425 V15", "426 F3", "427 V3",
+            "7001 F13", "7002 V30", "7003 F10", "7004 V4", "7005 V12", "7006 F6", "7007 V12", "7008 V3", "7009 V10",
+            "7010 V2", "7011 V10", "7020 V20", "7021 V20", "7022 V20", "7023 V30", "703n V30", "7040 F4",
+            "710 V20", "711 V20", "712 V20", "713 V20", "714 V20", "715 V20", "716 V20", "723n V30", "7240 V20",
+            "8001 F14", "8002 V20", "8003 V30", "8004 V30", "8005 F6", "8006 F18", "8007 V34", "8008 V12", "8009 V50",
+            "8010 V30", "8011 V12", "8012 V20", "8013 V25", "8017 F18", "8018 F18", "8019 V10", "8020 V25", "8026 F18",
+            "8110 V70", "8111 F4", "8112 V70", "8200 V70", "90 V30",
+            "91 V90", "92 V90", "93 V90", "94 V90", "95 V90", "96 V90", "97 V90", "98 V90", "99 V90"
+    };
+
+    static {
+        for (String definition : DEFINITIONS) {
+            int space = definition.indexOf(' ');
+            String identifier = definition.substring(0, space);
+            boolean variable = definition.charAt(space + 1) == 'V';
+            int length = Integer.parseInt(definition.substring(space + 2));
+            int value = (variable ? VARIABLE_LENGTH : 0) | length;
+            if (identifier.endsWith("n")) {
+                int prefix = Integer.parseInt(identifier.substring(0, identifier.length() - 1));
+                for (int n = 0; n <= 9; n++) {
+                    DATA_LENGTHS[getIndex(prefix * 10 + n, identifier.length())] = (short) value;
+                }
+            } else {
+                DATA_LENGTHS[getIndex(Integer.parseInt(identifier), identifier.length())] = (short) value;
+            }
+        }
+        for (int prefix : new int[] { 0, 1, 2, 3, 4, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 31, 32, 33, 34, 35, 36, 41 }) {
+            PREDEFINED_LENGTH_PREFIXES[prefix] = true;
+        }
+    }
+
+    /**
+     * Get whether an Application Identifier is defined
+     *
+     * @param identifier The numerical value of the Application Identifier
+     * @param numDigits The number of digits of the Application Identifier, from 2 to 4
+     * @return Whether the Application Identifier is defined
+     */
+    public static boolean isDefined(int identifier, int numDigits) {
+        return numDigits >= 2 && numDigits <= 4 && DATA_LENGTHS[getIndex(identifier, numDigits)] != 0;
+    }
+
+    /**
+     * Get the length of the data field of an Application Identifier, or its largest length if it is variable
+     *
+     * @param identifier The numerical value of the Application Identifier
+     * @param numDigits The number of digits of the Application Identifier, from 2 to 4
+     * @return The length of the data field
+     */
+    public static int getDataLength(int identifier, int numDigits) {
+        return DATA_LENGTHS[getIndex(identifier, numDigits)] & ~VARIABLE_LENGTH;
+    }
+
+    /**
+     * Get whether the data field of an Application Identifier has a variable length
+     *
+     * @param identifier The numerical value of the Application Identifier
+     * @param numDigits The number of digits of the Application Identifier, from 2 to 4
+     * @return Whether the data field has a variable length
+     */
+    public static boolean isVariableLength(int identifier, int numDigits) {
+        return (DATA_LENGTHS[getIndex(identifier, numDigits)] & VARIABLE_LENGTH) != 0;
+    }
+
+    /**
+     * Get whether an element string must be followed by a separator when another element string comes after it.
+     * This depends only on the first two digits of the Application Identifier, even for fixed length data fields.
+     *
+     * @param identifier The numerical value of the Application Identifier
+     * @param numDigits The number of digits of the Application Identifier, from 2 to 4
+     * @return Whether a separator is needed after the element string
+     */
+    public static boolean needsSeparator(int identifier, int numDigits) {
+        int prefix = numDigits == 2 ? identifier : numDigits == 3 ? identifier / 10 : identifier / 100;
+        return !PREDEFINED_LENGTH_PREFIXES[prefix];
+    }
+
+    private static int getIndex(int identifier, int numDigits) {
+        return TABLE_OFFSETS[numDigits] + identifier;
+    }
+}
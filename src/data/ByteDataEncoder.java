@@ -1,6 +1,7 @@
 package data;
 
 import model.BinaryData;
+import model.MicroVersion;
 import model.Mode;
 import model.Version;
 
@@ -16,16 +17,17 @@ public class ByteDataEncoder implements DataEncoder {
     }
 
     @Override
-    public List<Integer> encode(List<Integer> data, Version version) {
-        BinaryData binaryData = new BinaryData();
+    public void encode(List<Integer> data, Version version, BinaryData binaryData) {
         binaryData.appendInt(getMode().getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
         binaryData.appendInt(data.size(), version.getCharacterCountIndicatorLength(getMode()));
+        appendCharacters(data, binaryData);
+    }
 
-        for (int i : data) {
-            binaryData.appendInt(i, 8);
-        }
-
-        return binaryData.toIntegerList();
+    @Override
+    public void encode(List<Integer> data, MicroVersion version, BinaryData binaryData) {
+        binaryData.appendInt(version.getModeIndicator(getMode()), version.getModeIndicatorLength());
+        binaryData.appendInt(data.size(), version.getCharacterCountIndicatorLength(getMode()));
+        appendCharacters(data, binaryData);
     }
 
     @Override
@@ -33,4 +35,16 @@ public class ByteDataEncoder implements DataEncoder {
         int C =  version.getCharacterCountIndicatorLength(getMode());
         return 4 + C + 8 * numCharacters;
     }
+
+    @Override
+    public int getEncodedBitStreamLength(int numCharacters, MicroVersion version) {
+        int C = version.getCharacterCountIndicatorLength(getMode());
+        return version.getModeIndicatorLength() + C + 8 * numCharacters;
+    }
+
+    private void appendCharacters(List<Integer> data, BinaryData binaryData) {
+        for (int i : data) {
+            binaryData.appendInt(i, 8);
+        }
+    }
 }
@@ -0,0 +1,268 @@
+package data;
+
+import model.BinaryData;
+import model.MicroVersion;
+import model.Mode;
+import model.Version;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data encoder for the Byte mode in a given character set, announced by an ECI header as described by
+ * section 8.4.1 of the QR Code specification ISO/IEC 18004. Without an ECI header, readers assume
+ * ISO/IEC 8859-1, so no header is written for that character set.
+ * <br />
+ * Besides encoding bytes that have already been transcoded, text can be transcoded straight into the
+ * data bit stream with {@link #encode(CharSequence, Version, BinaryData)}, which streams the characters
+ * through a pair of buffers that are reused between calls. Instances are therefore not thread-safe.
+ */
+public class CharsetDataEncoder implements DataEncoder {
+
+    /** The number of characters transcoded at a time */
+    private static final int BUFFER_SIZE = 256;
+
+    /** The ECI assignment number of each character set, as registered in the AIM ECI specification */
+    private static final Map<Charset, Integer> ECI_ASSIGNMENTS = new HashMap<>();
+
+    static {
+        ECI_ASSIGNMENTS.put(StandardCharsets.ISO_8859_1, 3);
+        for (int part = 2; part <= 16; part++) {
+            // part 12 was never published, so there is no assignment 14
+            if (part != 12) {
+                putEciAssignment("ISO-8859-" + part, part + 2);
+            }
+        }
+        putEciAssignment("Shift_JIS", 20);
+        putEciAssignment("windows-1250", 21);
+        putEciAssignment("windows-1251", 22);
+        putEciAssignment("windows-1252", 23);
+        putEciAssignment("windows-1256", 24);
+        ECI_ASSIGNMENTS.put(StandardCharsets.UTF_16BE, 25);
+        ECI_ASSIGNMENTS.put(StandardCharsets.UTF_8, 26);
+        ECI_ASSIGNMENTS.put(StandardCharsets.US_ASCII, 27);
+        putEciAssignment("Big5", 28);
+        putEciAssignment("GB18030", 29);
+        putEciAssignment("EUC-KR", 30);
+    }
+
+    private final Charset charset;
+
+    /** The ECI assignment number of the character set, or -1 if no ECI header is written */
+    private final int eciAssignment;
+
+    private final CharsetEncoder charsetEncoder;
+
+    private final CharBuffer characters = CharBuffer.allocate(BUFFER_SIZE);
+
+    private final ByteBuffer bytes;
+
+    /**
+     * Create a CharsetDataEncoder for a character set with a registered ECI assignment number
+     *
+     * @param charset The character set to encode text in
+     */
+    public CharsetDataEncoder(Charset charset) {
+        this(charset, getEciAssignment(charset));
+    }
+
+    /**
+     * Create a CharsetDataEncoder for a character set with a given ECI assignment number
+     *
+     * @param charset The character set to encode text in
+     * @param eciAssignment The ECI assignment number announcing the character set, or -1 to write no ECI header
+     */
+    public CharsetDataEncoder(Charset charset, int eciAssignment) {
+        if (eciAssignment < -1 || eciAssignment > DataEncodationUtils.MAXIMUM_ECI_ASSIGNMENT) {
+            throw new IllegalArgumentException(String.format("ECI assignment number %s is not valid", eciAssignment));
+        }
+        this.charset = charset;
+        this.eciAssignment = eciAssignment;
+        this.charsetEncoder = charset.newEncoder();
+        this.bytes = ByteBuffer.allocate((int) Math.ceil(BUFFER_SIZE * charsetEncoder.maxBytesPerChar()));
+    }
+
+    /**
+     * Get the ECI assignment number of a character set. No header is needed for ISO/IEC 8859-1, the default
+     * character set of QR symbols.
+     *
+     * @param charset The character set
+     * @return The ECI assignment number, or -1 if the character set is ISO/IEC 8859-1
+     */
+    public static int getEciAssignment(Charset charset) {
+        if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            return -1;
+        }
+        Integer assignment = ECI_ASSIGNMENTS.get(charset);
+        if (assignment == null) {
+            throw new IllegalArgumentException(String.format("Character set %s has no ECI assignment number", charset));
+        }
+        return assignment;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public int getEciAssignment() {
+        return eciAssignment;
+    }
+
+    @Override
+    public Mode getMode() {
+        return Mode.BYTE;
+    }
+
+    @Override
+    public void encode(List<Integer> data, Version version, BinaryData binaryData) {
+        appendHeader(data.size(), version, binaryData);
+        for (int i : data) {
+            binaryData.appendInt(i, 8);
+        }
+    }
+
+    @Override
+    public void encode(List<Integer> data, MicroVersion version, BinaryData binaryData) {
+        assertNoEciHeader(version);
+        binaryData.appendInt(version.getModeIndicator(getMode()), version.getModeIndicatorLength());
+        binaryData.appendInt(data.size(), version.getCharacterCountIndicatorLength(getMode()));
+        for (int i : data) {
+            binaryData.appendInt(i, 8);
+        }
+    }
+
+    /**
+     * Transcode a text into the character set of this encoder and append it to binary data, preceded by the
+     * ECI header and the Byte mode header. The bytes are written as they are transcoded, and the character
+     * count indicator is filled in once their number is known.
+     *
+     * @param text The text to encode
+     * @param version The version of the QR code to encode data for
+     * @param binaryData The binary data to append the encoded data to
+     * @return The number of bytes the text was transcoded to
+     */
+    public int encode(CharSequence text, Version version, BinaryData binaryData) {
+        appendHeader(0, version, binaryData);
+        int countLength = version.getCharacterCountIndicatorLength(getMode());
+        int countIndex = binaryData.size() - countLength;
+        int numBytes = transcode(text, binaryData);
+        if (numBytes >= 1 << countLength) {
+            throw new IllegalArgumentException(String.format("%s bytes do not fit in the character count indicator of version %s",
+                    numBytes, version.getVersion()));
+        }
+        binaryData.setInt(countIndex, numBytes, countLength);
+        return numBytes;
+    }
+
+    /**
+     * Get the number of bytes a text is transcoded to in the character set of this encoder, without keeping them
+     *
+     * @param text The text to transcode
+     * @return The number of bytes
+     */
+    public int getEncodedLength(CharSequence text) {
+        return transcode(text, null);
+    }
+
+    @Override
+    public int getEncodedBitStreamLength(int numCharacters, Version version) {
+        int C = version.getCharacterCountIndicatorLength(getMode());
+        return getEciHeaderLength() + 4 + C + 8 * numCharacters;
+    }
+
+    @Override
+    public int getEncodedBitStreamLength(int numCharacters, MicroVersion version) {
+        assertNoEciHeader(version);
+        int C = version.getCharacterCountIndicatorLength(getMode());
+        return version.getModeIndicatorLength() + C + 8 * numCharacters;
+    }
+
+    private int getEciHeaderLength() {
+        return eciAssignment < 0 ? 0 : DataEncodationUtils.getEciHeaderLength(eciAssignment);
+    }
+
+    private void appendHeader(int numCharacters, Version version, BinaryData binaryData) {
+        if (eciAssignment >= 0) {
+            DataEncodationUtils.appendEciHeader(eciAssignment, binaryData);
+        }
+        binaryData.appendInt(getMode().getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
+        binaryData.appendInt(numCharacters, version.getCharacterCountIndicatorLength(getMode()));
+    }
+
+    /**
+     * Transcode a text a buffer at a time, appending the bytes to binary data if it is given
+     *
+     * @return The number of bytes the text was transcoded to
+     */
+    private int transcode(CharSequence text, BinaryData binaryData) {
+        charsetEncoder.reset();
+        characters.clear();
+        bytes.clear();
+        int position = 0;
+        int numBytes = 0;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            while (characters.hasRemaining() && position < text.length()) {
+                characters.put(text.charAt(position++));
+            }
+            endOfInput = position == text.length();
+            characters.flip();
+            CoderResult result = charsetEncoder.encode(characters, bytes, endOfInput);
+            characters.compact();
+            throwIfError(result);
+            numBytes += drain(binaryData);
+            if (result.isOverflow()) {
+                endOfInput = false;
+            }
+        }
+        CoderResult result;
+        do {
+            result = charsetEncoder.flush(bytes);
+            throwIfError(result);
+            numBytes += drain(binaryData);
+        } while (result.isOverflow());
+        return numBytes;
+    }
+
+    private int drain(BinaryData binaryData) {
+        bytes.flip();
+        int numBytes = bytes.remaining();
+        if (binaryData != null) {
+            while (bytes.hasRemaining()) {
+                binaryData.appendInt(bytes.get() & 0xFF, 8);
+            }
+        }
+        bytes.clear();
+        return numBytes;
+    }
+
+    private void throwIfError(CoderResult result) {
+        if (result.isError()) {
+            try {
+                result.throwException();
+            } catch (CharacterCodingException e) {
+                throw new IllegalArgumentException(String.format("Text cannot be encoded in character set %s", charset), e);
+            }
+        }
+    }
+
+    private void assertNoEciHeader(MicroVersion version) {
+        if (eciAssignment >= 0) {
+            throw new IllegalArgumentException(String.format("Micro QR version %s does not support ECI headers", version));
+        }
+    }
+
+    private static void putEciAssignment(String charsetName, int assignment) {
+        if (Charset.isSupported(charsetName)) {
+            ECI_ASSIGNMENTS.put(Charset.forName(charsetName), assignment);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package data;
+
+import model.DecodeException;
+import model.Mode;
+import model.StructuredAppendHeader;
+import model.Version;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * Util class for parsing the data bit stream of a decoded symbol back into its segments,
+ * reversing the data encodation described in section 8.4 of the QR Code specification ISO/IEC 18004.
+ */
+public class DataDecodationUtils {
+
+    /** The characters of the Alphanumeric mode, indexed by their value */
+    private static final String ALPHANUMERIC_CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+
+    /** The length of the Structured Append header following the mode indicator, in bits */
+    private static final int STRUCTURED_APPEND_HEADER_LENGTH_IN_BITS = 16;
+
+    /** The length of the application indicator of FNC1 in the second position, in bits */
+    private static final int APPLICATION_INDICATOR_LENGTH_IN_BITS = 8;
+
+    /** The separator that ends a variable length data field in FNC1 mode, which is the ASCII group separator */
+    private static final int GROUP_SEPARATOR = 0x1D;
+
+    /**
+     * Parse the data codewords of a symbol, writing the bytes of each segment to an output stream. Numeric and
+     * Alphanumeric characters are written as ASCII, Byte mode bytes are written as they are and Kanji characters are
+     * written as two Shift JIS bytes. ECI designators, Structured Append headers and FNC1 indicators are
+     * recorded as segments but produce no bytes. After an FNC1 indicator, a % in Alphanumeric mode is written as
+     * the GS separator and %% as a single %, as described by section 8.4.8.1.
+     *
+     * @param dataCodewords The array holding the data codewords, one codeword per entry
+     * @param length The number of data codewords
+     * @param version The version of the symbol
+     * @param out The stream to write the decoded bytes to
+     * @param segments The list to add the mode of each segment to, in order
+     * @return The Structured Append header of the symbol, or null if the symbol is not part of a Structured Append sequence
+     * @throws DecodeException If the bit stream does not follow the specification
+     */
+    public static StructuredAppendHeader decode(int[] dataCodewords, int length, Version version, ByteArrayOutputStream out, List<Mode> segments)
+            throws DecodeException {
+        BitReader reader = new BitReader(dataCodewords, length);
+        StructuredAppendHeader structuredAppendHeader = null;
+        boolean fnc1 = false;
+        while (reader.available() >= Mode.INDICATOR_LENGTH_IN_BITS) {
+            int indicator = reader.read(Mode.INDICATOR_LENGTH_IN_BITS);
+            if (indicator == 0) {
+                // terminator
+                return structuredAppendHeader;
+            }
+            Mode mode = Mode.fromIndicator(indicator);
+            if (mode == null) {
+                throw new DecodeException(String.format("Mode indicator %s is not valid", indicator));
+            }
+            segments.add(mode);
+            switch (mode) {
+                case NUMERIC:
+                    decodeNumeric(reader, reader.read(version.getCharacterCountIndicatorLength(mode)), out);
+                    break;
+                case ALPHANUMERIC:
+                    decodeAlphanumeric(reader, reader.read(version.getCharacterCountIndicatorLength(mode)), fnc1, out);
+                    break;
+                case BYTE:
+                    decodeByte(reader, reader.read(version.getCharacterCountIndicatorLength(mode)), out);
+                    break;
+                case KANJI:
+                    decodeKanji(reader, reader.read(version.getCharacterCountIndicatorLength(mode)), out);
+                    break;
+                case ECI:
+                    readEciDesignator(reader);
+                    break;
+                case STRUCTURED_APPEND:
+                    structuredAppendHeader = readStructuredAppendHeader(reader);
+                    break;
+                case FNC1_FIRST_POSITION:
+                    fnc1 = true;
+                    break;
+                case FNC1_SECOND_POSITION:
+                    reader.read(APPLICATION_INDICATOR_LENGTH_IN_BITS);
+                    fnc1 = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return structuredAppendHeader;
+    }
+
+    private static StructuredAppendHeader readStructuredAppendHeader(BitReader reader) throws DecodeException {
+        int bits = reader.read(STRUCTURED_APPEND_HEADER_LENGTH_IN_BITS);
+        int position = bits >>> 12;
+        int total = (bits >>> 8 & 0xF) + 1;
+        if (position >= total) {
+            throw new DecodeException(String.format("Structured Append position %s is not valid for %s symbols", position, total));
+        }
+        return StructuredAppendHeader.fromBits(bits);
+    }
+
+    /**
+     * Read an ECI designator of 1, 2 or 3 bytes, as described by section 8.4.1.1 of the QR Code specification
+     *
+     * @return The ECI assignment number
+     */
+    static int readEciDesignator(BitReader reader) throws DecodeException {
+        int first = reader.read(8);
+        if ((first & 0x80) == 0) {
+            return first;
+        } else if ((first & 0xC0) == 0x80) {
+            return ((first & 0x3F) << 8) | reader.read(8);
+        } else if ((first & 0xE0) == 0xC0) {
+            return ((first & 0x1F) << 16) | reader.read(16);
+        }
+        throw new DecodeException(String.format("ECI designator %s is not valid", first));
+    }
+
+    private static void decodeNumeric(BitReader reader, int count, ByteArrayOutputStream out) throws DecodeException {
+        while (count >= 3) {
+            writeDigits(reader.read(10), 3, 999, out);
+            count -= 3;
+        }
+        if (count == 2) {
+            writeDigits(reader.read(7), 2, 99, out);
+        } else if (count == 1) {
+            writeDigits(reader.read(4), 1, 9, out);
+        }
+    }
+
+    private static void writeDigits(int value, int numDigits, int max, ByteArrayOutputStream out) throws DecodeException {
+        if (value > max) {
+            throw new DecodeException(String.format("Numeric value %s is not valid", value));
+        }
+        for (int divisor = numDigits == 3 ? 100 : numDigits == 2 ? 10 : 1; divisor > 0; divisor /= 10) {
+            out.write('0' + (value / divisor) % 10);
+        }
+    }
+
+    private static void decodeAlphanumeric(BitReader reader, int count, boolean fnc1, ByteArrayOutputStream out)
+            throws DecodeException {
+        int numCharacters = ALPHANUMERIC_CHARACTERS.length();
+        boolean percent = false;
+        while (count > 0) {
+            int value;
+            int pairValue = -1;
+            if (count >= 2) {
+                value = reader.read(11);
+                if (value >= numCharacters * numCharacters) {
+                    throw new DecodeException(String.format("Alphanumeric value %s is not valid", value));
+                }
+                pairValue = value % numCharacters;
+                value /= numCharacters;
+                count -= 2;
+            } else {
+                value = reader.read(6);
+                if (value >= numCharacters) {
+                    throw new DecodeException(String.format("Alphanumeric value %s is not valid", value));
+                }
+                count--;
+            }
+            percent = writeAlphanumeric(ALPHANUMERIC_CHARACTERS.charAt(value), fnc1, percent, out);
+            if (pairValue >= 0) {
+                percent = writeAlphanumeric(ALPHANUMERIC_CHARACTERS.charAt(pairValue), fnc1, percent, out);
+            }
+        }
+        if (percent) {
+            out.write(GROUP_SEPARATOR);
+        }
+    }
+
+    /**
+     * Write an Alphanumeric character, holding back a % in FNC1 mode until the character after it shows whether
+     * it is a separator or the first half of an escaped %
+     *
+     * @return Whether a % is held back
+     */
+    private static boolean writeAlphanumeric(char c, boolean fnc1, boolean percent, ByteArrayOutputStream out) {
+        if (!fnc1) {
+            out.write(c);
+            return false;
+        }
+        if (c == '%') {
+            if (percent) {
+                out.write('%');
+                return false;
+            }
+            return true;
+        }
+        if (percent) {
+            out.write(GROUP_SEPARATOR);
+        }
+        out.write(c);
+        return false;
+    }
+
+    private static void decodeByte(BitReader reader, int count, ByteArrayOutputStream out) throws DecodeException {
+        for (int i = 0; i < count; i++) {
+            out.write(reader.read(8));
+        }
+    }
+
+    private static void decodeKanji(BitReader reader, int count, ByteArrayOutputStream out) throws DecodeException {
+        for (int i = 0; i < count; i++) {
+            int value = reader.read(13);
+            int shiftJis = ((value / 0xC0) << 8) | (value % 0xC0);
+            shiftJis += shiftJis < 0x1F00 ? 0x8140 : 0xC140;
+            out.write(shiftJis >> 8);
+            out.write(shiftJis & 0xFF);
+        }
+    }
+
+    /**
+     * Reader of bits from an array of codewords, starting from the most significant bit of the first codeword
+     */
+    static class BitReader {
+
+        private final int[] codewords;
+
+        private final int length;
+
+        private int position;
+
+        BitReader(int[] codewords, int length) {
+            this.codewords = codewords;
+            this.length = length;
+        }
+
+        int available() {
+            return length * 8 - position;
+        }
+
+        int read(int numBits) throws DecodeException {
+            if (numBits > available()) {
+                throw new DecodeException("Data bit stream ended unexpectedly");
+            }
+            int result = 0;
+            for (int i = 0; i < numBits; i++) {
+                int bit = (codewords[position / 8] >>> (7 - position % 8)) & 1;
+                result = (result << 1) | bit;
+                position++;
+            }
+            return result;
+        }
+    }
+}
@@ -1,10 +1,19 @@
 package data;
 
+import model.BinaryData;
+import model.CodewordCapacity;
+import model.ErrorCorrectionLevel;
+import model.MicroCodewordCapacity;
+import model.MicroVersion;
+import model.Mode;
 import model.Version;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -14,6 +23,238 @@ import java.util.List;
  */
 public class DataEncodationUtils {
 
+    /** The maximum length of the terminator appended to the end of the data bit stream */
+    private static final int TERMINATOR_LENGTH_IN_BITS = 4;
+
+    /** The pad codewords that alternately fill the remaining data capacity of a symbol */
+    private static final int[] PAD_CODEWORDS = { 0b11101100, 0b00010001 };
+
+    /** The largest ECI assignment number that can be written in a 1 and 2 byte designator */
+    private static final int MAXIMUM_ONE_BYTE_ECI_ASSIGNMENT = 127;
+    private static final int MAXIMUM_TWO_BYTE_ECI_ASSIGNMENT = 16383;
+
+    /** The largest ECI assignment number */
+    public static final int MAXIMUM_ECI_ASSIGNMENT = 999999;
+
+    /**
+     * Get the data encoder best suited for a given text. Text consisting only of the digits 0-9 is
+     * encoded in Numeric mode, and any other text is encoded in Byte mode as UTF-8.
+     *
+     * @param text The text to be encoded
+     * @return The data encoder to encode the text with
+     */
+    public static DataEncoder getEncoder(String text) {
+        if (!text.isEmpty() && text.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return new NumericDataEncoder();
+        }
+        return new ByteDataEncoder();
+    }
+
+    /**
+     * Get the characters of a text in the form expected by a data encoder. For Numeric mode each character
+     * is the value of a digit, for Alphanumeric mode it is the value of the character in table 5, and for Byte mode
+     * each character is an unsigned byte of the UTF-8 encoding, or of the charset of a {@link CharsetDataEncoder}.
+     *
+     * @param text The text to be encoded
+     * @param encoder The data encoder the characters will be encoded with
+     * @return The characters of the text
+     */
+    public static List<Integer> getCharacters(String text, DataEncoder encoder) {
+        List<Integer> characters = new ArrayList<>(text.length());
+        switch (encoder.getMode()) {
+            case NUMERIC:
+                text.chars().forEach(c -> characters.add(c - '0'));
+                break;
+            case ALPHANUMERIC:
+                for (int i = 0; i < text.length(); i++) {
+                    int value = AlphanumericDataEncoder.getValue(text.charAt(i));
+                    if (value < 0) {
+                        throw new IllegalArgumentException(String.format("Character %s cannot be encoded in Alphanumeric mode", text.charAt(i)));
+                    }
+                    characters.add(value);
+                }
+                break;
+            case BYTE:
+                Charset charset = encoder instanceof CharsetDataEncoder
+                        ? ((CharsetDataEncoder) encoder).getCharset()
+                        : StandardCharsets.UTF_8;
+                for (byte b : text.getBytes(charset)) {
+                    characters.add(b & 0xFF);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Mode %s is not supported", encoder.getMode()));
+        }
+        return characters;
+    }
+
+    /**
+     * Append an ECI header, which is the ECI mode indicator followed by the ECI designator of an assignment number,
+     * as described by section 8.4.1.1 of the QR Code specification ISO/IEC 18004. The designator is 1 byte for
+     * assignment numbers up to 127, 2 bytes up to 16383 and 3 bytes up to 999999.
+     *
+     * @param assignment The ECI assignment number
+     * @param binaryData The binary data to append the header to
+     */
+    public static void appendEciHeader(int assignment, BinaryData binaryData) {
+        binaryData.appendInt(Mode.ECI.getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
+        if (assignment < 0 || assignment > MAXIMUM_ECI_ASSIGNMENT) {
+            throw new IllegalArgumentException(String.format("ECI assignment number %s is not valid", assignment));
+        } else if (assignment <= MAXIMUM_ONE_BYTE_ECI_ASSIGNMENT) {
+            binaryData.appendInt(assignment, 8);
+        } else if (assignment <= MAXIMUM_TWO_BYTE_ECI_ASSIGNMENT) {
+            binaryData.appendInt(0b10 << 14 | assignment, 16);
+        } else {
+            binaryData.appendInt(0b110 << 21 | assignment, 24);
+        }
+    }
+
+    /**
+     * Get the length of the ECI header of an assignment number
+     *
+     * @param assignment The ECI assignment number
+     * @return The length of the ECI mode indicator and designator in bits
+     */
+    public static int getEciHeaderLength(int assignment) {
+        int designatorLength = assignment <= MAXIMUM_ONE_BYTE_ECI_ASSIGNMENT ? 8 : assignment <= MAXIMUM_TWO_BYTE_ECI_ASSIGNMENT ? 16 : 24;
+        return Mode.INDICATOR_LENGTH_IN_BITS + designatorLength;
+    }
+
+    /**
+     * Get the smallest version that can hold a given number of characters in the mode of a data encoder
+     * at a given error correction level.
+     *
+     * @param encoder The data encoder the characters will be encoded with
+     * @param numCharacters The number of characters to be encoded
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The smallest version with enough data capacity
+     */
+    public static Version getMinimumVersion(DataEncoder encoder, int numCharacters, ErrorCorrectionLevel errorCorrectionLevel) {
+        for (int v = Version.MINIMUM_VERSION; v <= Version.MAXIMUM_VERSION; v++) {
+            Version version = new Version(v);
+            if (encoder.getEncodedBitStreamLength(numCharacters, version)
+                    <= CodewordCapacity.getDataCodewords(version, errorCorrectionLevel) * 8) {
+                return version;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "%s characters do not fit in any version at error correction level %s", numCharacters, errorCorrectionLevel));
+    }
+
+    /**
+     * Get the data codewords of a symbol, as described in section 8.4.8 and 8.4.9 of the QR Code specification.
+     * The characters are encoded, followed by the terminator, 0 bits up to the next codeword boundary and
+     * then pad codewords until the data capacity of the symbol is filled.
+     *
+     * @param encoder The data encoder to encode the characters with
+     * @param data The characters to be encoded
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return A list of bytes with one entry for each data codeword of the symbol
+     */
+    public static List<Integer> getDataCodewords(DataEncoder encoder, List<Integer> data, Version version,
+                                                 ErrorCorrectionLevel errorCorrectionLevel) {
+        BinaryData binaryData = new BinaryData();
+        encoder.encode(data, version, binaryData);
+        return getDataCodewords(binaryData, version, errorCorrectionLevel);
+    }
+
+    /**
+     * Terminate and pad an encoded data bit stream to fill the data capacity of a symbol.
+     *
+     * @param binaryData The encoded data bit stream, including the mode and character count indicators
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return A list of bytes with one entry for each data codeword of the symbol
+     */
+    public static List<Integer> getDataCodewords(BinaryData binaryData, Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        int capacity = CodewordCapacity.getDataCodewords(version, errorCorrectionLevel);
+        if (binaryData.size() > capacity * 8) {
+            throw new IllegalArgumentException(String.format(
+                    "%s bits do not fit in version %s at error correction level %s",
+                    binaryData.size(), version.getVersion(), errorCorrectionLevel));
+        }
+        // the terminator and the bits up to the codeword boundary are all 0, so they are left unset
+        int terminatedLength = Math.min(binaryData.size() + TERMINATOR_LENGTH_IN_BITS, capacity * 8);
+        binaryData.appendInt(0, terminatedLength - binaryData.size());
+        binaryData.appendInt(0, (8 - binaryData.size() % 8) % 8);
+
+        List<Integer> codewords = binaryData.toIntegerList();
+        for (int i = 0; codewords.size() < capacity; i++) {
+            codewords.add(PAD_CODEWORDS[i % PAD_CODEWORDS.length]);
+        }
+        return codewords;
+    }
+
+    /**
+     * Get the smallest Micro QR version that can hold a given number of characters in the mode of a data encoder
+     * at a given error correction level.
+     *
+     * @param encoder The data encoder the characters will be encoded with
+     * @param numCharacters The number of characters to be encoded
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The smallest Micro QR version with enough data capacity
+     */
+    public static MicroVersion getMinimumMicroVersion(DataEncoder encoder, int numCharacters, ErrorCorrectionLevel errorCorrectionLevel) {
+        for (int v = MicroVersion.MINIMUM_VERSION; v <= MicroVersion.MAXIMUM_VERSION; v++) {
+            MicroVersion version = new MicroVersion(v);
+            if (version.isModeSupported(encoder.getMode())
+                    && MicroCodewordCapacity.isSupported(version, errorCorrectionLevel)
+                    && encoder.getEncodedBitStreamLength(numCharacters, version)
+                    <= MicroCodewordCapacity.getDataCapacityInBits(version, errorCorrectionLevel)) {
+                return version;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "%s characters do not fit in any Micro QR version at error correction level %s", numCharacters, errorCorrectionLevel));
+    }
+
+    /**
+     * Get the data codewords of a Micro QR symbol. The characters are encoded, followed by the terminator
+     * of the version, 0 bits up to the next codeword boundary and then pad codewords until the data capacity
+     * of the symbol is filled.
+     *
+     * @param encoder The data encoder to encode the characters with
+     * @param data The characters to be encoded
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return A list of bytes with one entry for each data codeword of the symbol
+     */
+    public static List<Integer> getDataCodewords(DataEncoder encoder, List<Integer> data, MicroVersion version,
+                                                 ErrorCorrectionLevel errorCorrectionLevel) {
+        BinaryData binaryData = new BinaryData();
+        encoder.encode(data, version, binaryData);
+        return getDataCodewords(binaryData, version, errorCorrectionLevel);
+    }
+
+    /**
+     * Terminate and pad an encoded data bit stream to fill the data capacity of a Micro QR symbol. In M1 and M3
+     * the last data codeword is only 4 bits long, which is returned in the upper 4 bits of its entry and is
+     * padded with 0 bits instead of a pad codeword.
+     *
+     * @param binaryData The encoded data bit stream, including the mode and character count indicators
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return A list of bytes with one entry for each data codeword of the symbol
+     */
+    public static List<Integer> getDataCodewords(BinaryData binaryData, MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        int capacityInBits = MicroCodewordCapacity.getDataCapacityInBits(version, errorCorrectionLevel);
+        if (binaryData.size() > capacityInBits) {
+            throw new IllegalArgumentException(String.format(
+                    "%s bits do not fit in Micro QR version %s at error correction level %s",
+                    binaryData.size(), version, errorCorrectionLevel));
+        }
+        int terminatedLength = Math.min(binaryData.size() + version.getTerminatorLength(), capacityInBits);
+        binaryData.appendInt(0, terminatedLength - binaryData.size());
+        binaryData.appendInt(0, Math.min((8 - binaryData.size() % 8) % 8, capacityInBits - binaryData.size()));
+
+        for (int i = 0; capacityInBits - binaryData.size() >= 8; i++) {
+            binaryData.appendInt(PAD_CODEWORDS[i % PAD_CODEWORDS.length], 8);
+        }
+        binaryData.appendInt(0, capacityInBits - binaryData.size());
+        return binaryData.toIntegerList();
+    }
+
     // Test that a list of numbers can be encoded in Numeric mode,
     // and that an arbitrary input can be encoded in Byte mode
     public static void main(String[] args) {
@@ -22,7 +263,7 @@ public class DataEncodationUtils {
         List<Integer> result = new NumericDataEncoder().encode(data, new Version(1));
         System.out.println(result);
         // 00010000 00100000 00001100 01010110 01100001 1|0000000 implied
-        // 16       32       12       86       97       -128
+        // 16       32       12       86       97       128
 
         BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
         try {
@@ -1,5 +1,7 @@
 package data;
 
+import model.BinaryData;
+import model.MicroVersion;
 import model.Mode;
 import model.Version;
 
@@ -22,7 +24,20 @@ public interface DataEncoder {
      * @param version The version of the QR code to encode data for
      * @return A list of bytes representing the encoded data with no error correction
      */
-    List<Integer> encode(List<Integer> data, Version version);
+    default List<Integer> encode(List<Integer> data, Version version) {
+        BinaryData binaryData = new BinaryData();
+        encode(data, version, binaryData);
+        return binaryData.toIntegerList();
+    }
+
+    /**
+     * Encode a list of bytes for a given version of QR code in the mode of this encoder,
+     * appending the mode indicator, character count indicator and data bits to existing binary data
+     * @param data The bytes of data to encode
+     * @param version The version of the QR code to encode data for
+     * @param binaryData The binary data to append the encoded data to
+     */
+    void encode(List<Integer> data, Version version, BinaryData binaryData);
 
     /**
      * Get the length in bits of the encoded data for a given number of characters and version
@@ -31,4 +46,21 @@ public interface DataEncoder {
      * @return The number of bits in the encoded data
      */
     int getEncodedBitStreamLength(int numCharacters, Version version);
+
+    /**
+     * Encode a list of bytes for a given version of Micro QR code in the mode of this encoder,
+     * appending the mode indicator, character count indicator and data bits to existing binary data
+     * @param data The bytes of data to encode
+     * @param version The version of the Micro QR code to encode data for
+     * @param binaryData The binary data to append the encoded data to
+     */
+    void encode(List<Integer> data, MicroVersion version, BinaryData binaryData);
+
+    /**
+     * Get the length in bits of the encoded data for a given number of characters and version of Micro QR code
+     * @param numCharacters The number of characters to be encoded
+     * @param version The version of the Micro QR code to encode data for
+     * @return The number of bits in the encoded data
+     */
+    int getEncodedBitStreamLength(int numCharacters, MicroVersion version);
 }
@@ -0,0 +1,127 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Parser of GS1 element strings written in their human readable form, such as {@code (01)09501101530003(10)AB12},
+ * into the concatenated form that is encoded in a symbol in FNC1 mode. Each Application Identifier is looked up in
+ * {@link ApplicationIdentifiers} to check the length of its data field, and a GS separator is placed after every
+ * element string that does not have a predefined length, unless it is the last one.
+ * <br />
+ * The element string is parsed in a single pass into a buffer that is reused between calls, so instances are not
+ * thread-safe. A data field ends at the next opening parenthesis, so data fields cannot contain one.
+ */
+public class ElementStringParser {
+
+    /** The separator that ends a variable length data field, which is the ASCII group separator */
+    public static final char GROUP_SEPARATOR = 0x1D;
+
+    /** The concatenated element strings */
+    private char[] buffer = new char[64];
+
+    private int length;
+
+    private int numElements;
+
+    /**
+     * Parse element strings in their human readable form
+     *
+     * @param elementString The element strings, each an Application Identifier in parentheses followed by its data field
+     * @return The number of characters of the concatenated element strings
+     */
+    public int parse(CharSequence elementString) {
+        length = 0;
+        numElements = 0;
+        ensureCapacity(elementString.length());
+        int position = 0;
+        boolean separatorNeeded = false;
+        while (position < elementString.length()) {
+            if (elementString.charAt(position) != '(') {
+                throw new IllegalArgumentException(String.format("Expected an Application Identifier at position %s of %s",
+                        position, elementString));
+            }
+            if (separatorNeeded) {
+                buffer[length++] = GROUP_SEPARATOR;
+            }
+
+            // Application Identifier
+            int identifierStart = ++position;
+            int identifier = 0;
+            while (position < elementString.length() && isDigit(elementString.charAt(position))) {
+                identifier = identifier * 10 + elementString.charAt(position) - '0';
+                buffer[length++] = elementString.charAt(position++);
+            }
+            int numDigits = position - identifierStart;
+            if (position == elementString.length() || elementString.charAt(position) != ')'
+                    || !ApplicationIdentifiers.isDefined(identifier, numDigits)) {
+                throw new IllegalArgumentException(String.format("Application Identifier at position %s of %s is not valid",
+                        identifierStart, elementString));
+            }
+
+            // data field
+            int dataStart = ++position;
+            while (position < elementString.length() && elementString.charAt(position) != '(') {
+                char c = elementString.charAt(position);
+                if (c <= ' ' || c > '~') {
+                    throw new IllegalArgumentException(String.format("Character %s at position %s of %s is not valid in a data field",
+                            (int) c, position, elementString));
+                }
+                buffer[length++] = c;
+                position++;
+            }
+            int dataLength = position - dataStart;
+            int expectedLength = ApplicationIdentifiers.getDataLength(identifier, numDigits);
+            boolean variable = ApplicationIdentifiers.isVariableLength(identifier, numDigits);
+            if (variable ? dataLength == 0 || dataLength > expectedLength : dataLength != expectedLength) {
+                throw new IllegalArgumentException(String.format("Data field of Application Identifier %s has %s characters, expected %s%s",
+                        elementString.subSequence(identifierStart, identifierStart + numDigits), dataLength,
+                        variable ? "at most " : "", expectedLength));
+            }
+            separatorNeeded = ApplicationIdentifiers.needsSeparator(identifier, numDigits);
+            numElements++;
+        }
+        if (numElements == 0) {
+            throw new IllegalArgumentException("Element string is empty");
+        }
+        return length;
+    }
+
+    /**
+     * Get the buffer holding the concatenated element strings of the last parse, which is only valid up to
+     * {@link #getLength()} and until the next parse
+     *
+     * @return The buffer
+     */
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getNumberOfElements() {
+        return numElements;
+    }
+
+    /**
+     * Get the concatenated element strings of the last parse
+     *
+     * @return The concatenated element strings, with GS separators
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        // the concatenated form drops two parentheses per element string and adds at most one separator
+        if (buffer.length < capacity) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
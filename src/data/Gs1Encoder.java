@@ -0,0 +1,306 @@
+package data;
+
+import model.BinaryData;
+import model.CodewordCapacity;
+import model.ErrorCorrectionLevel;
+import model.Mode;
+import model.Version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encoder of GS1 element strings in FNC1 mode, as described by section 8.4.8 of the QR Code specification
+ * ISO/IEC 18004. The FNC1 in first position indicator is followed by the concatenated element strings, split into
+ * Numeric, Alphanumeric and Byte segments so that the digits of Application Identifiers and numeric data fields
+ * take up as few bits as possible. In Alphanumeric segments the GS separator is written as %, and a literal %
+ * is written as %%.
+ * <br />
+ * The segments are chosen by finding the cheapest mode for each character given the mode of the one before it,
+ * counting the mode and character count indicators of every segment. Element strings are parsed with a reusable
+ * {@link ElementStringParser} and segmented into reusable arrays, so instances are not thread-safe.
+ */
+public class Gs1Encoder {
+
+    /** The modes a character can be encoded in, in order of the cost table indices */
+    private static final Mode[] MODES = { Mode.NUMERIC, Mode.ALPHANUMERIC, Mode.BYTE };
+
+    /** The first version of each range of versions sharing the same character count indicator lengths */
+    private static final int[] VERSION_CLASS_STARTS = { 1, 10, 27, Version.MAXIMUM_VERSION + 1 };
+
+    private static final int NUMERIC = 0;
+    private static final int ALPHANUMERIC = 1;
+    private static final int BYTE = 2;
+
+    /** A cost larger than that of any real encoding */
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+
+    private final ElementStringParser parser = new ElementStringParser();
+
+    /** The mode each character is encoded in, given the mode of the character after it, indexed by 3 * position + mode */
+    private byte[] previousModes = new byte[3 * 64];
+
+    /** The mode, first character and end character of each segment */
+    private byte[] segmentModes = new byte[16];
+    private int[] segmentStarts = new int[16];
+    private int[] segmentEnds = new int[16];
+
+    private int numSegments;
+
+    /** The cost of the mode and character count indicators of each mode, in sixths of a bit */
+    private final int[] headerCosts = new int[3];
+
+    /**
+     * Parse element strings in their human readable form, so that they can be encoded
+     *
+     * @param elementString The element strings, each an Application Identifier in parentheses followed by its data field
+     * @return The parser holding the concatenated element strings
+     */
+    public ElementStringParser parse(CharSequence elementString) {
+        parser.parse(elementString);
+        return parser;
+    }
+
+    /**
+     * Get the smallest version that can hold the last parsed element strings at a given error correction level
+     *
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The smallest version
+     */
+    public Version getMinimumVersion(ErrorCorrectionLevel errorCorrectionLevel) {
+        for (int c = 0; c + 1 < VERSION_CLASS_STARTS.length; c++) {
+            int bits = segment(new Version(VERSION_CLASS_STARTS[c]));
+            for (int v = VERSION_CLASS_STARTS[c]; v < VERSION_CLASS_STARTS[c + 1]; v++) {
+                Version version = new Version(v);
+                if (bits <= CodewordCapacity.getDataCodewords(version, errorCorrectionLevel) * 8) {
+                    return version;
+                }
+            }
+        }
+        throw new IllegalArgumentException(String.format("Element string %s does not fit in any version at error correction level %s",
+                parser, errorCorrectionLevel));
+    }
+
+    /**
+     * Get the length of the encoded last parsed element strings in a given version, including the FNC1 indicator
+     *
+     * @param version The version of the QR code to encode data for
+     * @return The number of bits of the encoded element strings
+     */
+    public int getEncodedBitStreamLength(Version version) {
+        return segment(version);
+    }
+
+    /**
+     * Append the FNC1 in first position indicator and the segments of the last parsed element strings to binary data
+     *
+     * @param version The version of the QR code to encode data for
+     * @param binaryData The binary data to append the encoded data to
+     */
+    public void encode(Version version, BinaryData binaryData) {
+        segment(version);
+        char[] data = parser.getBuffer();
+        binaryData.appendInt(Mode.FNC1_FIRST_POSITION.getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
+        for (int s = 0; s < numSegments; s++) {
+            int start = segmentStarts[s];
+            int end = segmentEnds[s];
+            Mode mode = MODES[segmentModes[s]];
+            int countLength = version.getCharacterCountIndicatorLength(mode);
+            int count = getCharacterCount(segmentModes[s], data, start, end);
+            if (count >= 1 << countLength) {
+                throw new IllegalArgumentException(String.format("%s characters do not fit in the %s character count indicator of version %s",
+                        count, mode, version.getVersion()));
+            }
+            binaryData.appendInt(mode.getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
+            binaryData.appendInt(count, countLength);
+            switch (segmentModes[s]) {
+                case NUMERIC:
+                    appendDigits(data, start, end, binaryData);
+                    break;
+                case ALPHANUMERIC:
+                    appendAlphanumeric(data, start, end, binaryData);
+                    break;
+                default:
+                    for (int i = start; i < end; i++) {
+                        binaryData.appendInt(data[i], 8);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Get the modes of the last encoded element strings, starting with the FNC1 in first position indicator
+     *
+     * @return The mode of each segment, in order
+     */
+    public List<Mode> getSegmentModes() {
+        List<Mode> modes = new ArrayList<>(numSegments + 1);
+        modes.add(Mode.FNC1_FIRST_POSITION);
+        for (int s = 0; s < numSegments; s++) {
+            modes.add(MODES[segmentModes[s]]);
+        }
+        return modes;
+    }
+
+    /**
+     * Split the last parsed element strings into the segments that take up the fewest bits in a version
+     *
+     * @return The number of bits of the encoded element strings, including the FNC1 indicator
+     */
+    private int segment(Version version) {
+        char[] data = parser.getBuffer();
+        int length = parser.getLength();
+        if (previousModes.length < 3 * length) {
+            previousModes = new byte[3 * length];
+        }
+
+        // costs are in sixths of a bit, so that each mode has a whole cost per character
+        for (int m = 0; m < 3; m++) {
+            headerCosts[m] = 6 * (Mode.INDICATOR_LENGTH_IN_BITS + version.getCharacterCountIndicatorLength(MODES[m]));
+        }
+        int numeric = 0;
+        int alphanumeric = 0;
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = data[i];
+            int cheapest = i == 0 ? 0 : Math.min(numeric, Math.min(alphanumeric, bytes));
+            int cheapestMode = i == 0 ? -1 : cheapest == numeric ? NUMERIC : cheapest == alphanumeric ? ALPHANUMERIC : BYTE;
+
+            int nextNumeric = UNREACHABLE;
+            if (c >= '0' && c <= '9') {
+                nextNumeric = choose(i, NUMERIC, numeric, cheapest + headerCosts[NUMERIC], cheapestMode) + 20;
+            }
+            int nextAlphanumeric = UNREACHABLE;
+            if (c == ElementStringParser.GROUP_SEPARATOR || AlphanumericDataEncoder.getValue(c) >= 0) {
+                nextAlphanumeric = choose(i, ALPHANUMERIC, alphanumeric, cheapest + headerCosts[ALPHANUMERIC], cheapestMode)
+                        + (c == '%' ? 66 : 33);
+            }
+            int nextBytes = choose(i, BYTE, bytes, cheapest + headerCosts[BYTE], cheapestMode) + 48;
+
+            numeric = nextNumeric;
+            alphanumeric = nextAlphanumeric;
+            bytes = nextBytes;
+        }
+
+        // follow the modes back from the cheapest final mode
+        int mode = numeric <= alphanumeric && numeric <= bytes ? NUMERIC : alphanumeric <= bytes ? ALPHANUMERIC : BYTE;
+        numSegments = 0;
+        int end = length;
+        for (int i = length - 1; i >= 0; i--) {
+            int previous = previousModes[3 * i + mode];
+            if (previous != mode) {
+                addSegment(mode, i, end);
+                end = i;
+                mode = previous;
+            }
+        }
+        reverseSegments();
+
+        int bits = Mode.INDICATOR_LENGTH_IN_BITS;
+        for (int s = 0; s < numSegments; s++) {
+            int count = getCharacterCount(segmentModes[s], data, segmentStarts[s], segmentEnds[s]);
+            bits += headerCosts[segmentModes[s]] / 6;
+            switch (segmentModes[s]) {
+                case NUMERIC:
+                    bits += NumericDataEncoder.getCharacterBitsLength(count);
+                    break;
+                case ALPHANUMERIC:
+                    bits += AlphanumericDataEncoder.getCharacterBitsLength(count);
+                    break;
+                default:
+                    bits += 8 * count;
+                    break;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Choose between continuing the segment of the previous character and starting a new segment, recording the choice
+     *
+     * @return The cost before the character of the cheaper choice
+     */
+    private int choose(int position, int mode, int continueCost, int startCost, int cheapestMode) {
+        if (position > 0 && continueCost <= startCost) {
+            previousModes[3 * position + mode] = (byte) mode;
+            return continueCost;
+        }
+        previousModes[3 * position + mode] = (byte) cheapestMode;
+        return startCost;
+    }
+
+    private void addSegment(int mode, int start, int end) {
+        if (numSegments == segmentModes.length) {
+            segmentModes = Arrays.copyOf(segmentModes, numSegments * 2);
+            segmentStarts = Arrays.copyOf(segmentStarts, numSegments * 2);
+            segmentEnds = Arrays.copyOf(segmentEnds, numSegments * 2);
+        }
+        segmentModes[numSegments] = (byte) mode;
+        segmentStarts[numSegments] = start;
+        segmentEnds[numSegments] = end;
+        numSegments++;
+    }
+
+    private void reverseSegments() {
+        for (int s = 0, t = numSegments - 1; s < t; s++, t--) {
+            byte mode = segmentModes[s];
+            segmentModes[s] = segmentModes[t];
+            segmentModes[t] = mode;
+            int start = segmentStarts[s];
+            segmentStarts[s] = segmentStarts[t];
+            segmentStarts[t] = start;
+            int end = segmentEnds[s];
+            segmentEnds[s] = segmentEnds[t];
+            segmentEnds[t] = end;
+        }
+    }
+
+    /**
+     * Get the number of characters of a segment, counting a literal % twice in Alphanumeric mode
+     */
+    private static int getCharacterCount(int mode, char[] data, int start, int end) {
+        int count = end - start;
+        if (mode == ALPHANUMERIC) {
+            for (int i = start; i < end; i++) {
+                if (data[i] == '%') {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void appendDigits(char[] data, int start, int end, BinaryData binaryData) {
+        int i = start;
+        for (; i + 3 <= end; i += 3) {
+            binaryData.appendInt((data[i] - '0') * 100 + (data[i + 1] - '0') * 10 + (data[i + 2] - '0'), 10);
+        }
+        if (end - i == 2) {
+            binaryData.appendInt((data[i] - '0') * 10 + (data[i + 1] - '0'), 7);
+        } else if (end - i == 1) {
+            binaryData.appendInt(data[i] - '0', 4);
+        }
+    }
+
+    private static void appendAlphanumeric(char[] data, int start, int end, BinaryData binaryData) {
+        int percent = AlphanumericDataEncoder.getValue('%');
+        // characters are taken in pairs of 11 bits, so a value waits until the value after it is known
+        int pending = -1;
+        for (int i = start; i < end; i++) {
+            int value = data[i] == ElementStringParser.GROUP_SEPARATOR ? percent : AlphanumericDataEncoder.getValue(data[i]);
+            for (int n = data[i] == '%' ? 2 : 1; n > 0; n--) {
+                if (pending < 0) {
+                    pending = value;
+                } else {
+                    binaryData.appendInt(pending * 45 + value, 11);
+                    pending = -1;
+                }
+            }
+        }
+        if (pending >= 0) {
+            binaryData.appendInt(pending, 6);
+        }
+    }
+}
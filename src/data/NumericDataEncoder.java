@@ -1,6 +1,7 @@
 package data;
 
 import model.BinaryData;
+import model.MicroVersion;
 import model.Mode;
 import model.Version;
 
@@ -16,11 +17,20 @@ public class NumericDataEncoder implements DataEncoder {
     }
 
     @Override
-    public List<Integer> encode(List<Integer> data, Version version) {
-        BinaryData binaryData = new BinaryData();
+    public void encode(List<Integer> data, Version version, BinaryData binaryData) {
         binaryData.appendInt(getMode().getIndicator(), 4);
         binaryData.appendInt(data.size(), version.getCharacterCountIndicatorLength(getMode()));
+        appendCharacters(data, binaryData);
+    }
+
+    @Override
+    public void encode(List<Integer> data, MicroVersion version, BinaryData binaryData) {
+        binaryData.appendInt(version.getModeIndicator(getMode()), version.getModeIndicatorLength());
+        binaryData.appendInt(data.size(), version.getCharacterCountIndicatorLength(getMode()));
+        appendCharacters(data, binaryData);
+    }
 
+    private void appendCharacters(List<Integer> data, BinaryData binaryData) {
         int i = 0;
         while (i < data.size()) {
             int temp = 0;
@@ -37,14 +47,28 @@ public class NumericDataEncoder implements DataEncoder {
             }
             binaryData.appendInt(temp, numBits);
         }
-
-        return binaryData.toIntegerList();
     }
 
     @Override
     public int getEncodedBitStreamLength(int numCharacters, Version version) {
         int C = version.getCharacterCountIndicatorLength(getMode());
+        return 4 + C + getCharacterBitsLength(numCharacters);
+    }
+
+    @Override
+    public int getEncodedBitStreamLength(int numCharacters, MicroVersion version) {
+        int C = version.getCharacterCountIndicatorLength(getMode());
+        return version.getModeIndicatorLength() + C + getCharacterBitsLength(numCharacters);
+    }
+
+    /**
+     * Get the number of bits the digits take up, without the mode and character count indicators
+     *
+     * @param numCharacters The number of digits
+     * @return The number of bits of the digits
+     */
+    static int getCharacterBitsLength(int numCharacters) {
         int R = (numCharacters % 3 == 0 ? 0 : numCharacters % 3 == 1 ? 4 : 7);
-        return 4 + C + (10 * (numCharacters / 3)) + R;
+        return (10 * (numCharacters / 3)) + R;
     }
 }
@@ -1,6 +1,8 @@
 package error;
 
 import model.BinaryData;
+import model.MicroSymbolInfo;
+import model.SymbolInfo;
 import model.Version;
 
 import java.util.*;
@@ -54,6 +56,71 @@ public class ErrorCorrectionUtils {
         return result;
     }
 
+    /**
+     * Construct the final message codeword sequence of a symbol, as described by section 8.6 of the QR Code
+     * specification ISO/IEC 18004. The data codewords are divided into blocks, error correction codewords are
+     * generated for each block, and then the data codewords and error correction codewords of each block
+     * are interleaved. The error correction codewords are generated by {@link ReedSolomonEncoders#getDefault()}.
+     *
+     * @param dataCodewords The data codewords of the symbol, with one entry for each codeword
+     * @param symbolInfo The symbol information describing the block structure of the symbol
+     * @return The final sequence of codewords to be placed in the symbol
+     */
+    public static List<Integer> getFinalCodewordSequence(List<Integer> dataCodewords, SymbolInfo symbolInfo) {
+        int numberOfBlocks = symbolInfo.getNumberOfBlocks();
+        int[] blockLengths = new int[numberOfBlocks];
+        for (int blockNumber = 1; blockNumber <= numberOfBlocks; blockNumber++) {
+            blockLengths[blockNumber - 1] = symbolInfo.getBlockInfo(blockNumber).getDataCodewords();
+        }
+        int numErrorCorrectionCodewords = symbolInfo.getBlockInfo(1).getErrorCorrectionCodewords();
+
+        byte[] data = new byte[dataCodewords.size()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (int) dataCodewords.get(i);
+        }
+        byte[] errorCorrection = new byte[numberOfBlocks * numErrorCorrectionCodewords];
+        ReedSolomonEncoders.getDefault().encodeBlocks(data, blockLengths, numErrorCorrectionCodewords, errorCorrection);
+
+        // interleave the blocks by taking the first codeword of each block in order, then the second and so on,
+        // skipping blocks that are shorter than others once they are exhausted
+        int[] blockOffsets = new int[numberOfBlocks];
+        int maxLength = 0;
+        for (int b = 0, offset = 0; b < numberOfBlocks; offset += blockLengths[b], b++) {
+            blockOffsets[b] = offset;
+            maxLength = Math.max(maxLength, blockLengths[b]);
+        }
+        List<Integer> result = new ArrayList<>(symbolInfo.getTotalCodewords());
+        for (int i = 0; i < maxLength; i++) {
+            for (int b = 0; b < numberOfBlocks; b++) {
+                if (i < blockLengths[b]) {
+                    result.add(data[blockOffsets[b] + i] & 0xFF);
+                }
+            }
+        }
+        for (int i = 0; i < numErrorCorrectionCodewords; i++) {
+            for (int b = 0; b < numberOfBlocks; b++) {
+                result.add(errorCorrection[b * numErrorCorrectionCodewords + i] & 0xFF);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Construct the final message codeword sequence of a Micro QR symbol, which has a single block and so is the
+     * data codewords followed by their error correction codewords. The 4-bit last data codeword of M1 and M3 takes
+     * part in the error correction as a whole codeword whose lower 4 bits are 0.
+     *
+     * @param dataCodewords The data codewords of the symbol, with one entry for each codeword
+     * @param symbolInfo The symbol information describing the Micro QR symbol
+     * @return The final sequence of codewords to be placed in the symbol
+     */
+    public static List<Integer> getFinalCodewordSequence(List<Integer> dataCodewords, MicroSymbolInfo symbolInfo) {
+        List<Integer> result = new ArrayList<>(symbolInfo.getTotalCodewords());
+        result.addAll(dataCodewords);
+        result.addAll(getErrorCorrectionCodewords(dataCodewords, symbolInfo.getBlockInfo().getErrorCorrectionCodewords()));
+        return result;
+    }
+
     /**
      * Get the generator polynomial coefficients for a given degree of the polynomial.
      * <br />
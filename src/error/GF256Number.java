@@ -1,24 +1,43 @@
 package error;
 
+import model.SpecificationTables;
+
 /**
  * Model class representing a number to be used in bit-wise modulo 2 and byte-wise
  * modulo 100011101 arithmetic, as specified by section 8.5.2 of the QR Code specification
  * ISO/IEC 18004.
+ * <br />
+ * Next to the object API, the static methods {@link #mul}, {@link #div}, {@link #inv}, {@link #pow}, {@link #exp}
+ * and {@link #log} do the same arithmetic on int values between 0 and 255, for the inner loops of error correction.
  */
 public class GF256Number {
 
-    /** Modulus used in modulo 100011101 arithmetic, equal to decimal 285 */
-    private static final int MODULUS = 285;
-
     /** Galois Field value of 256 */
     private static final int GALOIS_FIELD_VALUE = 256;
 
+    /** The value of each power of 2, repeated so that the sum of two logs indexes it without reduction modulo 255 */
+    static final int[] EXP = SpecificationTables.GF256_EXP;
+
+    /** The power of 2 of each value, with LOG[0] unused */
+    static final int[] LOG = SpecificationTables.GF256_LOG;
+
     /** Lookup array by power. Note that the powers of 0 and 255 both have a value of 1 */
     private static final GF256Number[] numbersByPower = generateNumbersByPower();
 
     /** Lookup array by value. Note that the value of 0 has an undefined power */
     private static final GF256Number[] numbersByValue = generateNumbersByValue();
 
+    /** The product of a and b at index 256 * a + b, so that the products of one value are a contiguous row */
+    static final byte[] PRODUCTS = new byte[GALOIS_FIELD_VALUE * GALOIS_FIELD_VALUE];
+
+    static {
+        // derived rather than generated, since a literal of 65536 values does not fit in the 64 KiB of a class initializer
+        for (int a = 1; a < GALOIS_FIELD_VALUE; a++) {
+            for (int b = 1; b < GALOIS_FIELD_VALUE; b++) {
+                PRODUCTS[(a << 8) | b] = (byte) EXP[LOG[a] + LOG[b]];
+            }
+        }
+    }
 
     /** The value of this number, between 0 and 255 inclusive */
     private int value;
@@ -48,17 +67,8 @@ public class GF256Number {
      */
     private static GF256Number[] generateNumbersByPower() {
         GF256Number[] result = new GF256Number[GALOIS_FIELD_VALUE];
-        GF256Number one = new GF256Number(0, 1);
-        result[0] = one;
-
-        for (int power = 1; power < GALOIS_FIELD_VALUE; power++) {
-            int prevValue = result[power - 1].value;
-            int value = prevValue * 2;
-            if (value >= GALOIS_FIELD_VALUE) {
-                value = value ^ MODULUS;
-            }
-            GF256Number number = new GF256Number(power, value);
-            result[power] = number;
+        for (int power = 0; power < GALOIS_FIELD_VALUE; power++) {
+            result[power] = new GF256Number(power, EXP[power]);
         }
         return result;
     }
@@ -99,6 +109,84 @@ public class GF256Number {
         return numbersByPower[power];
     }
 
+    /**
+     * Multiply two values using GF(256) modulo 100011101 arithmetic.
+     *
+     * @param a A value between 0 and 255 inclusive
+     * @param b A value between 0 and 255 inclusive
+     * @return The product of the two values
+     */
+    public static int mul(int a, int b) {
+        return PRODUCTS[(a << 8) | b] & 0xFF;
+    }
+
+    /**
+     * Divide a value by another using GF(256) modulo 100011101 arithmetic.
+     *
+     * @param a The dividend, between 0 and 255 inclusive
+     * @param b The divisor, between 1 and 255 inclusive
+     * @return The value that gives a when multiplied by b
+     * @throws ArithmeticException If the divisor is 0
+     */
+    public static int div(int a, int b) {
+        if (b == 0) {
+            throw new ArithmeticException("Division by 0");
+        }
+        return a == 0 ? 0 : EXP[LOG[a] + GALOIS_FIELD_VALUE - 1 - LOG[b]];
+    }
+
+    /**
+     * Get the multiplicative inverse of a value using GF(256) modulo 100011101 arithmetic.
+     *
+     * @param a A value between 1 and 255 inclusive
+     * @return The value that gives a product of 1 when multiplied by a
+     * @throws ArithmeticException If the value is 0, which has no inverse
+     */
+    public static int inv(int a) {
+        if (a == 0) {
+            throw new ArithmeticException("0 has no multiplicative inverse");
+        }
+        return EXP[GALOIS_FIELD_VALUE - 1 - LOG[a]];
+    }
+
+    /**
+     * Raise a value to a power using GF(256) modulo 100011101 arithmetic.
+     *
+     * @param a A value between 0 and 255 inclusive
+     * @param n The exponent, which is not negative
+     * @return a^n, with 0^0 taken to be 1
+     */
+    public static int pow(int a, int n) {
+        if (a == 0) {
+            return n == 0 ? 1 : 0;
+        }
+        return EXP[(int) ((long) LOG[a] * n % (GALOIS_FIELD_VALUE - 1))];
+    }
+
+    /**
+     * Get the value of a power of 2 using GF(256) modulo 100011101 arithmetic.
+     *
+     * @param power The power of 2, which may be negative
+     * @return 2^power
+     */
+    public static int exp(int power) {
+        return EXP[Math.floorMod(power, GALOIS_FIELD_VALUE - 1)];
+    }
+
+    /**
+     * Get the power of 2 of a value using GF(256) modulo 100011101 arithmetic.
+     *
+     * @param a A value between 1 and 255 inclusive
+     * @return The power between 0 and 254 inclusive such that 2^power = a
+     * @throws ArithmeticException If the value is 0, which is no power of 2
+     */
+    public static int log(int a) {
+        if (a == 0) {
+            throw new ArithmeticException("0 has no logarithm");
+        }
+        return LOG[a];
+    }
+
     /**
      * Get the integer value of this GF256Number.
      *
@@ -116,11 +204,17 @@ public class GF256Number {
      * @return A new GF256Number whose value is the product of the two GF256Numbers
      */
     public GF256Number multiply(GF256Number other) {
-        if (this.value == 0 || other.value == 0) {
-            return numbersByValue[0];
-        }
-        int power = (this.power + other.power) % (GALOIS_FIELD_VALUE - 1);
-        return numbersByPower[power];
+        return numbersByValue[mul(this.value, other.value)];
+    }
+
+    /**
+     * Get the multiplicative inverse of this GF256Number using GF(256) modulo 100011101 arithmetic.
+     *
+     * @return The GF256Number that gives a product of 1 when multiplied by this GF256Number
+     * @throws ArithmeticException If this GF256Number is 0, which has no inverse
+     */
+    public GF256Number inverse() {
+        return numbersByValue[inv(this.value)];
     }
 
     /**
@@ -131,11 +225,8 @@ public class GF256Number {
      * @return A new GF256Number whose value is the sum of the two GF256Numbers
      */
     public GF256Number add(GF256Number other) {
-        int value = (this.value ^ other.value);
-        if (value >= GALOIS_FIELD_VALUE) {
-            value ^= MODULUS;
-        }
-        return numbersByValue[value];
+        // the sum of two bytes is their exclusive or, which is always a byte, so no reduction is needed
+        return numbersByValue[this.value ^ other.value];
     }
 
     @Override
@@ -0,0 +1,42 @@
+package error;
+
+/**
+ * Reed-Solomon engine that divides by the generator polynomial over primitive ints, multiplying with log and antilog
+ * tables of {@link GF256Number}. The antilog table is doubled so that the sum of two logs indexes it without a reduction
+ * modulo 255.
+ */
+public class LogTableReedSolomonEncoder implements ReedSolomonEncoder {
+
+    public static final String NAME = "log";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void encode(byte[] data, int offset, int length, byte[] errorCorrection, int errorCorrectionOffset,
+                       int numErrorCorrectionCodewords) {
+        int[] generator = ReedSolomonEncoders.getGenerator(numErrorCorrectionCodewords);
+        int last = errorCorrectionOffset + numErrorCorrectionCodewords - 1;
+        for (int e = errorCorrectionOffset; e <= last; e++) {
+            errorCorrection[e] = 0;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            int feedback = (data[i] ^ errorCorrection[errorCorrectionOffset]) & 0xFF;
+            // shift the remainder up one degree, adding the generator multiplied by the feedback
+            if (feedback == 0) {
+                System.arraycopy(errorCorrection, errorCorrectionOffset + 1, errorCorrection, errorCorrectionOffset, numErrorCorrectionCodewords - 1);
+                errorCorrection[last] = 0;
+            } else {
+                int feedbackLog = GF256Number.LOG[feedback];
+                for (int e = 0; e < numErrorCorrectionCodewords - 1; e++) {
+                    int product = generator[e] == 0 ? 0 : GF256Number.EXP[feedbackLog + GF256Number.LOG[generator[e]]];
+                    errorCorrection[errorCorrectionOffset + e] = (byte) (errorCorrection[errorCorrectionOffset + e + 1] ^ product);
+                }
+                int g = generator[numErrorCorrectionCodewords - 1];
+                errorCorrection[last] = (byte) (g == 0 ? 0 : GF256Number.EXP[feedbackLog + GF256Number.LOG[g]]);
+            }
+        }
+    }
+}
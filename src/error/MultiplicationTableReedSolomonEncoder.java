@@ -0,0 +1,33 @@
+package error;
+
+/**
+ * Reed-Solomon engine that multiplies with the full 256 by 256 table of products of {@link GF256Number}, so that each
+ * step of the division is a single array load per coefficient with no branch for 0. The row of the feedback is found
+ * once per data codeword and then indexed by each generator coefficient.
+ */
+public class MultiplicationTableReedSolomonEncoder implements ReedSolomonEncoder {
+
+    public static final String NAME = "table";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void encode(byte[] data, int offset, int length, byte[] errorCorrection, int errorCorrectionOffset,
+                       int numErrorCorrectionCodewords) {
+        int[] generator = ReedSolomonEncoders.getGenerator(numErrorCorrectionCodewords);
+        int last = errorCorrectionOffset + numErrorCorrectionCodewords - 1;
+        for (int e = errorCorrectionOffset; e <= last; e++) {
+            errorCorrection[e] = 0;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            int row = ((data[i] ^ errorCorrection[errorCorrectionOffset]) & 0xFF) << 8;
+            for (int e = 0; e < numErrorCorrectionCodewords - 1; e++) {
+                errorCorrection[errorCorrectionOffset + e] = (byte) (errorCorrection[errorCorrectionOffset + e + 1] ^ GF256Number.PRODUCTS[row | generator[e]]);
+            }
+            errorCorrection[last] = GF256Number.PRODUCTS[row | generator[numErrorCorrectionCodewords - 1]];
+        }
+    }
+}
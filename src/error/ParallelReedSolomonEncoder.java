@@ -0,0 +1,59 @@
+package error;
+
+import java.util.stream.IntStream;
+
+/**
+ * Reed-Solomon engine that divides the blocks of a symbol in parallel on the common fork-join pool, with another
+ * engine dividing each block. Symbols with fewer blocks than a threshold are divided on the calling thread, since
+ * handing a few short blocks to other threads costs more than dividing them.
+ */
+public class ParallelReedSolomonEncoder implements ReedSolomonEncoder {
+
+    public static final String NAME = "parallel";
+
+    /** The smallest number of blocks that are divided in parallel */
+    private static final int MINIMUM_PARALLEL_BLOCKS = 8;
+
+    private final ReedSolomonEncoder blockEncoder;
+
+    public ParallelReedSolomonEncoder() {
+        this(new MultiplicationTableReedSolomonEncoder());
+    }
+
+    /**
+     * Create a ParallelReedSolomonEncoder that divides each block with another engine
+     *
+     * @param blockEncoder The engine that divides each block
+     */
+    public ParallelReedSolomonEncoder(ReedSolomonEncoder blockEncoder) {
+        this.blockEncoder = blockEncoder;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void encode(byte[] data, int offset, int length, byte[] errorCorrection, int errorCorrectionOffset,
+                       int numErrorCorrectionCodewords) {
+        blockEncoder.encode(data, offset, length, errorCorrection, errorCorrectionOffset, numErrorCorrectionCodewords);
+    }
+
+    @Override
+    public void encodeBlocks(byte[] data, int[] blockLengths, int numErrorCorrectionCodewords, byte[] errorCorrection) {
+        if (blockLengths.length < MINIMUM_PARALLEL_BLOCKS) {
+            blockEncoder.encodeBlocks(data, blockLengths, numErrorCorrectionCodewords, errorCorrection);
+            return;
+        }
+        int[] blockOffsets = new int[blockLengths.length];
+        for (int b = 1; b < blockLengths.length; b++) {
+            blockOffsets[b] = blockOffsets[b - 1] + blockLengths[b - 1];
+        }
+        // every block writes to its own range of the output, so the blocks need no coordination
+        IntStream.range(0, blockLengths.length)
+                .parallel()
+                .forEach(b -> blockEncoder.encode(data, blockOffsets[b], blockLengths[b], errorCorrection,
+                        b * numErrorCorrectionCodewords, numErrorCorrectionCodewords));
+    }
+}
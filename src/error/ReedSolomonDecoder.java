@@ -0,0 +1,250 @@
+package error;
+
+import model.DecodeException;
+
+/**
+ * Decoder that corrects errors in a block of codewords that was encoded by
+ * {@link ErrorCorrectionUtils#getErrorCorrectionCodewords}. The error locator polynomial is found with the
+ * Berlekamp-Massey algorithm, the error positions with a Chien search and the error values with the Forney algorithm.
+ * <br />
+ * Codewords known to be unreliable, such as those under a logo, can be given as erasures. The Berlekamp-Massey
+ * algorithm then starts from the locator polynomial of the erasures, so that it only has to find the unknown errors.
+ * A block with n error correction codewords is corrected as long as twice its errors plus its erasures is at most n,
+ * so an erasure costs half as much as an error.
+ * <br />
+ * A decoder keeps scratch buffers between calls, so decoding allocates nothing. Instances are therefore not thread-safe
+ * and each thread should use its own.
+ */
+public class ReedSolomonDecoder {
+
+    /** The largest number of error correction codewords in a block of any symbol */
+    private static final int MAX_ERROR_CORRECTION_CODEWORDS = 30;
+
+    /** The largest number of codewords in a block of any symbol */
+    private static final int MAX_BLOCK_CODEWORDS = 255;
+
+    private final int[] syndromes = new int[MAX_ERROR_CORRECTION_CODEWORDS];
+
+    /** The error locator polynomial, with the coefficient of x^i at index i */
+    private final int[] locator = new int[MAX_ERROR_CORRECTION_CODEWORDS + 1];
+
+    /** The previous error locator polynomial of the Berlekamp-Massey iteration */
+    private final int[] previousLocator = new int[MAX_ERROR_CORRECTION_CODEWORDS + 1];
+
+    private final int[] scratch = new int[MAX_ERROR_CORRECTION_CODEWORDS + 1];
+
+    /** The error evaluator polynomial, with the coefficient of x^i at index i */
+    private final int[] evaluator = new int[MAX_ERROR_CORRECTION_CODEWORDS];
+
+    private final int[] errorPositions = new int[MAX_ERROR_CORRECTION_CODEWORDS];
+
+    /** The positions of the erasures of the block being decoded */
+    private final int[] erasurePositions = new int[MAX_ERROR_CORRECTION_CODEWORDS];
+
+    /**
+     * Correct the errors in a block of codewords in place.
+     *
+     * @param codewords The array holding the block, with the data codewords followed by the error correction codewords
+     * @param offset The index of the first codeword of the block in the array
+     * @param length The total number of codewords in the block
+     * @param numErrorCorrectionCodewords The number of error correction codewords at the end of the block
+     * @return The number of codewords that were corrected
+     * @throws DecodeException If the block has more errors than can be corrected
+     */
+    public int decode(int[] codewords, int offset, int length, int numErrorCorrectionCodewords) throws DecodeException {
+        return decode(codewords, offset, length, numErrorCorrectionCodewords, erasurePositions, 0);
+    }
+
+    /**
+     * Correct the errors and erasures in a block of codewords in place. The value of an erased codeword is ignored.
+     *
+     * @param codewords The array holding the block, with the data codewords followed by the error correction codewords
+     * @param offset The index of the first codeword of the block in the array
+     * @param length The total number of codewords in the block
+     * @param numErrorCorrectionCodewords The number of error correction codewords at the end of the block
+     * @param erasures The indexes of the erased codewords within the block, without duplicates
+     * @param numErasures The number of erasures at the start of the array of erasures
+     * @return The number of codewords that were corrected, counting only erasures whose value was wrong
+     * @throws DecodeException If the block has more errors and erasures than can be corrected
+     */
+    public int decode(int[] codewords, int offset, int length, int numErrorCorrectionCodewords, int[] erasures,
+                      int numErasures) throws DecodeException {
+        if (length > MAX_BLOCK_CODEWORDS || numErrorCorrectionCodewords > MAX_ERROR_CORRECTION_CODEWORDS) {
+            throw new IllegalArgumentException(String.format(
+                    "A block of %s codewords with %s error correction codewords is not valid", length, numErrorCorrectionCodewords));
+        }
+        if (numErasures > numErrorCorrectionCodewords) {
+            throw new DecodeException("Block has too many erasures to correct");
+        }
+        for (int e = 0; e < numErasures; e++) {
+            if (erasures[e] < 0 || erasures[e] >= length) {
+                throw new IllegalArgumentException(String.format("Erasure %s is not in a block of %s codewords", erasures[e], length));
+            }
+            // positions are powers of x, so the last codeword of the block is at position 0
+            erasurePositions[e] = length - 1 - erasures[e];
+        }
+        if (!computeSyndromes(codewords, offset, length, numErrorCorrectionCodewords)) {
+            return 0;
+        }
+        int numErrata = computeErrorLocator(numErrorCorrectionCodewords, numErasures);
+        if (2 * (numErrata - numErasures) + numErasures > numErrorCorrectionCodewords) {
+            throw new DecodeException("Block has too many errors to correct");
+        }
+        computeErrorEvaluator(numErrata, numErrorCorrectionCodewords);
+        findErrorPositions(length, numErrata);
+        return correctErrors(codewords, offset, length, numErrata, numErrorCorrectionCodewords);
+    }
+
+    /**
+     * Evaluate the received polynomial at each root of the generator polynomial 2^0, ..., 2^(n-1)
+     *
+     * @return true if any syndrome is not 0, meaning that the block has errors
+     */
+    private boolean computeSyndromes(int[] codewords, int offset, int length, int numErrorCorrectionCodewords) {
+        boolean hasErrors = false;
+        for (int j = 0; j < numErrorCorrectionCodewords; j++) {
+            // every step multiplies by the same root, so its row of the product table is found once
+            int row = GF256Number.exp(j) << 8;
+            int syndrome = 0;
+            for (int k = 0; k < length; k++) {
+                syndrome = (GF256Number.PRODUCTS[row | syndrome] & 0xFF) ^ codewords[offset + k];
+            }
+            syndromes[j] = syndrome;
+            hasErrors |= syndrome != 0;
+        }
+        return hasErrors;
+    }
+
+    /**
+     * Find the errata locator polynomial with the Berlekamp-Massey algorithm, starting from the locator polynomial of
+     * the erasures, which is the product of (1 + 2^p x) over the position p of each erasure
+     *
+     * @return The degree of the errata locator polynomial, which is the number of errors and erasures
+     */
+    private int computeErrorLocator(int numSyndromes, int numErasures) {
+        clear(locator);
+        locator[0] = 1;
+        for (int e = 0; e < numErasures; e++) {
+            int erasureLocation = GF256Number.exp(erasurePositions[e]);
+            for (int i = e + 1; i > 0; i--) {
+                locator[i] ^= GF256Number.mul(erasureLocation, locator[i - 1]);
+            }
+        }
+        System.arraycopy(locator, 0, previousLocator, 0, locator.length);
+        int degree = numErasures;
+        int shift = 1;
+        int previousDiscrepancy = 1;
+
+        for (int n = numErasures; n < numSyndromes; n++) {
+            int discrepancy = syndromes[n];
+            for (int i = 1; i <= Math.min(n, locator.length - 1); i++) {
+                discrepancy ^= GF256Number.mul(locator[i], syndromes[n - i]);
+            }
+            if (discrepancy == 0) {
+                shift++;
+                continue;
+            }
+            int factor = GF256Number.div(discrepancy, previousDiscrepancy);
+            if (2 * degree <= n + numErasures) {
+                System.arraycopy(locator, 0, scratch, 0, locator.length);
+                subtractShifted(factor, shift);
+                System.arraycopy(scratch, 0, previousLocator, 0, locator.length);
+                degree = n + 1 + numErasures - degree;
+                previousDiscrepancy = discrepancy;
+                shift = 1;
+            } else {
+                subtractShifted(factor, shift);
+                shift++;
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * Subtract factor * x^shift * previousLocator from the error locator polynomial
+     */
+    private void subtractShifted(int factor, int shift) {
+        for (int i = 0; i + shift < locator.length; i++) {
+            locator[i + shift] ^= GF256Number.mul(factor, previousLocator[i]);
+        }
+    }
+
+    /**
+     * Compute the error evaluator polynomial, which is the product of the syndrome polynomial and
+     * the error locator polynomial modulo x^n
+     */
+    private void computeErrorEvaluator(int numErrors, int numSyndromes) {
+        for (int i = 0; i < numSyndromes; i++) {
+            int coefficient = 0;
+            for (int k = 0; k <= Math.min(i, numErrors); k++) {
+                coefficient ^= GF256Number.mul(syndromes[i - k], locator[k]);
+            }
+            evaluator[i] = coefficient;
+        }
+    }
+
+    /**
+     * Find the positions of the errors with a Chien search over every position in the block. Position p is the power of x
+     * of a codeword, so the last codeword of the block is at position 0. There is an error at position p if
+     * the error locator polynomial has a root at 2^-p.
+     */
+    private void findErrorPositions(int length, int numErrors) throws DecodeException {
+        int found = 0;
+        for (int p = 0; p < length && found < numErrors; p++) {
+            if (evaluate(locator, numErrors, GF256Number.exp(-p)) == 0) {
+                errorPositions[found++] = p;
+            }
+        }
+        if (found != numErrors) {
+            throw new DecodeException("Block has too many errors to correct");
+        }
+    }
+
+    /**
+     * Correct each error and erasure using the Forney algorithm. For generator roots starting at 2^0, the error value at
+     * position p is X * evaluator(X^-1) / locator'(X^-1), where X = 2^p.
+     */
+    private int correctErrors(int[] codewords, int offset, int length, int numErrors, int numSyndromes) throws DecodeException {
+        int corrected = 0;
+        for (int e = 0; e < numErrors; e++) {
+            int p = errorPositions[e];
+            int errorLocation = GF256Number.exp(p);
+            int inverseLocation = GF256Number.exp(-p);
+
+            // the formal derivative keeps only odd powers, as 2 * a = 0 in GF(256)
+            int derivative = 0;
+            int inverseLocationSquared = GF256Number.mul(inverseLocation, inverseLocation);
+            int power = 1;
+            for (int i = 1; i <= numErrors; i += 2) {
+                derivative ^= GF256Number.mul(locator[i], power);
+                power = GF256Number.mul(power, inverseLocationSquared);
+            }
+            if (derivative == 0) {
+                throw new DecodeException("Block has too many errors to correct");
+            }
+            int magnitude = GF256Number.div(
+                    GF256Number.mul(errorLocation, evaluate(evaluator, numSyndromes - 1, inverseLocation)), derivative);
+            codewords[offset + length - 1 - p] ^= magnitude;
+            // an erased codeword may have been read correctly
+            corrected += magnitude != 0 ? 1 : 0;
+        }
+        return corrected;
+    }
+
+    /**
+     * Evaluate a polynomial with the coefficient of x^i at index i using Horner's method
+     */
+    private static int evaluate(int[] polynomial, int degree, int x) {
+        int result = 0;
+        for (int i = degree; i >= 0; i--) {
+            result = GF256Number.mul(result, x) ^ polynomial[i];
+        }
+        return result;
+    }
+
+    private static void clear(int[] array) {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = 0;
+        }
+    }
+}
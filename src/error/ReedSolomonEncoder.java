@@ -0,0 +1,46 @@
+package error;
+
+/**
+ * Engine that generates Reed-Solomon error correction codewords, as described by section 8.5 of the QR Code
+ * specification ISO/IEC 18004. Every engine produces the same codewords, and they differ only in how the polynomial
+ * division is done. {@link ReedSolomonEncoders} selects the engine used for symbols.
+ * <br />
+ * Engines are immutable and thread-safe.
+ */
+public interface ReedSolomonEncoder {
+
+    /**
+     * Get the name the engine is selected by
+     *
+     * @return The name of the engine
+     */
+    String getName();
+
+    /**
+     * Generate the error correction codewords of one block
+     *
+     * @param data The array holding the data codewords of the block
+     * @param offset The index of the first data codeword
+     * @param length The number of data codewords
+     * @param errorCorrection The array to write the error correction codewords to
+     * @param errorCorrectionOffset The index to write the first error correction codeword at
+     * @param numErrorCorrectionCodewords The number of error correction codewords to generate
+     */
+    void encode(byte[] data, int offset, int length, byte[] errorCorrection, int errorCorrectionOffset, int numErrorCorrectionCodewords);
+
+    /**
+     * Generate the error correction codewords of every block of a symbol. The blocks all have the same number of error
+     * correction codewords, as in every QR Code symbol.
+     *
+     * @param data The data codewords of every block, one block after another
+     * @param blockLengths The number of data codewords of each block
+     * @param numErrorCorrectionCodewords The number of error correction codewords of each block
+     * @param errorCorrection The array to write the error correction codewords of every block to, one block after another
+     */
+    default void encodeBlocks(byte[] data, int[] blockLengths, int numErrorCorrectionCodewords, byte[] errorCorrection) {
+        for (int b = 0, offset = 0; b < blockLengths.length; b++) {
+            encode(data, offset, blockLengths[b], errorCorrection, b * numErrorCorrectionCodewords, numErrorCorrectionCodewords);
+            offset += blockLengths[b];
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package error;
+
+import model.BlockInfo;
+import model.ErrorCorrectionLevel;
+import model.MicroCodewordCapacity;
+import model.MicroSymbolInfo;
+import model.MicroVersion;
+import model.MaskPattern;
+import model.SpecificationTables;
+import model.SymbolInfo;
+import model.Version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+
+/**
+ * Util class for selecting the {@link ReedSolomonEncoder} engine used for symbols. The engine is chosen once, by the
+ * {@value #ENGINE_PROPERTY} system property:
+ * <ul>
+ *     <li>{@code reference}, {@code log}, {@code table} or {@code parallel} for the engines of this library</li>
+ *     <li>the name of an engine provided through {@link ServiceLoader}, such as {@code vector} from the optional
+ *     vector module</li>
+ *     <li>{@code auto} to time every engine on a version 40 symbol and keep the fastest</li>
+ * </ul>
+ * Without the property, the vector engine is used if it is available and the multiplication table engine otherwise.
+ */
+public class ReedSolomonEncoders {
+
+    /** The system property naming the engine to use */
+    public static final String ENGINE_PROPERTY = "qrcode.reedsolomon";
+
+    /** The value of the system property that selects the fastest engine by timing each of them */
+    public static final String AUTO = "auto";
+
+    /** The largest number of error correction codewords of a block */
+    public static final int MAXIMUM_ERROR_CORRECTION_CODEWORDS = 68;
+
+    /** The name of the engine provided by the optional vector module */
+    private static final String VECTOR = "vector";
+
+    /** How long each engine is timed for when tuning, in nanoseconds */
+    private static final long TUNING_NANOS = 20_000_000;
+
+    /** The generator polynomial of each degree, without its leading coefficient of 1 and from the highest degree down */
+    private static final int[][] GENERATORS = SpecificationTables.GENERATOR_POLYNOMIALS;
+
+    /**
+     * Get the engine selected for this JVM
+     *
+     * @return The engine
+     */
+    public static ReedSolomonEncoder getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * Get an engine by its name
+     *
+     * @param name The name of the engine
+     * @return The engine
+     */
+    public static ReedSolomonEncoder get(String name) {
+        for (ReedSolomonEncoder encoder : getAvailable()) {
+            if (encoder.getName().equals(name)) {
+                return encoder;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Reed-Solomon engine %s is not available", name));
+    }
+
+    /**
+     * Get a new instance of every engine that can run in this JVM. Engines provided through {@link ServiceLoader}
+     * that cannot be loaded, such as the vector engine without the jdk.incubator.vector module, are left out.
+     *
+     * @return The engines, starting with the reference engine
+     */
+    public static List<ReedSolomonEncoder> getAvailable() {
+        Map<String, ReedSolomonEncoder> encoders = new LinkedHashMap<>();
+        for (ReedSolomonEncoder encoder : Arrays.asList(new RegisterReedSolomonEncoder(), new LogTableReedSolomonEncoder(),
+                new MultiplicationTableReedSolomonEncoder(), new ParallelReedSolomonEncoder())) {
+            encoders.put(encoder.getName(), encoder);
+        }
+        Iterator<ReedSolomonEncoder> providers = ServiceLoader.load(ReedSolomonEncoder.class).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                ReedSolomonEncoder encoder = providers.next();
+                encoders.putIfAbsent(encoder.getName(), encoder);
+            } catch (ServiceConfigurationError | LinkageError e) {
+                // the provider needs a module that is not in the boot layer, so move on to the next one
+            }
+        }
+        return new ArrayList<>(encoders.values());
+    }
+
+    /**
+     * Get the generator polynomial of a degree, without its leading coefficient of 1
+     *
+     * @param degree The degree of the polynomial, which is the number of error correction codewords
+     * @return The coefficients from the highest degree down
+     */
+    public static int[] getGenerator(int degree) {
+        if (degree < 1 || degree > MAXIMUM_ERROR_CORRECTION_CODEWORDS) {
+            throw new IllegalArgumentException(String.format("%s error correction codewords are not supported", degree));
+        }
+        return GENERATORS[degree];
+    }
+
+    private static ReedSolomonEncoder select() {
+        String name = System.getProperty(ENGINE_PROPERTY);
+        if (name == null) {
+            return getAvailable().stream()
+                    .filter(encoder -> encoder.getName().equals(VECTOR))
+                    .findFirst()
+                    .orElseGet(MultiplicationTableReedSolomonEncoder::new);
+        } else if (name.equals(AUTO)) {
+            return tune();
+        }
+        return get(name);
+    }
+
+    /**
+     * Time every engine but the reference engine on the blocks of a version 40 symbol at error correction level H,
+     * which has the most blocks, and keep the fastest
+     */
+    private static ReedSolomonEncoder tune() {
+        int[] blockLengths = new int[81];
+        Arrays.fill(blockLengths, 0, 20, 15);
+        Arrays.fill(blockLengths, 20, 81, 16);
+        byte[] data = new byte[20 * 15 + 61 * 16];
+        new Random(0).nextBytes(data);
+        byte[] errorCorrection = new byte[81 * 30];
+
+        ReedSolomonEncoder fastest = null;
+        double fastestNanos = Double.MAX_VALUE;
+        for (ReedSolomonEncoder encoder : getAvailable()) {
+            if (encoder.getName().equals(RegisterReedSolomonEncoder.NAME)) {
+                continue;
+            }
+            // the first half of the time warms the engine up
+            long start = System.nanoTime();
+            int runs = 0;
+            long measuredStart = 0;
+            while (System.nanoTime() - start < TUNING_NANOS) {
+                if (measuredStart == 0 && System.nanoTime() - start >= TUNING_NANOS / 2) {
+                    measuredStart = System.nanoTime();
+                    runs = 0;
+                }
+                encoder.encodeBlocks(data, blockLengths, 30, errorCorrection);
+                runs++;
+            }
+            double nanos = (double) (System.nanoTime() - measuredStart) / Math.max(1, runs);
+            if (measuredStart > 0 && nanos < fastestNanos) {
+                fastest = encoder;
+                fastestNanos = nanos;
+            }
+        }
+        return fastest == null ? new MultiplicationTableReedSolomonEncoder() : fastest;
+    }
+
+    private static class DefaultHolder {
+        private static final ReedSolomonEncoder DEFAULT = select();
+    }
+
+    /**
+     * Check that every available engine agrees with the reference engine on random data codewords, for every block
+     * size of every QR Code and Micro QR symbol
+     */
+    public static void main(String[] args) {
+        List<ReedSolomonEncoder> encoders = getAvailable();
+        ReedSolomonEncoder reference = encoders.get(0);
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 0);
+        int trials = 0;
+        int failures = 0;
+
+        for (int v = Version.MINIMUM_VERSION; v <= Version.MAXIMUM_VERSION; v++) {
+            for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+                SymbolInfo symbolInfo = new SymbolInfo(new Version(v), level, MaskPattern.ONE);
+                int[] blockLengths = new int[symbolInfo.getNumberOfBlocks()];
+                for (int b = 0; b < blockLengths.length; b++) {
+                    blockLengths[b] = symbolInfo.getBlockInfo(b + 1).getDataCodewords();
+                }
+                int numErrorCorrectionCodewords = symbolInfo.getBlockInfo(1).getErrorCorrectionCodewords();
+                for (int t = 0; t < 4; t++) {
+                    byte[] data = new byte[symbolInfo.getDataCodewords()];
+                    random.nextBytes(data);
+                    byte[] expected = new byte[blockLengths.length * numErrorCorrectionCodewords];
+                    reference.encodeBlocks(data, blockLengths, numErrorCorrectionCodewords, expected);
+                    for (ReedSolomonEncoder encoder : encoders) {
+                        byte[] actual = new byte[expected.length];
+                        encoder.encodeBlocks(data, blockLengths, numErrorCorrectionCodewords, actual);
+                        trials++;
+                        if (!Arrays.equals(expected, actual)) {
+                            failures++;
+                            System.out.println(encoder.getName() + " differs for version " + v + "-" + level);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int v = MicroVersion.MINIMUM_VERSION; v <= MicroVersion.MAXIMUM_VERSION; v++) {
+            for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+                MicroVersion version = new MicroVersion(v);
+                if (!MicroCodewordCapacity.isSupported(version, level)) {
+                    continue;
+                }
+                BlockInfo blockInfo = new MicroSymbolInfo(version, level, MicroSymbolInfo.MASK_PATTERNS.get(0)).getBlockInfo();
+                byte[] data = new byte[blockInfo.getDataCodewords()];
+                random.nextBytes(data);
+                byte[] expected = new byte[blockInfo.getErrorCorrectionCodewords()];
+                reference.encode(data, 0, data.length, expected, 0, expected.length);
+                for (ReedSolomonEncoder encoder : encoders) {
+                    byte[] actual = new byte[expected.length];
+                    encoder.encode(data, 0, data.length, actual, 0, actual.length);
+                    trials++;
+                    if (!Arrays.equals(expected, actual)) {
+                        failures++;
+                        System.out.println(encoder.getName() + " differs for version " + version + "-" + level);
+                    }
+                }
+            }
+        }
+
+        System.out.println("Engines: " + encoders.stream().map(ReedSolomonEncoder::getName).collect(Collectors.toList())
+                + ", default: " + getDefault().getName());
+        System.out.println(trials + " comparisons, " + failures + " failures");
+    }
+}
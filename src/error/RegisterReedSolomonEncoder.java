@@ -0,0 +1,32 @@
+package error;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reed-Solomon engine that simulates the shift register of section 8.5.2 of the QR Code specification ISO/IEC 18004
+ * with {@link ErrorCorrectionUtils#getErrorCorrectionCodewords(List, int)}. It is the slowest engine and the one the
+ * others are checked against.
+ */
+public class RegisterReedSolomonEncoder implements ReedSolomonEncoder {
+
+    public static final String NAME = "reference";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void encode(byte[] data, int offset, int length, byte[] errorCorrection, int errorCorrectionOffset,
+                       int numErrorCorrectionCodewords) {
+        List<Integer> message = new ArrayList<>(length);
+        for (int i = offset; i < offset + length; i++) {
+            message.add(data[i] & 0xFF);
+        }
+        List<Integer> codewords = ErrorCorrectionUtils.getErrorCorrectionCodewords(message, numErrorCorrectionCodewords);
+        for (int e = 0; e < numErrorCorrectionCodewords; e++) {
+            errorCorrection[errorCorrectionOffset + e] = (byte) (int) codewords.get(e);
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package main;
+
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.Version;
+import symbol.EncodedSymbol;
+import symbol.SymbolEncoder;
+import symbol.SymbolRenderer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Command that encodes a stream of payloads in one JVM, for shell pipelines. Payloads are read one per line, or
+ * separated by NUL characters, from a file or standard input as UTF-8. They are encoded in parallel, and the results are
+ * written in input order to standard output, as one numbered file per payload to a directory or zip archive, or to the
+ * raw printing port of a label printer as ZPL or ESC/POS commands.
+ * <br />
+ * On standard output each result is followed by the delimiter of the input, so results line up with payloads: an SVG
+ * image is written on a single line, and the text of a symbol ends with an empty line. A payload that cannot be encoded
+ * is reported on standard error with its record number and gives an empty result. Throughput is reported on standard
+ * error when the input ends.
+ */
+class EncodeCommand {
+
+    static final String USAGE = String.join("\n",
+            "usage: QRCode encode [options] [file]",
+            "  -l, --level L|M|Q|H          error correction level (default M)",
+            "      --min-version N          smallest version of the symbols (default 1)",
+            "      --max-version N          largest version of the symbols (default 40)",
+            "  -m, --mask N                 mask pattern 0 to 7 (default: lowest penalty score)",
+            "  -s, --scale N                pixels per module of svg, png, zpl and escpos images (default 4)",
+            "  -f, --format text|svg|png|zpl|escpos",
+            "                               output format (default text)",
+            "  -0, --null                   payloads are separated by NUL instead of line breaks",
+            "  -o, --output DIR|FILE.zip    write one file per payload instead of to standard output",
+            "  -p, --printer HOST[:PORT]    send zpl or escpos results to a printer (default port 9100)",
+            "  -j, --threads N              number of encoding threads (default: number of processors)");
+
+    private static final String TEXT = "text";
+
+    private static final String SVG = "svg";
+
+    private static final String PNG = "png";
+
+    private static final String ZPL = "zpl";
+
+    private static final String ESC_POS = "escpos";
+
+    /** The raw printing port of network printers */
+    static final int DEFAULT_PRINTER_PORT = 9100;
+
+    /** The number of payloads read ahead of the result being written, for each encoding thread */
+    private static final int PAYLOADS_IN_FLIGHT_PER_THREAD = 4;
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private ErrorCorrectionLevel errorCorrectionLevel = ErrorCorrectionLevel.M;
+
+    private Version minimumVersion = new Version(Version.MINIMUM_VERSION);
+
+    private Version maximumVersion = new Version(Version.MAXIMUM_VERSION);
+
+    private MaskPattern maskPattern;
+
+    private int scale = 4;
+
+    private String format = TEXT;
+
+    private char delimiter = '\n';
+
+    private Path output;
+
+    private InetSocketAddress printer;
+
+    private Path input;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private final SymbolEncoder encoder = new SymbolEncoder();
+
+    private final SymbolRenderer renderer;
+
+    /**
+     * Parse the options of the command
+     *
+     * @param args The arguments after the command name
+     * @throws IllegalArgumentException If an option is unknown or has an invalid value
+     */
+    EncodeCommand(String[] args) {
+        for (int n = 0; n < args.length; n++) {
+            String arg = args[n];
+            switch (arg) {
+                case "-l":
+                case "--level":
+                    errorCorrectionLevel = ErrorCorrectionLevel.valueOf(value(args, ++n, arg));
+                    break;
+                case "--min-version":
+                    minimumVersion = new Version(Integer.parseInt(value(args, ++n, arg)));
+                    break;
+                case "--max-version":
+                    maximumVersion = new Version(Integer.parseInt(value(args, ++n, arg)));
+                    break;
+                case "-m":
+                case "--mask":
+                    int mask = Integer.parseInt(value(args, ++n, arg));
+                    if (mask < 0 || mask >= MaskPattern.values().length) {
+                        throw new IllegalArgumentException(String.format("Mask pattern %s is not valid", mask));
+                    }
+                    maskPattern = MaskPattern.values()[mask];
+                    break;
+                case "-s":
+                case "--scale":
+                    scale = Integer.parseInt(value(args, ++n, arg));
+                    break;
+                case "-f":
+                case "--format":
+                    format = value(args, ++n, arg);
+                    break;
+                case "-0":
+                case "--null":
+                    delimiter = '\0';
+                    break;
+                case "-o":
+                case "--output":
+                    output = Paths.get(value(args, ++n, arg));
+                    break;
+                case "-p":
+                case "--printer":
+                    printer = parsePrinter(value(args, ++n, arg));
+                    break;
+                case "-j":
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++n, arg));
+                    break;
+                default:
+                    if (arg.startsWith("-") || input != null) {
+                        throw new IllegalArgumentException(String.format("Argument %s is not valid", arg));
+                    }
+                    input = Paths.get(arg);
+            }
+        }
+        if (!format.equals(TEXT) && !format.equals(SVG) && !format.equals(PNG) && !format.equals(ZPL) && !format.equals(ESC_POS)) {
+            throw new IllegalArgumentException(String.format("Format %s is not valid", format));
+        }
+        if (printer != null && output != null) {
+            throw new IllegalArgumentException("Results go to either an output or a printer");
+        }
+        if (printer != null && !format.equals(ZPL) && !format.equals(ESC_POS)) {
+            throw new IllegalArgumentException("Printers take zpl or escpos results");
+        }
+        if (format.equals(PNG) && output == null) {
+            throw new IllegalArgumentException("PNG images need an output directory or archive");
+        }
+        if (minimumVersion.getVersion() > maximumVersion.getVersion()) {
+            throw new IllegalArgumentException(String.format("Minimum version %s is above maximum version %s",
+                    minimumVersion.getVersion(), maximumVersion.getVersion()));
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format("Thread count %s is not valid", threads));
+        }
+        renderer = new SymbolRenderer(scale);
+    }
+
+    /**
+     * Encode every payload of the input and write the results
+     *
+     * @param stdin The standard input, read when no input file is given
+     * @param stdout The standard output, written when no output is given
+     * @param stderr The standard error, for failed payloads and the throughput report
+     * @return The exit status, 0 if every payload was encoded and 1 otherwise
+     * @throws IOException If the input could not be read or a result could not be written
+     * @throws InterruptedException If the thread was interrupted while waiting for a result
+     */
+    int run(InputStream stdin, PrintStream stdout, PrintStream stderr) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "qrcode-encode");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Queue<Future<byte[]>> pending = new ArrayDeque<>();
+        int maxPending = threads * PAYLOADS_IN_FLIGHT_PER_THREAD;
+        try (InputStream in = input == null ? stdin : Files.newInputStream(input);
+             Sink sink = createSink(stdout)) {
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            StringBuilder payload = new StringBuilder();
+            while (readPayload(reader, payload)) {
+                String text = payload.toString();
+                pending.add(executor.submit(() -> encode(text)));
+                if (pending.size() >= maxPending) {
+                    sink.write(pending.remove(), stderr);
+                }
+            }
+            while (!pending.isEmpty()) {
+                sink.write(pending.remove(), stderr);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            stderr.printf("encoded %d of %d payloads in %.2f s: %.0f payloads/s, %.1f MB written%n",
+                    sink.count - sink.failures, sink.count, seconds, sink.count / seconds, sink.bytes / 1e6);
+            return sink.failures == 0 ? 0 : 1;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Read the next payload, up to the delimiter or the end of the input. A line break delimiter also drops a carriage
+     * return before it.
+     *
+     * @return false if the input had already ended
+     */
+    private boolean readPayload(Reader reader, StringBuilder payload) throws IOException {
+        payload.setLength(0);
+        int c = reader.read();
+        if (c < 0) {
+            return false;
+        }
+        while (c >= 0 && c != delimiter) {
+            payload.append((char) c);
+            c = reader.read();
+        }
+        if (delimiter == '\n' && payload.length() > 0 && payload.charAt(payload.length() - 1) == '\r') {
+            payload.setLength(payload.length() - 1);
+        }
+        return true;
+    }
+
+    private byte[] encode(String payload) throws IOException {
+        EncodedSymbol symbol = encoder.encode(payload, errorCorrectionLevel, minimumVersion, maximumVersion, maskPattern);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (format.equals(PNG)) {
+            renderer.writePng(symbol.getModules(), out);
+        } else if (format.equals(ZPL)) {
+            renderer.writeZpl(symbol.getModules(), out);
+        } else if (format.equals(ESC_POS)) {
+            renderer.writeEscPos(symbol.getModules(), out);
+        } else {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            if (format.equals(SVG)) {
+                renderer.writeSvg(symbol.getModules(), writer);
+            } else {
+                renderer.writeText(symbol.getModules(), writer);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private Sink createSink(PrintStream stdout) throws IOException {
+        if (printer != null) {
+            Socket socket = new Socket(printer.getHostString(), printer.getPort());
+            return new PrinterSink(socket, new BufferedOutputStream(socket.getOutputStream(), OUTPUT_BUFFER_SIZE));
+        }
+        if (output == null) {
+            return new StreamSink(new BufferedOutputStream(stdout, OUTPUT_BUFFER_SIZE), (byte) delimiter);
+        }
+        if (output.getFileName().toString().endsWith(".zip")) {
+            return new ZipSink(new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(output), OUTPUT_BUFFER_SIZE)), format);
+        }
+        Files.createDirectories(output);
+        return new DirectorySink(output, format);
+    }
+
+    private static InetSocketAddress parsePrinter(String printer) {
+        int colon = printer.lastIndexOf(':');
+        if (colon < 0) {
+            return InetSocketAddress.createUnresolved(printer, DEFAULT_PRINTER_PORT);
+        }
+        return InetSocketAddress.createUnresolved(printer.substring(0, colon), Integer.parseInt(printer.substring(colon + 1)));
+    }
+
+    private static String value(String[] args, int n, String option) {
+        if (n >= args.length) {
+            throw new IllegalArgumentException(String.format("Option %s needs a value", option));
+        }
+        return args[n];
+    }
+
+    /**
+     * Destination of the results, written one at a time in input order
+     */
+    private abstract static class Sink implements AutoCloseable {
+
+        long count;
+
+        long failures;
+
+        long bytes;
+
+        /**
+         * Wait for the next result and write it, or report its payload on standard error if it could not be encoded
+         */
+        void write(Future<byte[]> result, PrintStream stderr) throws IOException, InterruptedException {
+            long number = ++count;
+            byte[] encoded;
+            try {
+                encoded = result.get();
+            } catch (ExecutionException e) {
+                failures++;
+                stderr.printf("payload %d: %s%n", number, e.getCause().getMessage());
+                encoded = null;
+            }
+            if (encoded != null) {
+                bytes += encoded.length;
+            }
+            write(number, encoded);
+        }
+
+        /**
+         * Write the result of a payload
+         *
+         * @param number The number of the payload in the input, starting from 1
+         * @param encoded The result, or null if the payload could not be encoded
+         */
+        abstract void write(long number, byte[] encoded) throws IOException;
+
+        @Override
+        public abstract void close() throws IOException;
+
+        static String getFileName(long number, String format) {
+            return String.format("%06d.%s", number, format.equals(TEXT) ? "txt" : format);
+        }
+    }
+
+    private static class StreamSink extends Sink {
+
+        private final OutputStream out;
+
+        private final byte delimiter;
+
+        StreamSink(OutputStream out, byte delimiter) {
+            this.out = out;
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        void write(long number, byte[] encoded) throws IOException {
+            if (encoded != null) {
+                out.write(encoded);
+            }
+            out.write(delimiter);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // standard output stays open for the caller
+            out.flush();
+        }
+    }
+
+    private static class DirectorySink extends Sink {
+
+        private final Path directory;
+
+        private final String format;
+
+        DirectorySink(Path directory, String format) {
+            this.directory = directory;
+            this.format = format;
+        }
+
+        @Override
+        void write(long number, byte[] encoded) throws IOException {
+            if (encoded != null) {
+                Files.write(directory.resolve(getFileName(number, format)), encoded);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Sink that sends every result over one connection to the raw printing port of a printer, which prints each ZPL label
+     * or ESC/POS image as it arrives
+     */
+    private static class PrinterSink extends Sink {
+
+        private final Socket socket;
+
+        private final OutputStream out;
+
+        PrinterSink(Socket socket, OutputStream out) {
+            this.socket = socket;
+            this.out = out;
+        }
+
+        @Override
+        void write(long number, byte[] encoded) throws IOException {
+            if (encoded != null) {
+                out.write(encoded);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+            } finally {
+                socket.close();
+            }
+        }
+    }
+
+    private static class ZipSink extends Sink {
+
+        private final ZipOutputStream out;
+
+        private final String format;
+
+        ZipSink(ZipOutputStream out, String format) {
+            this.out = out;
+            this.format = format;
+        }
+
+        @Override
+        void write(long number, byte[] encoded) throws IOException {
+            if (encoded != null) {
+                out.putNextEntry(new ZipEntry(getFileName(number, format)));
+                out.write(encoded);
+                out.closeEntry();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
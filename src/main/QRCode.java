@@ -1,8 +1,91 @@
 package main;
 
+import server.EncodingServer;
+import server.RenderCache;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 public class QRCode {
 
-    public static void main(String[] args) {
+    private static final long DEFAULT_CACHE_SIZE_MB = 1024;
+
+    private static final String USAGE = "usage: QRCode encode [options] [file]\n       QRCode sheet [options] -o DIR [file]\n       QRCode serve [--cache DIR [--cache-size MB]] [port]";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            usage(USAGE);
+        }
+        switch (args[0]) {
+            case "encode":
+                EncodeCommand command = null;
+                try {
+                    command = new EncodeCommand(Arrays.copyOfRange(args, 1, args.length));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    usage(EncodeCommand.USAGE);
+                }
+                System.exit(command.run(System.in, System.out, System.err));
+                break;
+            case "sheet":
+                SheetCommand sheetCommand = null;
+                try {
+                    sheetCommand = new SheetCommand(Arrays.copyOfRange(args, 1, args.length));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    usage(SheetCommand.USAGE);
+                }
+                System.exit(sheetCommand.run(System.in, System.err));
+                break;
+            case "serve":
+                serve(Arrays.copyOfRange(args, 1, args.length));
+                break;
+            default:
+                usage(USAGE);
+        }
+    }
+
+    private static void serve(String[] args) throws IOException {
+        int port = EncodingServer.DEFAULT_PORT;
+        Path cacheDirectory = null;
+        long cacheSize = DEFAULT_CACHE_SIZE_MB;
+        try {
+            for (int n = 0; n < args.length; n++) {
+                if (args[n].equals("--cache") && n + 1 < args.length) {
+                    cacheDirectory = Paths.get(args[++n]);
+                } else if (args[n].equals("--cache-size") && n + 1 < args.length) {
+                    cacheSize = Long.parseLong(args[++n]);
+                } else if (n == args.length - 1) {
+                    port = Integer.parseInt(args[n]);
+                } else {
+                    usage(USAGE);
+                }
+            }
+        } catch (NumberFormatException e) {
+            usage(USAGE);
+        }
+
+        RenderCache cache = cacheDirectory == null ? null : new RenderCache(cacheDirectory, cacheSize << 20);
+        EncodingServer server = new EncodingServer(new InetSocketAddress(port), cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            if (cache != null) {
+                try {
+                    cache.close();
+                } catch (IOException e) {
+                    System.err.println(e.getMessage());
+                }
+            }
+        }));
+        server.start();
+        System.out.printf("Listening on http://localhost:%d%s?data=...%n", server.getPort(), EncodingServer.ENCODE_PATH);
+    }
 
+    private static void usage(String usage) {
+        System.err.println(usage);
+        System.exit(2);
     }
 }
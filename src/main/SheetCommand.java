@@ -0,0 +1,180 @@
+package main;
+
+import model.ErrorCorrectionLevel;
+import symbol.SheetCompositor;
+import symbol.SheetFormat;
+import symbol.SheetLayout;
+import symbol.SymbolEncoder;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Command that lays out a stream of payloads on label sheets for printing. Payloads are read one per line from a file or
+ * standard input as UTF-8, and each full sheet is written as a numbered PNG, TIFF or PDF file to a directory, with the
+ * last sheet holding the payloads left over.
+ */
+class SheetCommand {
+
+    static final String USAGE = String.join("\n",
+            "usage: QRCode sheet [options] -o DIR [file]",
+            "  -l, --level L|M|Q|H          error correction level (default M)",
+            "  -p, --paper A4|A3            paper size (default A4)",
+            "      --dpi N                  resolution of the sheet (default 600)",
+            "      --margin MM              blank margin on each side in millimeters (default 10)",
+            "  -c, --columns N              columns of symbols (default 5)",
+            "  -r, --rows N                 rows of symbols (default 7)",
+            "  -s, --scale N                pixels per module (default 8)",
+            "  -f, --format png|tiff|pdf    output format (default pdf)",
+            "  -o, --output DIR             directory of the sheets",
+            "  -j, --threads N              number of rendering threads (default: number of processors)");
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private ErrorCorrectionLevel errorCorrectionLevel = ErrorCorrectionLevel.M;
+
+    private double pageWidth = SheetLayout.A4_WIDTH_MILLIMETERS;
+
+    private double pageHeight = SheetLayout.A4_HEIGHT_MILLIMETERS;
+
+    private int dotsPerInch = 600;
+
+    private double margin = 10;
+
+    private int columns = 5;
+
+    private int rows = 7;
+
+    private int scale = 8;
+
+    private SheetFormat format = SheetFormat.PDF;
+
+    private Path output;
+
+    private Path input;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private final SheetCompositor compositor;
+
+    /**
+     * Parse the options of the command
+     *
+     * @param args The arguments after the command name
+     * @throws IllegalArgumentException If an option is unknown or has an invalid value
+     */
+    SheetCommand(String[] args) {
+        for (int n = 0; n < args.length; n++) {
+            String arg = args[n];
+            switch (arg) {
+                case "-l":
+                case "--level":
+                    errorCorrectionLevel = ErrorCorrectionLevel.valueOf(value(args, ++n, arg));
+                    break;
+                case "-p":
+                case "--paper":
+                    String paper = value(args, ++n, arg).toUpperCase(Locale.ROOT);
+                    if (paper.equals("A4")) {
+                        pageWidth = SheetLayout.A4_WIDTH_MILLIMETERS;
+                        pageHeight = SheetLayout.A4_HEIGHT_MILLIMETERS;
+                    } else if (paper.equals("A3")) {
+                        pageWidth = SheetLayout.A3_WIDTH_MILLIMETERS;
+                        pageHeight = SheetLayout.A3_HEIGHT_MILLIMETERS;
+                    } else {
+                        throw new IllegalArgumentException(String.format("Paper size %s is not valid", paper));
+                    }
+                    break;
+                case "--dpi":
+                    dotsPerInch = Integer.parseInt(value(args, ++n, arg));
+                    break;
+                case "--margin":
+                    margin = Double.parseDouble(value(args, ++n, arg));
+                    break;
+                case "-c":
+                case "--columns":
+                    columns = Integer.parseInt(value(args, ++n, arg));
+                    break;
+                case "-r":
+                case "--rows":
+                    rows = Integer.parseInt(value(args, ++n, arg));
+                    break;
+                case "-s":
+                case "--scale":
+                    scale = Integer.parseInt(value(args, ++n, arg));
+                    break;
+                case "-f":
+                case "--format":
+                    format = SheetFormat.valueOf(value(args, ++n, arg).toUpperCase(Locale.ROOT));
+                    break;
+                case "-o":
+                case "--output":
+                    output = Paths.get(value(args, ++n, arg));
+                    break;
+                case "-j":
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++n, arg));
+                    break;
+                default:
+                    if (arg.startsWith("-") || input != null) {
+                        throw new IllegalArgumentException(String.format("Argument %s is not valid", arg));
+                    }
+                    input = Paths.get(arg);
+            }
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("Sheets need an output directory");
+        }
+        SheetLayout layout = SheetLayout.ofMillimeters(pageWidth, pageHeight, dotsPerInch, margin, columns, rows, scale);
+        compositor = new SheetCompositor(new SymbolEncoder(), errorCorrectionLevel, layout, threads);
+    }
+
+    /**
+     * Lay out every payload of the input and write the sheets
+     *
+     * @param stdin The standard input, read when no input file is given
+     * @param stderr The standard error, for a payload that cannot be placed and the throughput report
+     * @return The exit status, 0 if every payload was placed and 1 otherwise
+     * @throws IOException If the input could not be read or a sheet could not be written
+     * @throws InterruptedException If the thread was interrupted while waiting for a stripe
+     */
+    int run(InputStream stdin, PrintStream stderr) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Files.createDirectories(output);
+        int sheets = 0;
+        long payloads = 0;
+        try (InputStream in = input == null ? stdin : Files.newInputStream(input);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            Iterator<String> lines = reader.lines().iterator();
+            while (lines.hasNext()) {
+                Path file = output.resolve(String.format("sheet-%04d.%s", ++sheets, format.getExtension()));
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), OUTPUT_BUFFER_SIZE)) {
+                    payloads += compositor.write(lines, format, out);
+                } catch (IllegalArgumentException e) {
+                    stderr.printf("sheet %d: %s%n", sheets, e.getMessage());
+                    return 1;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        stderr.printf("wrote %d payloads on %d sheets in %.2f s: %.1f sheets/s%n", payloads, sheets, seconds, sheets / seconds);
+        return 0;
+    }
+
+    private static String value(String[] args, int n, String option) {
+        if (n >= args.length) {
+            throw new IllegalArgumentException(String.format("Option %s needs a value", option));
+        }
+        return args[n];
+    }
+}
@@ -0,0 +1,42 @@
+package metrics;
+
+import model.MaskPattern;
+import model.Mode;
+import model.Version;
+
+import java.util.List;
+
+/**
+ * Listener notified of the cost of each stage of the encoding process and of the choices made while encoding.
+ * All methods do nothing by default. Encoders given {@link #NONE} skip all measurement, so an encoder
+ * without a listener does not pay for timing or allocation accounting.
+ */
+public interface EncodeListener {
+
+    /** Listener that ignores all notifications and disables measurement */
+    EncodeListener NONE = new EncodeListener() {};
+
+    /**
+     * Called once for each stage of an encode after it has finished.
+     *
+     * @param stage The stage that finished
+     * @param nanos The wall clock time spent in the stage, in nanoseconds
+     * @param allocatedBytes The bytes allocated by the encoding thread during the stage, or -1 if the JVM does not support
+     *                       allocation accounting
+     * @param outputBytes The size of the output of the stage in bytes: codewords for data encoding and error correction,
+     *                    modules for placement and mask selection, and written bytes for rendering
+     */
+    default void onStage(EncodeStage stage, long nanos, long allocatedBytes, long outputBytes) {
+    }
+
+    /**
+     * Called once for each encoded symbol after the mask pattern has been selected.
+     *
+     * @param version The version of the symbol
+     * @param segments The modes of the data segments in the symbol, in order
+     * @param maskPattern The selected mask pattern
+     * @param penaltyScore The penalty score of the selected mask pattern
+     */
+    default void onSymbol(Version version, List<Mode> segments, MaskPattern maskPattern, int penaltyScore) {
+    }
+}
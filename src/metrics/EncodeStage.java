@@ -0,0 +1,17 @@
+package metrics;
+
+/**
+ * Enum representing the stages of the encoding process that are measured by an {@link EncodeListener}.
+ */
+public enum EncodeStage {
+    /** Mode selection, version selection and conversion of the characters to padded data codewords */
+    DATA_ENCODING,
+    /** Reed-Solomon error correction codeword generation and interleaving of the blocks */
+    ERROR_CORRECTION,
+    /** Drawing of the function patterns and placement of the masked codewords, once per mask pattern */
+    PLACEMENT,
+    /** Penalty scoring of each masked symbol to select the mask pattern */
+    MASK_SELECTION,
+    /** Rendering of the selected symbol to an output format */
+    RENDERING
+}
@@ -0,0 +1,124 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of non-negative long values with log-linear buckets, in the style of HdrHistogram.
+ * Values below 128 are counted exactly, and larger values are counted in buckets whose width is at most
+ * 1/64 of their lower bound, so every reported percentile is within about 1.6% of the recorded value.
+ */
+public class Histogram {
+
+    /** The number of buckets in each power of two range above the exact range */
+    private static final int SUB_BUCKETS = 64;
+
+    /** log2 of the number of sub buckets */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /** Enough buckets to hold Long.MAX_VALUE */
+    private static final int NUM_BUCKETS = SUB_BUCKETS * (Long.SIZE - SUB_BUCKET_BITS + 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value in this histogram. Negative values are ignored
+     *
+     * @param value The value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+        counts.incrementAndGet(getBucketIndex(value));
+        totalCount.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Get the number of values recorded in this histogram
+     *
+     * @return The number of recorded values
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Get the largest value recorded in this histogram
+     *
+     * @return The largest recorded value, or 0 if no values were recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the mean of the values recorded in this histogram
+     *
+     * @return The mean of the recorded values, or 0 if no values were recorded
+     */
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * Get the value at a given percentile of the recorded values. The result is the highest value
+     * that is equivalent to the recorded value within the precision of the histogram.
+     *
+     * @param percentile The percentile, between 0 and 100 inclusive
+     * @return The value at the percentile, or 0 if no values were recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long seen = 0;
+        for (int index = 0; index < NUM_BUCKETS; index++) {
+            seen += counts.get(index);
+            if (seen >= target) {
+                return Math.min(getHighestValueInBucket(index), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clear all recorded values
+     */
+    public void reset() {
+        for (int index = 0; index < NUM_BUCKETS; index++) {
+            counts.set(index, 0);
+        }
+        totalCount.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static int getBucketIndex(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS * shift + (int) (value >>> shift);
+    }
+
+    private static long getHighestValueInBucket(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index - (long) SUB_BUCKETS * shift;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
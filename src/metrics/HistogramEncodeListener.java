@@ -0,0 +1,164 @@
+package metrics;
+
+import model.MaskPattern;
+import model.Mode;
+import model.Version;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Encode listener that keeps latency and allocation histograms for every stage, along with counts of the
+ * selected versions and mask patterns, and writes them as percentiles in the Prometheus text exposition format
+ * so they can be scraped or inspected locally. One instance can be shared by any number of encoders and threads.
+ */
+public class HistogramEncodeListener implements EncodeListener {
+
+    /** The quantiles written for every histogram */
+    private static final String[] QUANTILES = { "0.5", "0.9", "0.99", "0.999", "1.0" };
+
+    private final Map<EncodeStage, Histogram> latencyHistograms = new EnumMap<>(EncodeStage.class);
+
+    private final Map<EncodeStage, Histogram> allocationHistograms = new EnumMap<>(EncodeStage.class);
+
+    private final Map<EncodeStage, Histogram> outputHistograms = new EnumMap<>(EncodeStage.class);
+
+    private final Histogram penaltyScoreHistogram = new Histogram();
+
+    private final AtomicLongArray versionCounts = new AtomicLongArray(Version.MAXIMUM_VERSION + 1);
+
+    private final AtomicLongArray maskPatternCounts = new AtomicLongArray(MaskPattern.values().length);
+
+    private final AtomicLongArray segmentCounts = new AtomicLongArray(Mode.values().length);
+
+    public HistogramEncodeListener() {
+        for (EncodeStage stage : EncodeStage.values()) {
+            latencyHistograms.put(stage, new Histogram());
+            allocationHistograms.put(stage, new Histogram());
+            outputHistograms.put(stage, new Histogram());
+        }
+    }
+
+    @Override
+    public void onStage(EncodeStage stage, long nanos, long allocatedBytes, long outputBytes) {
+        latencyHistograms.get(stage).record(nanos);
+        allocationHistograms.get(stage).record(allocatedBytes);
+        outputHistograms.get(stage).record(outputBytes);
+    }
+
+    @Override
+    public void onSymbol(Version version, List<Mode> segments, MaskPattern maskPattern, int penaltyScore) {
+        versionCounts.incrementAndGet(version.getVersion());
+        maskPatternCounts.incrementAndGet(maskPattern.ordinal());
+        penaltyScoreHistogram.record(penaltyScore);
+        for (Mode mode : segments) {
+            segmentCounts.incrementAndGet(mode.ordinal());
+        }
+    }
+
+    /**
+     * Get the latency histogram of a stage, in nanoseconds
+     *
+     * @param stage The stage to get the histogram for
+     * @return The latency histogram of the stage
+     */
+    public Histogram getLatencyHistogram(EncodeStage stage) {
+        return latencyHistograms.get(stage);
+    }
+
+    /**
+     * Get the allocation histogram of a stage, in bytes
+     *
+     * @param stage The stage to get the histogram for
+     * @return The allocation histogram of the stage
+     */
+    public Histogram getAllocationHistogram(EncodeStage stage) {
+        return allocationHistograms.get(stage);
+    }
+
+    /**
+     * Get the histogram of penalty scores of the selected mask patterns
+     *
+     * @return The penalty score histogram
+     */
+    public Histogram getPenaltyScoreHistogram() {
+        return penaltyScoreHistogram;
+    }
+
+    /**
+     * Write all metrics in the Prometheus text exposition format
+     *
+     * @param out The appendable to write the metrics to
+     * @throws IOException If the metrics could not be written
+     */
+    public void writeTo(Appendable out) throws IOException {
+        writeSummaryType(out, "qrcode_stage_latency_nanos");
+        for (EncodeStage stage : EncodeStage.values()) {
+            writeSummary(out, "qrcode_stage_latency_nanos", "stage=\"" + stage + "\"", latencyHistograms.get(stage));
+        }
+        writeSummaryType(out, "qrcode_stage_allocated_bytes");
+        for (EncodeStage stage : EncodeStage.values()) {
+            writeSummary(out, "qrcode_stage_allocated_bytes", "stage=\"" + stage + "\"", allocationHistograms.get(stage));
+        }
+        writeSummaryType(out, "qrcode_stage_output_bytes");
+        for (EncodeStage stage : EncodeStage.values()) {
+            writeSummary(out, "qrcode_stage_output_bytes", "stage=\"" + stage + "\"", outputHistograms.get(stage));
+        }
+        writeSummaryType(out, "qrcode_mask_penalty_score");
+        writeSummary(out, "qrcode_mask_penalty_score", null, penaltyScoreHistogram);
+
+        out.append("# TYPE qrcode_symbols_by_version_total counter\n");
+        for (int v = Version.MINIMUM_VERSION; v <= Version.MAXIMUM_VERSION; v++) {
+            long count = versionCounts.get(v);
+            if (count > 0) {
+                out.append("qrcode_symbols_by_version_total{version=\"").append(String.valueOf(v)).append("\"} ")
+                        .append(String.valueOf(count)).append('\n');
+            }
+        }
+        out.append("# TYPE qrcode_symbols_by_mask_pattern_total counter\n");
+        for (MaskPattern maskPattern : MaskPattern.values()) {
+            out.append("qrcode_symbols_by_mask_pattern_total{mask_pattern=\"").append(String.valueOf(maskPattern.getIndicator()))
+                    .append("\"} ").append(String.valueOf(maskPatternCounts.get(maskPattern.ordinal()))).append('\n');
+        }
+        out.append("# TYPE qrcode_segments_by_mode_total counter\n");
+        for (Mode mode : Mode.values()) {
+            long count = segmentCounts.get(mode.ordinal());
+            if (count > 0) {
+                out.append("qrcode_segments_by_mode_total{mode=\"").append(mode.toString()).append("\"} ")
+                        .append(String.valueOf(count)).append('\n');
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            writeTo(builder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    private static void writeSummaryType(Appendable out, String name) throws IOException {
+        out.append("# TYPE ").append(name).append(" summary\n");
+    }
+
+    private static void writeSummary(Appendable out, String name, String labels, Histogram histogram) throws IOException {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        String prefix = labels == null ? "" : labels + ",";
+        for (String quantile : QUANTILES) {
+            out.append(name).append('{').append(prefix).append("quantile=\"").append(quantile).append("\"} ")
+                    .append(String.valueOf(histogram.getValueAtPercentile(Double.parseDouble(quantile) * 100))).append('\n');
+        }
+        String suffix = labels == null ? " " : "{" + labels + "} ";
+        out.append(name).append("_sum").append(suffix).append(String.valueOf(Math.round(histogram.getMean() * histogram.getCount()))).append('\n');
+        out.append(name).append("_count").append(suffix).append(String.valueOf(histogram.getCount())).append('\n');
+    }
+}
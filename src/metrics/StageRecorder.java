@@ -0,0 +1,151 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Accumulates the time and allocation of each stage of a single encode and reports them to an {@link EncodeListener}.
+ * A stage may be entered several times, for example once per mask pattern, and its measurements are summed.
+ * The recorder for {@link EncodeListener#NONE} is a shared instance on which every method returns immediately.
+ */
+public class StageRecorder {
+
+    /** Recorder that measures nothing */
+    private static final StageRecorder DISABLED = new StageRecorder(EncodeListener.NONE);
+
+    private final EncodeListener listener;
+
+    private final boolean enabled;
+
+    private final long[] nanos;
+
+    private final long[] allocatedBytes;
+
+    private final long[] outputBytes;
+
+    private final boolean[] entered;
+
+    private long stageStartNanos;
+
+    private long stageStartAllocatedBytes;
+
+    private StageRecorder(EncodeListener listener) {
+        this.listener = listener;
+        this.enabled = listener != EncodeListener.NONE;
+        int numStages = enabled ? EncodeStage.values().length : 0;
+        this.nanos = new long[numStages];
+        this.allocatedBytes = new long[numStages];
+        this.outputBytes = new long[numStages];
+        this.entered = new boolean[numStages];
+    }
+
+    /**
+     * Get a recorder for one encode that reports to a given listener
+     *
+     * @param listener The listener to report to
+     * @return A new recorder, or the shared disabled recorder if the listener is {@link EncodeListener#NONE}
+     */
+    public static StageRecorder forListener(EncodeListener listener) {
+        return listener == EncodeListener.NONE ? DISABLED : new StageRecorder(listener);
+    }
+
+    /**
+     * Whether this recorder measures anything
+     *
+     * @return true if measurements are reported to a listener
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start measuring a stage
+     */
+    public void begin() {
+        if (!enabled) {
+            return;
+        }
+        stageStartAllocatedBytes = getCurrentThreadAllocatedBytes();
+        stageStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop measuring a stage and add the measurements to its totals
+     *
+     * @param stage The stage that was measured since the last call to {@link #begin()}
+     * @param bytes The size of the output of the stage in bytes
+     */
+    public void end(EncodeStage stage, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - stageStartNanos;
+        int index = stage.ordinal();
+        nanos[index] += elapsed;
+        outputBytes[index] += bytes;
+        entered[index] = true;
+        if (stageStartAllocatedBytes >= 0) {
+            allocatedBytes[index] += getCurrentThreadAllocatedBytes() - stageStartAllocatedBytes;
+        } else {
+            allocatedBytes[index] = -1;
+        }
+    }
+
+    /**
+     * Report the totals of every stage that was measured to the listener
+     */
+    public void report() {
+        if (!enabled) {
+            return;
+        }
+        for (EncodeStage stage : EncodeStage.values()) {
+            int index = stage.ordinal();
+            if (entered[index]) {
+                listener.onStage(stage, nanos[index], allocatedBytes[index], outputBytes[index]);
+            }
+        }
+    }
+
+    /**
+     * Get the listener this recorder reports to
+     *
+     * @return The listener of this recorder
+     */
+    public EncodeListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Get the number of heap bytes the current thread has allocated since it started
+     *
+     * @return The number of bytes, or -1 if the JVM does not support allocation accounting
+     */
+    public static long getCurrentThreadAllocatedBytes() {
+        com.sun.management.ThreadMXBean threadBean = ThreadBeanHolder.THREAD_BEAN;
+        return threadBean == null ? -1 : threadBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Holder of the thread bean, so that the management modules are only loaded once allocation is measured and a
+     * runtime with java.base alone can encode without metrics
+     */
+    private static class ThreadBeanHolder {
+
+        /** The thread bean used for allocation accounting, or null if it is not supported by the JVM */
+        private static final com.sun.management.ThreadMXBean THREAD_BEAN = getThreadBean();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        if (ModuleLayer.boot().findModule("jdk.management").isEmpty()) {
+            return null;
+        }
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+            if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+                return threadBean;
+            }
+        }
+        return null;
+    }
+}
@@ -82,41 +82,44 @@ public class BinaryData {
     }
 
     /**
-     * Get an array of bytes that represents this binary data. The array can be modified
+     * Overwrite bits that have already been appended with an int, such as a length that is only known
+     * once the data following it has been appended
+     *
+     * @param index The index of the first bit to overwrite
+     * @param value The value of the int to be written
+     * @param numBits The number of bits the value takes up
+     */
+    public void setInt(int index, int value, int numBits) {
+        assertIndexInRange(index + numBits - 1);
+        for (int i = 0; i < numBits; i++) {
+            bits.set(index + numBits - i - 1, (value & (1 << i)) != 0);
+        }
+    }
+
+    /**
+     * Get an array of bytes that represents this binary data. The array can be modified.
+     * If the size is not a multiple of 8, the last byte is padded with 0 bits.
      *
      * @return An array of bytes representing the binary data
      */
     public byte[] toByteArray() {
-        // TODO make sure 0 bits at the end are included
-        byte[] bytes = bits.toByteArray();
-        // Bytes need to have their bits reversed
-        for (int i = 0; i < bytes.length; i++) {
-            byte b = bytes[i];
-            byte newByte = 0;
-            for (int j = 0; j < 8; j++) {
-                int bitValue = b & (1 << j);
-                int newLocation = 7 - j;
-                if (newLocation > j) {
-                    newByte |= bitValue << (newLocation - j);
-                } else {
-                    newByte |= bitValue >> (j - newLocation);
-
-                }
-            }
-            bytes[i] = newByte;
+        byte[] bytes = new byte[(size + 7) / 8];
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            bytes[i / 8] |= 1 << (7 - (i % 8));
         }
         return bytes;
     }
 
     /**
-     * Get a list of integers that represents this binary data. This list can be modified
+     * Get a list of integers that represents this binary data, with each integer holding the
+     * unsigned value of one byte. This list can be modified
      *
      * @return A list of integers representing the binary data
      */
     public List<Integer> toIntegerList() {
         ArrayList<Integer> result = new ArrayList<>();
         for (byte b : this.toByteArray()) {
-            result.add((int) b);
+            result.add(b & 0xFF);
         }
         return result;
     }
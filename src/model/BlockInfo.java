@@ -11,6 +11,35 @@ public class BlockInfo {
     /** The number of error correction codewords in this block */
     private int errorCorrectionCodewords;
 
+    /**
+     * Create a BlockInfo with a given number of data and error correction codewords
+     *
+     * @param dataCodewords The number of data codewords in this block
+     * @param errorCorrectionCodewords The number of error correction codewords in this block
+     */
+    public BlockInfo(int dataCodewords, int errorCorrectionCodewords) {
+        this.dataCodewords = dataCodewords;
+        this.errorCorrectionCodewords = errorCorrectionCodewords;
+    }
+
+    /**
+     * Get the number of data codewords in this block
+     *
+     * @return the number of data codewords in this block
+     */
+    public int getDataCodewords() {
+        return this.dataCodewords;
+    }
+
+    /**
+     * Get the number of error correction codewords in this block
+     *
+     * @return the number of error correction codewords in this block
+     */
+    public int getErrorCorrectionCodewords() {
+        return this.errorCorrectionCodewords;
+    }
+
     /**
      * Get the total number of codewords in this block
      *
@@ -0,0 +1,78 @@
+package model;
+
+/**
+ * Util class holding the codeword capacity and error correction block structure of each version
+ * and error correction level, as described by tables 1 and 9 of the QR Code specification ISO/IEC 18004.
+ */
+public class CodewordCapacity {
+
+    /** The number of error correction codewords in each block, indexed by error correction level and version */
+    private static final int[][] ERROR_CORRECTION_CODEWORDS_PER_BLOCK = {
+            {-1, 7, 10, 15, 20, 26, 18, 20, 24, 30, 18, 20, 24, 26, 30, 22, 24, 28, 30, 28, 28, 28, 28, 30, 30, 26, 28, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30},
+            {-1, 10, 16, 26, 18, 24, 16, 18, 22, 22, 26, 30, 22, 22, 24, 24, 28, 28, 26, 26, 26, 26, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28},
+            {-1, 13, 22, 18, 26, 18, 24, 18, 22, 20, 24, 28, 26, 24, 20, 30, 24, 28, 28, 26, 30, 28, 30, 30, 30, 30, 28, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30},
+            {-1, 17, 28, 22, 16, 22, 28, 26, 26, 24, 28, 24, 28, 22, 24, 24, 30, 28, 28, 26, 28, 30, 24, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30}
+    };
+
+    /** The total number of error correction blocks, indexed by error correction level and version */
+    private static final int[][] NUMBER_OF_BLOCKS = {
+            {-1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 4, 4, 4, 4, 4, 6, 6, 6, 6, 7, 8, 8, 9, 9, 10, 12, 12, 12, 13, 14, 15, 16, 17, 18, 19, 19, 20, 21, 22, 24, 25},
+            {-1, 1, 1, 1, 2, 2, 4, 4, 4, 5, 5, 5, 8, 9, 9, 10, 10, 11, 13, 14, 16, 17, 17, 18, 20, 21, 23, 25, 26, 28, 29, 31, 33, 35, 37, 38, 40, 43, 45, 47, 49},
+            {-1, 1, 1, 2, 2, 4, 4, 6, 6, 8, 8, 8, 10, 12, 16, 12, 17, 16, 18, 21, 20, 23, 23, 25, 27, 29, 34, 34, 35, 38, 40, 43, 45, 48, 51, 53, 56, 59, 62, 65, 68},
+            {-1, 1, 1, 2, 4, 4, 4, 5, 6, 8, 8, 11, 11, 16, 16, 18, 16, 19, 21, 25, 25, 25, 34, 30, 32, 35, 37, 40, 42, 45, 48, 51, 54, 57, 60, 63, 66, 70, 74, 77, 81}
+    };
+
+    /**
+     * Get the total number of codewords in a symbol of a given version, which is the number of modules
+     * not used by function patterns, format information or version information divided by 8.
+     *
+     * @param version The version of the symbol
+     * @return The total number of codewords in the symbol
+     */
+    public static int getTotalCodewords(Version version) {
+        int v = version.getVersion();
+        int modules = (16 * v + 128) * v + 64;
+        if (v >= 2) {
+            int alignmentPatternsPerSide = v / 7 + 2;
+            modules -= (25 * alignmentPatternsPerSide - 10) * alignmentPatternsPerSide - 55;
+            if (version.hasVersionInfo()) {
+                modules -= 36;
+            }
+        }
+        return modules / 8;
+    }
+
+    /**
+     * Get the number of error correction blocks in a symbol of a given version and error correction level
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The number of error correction blocks
+     */
+    public static int getNumberOfBlocks(Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return NUMBER_OF_BLOCKS[errorCorrectionLevel.getIndex()][version.getVersion()];
+    }
+
+    /**
+     * Get the number of error correction codewords in each block of a symbol of a given version and error correction level
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The number of error correction codewords per block
+     */
+    public static int getErrorCorrectionCodewordsPerBlock(Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return ERROR_CORRECTION_CODEWORDS_PER_BLOCK[errorCorrectionLevel.getIndex()][version.getVersion()];
+    }
+
+    /**
+     * Get the number of data codewords in a symbol of a given version and error correction level
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The number of data codewords
+     */
+    public static int getDataCodewords(Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return getTotalCodewords(version)
+                - getNumberOfBlocks(version, errorCorrectionLevel) * getErrorCorrectionCodewordsPerBlock(version, errorCorrectionLevel);
+    }
+}
@@ -63,6 +63,23 @@ public class Coordinate {
         return Math.max(Math.abs(i - other.getI()), Math.abs(j - other.getJ()));
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Coordinate)) {
+            return false;
+        }
+        Coordinate other = (Coordinate) o;
+        return i == other.i && j == other.j;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * i + j;
+    }
+
     @Override
     public String toString() {
         return "Coordinate{" +
@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * Exception thrown when a symbol cannot be decoded, either because it is damaged beyond the
+ * error correction capacity of its blocks or because its contents do not follow the specification.
+ */
+public class DecodeException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Create a DecodeException with a given message
+     *
+     * @param message The reason the symbol could not be decoded
+     */
+    public DecodeException(String message) {
+        super(message);
+    }
+}
@@ -53,6 +53,35 @@ public enum MaskPattern {
         return condition;
     }
 
+    /**
+     * Whether the module at a given coordinate is inverted by this mask pattern. This is equivalent to testing
+     * the condition, without boxing the coordinates.
+     *
+     * @param i The row of the module
+     * @param j The column of the module
+     * @return true if the module is inverted by this mask pattern
+     */
+    public boolean isMasked(int i, int j) {
+        switch (this) {
+            case ZERO:
+                return zeroCondition(i, j);
+            case ONE:
+                return oneCondition(i, j);
+            case TWO:
+                return twoCondition(i, j);
+            case THREE:
+                return threeCondition(i, j);
+            case FOUR:
+                return fourCondition(i, j);
+            case FIVE:
+                return fiveCondition(i, j);
+            case SIX:
+                return sixCondition(i, j);
+            default:
+                return sevenCondition(i, j);
+        }
+    }
+
     private static boolean zeroCondition(int i, int j) {
         return (i + j) % 2 == 0;
     }
@@ -0,0 +1,115 @@
+package model;
+
+/**
+ * Util class holding the codeword capacity and error correction structure of each Micro QR version
+ * and error correction level, as described by tables 7 and 9 of the QR Code specification ISO/IEC 18004.
+ * A Micro QR symbol always has a single error correction block. Symbol M1 only provides error detection,
+ * which is represented here by error correction level L.
+ */
+public class MicroCodewordCapacity {
+
+    /** The total number of codewords, indexed by version, including the 4-bit last data codeword of M1 and M3 */
+    private static final int[] TOTAL_CODEWORDS = { -1, 5, 10, 17, 24 };
+
+    /** The number of error correction codewords, indexed by error correction level and version, or -1 if not supported */
+    private static final int[][] ERROR_CORRECTION_CODEWORDS = {
+            {-1, 2, 5, 6, 8},
+            {-1, -1, 6, 8, 10},
+            {-1, -1, -1, -1, 14},
+            {-1, -1, -1, -1, -1}
+    };
+
+    /** The 3-bit symbol number used in the format information, indexed by error correction level and version */
+    private static final int[][] SYMBOL_NUMBERS = {
+            {-1, 0, 1, 3, 5},
+            {-1, -1, 2, 4, 6},
+            {-1, -1, -1, -1, 7},
+            {-1, -1, -1, -1, -1}
+    };
+
+    /**
+     * Get whether symbols of a given version can be encoded at a given error correction level
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return Whether the combination of version and error correction level is valid
+     */
+    public static boolean isSupported(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return ERROR_CORRECTION_CODEWORDS[errorCorrectionLevel.getIndex()][version.getVersion()] >= 0;
+    }
+
+    /**
+     * Get the total number of codewords in a symbol of a given version
+     *
+     * @param version The version of the symbol
+     * @return The total number of codewords in the symbol
+     */
+    public static int getTotalCodewords(MicroVersion version) {
+        return TOTAL_CODEWORDS[version.getVersion()];
+    }
+
+    /**
+     * Get the number of error correction codewords in a symbol of a given version and error correction level
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The number of error correction codewords
+     */
+    public static int getErrorCorrectionCodewords(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        assertSupported(version, errorCorrectionLevel);
+        return ERROR_CORRECTION_CODEWORDS[errorCorrectionLevel.getIndex()][version.getVersion()];
+    }
+
+    /**
+     * Get the number of data codewords in a symbol of a given version and error correction level,
+     * counting the 4-bit last data codeword of M1 and M3 as a whole codeword
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The number of data codewords
+     */
+    public static int getDataCodewords(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return getTotalCodewords(version) - getErrorCorrectionCodewords(version, errorCorrectionLevel);
+    }
+
+    /**
+     * Get the number of data bits a symbol of a given version and error correction level can hold
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The data capacity in bits
+     */
+    public static int getDataCapacityInBits(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        int bits = getDataCodewords(version, errorCorrectionLevel) * 8;
+        return hasShortLastDataCodeword(version) ? bits - 4 : bits;
+    }
+
+    /**
+     * Get whether the last data codeword of symbols of a given version is only 4 bits long, which is the case for M1 and M3
+     *
+     * @param version The version of the symbol
+     * @return Whether the last data codeword is 4 bits long
+     */
+    public static boolean hasShortLastDataCodeword(MicroVersion version) {
+        return version.getVersion() % 2 == 1;
+    }
+
+    /**
+     * Get the symbol number of a given version and error correction level, which identifies both in the format information
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The 3-bit symbol number
+     */
+    public static int getSymbolNumber(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        assertSupported(version, errorCorrectionLevel);
+        return SYMBOL_NUMBERS[errorCorrectionLevel.getIndex()][version.getVersion()];
+    }
+
+    private static void assertSupported(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        if (!isSupported(version, errorCorrectionLevel)) {
+            throw new IllegalArgumentException(String.format(
+                    "Micro QR version %s does not support error correction level %s", version, errorCorrectionLevel));
+        }
+    }
+}
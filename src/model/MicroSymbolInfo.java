@@ -0,0 +1,161 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Model class describing the structure of a Micro QR symbol, as specified by section 6.3 of the QR Code
+ * specification ISO/IEC 18004. A Micro QR symbol has a single finder pattern in its top left corner,
+ * timing patterns along its top row and left column and no alignment patterns or version information.
+ */
+public class MicroSymbolInfo {
+
+    public static final int TIMING_PATTERN_COORDINATE = 0;
+
+    public static final Coordinate DETECTION_PATTERN_CENTER =
+            new Coordinate(SymbolInfo.DETECTION_PATTERN_RADIUS, SymbolInfo.DETECTION_PATTERN_RADIUS);
+
+    /** The row and column holding the format information, next to the separator of the finder pattern */
+    public static final int FORMAT_INFO_COORDINATE = SymbolInfo.DETECTION_PATTERN_DIAMETER + 1;
+
+    public static final List<Boolean> FORMAT_INFO_MASK_PATTERN =
+            Arrays.asList(true, false, false, false, true, false, false, false, true, false, false, false, true, false, true);
+
+    /** The four mask patterns available to Micro QR symbols, in the order of their 2-bit indicators */
+    public static final List<MaskPattern> MASK_PATTERNS =
+            Arrays.asList(MaskPattern.ONE, MaskPattern.FOUR, MaskPattern.SIX, MaskPattern.SEVEN);
+
+    public static final int MASK_PATTERN_INDICATOR_LENGTH_IN_BITS = 2;
+
+    public static final int SYMBOL_NUMBER_LENGTH_IN_BITS = 3;
+
+    private MicroVersion version;
+
+    private ErrorCorrectionLevel errorCorrectionLevel;
+
+    private MaskPattern maskPattern;
+
+    private BlockInfo blockInfo;
+
+    private List<Coordinate> formatInfoCoordinates;
+
+    public static List<MicroSymbolInfo> forEachMaskPattern(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return MASK_PATTERNS.stream()
+                .map((MaskPattern pattern) -> new MicroSymbolInfo(version, errorCorrectionLevel, pattern))
+                .collect(Collectors.toList());
+    }
+
+    public MicroSymbolInfo(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel, MaskPattern maskPattern) {
+        if (!MicroCodewordCapacity.isSupported(version, errorCorrectionLevel)) {
+            throw new IllegalArgumentException(String.format(
+                    "Micro QR version %s does not support error correction level %s", version, errorCorrectionLevel));
+        }
+        if (!MASK_PATTERNS.contains(maskPattern)) {
+            throw new IllegalArgumentException(String.format("Mask pattern %s is not available to Micro QR symbols", maskPattern));
+        }
+        this.version = version;
+        this.errorCorrectionLevel = errorCorrectionLevel;
+        this.maskPattern = maskPattern;
+        this.blockInfo = new BlockInfo(
+                MicroCodewordCapacity.getDataCodewords(version, errorCorrectionLevel),
+                MicroCodewordCapacity.getErrorCorrectionCodewords(version, errorCorrectionLevel));
+        this.formatInfoCoordinates = generateFormatInfoCoordinates();
+    }
+
+    public MicroVersion getVersion() {
+        return version;
+    }
+
+    public ErrorCorrectionLevel getErrorCorrectionLevel() {
+        return errorCorrectionLevel;
+    }
+
+    public MaskPattern getMaskPattern() {
+        return maskPattern;
+    }
+
+    public int getSymbolSideLength() {
+        return version.getSymbolSideLength();
+    }
+
+    public BlockInfo getBlockInfo() {
+        return blockInfo;
+    }
+
+    public int getDataCodewords() {
+        return blockInfo.getDataCodewords();
+    }
+
+    public int getTotalCodewords() {
+        return blockInfo.getTotalCodewords();
+    }
+
+    public boolean hasShortLastDataCodeword() {
+        return MicroCodewordCapacity.hasShortLastDataCodeword(version);
+    }
+
+    public List<Coordinate> getFormatInfoCoordinates() {
+        return formatInfoCoordinates;
+    }
+
+    public boolean isCoordinateOutOfBounds(int i, int j) {
+        int sideLength = getSymbolSideLength();
+        return i < 0 || i >= sideLength || j < 0 || j >= sideLength;
+    }
+
+    public boolean isCoordinateAvailableForData(int i, int j) {
+        if (isCoordinateOutOfBounds(i, j)) {
+            return false;
+        }
+        if (i == TIMING_PATTERN_COORDINATE || j == TIMING_PATTERN_COORDINATE) {
+            return false;
+        }
+        // the finder pattern with its separator, and the format information around them
+        return i > FORMAT_INFO_COORDINATE || j > FORMAT_INFO_COORDINATE;
+    }
+
+    public BinaryData getFormatInfo() {
+        return getFormatInfo(version, errorCorrectionLevel, maskPattern);
+    }
+
+    /**
+     * Get the masked format information with BCH error correction bits for a given symbol, as described by
+     * section 8.9 of the QR Code specification ISO/IEC 18004. The data bits are the symbol number followed by
+     * the 2-bit mask pattern indicator.
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @param maskPattern The mask pattern of the symbol
+     * @return The 15 bits of format information
+     */
+    public static BinaryData getFormatInfo(MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel, MaskPattern maskPattern) {
+        BinaryData data = new BinaryData();
+        data.appendInt(SpecificationTables.MICRO_FORMAT_INFO[MicroCodewordCapacity.getSymbolNumber(version, errorCorrectionLevel)]
+                [getMaskPatternIndicator(maskPattern)], SymbolInfo.FORMAT_INFO_LENGTH_IN_BITS);
+        return data;
+    }
+
+    /**
+     * Get the 2-bit indicator of a mask pattern in the format information of a Micro QR symbol
+     *
+     * @param maskPattern The mask pattern, which must be one of {@link #MASK_PATTERNS}
+     * @return The 2-bit mask pattern indicator
+     */
+    public static int getMaskPatternIndicator(MaskPattern maskPattern) {
+        return MASK_PATTERNS.indexOf(maskPattern);
+    }
+
+    private List<Coordinate> generateFormatInfoCoordinates() {
+        // ordered from the least significant bit, down the column next to the finder pattern and then right to left along the row
+        List<Coordinate> coordinates = new ArrayList<>(15);
+        for (int i = 1; i <= FORMAT_INFO_COORDINATE; i++) {
+            coordinates.add(new Coordinate(i, FORMAT_INFO_COORDINATE));
+        }
+        for (int j = FORMAT_INFO_COORDINATE - 1; j >= 1; j--) {
+            coordinates.add(new Coordinate(FORMAT_INFO_COORDINATE, j));
+        }
+        return coordinates;
+    }
+}
@@ -0,0 +1,135 @@
+package model;
+
+/**
+ * Model class representing the version of a Micro QR symbol, M1 to M4, as specified by section
+ * 6.4.1 of the QR Code specification ISO/IEC 18004.
+ */
+public class MicroVersion {
+
+    public static final int MINIMUM_VERSION = 1;
+    public static final int MAXIMUM_VERSION = 4;
+
+    /** The character count indicator lengths indexed by mode and version, with 0 where the mode is not supported */
+    private static final int[] NUMERIC_CHARACTER_COUNT_INDICATOR_LENGTHS = { 0, 3, 4, 5, 6 };
+    private static final int[] ALPHANUMERIC_CHARACTER_COUNT_INDICATOR_LENGTHS = { 0, 0, 3, 4, 5 };
+    private static final int[] BYTE_CHARACTER_COUNT_INDICATOR_LENGTHS = { 0, 0, 0, 4, 5 };
+    private static final int[] KANJI_CHARACTER_COUNT_INDICATOR_LENGTHS = { 0, 0, 0, 3, 4 };
+
+    /** The numerical value of the version, between 1 and 4 (inclusive) for M1 to M4 */
+    private int version;
+
+    /**
+     * Create a MicroVersion with a given version value.
+     *
+     * @param version The numerical value of the version, 1 for M1 up to 4 for M4
+     */
+    public MicroVersion(int version) {
+        if (version < MINIMUM_VERSION || version > MAXIMUM_VERSION) {
+            throw new IllegalArgumentException(String.format("Micro QR version M%s is not valid", version));
+        }
+        this.version = version;
+    }
+
+    /**
+     * Get the side length of a symbol of this MicroVersion
+     *
+     * @return The side length of a symbol of this MicroVersion
+     */
+    public int getSymbolSideLength() {
+        return 11 + (2 * (version - 1));
+    }
+
+    /**
+     * Get the version as an int value
+     *
+     * @return The integer value of the version number
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the length of the mode indicator for this version, which is 0 for M1 as it only supports Numeric mode
+     *
+     * @return The length of the mode indicator in bits
+     */
+    public int getModeIndicatorLength() {
+        return version - 1;
+    }
+
+    /**
+     * Get the mode indicator of a given mode for this version, as listed in table 2 of the QR Code specification.
+     *
+     * @param mode The mode to get the indicator for
+     * @return The mode indicator, with a length of {@link #getModeIndicatorLength()} bits
+     */
+    public int getModeIndicator(Mode mode) {
+        assertModeSupported(mode);
+        switch (mode) {
+            case NUMERIC:
+                return 0b00;
+            case ALPHANUMERIC:
+                return 0b01;
+            case BYTE:
+                return 0b10;
+            default:
+                return 0b11;
+        }
+    }
+
+    /**
+     * Get the length of the terminator for this version, which is 3, 5, 7 or 9 bits for M1 to M4
+     *
+     * @return The length of the terminator in bits
+     */
+    public int getTerminatorLength() {
+        return 2 * version + 1;
+    }
+
+    /**
+     * Get whether a symbol of this version can hold data in a given mode
+     *
+     * @param mode The mode of the data
+     * @return Whether the mode is supported by this version
+     */
+    public boolean isModeSupported(Mode mode) {
+        return getCharacterCountIndicatorLengths(mode)[version] > 0;
+    }
+
+    /**
+     * Get the length of the character count indicator for this version and a given mode.
+     *
+     * @param mode The mode to get the length of the character count indicator for.
+     * @return The length of the character count indicator.
+     */
+    public int getCharacterCountIndicatorLength(Mode mode) {
+        assertModeSupported(mode);
+        return getCharacterCountIndicatorLengths(mode)[version];
+    }
+
+    @Override
+    public String toString() {
+        return "M" + version;
+    }
+
+    private static int[] getCharacterCountIndicatorLengths(Mode mode) {
+        switch (mode) {
+            case NUMERIC:
+                return NUMERIC_CHARACTER_COUNT_INDICATOR_LENGTHS;
+            case ALPHANUMERIC:
+                return ALPHANUMERIC_CHARACTER_COUNT_INDICATOR_LENGTHS;
+            case BYTE:
+                return BYTE_CHARACTER_COUNT_INDICATOR_LENGTHS;
+            case KANJI:
+                return KANJI_CHARACTER_COUNT_INDICATOR_LENGTHS;
+            default:
+                return new int[MAXIMUM_VERSION + 1];
+        }
+    }
+
+    private void assertModeSupported(Mode mode) {
+        if (!isModeSupported(mode)) {
+            throw new IllegalArgumentException(String.format("Mode %s is not supported by Micro QR version %s", mode, this));
+        }
+    }
+}
@@ -45,6 +45,21 @@ public enum Mode {
         this.longLength = longLength;
     }
 
+    /**
+     * Get the mode with a given 4-bit indicator
+     *
+     * @param indicator The 4-bit indicator of the mode
+     * @return The mode with the indicator, or null if no mode has the indicator
+     */
+    public static Mode fromIndicator(int indicator) {
+        for (Mode mode : values()) {
+            if (mode.indicator == indicator) {
+                return mode;
+            }
+        }
+        return null;
+    }
+
     /**
      * Get the 4-bit indicator for this mode
      *
@@ -0,0 +1,266 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Build step that computes the tables of the QR Code specification ISO/IEC 18004 from their definitions and writes them
+ * as the constant arrays of {@link SpecificationTables}, so that none of them is computed or read from a file when the
+ * library starts. Nothing here reads {@link SpecificationTables}, so a stale or broken copy can always be regenerated.
+ * <br />
+ * Run from the repository root, it reads {@code data/AlignmentPatterns.csv} and writes
+ * {@code src/model/SpecificationTables.java}. With {@code --check} it writes nothing and exits with status 1 if the
+ * checked in source differs from what it would write.
+ */
+public class SpecificationTablesGenerator {
+
+    public static final String ALIGNMENT_PATTERNS_FILE = "data/AlignmentPatterns.csv";
+
+    public static final String OUTPUT_FILE = "src/model/SpecificationTables.java";
+
+    /** The primitive polynomial of GF(256), x^8 + x^4 + x^3 + x^2 + 1, as described by section 8.5.2 */
+    private static final int GF256_MODULUS = 0b100011101;
+
+    /** The generator polynomial of the (15, 5) BCH code of the format information, as described by annex C */
+    private static final int FORMAT_INFO_GENERATOR = 0b10100110111;
+
+    /** The generator polynomial of the (18, 6) BCH code of the version information, as described by annex D */
+    private static final int VERSION_INFO_GENERATOR = 0b1111100100101;
+
+    /** The pattern XORed with the format information of a QR Code symbol */
+    private static final int FORMAT_INFO_MASK = 0b101010000010010;
+
+    /** The pattern XORed with the format information of a Micro QR symbol */
+    private static final int MICRO_FORMAT_INFO_MASK = 0b100010001000101;
+
+    private static final int FORMAT_INFO_DATA_LENGTH_IN_BITS = 5;
+
+    private static final int FORMAT_INFO_LENGTH_IN_BITS = 15;
+
+    private static final int VERSION_INFO_LENGTH_IN_BITS = 18;
+
+    /** The number of symbol numbers of Micro QR symbols, M1 to M4 with every error correction level each supports */
+    private static final int MICRO_SYMBOL_NUMBERS = 8;
+
+    private static final int MICRO_MASK_PATTERNS = 4;
+
+    /** The largest degree of a generator polynomial, which is the largest number of error correction codewords of a block */
+    private static final int MAXIMUM_GENERATOR_DEGREE = 68;
+
+    /** The number of values written on each line of an array */
+    private static final int VALUES_PER_LINE = 16;
+
+    private static final int[] EXP = new int[512];
+
+    private static final int[] LOG = new int[256];
+
+    static {
+        int value = 1;
+        for (int power = 0; power < EXP.length; power++) {
+            EXP[power] = value;
+            if (power < 255) {
+                LOG[value] = power;
+            }
+            value <<= 1;
+            if (value > 0xFF) {
+                value ^= GF256_MODULUS;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean check = args.length > 0 && args[0].equals("--check");
+        Path output = Paths.get(OUTPUT_FILE);
+        String source = generate(Files.readAllLines(Paths.get(ALIGNMENT_PATTERNS_FILE), StandardCharsets.UTF_8));
+        if (!check) {
+            Files.write(output, source.getBytes(StandardCharsets.UTF_8));
+            System.out.println("Wrote " + output);
+            return;
+        }
+        String current = Files.exists(output) ? new String(Files.readAllBytes(output), StandardCharsets.UTF_8) : "";
+        if (!current.equals(source)) {
+            System.err.println(output + " is out of date, run model.SpecificationTablesGenerator to regenerate it");
+            System.exit(1);
+        }
+        System.out.println(output + " is up to date");
+    }
+
+    /**
+     * Generate the source of {@link SpecificationTables}
+     *
+     * @param alignmentPatterns The lines of the alignment pattern file, one per version from version 1
+     * @return The Java source
+     */
+    public static String generate(List<String> alignmentPatterns) {
+        StringBuilder out = new StringBuilder();
+        out.append("package model;\n\n");
+        out.append("/**\n");
+        out.append(" * Tables of the QR Code specification ISO/IEC 18004 as constant arrays, so that starting the library computes and\n");
+        out.append(" * reads nothing. GENERATED by {@link SpecificationTablesGenerator} from the definitions of the specification and\n");
+        out.append(" * {@code data/AlignmentPatterns.csv}: do not edit by hand, run the generator from the repository root instead.\n");
+        out.append(" * <br />\n");
+        out.append(" * The arrays are shared by every caller and must not be modified.\n");
+        out.append(" */\n");
+        out.append("public class SpecificationTables {\n");
+
+        appendArray(out, "The value of each power of 2 in GF(256) modulo 100011101, as described by section 8.5.2, repeated so that the\n"
+                + "sum of two logs indexes it without reduction modulo 255", "GF256_EXP", EXP);
+        appendArray(out, "The power of 2 of each value in GF(256) modulo 100011101, with index 0 unused", "GF256_LOG", LOG);
+
+        int[][] generators = new int[MAXIMUM_GENERATOR_DEGREE + 1][];
+        for (int degree = 1; degree < generators.length; degree++) {
+            generators[degree] = getGeneratorPolynomial(degree);
+        }
+        appendArray(out, "The coefficients of the Reed-Solomon generator polynomial of each degree, as described by annex A, from the\n"
+                + "highest degree down without the leading coefficient of 1, with index 0 unused", "GENERATOR_POLYNOMIALS", generators);
+
+        int[][] formatInfo = new int[ErrorCorrectionLevel.values().length][MaskPattern.values().length];
+        for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+            for (MaskPattern maskPattern : MaskPattern.values()) {
+                int data = level.getIndicator() << MaskPattern.INDICATOR_LENGTH_IN_BITS | maskPattern.getIndicator();
+                formatInfo[level.getIndex()][maskPattern.ordinal()] = getFormatInfo(data, FORMAT_INFO_MASK);
+            }
+        }
+        appendArray(out, "The 15 bits of masked format information of each error correction level and mask pattern, as described by\n"
+                + "section 8.9, with the most significant bit first", "FORMAT_INFO", formatInfo);
+
+        int[][] microFormatInfo = new int[MICRO_SYMBOL_NUMBERS][MICRO_MASK_PATTERNS];
+        for (int symbolNumber = 0; symbolNumber < MICRO_SYMBOL_NUMBERS; symbolNumber++) {
+            for (int mask = 0; mask < MICRO_MASK_PATTERNS; mask++) {
+                microFormatInfo[symbolNumber][mask] = getFormatInfo(symbolNumber << 2 | mask, MICRO_FORMAT_INFO_MASK);
+            }
+        }
+        appendArray(out, "The 15 bits of masked format information of Micro QR symbols, indexed by symbol number and 2-bit mask pattern\n"
+                + "indicator, with the most significant bit first", "MICRO_FORMAT_INFO", microFormatInfo);
+
+        int[] versionInfo = new int[Version.MAXIMUM_VERSION + 1];
+        for (int v = Version.MINIMUM_VERSION; v <= Version.MAXIMUM_VERSION; v++) {
+            if (new Version(v).hasVersionInfo()) {
+                versionInfo[v] = v << (VERSION_INFO_LENGTH_IN_BITS - Version.INDICATOR_LENGTH_IN_BITS)
+                        | getBCHRemainder(v, VERSION_INFO_GENERATOR, VERSION_INFO_LENGTH_IN_BITS - Version.INDICATOR_LENGTH_IN_BITS);
+            }
+        }
+        appendArray(out, "The 18 bits of version information of each version, as described by section 8.10, with the most\n"
+                + "significant bit first, or 0 for the versions without version information", "VERSION_INFO", versionInfo);
+
+        appendArray(out, "The rows and columns of the alignment pattern centers of each version, as listed by annex E, from which the\n"
+                + "centers are every pair of them that does not overlap a finder pattern", "ALIGNMENT_PATTERN_POSITIONS",
+                getAlignmentPatternPositions(alignmentPatterns));
+
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Multiply the factors (x - 2^i) for i from 0 to degree - 1 in GF(256)
+     */
+    private static int[] getGeneratorPolynomial(int degree) {
+        // coefficients from the highest degree down, starting from the polynomial 1
+        int[] polynomial = { 1 };
+        for (int i = 0; i < degree; i++) {
+            int[] product = new int[polynomial.length + 1];
+            for (int n = 0; n < polynomial.length; n++) {
+                product[n] ^= polynomial[n];
+                if (polynomial[n] != 0) {
+                    product[n + 1] ^= EXP[LOG[polynomial[n]] + i];
+                }
+            }
+            polynomial = product;
+        }
+        return Arrays.copyOfRange(polynomial, 1, polynomial.length);
+    }
+
+    private static int getFormatInfo(int data, int mask) {
+        int errorCorrectionLength = FORMAT_INFO_LENGTH_IN_BITS - FORMAT_INFO_DATA_LENGTH_IN_BITS;
+        return (data << errorCorrectionLength | getBCHRemainder(data, FORMAT_INFO_GENERATOR, errorCorrectionLength)) ^ mask;
+    }
+
+    /**
+     * Get the remainder of data * x^length divided by a generator polynomial over GF(2)
+     */
+    private static int getBCHRemainder(int data, int generator, int length) {
+        int remainder = data << length;
+        int generatorDegree = 31 - Integer.numberOfLeadingZeros(generator);
+        for (int bit = 31 - Integer.numberOfLeadingZeros(remainder); bit >= generatorDegree; bit--) {
+            if ((remainder >>> bit & 1) != 0) {
+                remainder ^= generator << (bit - generatorDegree);
+            }
+        }
+        return remainder;
+    }
+
+    private static int[][] getAlignmentPatternPositions(List<String> lines) {
+        int[][] positions = new int[Version.MAXIMUM_VERSION + 1][];
+        positions[0] = new int[0];
+        for (int v = Version.MINIMUM_VERSION; v <= Version.MAXIMUM_VERSION; v++) {
+            String line = v - 1 < lines.size() ? lines.get(v - 1).trim() : "";
+            positions[v] = line.isEmpty() ? new int[0] : Arrays.stream(line.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+            if (v >= 2 && positions[v].length != v / 7 + 2) {
+                throw new UncheckedIOException(new IOException(String.format(
+                        "%s lists %s alignment pattern positions for version %s", ALIGNMENT_PATTERNS_FILE, positions[v].length, v)));
+            }
+        }
+        return positions;
+    }
+
+    private static void appendArray(StringBuilder out, String comment, String name, int[] values) {
+        appendComment(out, comment);
+        out.append("    public static final int[] ").append(name).append(" = ");
+        appendValues(out, values, "    ");
+        out.append(";\n");
+    }
+
+    private static void appendArray(StringBuilder out, String comment, String name, int[][] values) {
+        appendComment(out, comment);
+        out.append("    public static final int[][] ").append(name).append(" = {\n");
+        List<String> rows = new ArrayList<>();
+        for (int[] row : values) {
+            StringBuilder text = new StringBuilder("            ");
+            if (row == null) {
+                text.append("null");
+            } else {
+                appendValues(text, row, "            ");
+            }
+            rows.add(text.toString());
+        }
+        out.append(String.join(",\n", rows)).append("\n    };\n");
+    }
+
+    private static void appendComment(StringBuilder out, String comment) {
+        if (comment.indexOf('\n') < 0) {
+            out.append("\n    /** ").append(comment).append(" */\n");
+            return;
+        }
+        out.append("\n    /**\n");
+        for (String line : comment.split("\n")) {
+            out.append("     * ").append(line).append('\n');
+        }
+        out.append("     */\n");
+    }
+
+    private static void appendValues(StringBuilder out, int[] values, String indent) {
+        if (values.length <= VALUES_PER_LINE) {
+            out.append('{');
+            for (int n = 0; n < values.length; n++) {
+                out.append(n == 0 ? " " : ", ").append(values[n]);
+            }
+            out.append(values.length == 0 ? "}" : " }");
+            return;
+        }
+        out.append("{\n");
+        for (int n = 0; n < values.length; n++) {
+            out.append(n % VALUES_PER_LINE == 0 ? indent + "        " : " ").append(values[n]);
+            if (n < values.length - 1) {
+                out.append(n % VALUES_PER_LINE == VALUES_PER_LINE - 1 ? ",\n" : ",");
+            }
+        }
+        out.append('\n').append(indent).append('}');
+    }
+}
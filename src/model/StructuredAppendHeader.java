@@ -0,0 +1,89 @@
+package model;
+
+/**
+ * Model class representing the header of a symbol in Structured Append mode, as described by section 8 of
+ * the QR Code specification ISO/IEC 18004. Up to 16 symbols can hold one message, and each one starts with
+ * its position in the sequence, the total number of symbols and a parity byte over the whole message.
+ */
+public class StructuredAppendHeader {
+
+    public static final int MAXIMUM_SYMBOLS = 16;
+
+    /** The length of the header in bits, including the mode indicator */
+    public static final int LENGTH_IN_BITS = Mode.INDICATOR_LENGTH_IN_BITS + 16;
+
+    private static final int SYMBOL_NUMBER_LENGTH_IN_BITS = 4;
+
+    private static final int PARITY_LENGTH_IN_BITS = 8;
+
+    /** The 0-indexed position of the symbol in the sequence */
+    private final int position;
+
+    /** The total number of symbols in the sequence */
+    private final int total;
+
+    /** The exclusive or of every byte of the whole message */
+    private final int parity;
+
+    /**
+     * Create a StructuredAppendHeader
+     *
+     * @param position The 0-indexed position of the symbol in the sequence
+     * @param total The total number of symbols in the sequence, between 1 and 16
+     * @param parity The exclusive or of every byte of the whole message
+     */
+    public StructuredAppendHeader(int position, int total, int parity) {
+        if (total < 1 || total > MAXIMUM_SYMBOLS) {
+            throw new IllegalArgumentException(String.format("%s symbols is not a valid Structured Append sequence", total));
+        }
+        if (position < 0 || position >= total) {
+            throw new IllegalArgumentException(String.format("Position %s is not valid for %s symbols", position, total));
+        }
+        this.position = position;
+        this.total = total;
+        this.parity = parity & 0xFF;
+    }
+
+    /**
+     * Read a header following the Structured Append mode indicator
+     *
+     * @param bits The 16 bits of the header after the mode indicator
+     * @return The header
+     */
+    public static StructuredAppendHeader fromBits(int bits) {
+        return new StructuredAppendHeader(bits >>> 12 & 0xF, (bits >>> 8 & 0xF) + 1, bits & 0xFF);
+    }
+
+    /**
+     * Append this header to binary data, starting with the Structured Append mode indicator
+     *
+     * @param binaryData The binary data to append the header to
+     */
+    public void appendTo(BinaryData binaryData) {
+        binaryData.appendInt(Mode.STRUCTURED_APPEND.getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
+        binaryData.appendInt(position, SYMBOL_NUMBER_LENGTH_IN_BITS);
+        binaryData.appendInt(total - 1, SYMBOL_NUMBER_LENGTH_IN_BITS);
+        binaryData.appendInt(parity, PARITY_LENGTH_IN_BITS);
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getParity() {
+        return parity;
+    }
+
+    @Override
+    public String toString() {
+        return "StructuredAppendHeader{" +
+                "position=" + position +
+                ", total=" + total +
+                ", parity=" + parity +
+                '}';
+    }
+}
@@ -1,15 +1,8 @@
 package model;
 
-import error.ErrorCorrectionUtils;
-
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class SymbolInfo {
@@ -23,6 +16,10 @@ public class SymbolInfo {
     public static final int TIMING_PATTERN_COORDINATE = 6;
     public static final int TIMING_PATTERN_OFFSET = 8;
 
+    public static final int FORMAT_INFO_LENGTH_IN_BITS = 15;
+
+    public static final int VERSION_INFO_LENGTH_IN_BITS = 18;
+
     public static final List<Boolean> FORMAT_INFO_MASK_PATTERN =
             Arrays.asList(true, false, true, false, true, false, false, false, false, false, true, false, false, true, false);
 
@@ -60,6 +57,8 @@ public class SymbolInfo {
 
     private List<Coordinate> bottomLeftVersionInfoCoordinates;
 
+    private Coordinate darkModuleCoordinate;
+
     public static List<SymbolInfo> forEachMaskPattern(Version version, ErrorCorrectionLevel errorCorrectionLevel) {
         return Arrays.stream(MaskPattern.values())
                 .map((MaskPattern pattern) -> new SymbolInfo(version, errorCorrectionLevel, pattern))
@@ -71,6 +70,16 @@ public class SymbolInfo {
         this.errorCorrectionLevel = errorCorrectionLevel;
         this.maskPattern = maskPattern;
 
+        int numberOfBlocks = CodewordCapacity.getNumberOfBlocks(version, errorCorrectionLevel);
+        int errorCorrectionCodewords = CodewordCapacity.getErrorCorrectionCodewordsPerBlock(version, errorCorrectionLevel);
+        int totalCodewords = CodewordCapacity.getTotalCodewords(version);
+        // blocks in the second group hold one more data codeword than blocks in the first group
+        this.secondBlockInfoQuantity = totalCodewords % numberOfBlocks;
+        this.firstBlockInfoQuantity = numberOfBlocks - secondBlockInfoQuantity;
+        int firstBlockDataCodewords = totalCodewords / numberOfBlocks - errorCorrectionCodewords;
+        this.firstBlockInfo = new BlockInfo(firstBlockDataCodewords, errorCorrectionCodewords);
+        this.secondBlockInfo = new BlockInfo(firstBlockDataCodewords + 1, errorCorrectionCodewords);
+
         this.topLeftDetectionPatternCenter = new Coordinate(DETECTION_PATTERN_RADIUS, DETECTION_PATTERN_RADIUS);
         this.topRightDetectionPatternCenter = new Coordinate(DETECTION_PATTERN_RADIUS, version.getSymbolSideLength() - DETECTION_PATTERN_RADIUS - 1);
         this.bottomLeftDetectionPatternCenter = new Coordinate(version.getSymbolSideLength() - DETECTION_PATTERN_RADIUS - 1, DETECTION_PATTERN_RADIUS);
@@ -81,6 +90,19 @@ public class SymbolInfo {
         this.splitFormatInfoCoordinates = generateSplitFormatInfoCoordinates();
         this.topRightVersionInfoCoordinates = generateTopRightVersionInfoCoordinates();
         this.bottomLeftVersionInfoCoordinates = generateBottomLeftVersionInfoCoordinates();
+        this.darkModuleCoordinate = new Coordinate(getSymbolSideLength() - DETECTION_PATTERN_DIAMETER - 1, DETECTION_PATTERN_DIAMETER + 1);
+    }
+
+    public Version getVersion() {
+        return version;
+    }
+
+    public ErrorCorrectionLevel getErrorCorrectionLevel() {
+        return errorCorrectionLevel;
+    }
+
+    public MaskPattern getMaskPattern() {
+        return maskPattern;
     }
 
     public int getSymbolSideLength() {
@@ -111,6 +133,9 @@ public class SymbolInfo {
                 return false;
             }
         }
+        if (coordinate.equals(darkModuleCoordinate)) {
+            return false;
+        }
         for (Coordinate other : topLeftFormatInfoCoordinates) {
             if (other.equals(coordinate)) {
                 return false;
@@ -121,6 +146,9 @@ public class SymbolInfo {
                 return false;
             }
         }
+        if (!hasVersionInfo()) {
+            return true;
+        }
         for (Coordinate other : topRightVersionInfoCoordinates) {
             if (other.equals(coordinate)) {
                 return false;
@@ -158,14 +186,25 @@ public class SymbolInfo {
         return bottomLeftVersionInfoCoordinates;
     }
 
+    public Coordinate getDarkModuleCoordinate() {
+        return darkModuleCoordinate;
+    }
+
     public BinaryData getFormatInfo() {
+        return getFormatInfo(errorCorrectionLevel, maskPattern);
+    }
+
+    /**
+     * Get the masked format information with BCH error correction bits for a given error correction level and mask pattern,
+     * as described by section 8.9 of the QR Code specification ISO/IEC 18004.
+     *
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @param maskPattern The mask pattern of the symbol
+     * @return The 15 bits of format information
+     */
+    public static BinaryData getFormatInfo(ErrorCorrectionLevel errorCorrectionLevel, MaskPattern maskPattern) {
         BinaryData data = new BinaryData();
-        data.appendInt(errorCorrectionLevel.getIndicator(), ErrorCorrectionLevel.INDICATOR_LENGTH_IN_BITS);
-        data.appendInt(maskPattern.getIndicator(), MaskPattern.INDICATOR_LENGTH_IN_BITS);
-        ErrorCorrectionUtils.appendErrorCorrectionBitsToFormatInfo(data);
-        for (int i = 0; i < data.size(); i++) {
-            data.xorBit(i, SymbolInfo.FORMAT_INFO_MASK_PATTERN.get(i));
-        }
+        data.appendInt(SpecificationTables.FORMAT_INFO[errorCorrectionLevel.getIndex()][maskPattern.ordinal()], FORMAT_INFO_LENGTH_IN_BITS);
         return data;
     }
 
@@ -179,41 +218,41 @@ public class SymbolInfo {
         return data;
     }
 
+    /**
+     * Get the information about a block of this symbol
+     *
+     * @param blockNumber The 1-indexed number of the block
+     * @return The information about the block
+     */
     public BlockInfo getBlockInfo(int blockNumber) {
         return blockNumber <= firstBlockInfoQuantity ? firstBlockInfo : secondBlockInfo;
     }
 
-    private List<Coordinate> generateDetectionPatternCenters() {
-        return null;
+    public int getNumberOfBlocks() {
+        return firstBlockInfoQuantity + secondBlockInfoQuantity;
+    }
+
+    public int getDataCodewords() {
+        return CodewordCapacity.getDataCodewords(version, errorCorrectionLevel);
+    }
+
+    public int getTotalCodewords() {
+        return CodewordCapacity.getTotalCodewords(version);
     }
 
     private List<Coordinate> generateAlignmentPatternCenters() {
-        try (BufferedReader in = new BufferedReader(new FileReader("data/AlignmentPatterns.csv"))) {
-            for (int i = 1; i < version.getVersion(); i++) {
-                in.readLine();
-            }
-            String line = in.readLine();
-            Pattern pattern = Pattern.compile(", ");
-            List<Integer> centerCoordinates = pattern.splitAsStream(line)
-                    .map(Integer::valueOf)
-                    .collect(Collectors.toList());
-            List<Coordinate> alignmentPatternCenters = new ArrayList<>();
-            for (int x = 0; x < centerCoordinates.size(); x++) {
-                int i = centerCoordinates.get(x);
-                for (int y = 0; y < centerCoordinates.size(); y++) {
-                    // given a list of coordinate locations [a, ..., z], the centers (a, a), (a, z) and (z, a) are not used
-                    if ((x == 0 && y == 0) || (x == 0 && y == centerCoordinates.size() - 1) || (x == centerCoordinates.size() - 1 && y == 0)) {
-                        continue;
-                    }
-                    int j = centerCoordinates.get(y);
-                    alignmentPatternCenters.add(new Coordinate(i, j));
+        int[] positions = SpecificationTables.ALIGNMENT_PATTERN_POSITIONS[version.getVersion()];
+        List<Coordinate> alignmentPatternCenters = new ArrayList<>();
+        for (int x = 0; x < positions.length; x++) {
+            for (int y = 0; y < positions.length; y++) {
+                // given a list of coordinate locations [a, ..., z], the centers (a, a), (a, z) and (z, a) are not used
+                if ((x == 0 && y == 0) || (x == 0 && y == positions.length - 1) || (x == positions.length - 1 && y == 0)) {
+                    continue;
                 }
+                alignmentPatternCenters.add(new Coordinate(positions[x], positions[y]));
             }
-            return alignmentPatternCenters;
-        } catch (IOException e) {
-            System.err.println(e.getMessage());
-            return Collections.emptyList();
         }
+        return alignmentPatternCenters;
     }
 
     private List<Coordinate> generateTopLeftFormatInfoCoordinates() {
@@ -8,8 +8,8 @@ public class Version {
 
     public static final int INDICATOR_LENGTH_IN_BITS = 6;
 
-    private static final int MINIMUM_VERSION = 1;
-    private static final int MAXIMUM_VERSION = 40;
+    public static final int MINIMUM_VERSION = 1;
+    public static final int MAXIMUM_VERSION = 40;
 
     private static final int MAXIMUM_VERSION_SHORT_CHARACTER_CODE_INDICATOR = 9;
     private static final int MAXIMUM_VERSION_MEDIUM_CHARACTER_CODE_INDICATOR = 26;
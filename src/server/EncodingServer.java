@@ -0,0 +1,411 @@
+package server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import metrics.HistogramEncodeListener;
+import model.ErrorCorrectionLevel;
+import symbol.EncodedSymbol;
+import symbol.SymbolEncoder;
+import symbol.SymbolRenderer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP service that encodes the payload of each request and streams the rendered symbol to the response body.
+ * <br />
+ * {@code GET /qr?data=...&level=M&format=png&scale=4} answers with a PNG or SVG image. The level is one of L, M, Q
+ * and H, the format is png or svg and the scale is the number of pixels per module. Every response carries a strong
+ * ETag computed from the payload and options alone, so a request whose If-None-Match holds that ETag is answered with
+ * 304 Not Modified without encoding anything. With a {@link RenderCache}, images rendered before, possibly by an
+ * earlier process, are sent straight from the cache files without encoding. {@code GET /metrics} writes the stage
+ * histograms of every encode in the Prometheus text format.
+ * <br />
+ * Each request runs on its own virtual thread when the JVM has them (Java 21 and later), and on a thread of a cached
+ * pool otherwise. One encoder and listener are shared by all requests.
+ */
+public class EncodingServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    public static final String ENCODE_PATH = "/qr";
+
+    public static final String METRICS_PATH = "/metrics";
+
+    public static final int DEFAULT_SCALE = 4;
+
+    /** The largest scale accepted, which keeps a version 40 PNG under about 12000 pixels along each side */
+    public static final int MAXIMUM_SCALE = 64;
+
+    private static final String PNG = "png";
+
+    private static final String SVG = "svg";
+
+    private static final int RESPONSE_BUFFER_SIZE = 8192;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final HistogramEncodeListener listener = new HistogramEncodeListener();
+
+    private final SymbolEncoder encoder = new SymbolEncoder(listener);
+
+    /** The cache of rendered images, or null to render every response */
+    private final RenderCache cache;
+
+    private final LongAdder encodedResponses = new LongAdder();
+
+    private final LongAdder cachedResponses = new LongAdder();
+
+    private final LongAdder notModifiedResponses = new LongAdder();
+
+    private final LongAdder cacheWriteFailures = new LongAdder();
+
+    /**
+     * Create an EncodingServer bound to an address. Port 0 binds to any free port, which {@link #getPort} returns.
+     *
+     * @param address The address to listen on
+     * @throws IOException If the address could not be bound
+     */
+    public EncodingServer(InetSocketAddress address) throws IOException {
+        this(address, null);
+    }
+
+    /**
+     * Create an EncodingServer bound to an address that sends images from a cache when it holds them, and adds every
+     * image it renders to the cache. The cache is left open when the server stops.
+     *
+     * @param address The address to listen on
+     * @param cache The cache of rendered images, or null to render every response
+     * @throws IOException If the address could not be bound
+     */
+    public EncodingServer(InetSocketAddress address, RenderCache cache) throws IOException {
+        this.cache = cache;
+        this.server = HttpServer.create(address, 0);
+        this.executor = newPerRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext(ENCODE_PATH, this::handleEncode);
+        server.createContext(METRICS_PATH, this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests, wait up to a given delay for the exchanges in progress and shut down their threads
+     *
+     * @param delaySeconds The longest time to wait for exchanges in progress, in seconds
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getEncodedResponses() {
+        return encodedResponses.sum();
+    }
+
+    public long getCachedResponses() {
+        return cachedResponses.sum();
+    }
+
+    public long getNotModifiedResponses() {
+        return notModifiedResponses.sum();
+    }
+
+    public long getCacheWriteFailures() {
+        return cacheWriteFailures.sum();
+    }
+
+    public HistogramEncodeListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Get the strong ETag of the response to a request. It depends on nothing but the payload and options, so it can
+     * be checked before encoding.
+     *
+     * @param data The payload of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @param format The image format, png or svg
+     * @param scale The number of pixels per module
+     * @return The quoted ETag
+     */
+    public static String getETag(String data, ErrorCorrectionLevel errorCorrectionLevel, String format, int scale) {
+        return getETag(getKey(data, errorCorrectionLevel, format, scale));
+    }
+
+    /**
+     * Get the key of the response to a request, which is the hash that its ETag and its entry in a {@link RenderCache}
+     * are made from
+     *
+     * @param data The payload of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @param format The image format, png or svg
+     * @param scale The number of pixels per module
+     * @return The first {@link RenderCache#KEY_LENGTH} bytes of the SHA-256 digest of the options and payload
+     */
+    public static byte[] getKey(String data, ErrorCorrectionLevel errorCorrectionLevel, String format, int scale) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update(String.format("%s/%s/%d/", format, errorCorrectionLevel, scale).getBytes(StandardCharsets.US_ASCII));
+        byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
+        return Arrays.copyOf(hash, RenderCache.KEY_LENGTH);
+    }
+
+    private static String getETag(byte[] key) {
+        return '"' + HexFormat.of().formatHex(key) + '"';
+    }
+
+    private void handleEncode(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "Method " + method + " is not allowed");
+                return;
+            }
+
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            String data = parameters.get("data");
+            ErrorCorrectionLevel level;
+            int scale;
+            String format = parameters.getOrDefault("format", PNG);
+            try {
+                level = ErrorCorrectionLevel.valueOf(parameters.getOrDefault("level", "M"));
+                scale = Integer.parseInt(parameters.getOrDefault("scale", String.valueOf(DEFAULT_SCALE)));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "Level must be one of L, M, Q and H, and scale must be a number");
+                return;
+            }
+            if (data == null) {
+                sendError(exchange, 400, "Parameter data is missing");
+                return;
+            }
+            if (!format.equals(PNG) && !format.equals(SVG)) {
+                sendError(exchange, 400, String.format("Format %s is not valid", format));
+                return;
+            }
+            if (scale < 1 || scale > MAXIMUM_SCALE) {
+                sendError(exchange, 400, String.format("Scale %s is not valid", scale));
+                return;
+            }
+
+            byte[] key = getKey(data, level, format, scale);
+            String etag = getETag(key);
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("ETag", etag);
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            // * only matches when there is a representation, which a payload too long for any version does not have
+            if (matches(ifNoneMatch, etag) || (matches(ifNoneMatch, "*") && fits(data, level))) {
+                notModifiedResponses.increment();
+                sendHeaders(exchange, 304);
+                return;
+            }
+
+            String contentType = format.equals(PNG) ? "image/png" : "image/svg+xml";
+            if (cache != null && cache.transferTo(key, length -> {
+                headers.set("Content-Type", contentType);
+                if (head) {
+                    sendHeaders(exchange, 200);
+                    return null;
+                }
+                exchange.sendResponseHeaders(200, length);
+                return Channels.newChannel(exchange.getResponseBody());
+            })) {
+                cachedResponses.increment();
+                return;
+            }
+
+            EncodedSymbol symbol;
+            try {
+                symbol = encoder.encode(data, level);
+            } catch (IllegalArgumentException e) {
+                headers.remove("ETag");
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            encodedResponses.increment();
+            headers.set("Content-Type", contentType);
+            if (head && cache == null) {
+                sendHeaders(exchange, 200);
+                return;
+            }
+
+            SymbolRenderer renderer = new SymbolRenderer(scale, listener);
+            if (cache == null) {
+                // a length of 0 sends the body chunked as the renderer writes it
+                exchange.sendResponseHeaders(200, 0);
+                render(renderer, symbol, format, new BufferedOutputStream(exchange.getResponseBody(), RESPONSE_BUFFER_SIZE));
+                return;
+            }
+            // the image is rendered whole so that it can be cached, and sent with its length
+            ByteArrayOutputStream image = new ByteArrayOutputStream(RESPONSE_BUFFER_SIZE);
+            render(renderer, symbol, format, image);
+            try {
+                cache.put(key, image.toByteArray());
+            } catch (IOException e) {
+                // the cache is best-effort, so an image that could not be written, such as to a full disk, is still sent
+                cacheWriteFailures.increment();
+            }
+            if (head) {
+                sendHeaders(exchange, 200);
+                return;
+            }
+            exchange.sendResponseHeaders(200, image.size());
+            image.writeTo(exchange.getResponseBody());
+        }
+    }
+
+    private static void render(SymbolRenderer renderer, EncodedSymbol symbol, String format, OutputStream out) throws IOException {
+        if (format.equals(PNG)) {
+            renderer.writePng(symbol.getModules(), out);
+            out.flush();
+        } else {
+            renderer.writeSvg(symbol.getModules(), new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            Writer out = new OutputStreamWriter(new BufferedOutputStream(exchange.getResponseBody(), RESPONSE_BUFFER_SIZE),
+                    StandardCharsets.UTF_8);
+            listener.writeTo(out);
+            out.append("# TYPE qrcode_http_responses_total counter\n")
+                    .append("qrcode_http_responses_total{status=\"200\"} ").append(String.valueOf(getEncodedResponses() + getCachedResponses())).append('\n')
+                    .append("qrcode_http_responses_total{status=\"304\"} ").append(String.valueOf(getNotModifiedResponses())).append('\n');
+            if (cache != null) {
+                out.append("# TYPE qrcode_cache_hits_total counter\n")
+                        .append("qrcode_cache_hits_total ").append(String.valueOf(cache.getHits())).append('\n')
+                        .append("# TYPE qrcode_cache_misses_total counter\n")
+                        .append("qrcode_cache_misses_total ").append(String.valueOf(cache.getMisses())).append('\n')
+                        .append("# TYPE qrcode_cache_evicted_segments_total counter\n")
+                        .append("qrcode_cache_evicted_segments_total ").append(String.valueOf(cache.getEvictedSegments())).append('\n')
+                        .append("# TYPE qrcode_cache_write_failures_total counter\n")
+                        .append("qrcode_cache_write_failures_total ").append(String.valueOf(getCacheWriteFailures())).append('\n')
+                        .append("# TYPE qrcode_cache_bytes gauge\n")
+                        .append("qrcode_cache_bytes ").append(String.valueOf(cache.getSize())).append('\n');
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Whether an If-None-Match header holds an ETag, using the weak comparison that section 13.1.2 of RFC 9110
+     * requires for If-None-Match
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a text fits in some version at an error correction level, without encoding it
+     */
+    private static boolean fits(String data, ErrorCorrectionLevel level) {
+        DataEncoder encoder = DataEncodationUtils.getEncoder(data);
+        try {
+            DataEncodationUtils.getMinimumVersion(encoder, DataEncodationUtils.getCharacters(data, encoder).size(), level);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Send a response without a body. The exchange is finished as soon as the headers are sent, and its connection is
+     * only kept alive for the next request if the request body was read to the end before then.
+     */
+    private static void sendHeaders(HttpExchange exchange, int status) throws IOException {
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Create the executor that runs each request. Virtual threads are looked up reflectively so that the server still
+     * builds for Java 17, where requests fall back to a cached pool of daemon platform threads.
+     */
+    private static ExecutorService newPerRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "qrcode-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,788 @@
+package server;
+
+import model.ErrorCorrectionLevel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent cache of rendered symbols on disk, keyed by a hash of the payload and render options, so that a restarted
+ * process serves the symbols it rendered before without encoding them again. Values are opaque bytes, such as PNG or
+ * SVG images or module matrix records.
+ * <br />
+ * Values are appended to segment files of up to a fixed size, and never rewritten. Each record holds the key, the length
+ * and a CRC-32 of the value in front of the value. A memory-mapped index of open addressing slots with linear probing
+ * maps each key to the segment, offset and length of its record, so a lookup touches no file but the index. A hit is
+ * sent with {@link FileChannel#transferTo}, which moves the bytes from the page cache to a socket without copying them
+ * through the heap.
+ * <br />
+ * When the segments outgrow the size limit, the least recently used segment is dropped. Entries that were hit since
+ * they were last written are first copied forward into the newest segment, so that popular symbols survive the
+ * segment they were written to. The index is marked as open while the cache is in use and as clean once it is closed.
+ * An index that was not closed cleanly is rebuilt from the segments, and a segment is truncated at its first record
+ * that is cut short or fails its CRC-32, which is where a crash stopped writing.
+ * <br />
+ * Lookups run concurrently with each other, and writes are serialized. A segment that is dropped while hits are being
+ * sent from it is closed and deleted once the last of them is done.
+ */
+public class RenderCache implements Closeable {
+
+    /** The number of bytes of a key */
+    public static final int KEY_LENGTH = 16;
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String INDEX_NAME = "index";
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+
+    private static final int INDEX_MAGIC = 0x51524349;
+
+    private static final int INDEX_HEADER_LENGTH = 32;
+
+    private static final int INDEX_MAGIC_OFFSET = 0;
+
+    private static final int INDEX_VERSION_OFFSET = 4;
+
+    private static final int INDEX_SLOT_COUNT_OFFSET = 8;
+
+    private static final int INDEX_STATE_OFFSET = 12;
+
+    /** The state of an index whose cache was closed, and which matches its segments */
+    private static final int CLEAN = 0;
+
+    /** The state of an index whose cache is in use, or whose process stopped without closing it */
+    private static final int OPEN = 1;
+
+    private static final int SLOT_LENGTH = 32;
+
+    private static final int SLOT_KEY_HIGH = 0;
+
+    private static final int SLOT_KEY_LOW = 8;
+
+    /** The identifier of the segment of the entry of a slot, or 0 for an empty slot */
+    private static final int SLOT_SEGMENT = 16;
+
+    private static final int SLOT_OFFSET = 20;
+
+    private static final int SLOT_LENGTH_OFFSET = 24;
+
+    private static final int SLOT_FLAGS = 28;
+
+    /** The flag of an entry that was hit since it was last written */
+    private static final int REFERENCED = 1;
+
+    private static final int MINIMUM_SLOT_COUNT = 1 << 10;
+
+    private static final int RECORD_MAGIC = 0x51524352;
+
+    /** The length of the magic number, key, value length and CRC-32 in front of each value */
+    private static final int RECORD_HEADER_LENGTH = 4 + KEY_LENGTH + 4 + 4;
+
+    /**
+     * Receiver of a hit, which is told the length of the value before it is sent
+     */
+    public interface Sink {
+
+        /**
+         * Get the channel to send a value of a given length to
+         *
+         * @param length The number of bytes of the value
+         * @return The channel to send the value to, or null to send nothing
+         * @throws IOException If the channel could not be opened
+         */
+        WritableByteChannel open(long length) throws IOException;
+    }
+
+    private final Path directory;
+
+    private final long maximumSize;
+
+    private final int segmentSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The segments by identifier, of which the last is the one written to */
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+
+    /** Counts lookups, so that the segment hit last has the highest last access */
+    private final AtomicLong clock = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictedSegments = new LongAdder();
+
+    private MappedByteBuffer index;
+
+    private int slotCount;
+
+    private int entryCount;
+
+    private long size;
+
+    private boolean closed;
+
+    /**
+     * Open a RenderCache with segments of a quarter of its size limit, up to {@link #DEFAULT_SEGMENT_SIZE}
+     *
+     * @param directory The directory of the cache, which is created if it does not exist
+     * @param maximumSize The largest number of bytes of all segments together
+     * @throws IOException If the cache could not be opened or recovered
+     */
+    public RenderCache(Path directory, long maximumSize) throws IOException {
+        this(directory, maximumSize, (int) Math.min(DEFAULT_SEGMENT_SIZE, Math.max(maximumSize / 4, RECORD_HEADER_LENGTH + 1)));
+    }
+
+    /**
+     * Open a RenderCache, rebuilding its index from its segments if it was not closed cleanly
+     *
+     * @param directory The directory of the cache, which is created if it does not exist
+     * @param maximumSize The largest number of bytes of all segments together
+     * @param segmentSize The largest number of bytes of one segment, which also limits the length of a value
+     * @throws IOException If the cache could not be opened or recovered
+     */
+    public RenderCache(Path directory, long maximumSize, int segmentSize) throws IOException {
+        if (segmentSize <= RECORD_HEADER_LENGTH || maximumSize < segmentSize) {
+            throw new IllegalArgumentException(String.format("Cache of %s bytes in segments of %s bytes is not valid", maximumSize, segmentSize));
+        }
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                try {
+                    int id = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    if (id > 0) {
+                        segments.put(id, new Segment(id, path));
+                    }
+                } catch (NumberFormatException e) {
+                    // not a segment of this cache
+                }
+            }
+        }
+        // before any hit, older segments count as less recently used
+        for (Segment segment : segments.values()) {
+            segment.lastAccess = clock.incrementAndGet();
+            size += segment.size;
+        }
+        if (!openIndex()) {
+            rebuildIndex();
+        }
+        if (segments.isEmpty()) {
+            addSegment();
+        }
+        index.putInt(INDEX_STATE_OFFSET, OPEN);
+        index.force();
+        lock.writeLock().lock();
+        try {
+            evictWhileFull();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Send the value of a key to a sink, if the cache holds it
+     *
+     * @param key The key of {@link #KEY_LENGTH} bytes
+     * @param sink The receiver of the value
+     * @return true if the cache held the value, false if the sink was not used
+     * @throws IOException If the value could not be sent
+     */
+    public boolean transferTo(byte[] key, Sink sink) throws IOException {
+        ByteBuffer keyBuffer = wrapKey(key);
+        long keyHigh = keyBuffer.getLong(0);
+        long keyLow = keyBuffer.getLong(8);
+        Segment segment;
+        long position;
+        int length;
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            int slot = find(keyHigh, keyLow);
+            if (slot < 0) {
+                misses.increment();
+                return false;
+            }
+            segment = segments.get(index.getInt(slot + SLOT_SEGMENT));
+            position = index.getInt(slot + SLOT_OFFSET) + (long) RECORD_HEADER_LENGTH;
+            length = index.getInt(slot + SLOT_LENGTH_OFFSET);
+            if (index.getInt(slot + SLOT_FLAGS) != REFERENCED) {
+                index.putInt(slot + SLOT_FLAGS, REFERENCED);
+            }
+            segment.lastAccess = clock.incrementAndGet();
+            segment.references.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.increment();
+        try {
+            WritableByteChannel target = sink.open(length);
+            long end = position + length;
+            while (target != null && position < end) {
+                long transferred = segment.channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException(String.format("Segment %s ends before byte %s", segment.id, end));
+                }
+                position += transferred;
+            }
+        } finally {
+            segment.release();
+        }
+        return true;
+    }
+
+    /**
+     * Append the value of a key, unless the cache already holds it. The least recently used segments are dropped while
+     * the cache is over its size limit.
+     *
+     * @param key The key of {@link #KEY_LENGTH} bytes
+     * @param value The value
+     * @return true if the value was added, false if the cache held it already or it is longer than a segment
+     * @throws IOException If the value could not be written
+     */
+    public boolean put(byte[] key, byte[] value) throws IOException {
+        ByteBuffer keyBuffer = wrapKey(key);
+        if (RECORD_HEADER_LENGTH + value.length > segmentSize) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            long keyHigh = keyBuffer.getLong(0);
+            long keyLow = keyBuffer.getLong(8);
+            if (find(keyHigh, keyLow) >= 0) {
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(value);
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH)
+                    .putInt(RECORD_MAGIC).put(keyBuffer).putInt(value.length).putInt((int) crc.getValue());
+            header.flip();
+            Segment segment = reserve(RECORD_HEADER_LENGTH + value.length);
+            int offset = (int) segment.size;
+            writeFully(segment.channel, new ByteBuffer[] { header, ByteBuffer.wrap(value) });
+            segment.size += RECORD_HEADER_LENGTH + value.length;
+            size += RECORD_HEADER_LENGTH + value.length;
+            insert(keyHigh, keyLow, segment.id, offset, value.length);
+            evictWhileFull();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictedSegments() {
+        return evictedSegments.sum();
+    }
+
+    /**
+     * Get the number of bytes of all segments together
+     *
+     * @return The size of the cache in bytes
+     */
+    public long getSize() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getEntryCount() {
+        lock.readLock().lock();
+        try {
+            return entryCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flush the segments and index to the disk and mark the index as clean, so that the next open trusts it
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Segment segment : segments.values()) {
+                segment.channel.force(false);
+            }
+            index.putInt(INDEX_STATE_OFFSET, CLEAN);
+            index.force();
+            for (Segment segment : segments.values()) {
+                segment.release();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Cache is closed");
+        }
+    }
+
+    private static ByteBuffer wrapKey(byte[] key) {
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalArgumentException(String.format("Key of %s bytes is not valid", key.length));
+        }
+        return ByteBuffer.wrap(key);
+    }
+
+    /**
+     * Map the index, if it exists, was closed cleanly and only points into the segments
+     *
+     * @return true if the index can be used as it is
+     */
+    private boolean openIndex() throws IOException {
+        Path path = directory.resolve(INDEX_NAME);
+        if (!Files.exists(path) || Files.size(path) < INDEX_HEADER_LENGTH) {
+            return false;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        int count = buffer.getInt(INDEX_SLOT_COUNT_OFFSET);
+        if (buffer.getInt(INDEX_MAGIC_OFFSET) != INDEX_MAGIC || buffer.getInt(INDEX_VERSION_OFFSET) != FORMAT_VERSION
+                || buffer.getInt(INDEX_STATE_OFFSET) != CLEAN || count < MINIMUM_SLOT_COUNT || Integer.bitCount(count) != 1
+                || buffer.capacity() != INDEX_HEADER_LENGTH + (long) count * SLOT_LENGTH) {
+            return false;
+        }
+        int entries = 0;
+        for (int slot = INDEX_HEADER_LENGTH; slot < buffer.capacity(); slot += SLOT_LENGTH) {
+            int id = buffer.getInt(slot + SLOT_SEGMENT);
+            if (id == 0) {
+                continue;
+            }
+            Segment segment = segments.get(id);
+            if (segment == null || buffer.getInt(slot + SLOT_OFFSET) < 0 || buffer.getInt(slot + SLOT_LENGTH_OFFSET) < 0
+                    || (long) buffer.getInt(slot + SLOT_OFFSET) + RECORD_HEADER_LENGTH + buffer.getInt(slot + SLOT_LENGTH_OFFSET) > segment.size) {
+                return false;
+            }
+            entries++;
+        }
+        index = buffer;
+        slotCount = count;
+        entryCount = entries;
+        return true;
+    }
+
+    /**
+     * Build a new index from the records of the segments, truncating each segment at its first record that is not
+     * valid
+     */
+    private void rebuildIndex() throws IOException {
+        // the new index stays marked as open until it is complete, so a crash while rebuilding rebuilds it again
+        createIndex(MINIMUM_SLOT_COUNT);
+        publishIndex();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        CRC32 crc = new CRC32();
+        for (Segment segment : segments.values()) {
+            long offset = 0;
+            while (offset + RECORD_HEADER_LENGTH <= segment.size) {
+                header.clear();
+                readFully(segment.channel, header, offset);
+                int length = header.getInt(4 + KEY_LENGTH);
+                if (header.getInt(0) != RECORD_MAGIC || length < 0 || offset + RECORD_HEADER_LENGTH + length > segment.size) {
+                    break;
+                }
+                ByteBuffer value = ByteBuffer.allocate(length);
+                readFully(segment.channel, value, offset + RECORD_HEADER_LENGTH);
+                crc.reset();
+                crc.update(value.array());
+                if ((int) crc.getValue() != header.getInt(4 + KEY_LENGTH + 4)) {
+                    break;
+                }
+                long keyHigh = header.getLong(4);
+                long keyLow = header.getLong(12);
+                if (find(keyHigh, keyLow) < 0) {
+                    insert(keyHigh, keyLow, segment.id, (int) offset, length);
+                }
+                offset += RECORD_HEADER_LENGTH + length;
+            }
+            if (offset < segment.size) {
+                segment.channel.truncate(offset);
+                size -= segment.size - offset;
+                segment.size = offset;
+            }
+        }
+        index.force();
+    }
+
+    /**
+     * Create an empty index in a new file beside the index, which replaces it once it is published
+     */
+    private void createIndex(int count) throws IOException {
+        Path path = directory.resolve(INDEX_NAME + ".tmp");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            index = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_LENGTH + (long) count * SLOT_LENGTH);
+        }
+        index.putInt(INDEX_MAGIC_OFFSET, INDEX_MAGIC)
+                .putInt(INDEX_VERSION_OFFSET, FORMAT_VERSION)
+                .putInt(INDEX_SLOT_COUNT_OFFSET, count)
+                .putInt(INDEX_STATE_OFFSET, OPEN);
+        slotCount = count;
+        entryCount = 0;
+    }
+
+    private void publishIndex() throws IOException {
+        index.force();
+        Files.move(directory.resolve(INDEX_NAME + ".tmp"), directory.resolve(INDEX_NAME),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Double the slots of the index, moving every entry into a new index
+     */
+    private void growIndex() throws IOException {
+        MappedByteBuffer old = index;
+        int oldSlotCount = slotCount;
+        createIndex(oldSlotCount * 2);
+        for (int slot = INDEX_HEADER_LENGTH; slot < INDEX_HEADER_LENGTH + oldSlotCount * SLOT_LENGTH; slot += SLOT_LENGTH) {
+            if (old.getInt(slot + SLOT_SEGMENT) != 0) {
+                int target = probe(old.getLong(slot + SLOT_KEY_HIGH), old.getLong(slot + SLOT_KEY_LOW));
+                index.put(target, old, slot, SLOT_LENGTH);
+                entryCount++;
+            }
+        }
+        publishIndex();
+    }
+
+    private int getHomeSlot(long keyHigh) {
+        return INDEX_HEADER_LENGTH + ((int) keyHigh & (slotCount - 1)) * SLOT_LENGTH;
+    }
+
+    private int nextSlot(int slot) {
+        slot += SLOT_LENGTH;
+        return slot == INDEX_HEADER_LENGTH + slotCount * SLOT_LENGTH ? INDEX_HEADER_LENGTH : slot;
+    }
+
+    /**
+     * Get the slot of a key, or the empty slot where it would be inserted
+     */
+    private int probe(long keyHigh, long keyLow) {
+        int slot = getHomeSlot(keyHigh);
+        while (index.getInt(slot + SLOT_SEGMENT) != 0
+                && (index.getLong(slot + SLOT_KEY_HIGH) != keyHigh || index.getLong(slot + SLOT_KEY_LOW) != keyLow)) {
+            slot = nextSlot(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Get the slot of a key
+     *
+     * @return The position of the slot in the index, or -1 if the index does not hold the key
+     */
+    private int find(long keyHigh, long keyLow) {
+        int slot = probe(keyHigh, keyLow);
+        return index.getInt(slot + SLOT_SEGMENT) != 0 ? slot : -1;
+    }
+
+    private void insert(long keyHigh, long keyLow, int segment, int offset, int length) throws IOException {
+        // the index is kept at most three quarters full, so that probes stay short
+        if ((entryCount + 1) * 4L > slotCount * 3L) {
+            growIndex();
+        }
+        int slot = probe(keyHigh, keyLow);
+        index.putLong(slot + SLOT_KEY_HIGH, keyHigh)
+                .putLong(slot + SLOT_KEY_LOW, keyLow)
+                .putInt(slot + SLOT_OFFSET, offset)
+                .putInt(slot + SLOT_LENGTH_OFFSET, length)
+                .putInt(slot + SLOT_FLAGS, 0)
+                // the segment is written last, since it marks the slot as used
+                .putInt(slot + SLOT_SEGMENT, segment);
+        entryCount++;
+    }
+
+    /**
+     * Empty a slot, moving later entries of its probe sequence back so that every entry stays reachable from its home
+     * slot without a tombstone
+     */
+    private void remove(int slot) {
+        int hole = slot;
+        int next = nextSlot(hole);
+        while (index.getInt(next + SLOT_SEGMENT) != 0) {
+            int home = getHomeSlot(index.getLong(next + SLOT_KEY_HIGH));
+            // an entry moves into the hole unless its home slot lies cyclically after the hole, up to the entry itself
+            boolean reachable = hole <= next ? home > hole && home <= next : home > hole || home <= next;
+            if (!reachable) {
+                index.put(hole, index, next, SLOT_LENGTH);
+                hole = next;
+            }
+            next = nextSlot(next);
+        }
+        index.putInt(hole + SLOT_SEGMENT, 0);
+        entryCount--;
+    }
+
+    private Segment addSegment() throws IOException {
+        int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Segment segment = new Segment(id, directory.resolve(String.format("%08d%s", id, SEGMENT_SUFFIX)));
+        segment.lastAccess = clock.incrementAndGet();
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * Get the segment to append a record to, starting a new segment if the last one has no room for it
+     */
+    private Segment reserve(int recordLength) throws IOException {
+        Segment segment = segments.lastEntry().getValue();
+        if (segment.size + recordLength > segmentSize) {
+            segment.channel.force(false);
+            segment = addSegment();
+        }
+        segment.channel.position(segment.size);
+        return segment;
+    }
+
+    /**
+     * Drop the least recently used segments other than the one written to while the cache is over its size limit
+     */
+    private void evictWhileFull() throws IOException {
+        for (int attempts = segments.size(); attempts > 0 && size > maximumSize; attempts--) {
+            Segment last = segments.lastEntry().getValue();
+            Segment victim = null;
+            for (Segment segment : segments.values()) {
+                if (segment != last && (victim == null || segment.lastAccess < victim.lastAccess)) {
+                    victim = segment;
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            evict(victim);
+        }
+    }
+
+    /**
+     * Drop a segment, first copying its entries that were hit since they were written to the last segment
+     */
+    private void evict(Segment victim) throws IOException {
+        segments.remove(victim.id);
+        size -= victim.size;
+        int slot = INDEX_HEADER_LENGTH;
+        while (slot < INDEX_HEADER_LENGTH + slotCount * SLOT_LENGTH) {
+            if (index.getInt(slot + SLOT_SEGMENT) != victim.id) {
+                slot += SLOT_LENGTH;
+            } else if (index.getInt(slot + SLOT_FLAGS) == REFERENCED) {
+                int offset = index.getInt(slot + SLOT_OFFSET);
+                int recordLength = RECORD_HEADER_LENGTH + index.getInt(slot + SLOT_LENGTH_OFFSET);
+                Segment target = reserve(recordLength);
+                int targetOffset = (int) target.size;
+                for (long copied = 0; copied < recordLength; ) {
+                    long transferred = victim.channel.transferTo(offset + copied, recordLength - copied, target.channel);
+                    if (transferred <= 0) {
+                        throw new IOException(String.format("Segment %s ends before byte %s", victim.id, offset + recordLength));
+                    }
+                    copied += transferred;
+                }
+                target.size += recordLength;
+                size += recordLength;
+                index.putInt(slot + SLOT_OFFSET, targetOffset)
+                        .putInt(slot + SLOT_FLAGS, 0)
+                        .putInt(slot + SLOT_SEGMENT, target.id);
+                slot += SLOT_LENGTH;
+            } else {
+                // a later entry may move into this slot, so it is checked again
+                remove(slot);
+            }
+        }
+        evictedSegments.increment();
+        victim.deleted = true;
+        victim.release();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(String.format("Segment ends before byte %s", position + buffer.limit()));
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer[] buffers) throws IOException {
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    /**
+     * Segment file of records, which is closed once it is dropped or the cache is closed and no hit is being sent from
+     * it, and deleted then if it was dropped
+     */
+    private static class Segment {
+
+        private final int id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        /** The number of bytes of the records, to which the next record is appended */
+        private long size;
+
+        private volatile long lastAccess;
+
+        /** One for the cache, and one for each hit being sent */
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private volatile boolean deleted;
+
+        Segment(int id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        void release() throws IOException {
+            if (references.decrementAndGet() == 0) {
+                channel.close();
+                if (deleted) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fill a cache, reopen it cleanly and after a simulated crash with a torn record, check every value each time,
+     * check that frequently hit values survive eviction under a small limit, and time hits
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("render-cache");
+        int failures = 0;
+        Random random = new Random(18004);
+        List<byte[]> keys = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        for (int n = 0; n < 5000; n++) {
+            keys.add(EncodingServer.getKey("payload " + n, ErrorCorrectionLevel.M, "png", 4));
+            byte[] value = new byte[200 + random.nextInt(2000)];
+            random.nextBytes(value);
+            values.add(value);
+        }
+        try {
+            RenderCache cache = new RenderCache(directory, 64 << 20, 1 << 20);
+            for (int n = 0; n < keys.size(); n++) {
+                failures += cache.put(keys.get(n), values.get(n)) ? 0 : 1;
+            }
+            failures += cache.put(keys.get(0), values.get(0)) ? 1 : 0;
+            failures += check(cache, keys, values, "written");
+            cache.close();
+
+            cache = new RenderCache(directory, 64 << 20, 1 << 20);
+            failures += check(cache, keys, values, "reopened");
+            // a crash leaves the index open and the last record torn
+            Path last;
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                List<Path> sorted = new ArrayList<>();
+                paths.forEach(sorted::add);
+                sorted.sort(null);
+                last = sorted.get(sorted.size() - 1);
+            }
+            long intact = Files.size(last);
+            ByteBuffer torn = ByteBuffer.allocate(RECORD_HEADER_LENGTH + 12).putInt(RECORD_MAGIC).put(keys.get(0)).putInt(1000);
+            Files.write(last, torn.array(), StandardOpenOption.APPEND);
+            RenderCache recovered = new RenderCache(directory, 64 << 20, 1 << 20);
+            failures += check(recovered, keys, values, "recovered");
+            failures += Files.size(last) == intact ? 0 : 1;
+            recovered.close();
+
+            // a limit of 4 segments keeps the hot values, which are hit between every write
+            RenderCache small = new RenderCache(directory.resolve("small"), 4 << 20, 1 << 20);
+            List<byte[]> hotKeys = keys.subList(0, 20);
+            List<byte[]> hotValues = values.subList(0, 20);
+            for (int n = 0; n < hotKeys.size(); n++) {
+                small.put(hotKeys.get(n), hotValues.get(n));
+            }
+            for (int n = 0; n < 10000; n++) {
+                small.put(EncodingServer.getKey("cold " + n, ErrorCorrectionLevel.M, "svg", 4), values.get(n % values.size()));
+                small.transferTo(hotKeys.get(n % hotKeys.size()), length -> null);
+            }
+            failures += check(small, hotKeys, hotValues, "hot after eviction");
+            failures += small.getSize() <= 4 << 20 ? 0 : 1;
+            System.out.printf("after eviction: %s entries, %s bytes, %s segments dropped%n",
+                    small.getEntryCount(), small.getSize(), small.getEvictedSegments());
+
+            int count = 200_000;
+            WritableByteChannel sink = Channels.newChannel(java.io.OutputStream.nullOutputStream());
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                for (int n = 0; n < count; n++) {
+                    small.transferTo(hotKeys.get(n % hotKeys.size()), length -> sink);
+                }
+                if (round == 2) {
+                    System.out.printf("hits: %.0f/ms%n", count / ((System.nanoTime() - start) / 1e6));
+                }
+            }
+            small.close();
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                    Files.delete(path);
+                }
+            }
+        }
+        System.out.println(failures == 0 ? "passed" : failures + " FAILED");
+    }
+
+    private static int check(RenderCache cache, List<byte[]> keys, List<byte[]> values, String stage) throws IOException {
+        int failures = 0;
+        for (int n = 0; n < keys.size(); n++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            boolean hit = cache.transferTo(keys.get(n), length -> Channels.newChannel(out));
+            failures += hit && Arrays.equals(out.toByteArray(), values.get(n)) ? 0 : 1;
+        }
+        System.out.printf("%s: %s of %s values match%n", stage, keys.size() - failures, keys.size());
+        return failures;
+    }
+}
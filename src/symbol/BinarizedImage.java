@@ -0,0 +1,160 @@
+package symbol;
+
+import java.util.stream.IntStream;
+
+/**
+ * Model class representing an image in which every pixel has been classified as dark or light with adaptive thresholding.
+ * The image is divided into square blocks, and the threshold of each block is the mean of the 5x5 blocks around it, so
+ * uneven lighting across a scan does not affect the result. Blocks whose neighborhood has too little contrast to tell dark
+ * from light use the mean luminance of the whole image instead.
+ * <br />
+ * Every pass is linear in the number of pixels, and large images are processed in parallel by rows of blocks.
+ */
+public class BinarizedImage {
+
+    /** The side length of a thresholding block in pixels */
+    private static final int BLOCK_SIZE = 8;
+
+    /** The number of blocks on each side of a block that are included in its neighborhood */
+    private static final int NEIGHBORHOOD_RADIUS = 2;
+
+    /** The smallest luminance range within a neighborhood for its mean to be used as a threshold */
+    private static final int MIN_DYNAMIC_RANGE = 24;
+
+    /** The number of pixels from which binarization is done in parallel */
+    static final int PARALLEL_THRESHOLD_PIXELS = 512 * 512;
+
+    private final int width;
+
+    private final int height;
+
+    /** Whether each pixel is dark, in row-major order */
+    private final boolean[] pixels;
+
+    private BinarizedImage(int width, int height, boolean[] pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Binarize a color raster, such as the pixels of an image read by the optional qrcode-awt module
+     *
+     * @param rgb The red, green and blue of each pixel in the low 24 bits, in row-major order
+     * @param width The width of the raster
+     * @param height The height of the raster
+     * @return The binarized image
+     */
+    public static BinarizedImage binarizeRgb(int[] rgb, int width, int height) {
+        int[] luminance = new int[width * height];
+        rows(height, width * height).forEach(y -> {
+            for (int n = y * width; n < (y + 1) * width; n++) {
+                int pixel = rgb[n];
+                // weights approximating 0.25 red, 0.5 green and 0.25 blue
+                luminance[n] = (((pixel >> 16) & 0xFF) + 2 * ((pixel >> 8) & 0xFF) + (pixel & 0xFF)) >> 2;
+            }
+        });
+        return binarize(luminance, width, height);
+    }
+
+    /**
+     * Binarize a grayscale raster
+     *
+     * @param luminance The luminance of each pixel between 0 and 255, in row-major order
+     * @param width The width of the raster
+     * @param height The height of the raster
+     * @return The binarized image
+     */
+    public static BinarizedImage binarize(int[] luminance, int width, int height) {
+        int blocksWide = (width + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int blocksHigh = (height + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] blockMeans = new int[blocksWide * blocksHigh];
+        int[] blockMins = new int[blockMeans.length];
+        int[] blockMaxes = new int[blockMeans.length];
+        int pixelCount = width * height;
+
+        rows(blocksHigh, pixelCount).forEach(blockY -> {
+            for (int blockX = 0; blockX < blocksWide; blockX++) {
+                int sum = 0;
+                int count = 0;
+                int min = 255;
+                int max = 0;
+                for (int y = blockY * BLOCK_SIZE; y < Math.min(height, (blockY + 1) * BLOCK_SIZE); y++) {
+                    for (int x = blockX * BLOCK_SIZE; x < Math.min(width, (blockX + 1) * BLOCK_SIZE); x++) {
+                        int value = luminance[y * width + x];
+                        sum += value;
+                        count++;
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                }
+                int index = blockY * blocksWide + blockX;
+                blockMeans[index] = sum / count;
+                blockMins[index] = min;
+                blockMaxes[index] = max;
+            }
+        });
+
+        long totalLuminance = 0;
+        for (int i = 0; i < blockMeans.length; i++) {
+            totalLuminance += blockMeans[i];
+        }
+        int globalThreshold = (int) (totalLuminance / blockMeans.length);
+
+        int[] thresholds = new int[blockMeans.length];
+        rows(blocksHigh, pixelCount).forEach(blockY -> {
+            for (int blockX = 0; blockX < blocksWide; blockX++) {
+                int sum = 0;
+                int count = 0;
+                int min = 255;
+                int max = 0;
+                for (int y = Math.max(0, blockY - NEIGHBORHOOD_RADIUS); y <= Math.min(blocksHigh - 1, blockY + NEIGHBORHOOD_RADIUS); y++) {
+                    for (int x = Math.max(0, blockX - NEIGHBORHOOD_RADIUS); x <= Math.min(blocksWide - 1, blockX + NEIGHBORHOOD_RADIUS); x++) {
+                        int index = y * blocksWide + x;
+                        sum += blockMeans[index];
+                        count++;
+                        min = Math.min(min, blockMins[index]);
+                        max = Math.max(max, blockMaxes[index]);
+                    }
+                }
+                thresholds[blockY * blocksWide + blockX] = max - min < MIN_DYNAMIC_RANGE ? globalThreshold : sum / count;
+            }
+        });
+
+        boolean[] pixels = new boolean[pixelCount];
+        rows(height, pixelCount).forEach(y -> {
+            int thresholdRow = (y / BLOCK_SIZE) * blocksWide;
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = luminance[y * width + x] < thresholds[thresholdRow + x / BLOCK_SIZE];
+            }
+        });
+        return new BinarizedImage(width, height, pixels);
+    }
+
+    /**
+     * Get a stream over row indexes that is parallel for large images
+     */
+    static IntStream rows(int numRows, int pixelCount) {
+        IntStream rows = IntStream.range(0, numRows);
+        return pixelCount >= PARALLEL_THRESHOLD_PIXELS ? rows.parallel() : rows;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Whether the pixel at a given position is dark. Positions outside the image are light
+     *
+     * @param x The horizontal position of the pixel
+     * @param y The vertical position of the pixel
+     * @return true if the pixel is dark
+     */
+    public boolean isDark(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && pixels[y * width + x];
+    }
+}
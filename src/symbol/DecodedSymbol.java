@@ -0,0 +1,83 @@
+package symbol;
+
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.Mode;
+import model.StructuredAppendHeader;
+import model.Version;
+
+import java.util.List;
+
+/**
+ * Model class representing the contents of a decoded symbol, along with the information read from it.
+ */
+public class DecodedSymbol {
+
+    private final Version version;
+
+    private final ErrorCorrectionLevel errorCorrectionLevel;
+
+    private final MaskPattern maskPattern;
+
+    /** The bytes of all segments of the symbol, in order */
+    private final byte[] data;
+
+    /** The mode of each segment of the symbol, in order */
+    private final List<Mode> segments;
+
+    /** The number of codewords that were corrected by error correction */
+    private final int correctedCodewords;
+
+    /** The Structured Append header of the symbol, or null if it is not part of a Structured Append sequence */
+    private final StructuredAppendHeader structuredAppendHeader;
+
+    /**
+     * Create a DecodedSymbol
+     *
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @param maskPattern The mask pattern of the symbol
+     * @param data The bytes of all segments of the symbol
+     * @param segments The mode of each segment of the symbol
+     * @param correctedCodewords The number of codewords that were corrected by error correction
+     * @param structuredAppendHeader The Structured Append header of the symbol, or null if there is none
+     */
+    public DecodedSymbol(Version version, ErrorCorrectionLevel errorCorrectionLevel, MaskPattern maskPattern, byte[] data,
+                         List<Mode> segments, int correctedCodewords, StructuredAppendHeader structuredAppendHeader) {
+        this.version = version;
+        this.errorCorrectionLevel = errorCorrectionLevel;
+        this.maskPattern = maskPattern;
+        this.data = data;
+        this.segments = segments;
+        this.correctedCodewords = correctedCodewords;
+        this.structuredAppendHeader = structuredAppendHeader;
+    }
+
+    public Version getVersion() {
+        return version;
+    }
+
+    public ErrorCorrectionLevel getErrorCorrectionLevel() {
+        return errorCorrectionLevel;
+    }
+
+    public MaskPattern getMaskPattern() {
+        return maskPattern;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public List<Mode> getSegments() {
+        return segments;
+    }
+
+    public int getCorrectedCodewords() {
+        return correctedCodewords;
+    }
+
+    public StructuredAppendHeader getStructuredAppendHeader() {
+        return structuredAppendHeader;
+    }
+}
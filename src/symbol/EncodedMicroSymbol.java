@@ -0,0 +1,54 @@
+package symbol;
+
+import model.MicroSymbolInfo;
+
+import java.util.List;
+
+/**
+ * Model class representing an encoded Micro QR symbol, along with the information that was used to encode it.
+ */
+public class EncodedMicroSymbol {
+
+    /** The symbol information of the symbol, including the selected mask pattern */
+    private final MicroSymbolInfo symbolInfo;
+
+    /** The final codeword sequence placed in the symbol */
+    private final List<Integer> codewords;
+
+    /** The modules of the symbol */
+    private final ModuleMatrix modules;
+
+    /** The evaluation score of the selected mask pattern */
+    private final int score;
+
+    /**
+     * Create an EncodedMicroSymbol
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @param codewords The final codeword sequence placed in the symbol
+     * @param modules The modules of the symbol
+     * @param score The evaluation score of the selected mask pattern
+     */
+    public EncodedMicroSymbol(MicroSymbolInfo symbolInfo, List<Integer> codewords, ModuleMatrix modules, int score) {
+        this.symbolInfo = symbolInfo;
+        this.codewords = codewords;
+        this.modules = modules;
+        this.score = score;
+    }
+
+    public MicroSymbolInfo getSymbolInfo() {
+        return symbolInfo;
+    }
+
+    public List<Integer> getCodewords() {
+        return codewords;
+    }
+
+    public ModuleMatrix getModules() {
+        return modules;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
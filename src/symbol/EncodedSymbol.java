@@ -0,0 +1,54 @@
+package symbol;
+
+import model.SymbolInfo;
+
+import java.util.List;
+
+/**
+ * Model class representing an encoded symbol, along with the information that was used to encode it.
+ */
+public class EncodedSymbol {
+
+    /** The symbol information of the symbol, including the selected mask pattern */
+    private final SymbolInfo symbolInfo;
+
+    /** The final codeword sequence placed in the symbol */
+    private final List<Integer> codewords;
+
+    /** The modules of the symbol */
+    private final ModuleMatrix modules;
+
+    /** The penalty score of the selected mask pattern */
+    private final int penaltyScore;
+
+    /**
+     * Create an EncodedSymbol
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @param codewords The final codeword sequence placed in the symbol
+     * @param modules The modules of the symbol
+     * @param penaltyScore The penalty score of the selected mask pattern
+     */
+    public EncodedSymbol(SymbolInfo symbolInfo, List<Integer> codewords, ModuleMatrix modules, int penaltyScore) {
+        this.symbolInfo = symbolInfo;
+        this.codewords = codewords;
+        this.modules = modules;
+        this.penaltyScore = penaltyScore;
+    }
+
+    public SymbolInfo getSymbolInfo() {
+        return symbolInfo;
+    }
+
+    public List<Integer> getCodewords() {
+        return codewords;
+    }
+
+    public ModuleMatrix getModules() {
+        return modules;
+    }
+
+    public int getPenaltyScore() {
+        return penaltyScore;
+    }
+}
@@ -0,0 +1,488 @@
+package symbol;
+
+import data.AlphanumericDataEncoder;
+import data.ByteDataEncoder;
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import data.NumericDataEncoder;
+import error.ErrorCorrectionUtils;
+import error.GF256Number;
+import error.ReedSolomonEncoders;
+import model.BlockInfo;
+import model.Coordinate;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.Mode;
+import model.SymbolInfo;
+import model.Version;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable plan for encoding many payloads of the same shape: the same data encoder, the same number of characters
+ * and the same error correction level, such as 12 digit serial numbers. Everything that depends only on the shape is
+ * worked out once when the plan is compiled: the version, the block structure, the placement order of the data
+ * modules, the function patterns and version information, and for each mask pattern the modules that it inverts or
+ * whose format information differs from the first mask pattern. Encoding a payload through the plan then packs the
+ * data bits straight into a byte array, generates the error correction codewords with the
+ * {@link ReedSolomonEncoders#getDefault() selected engine}, places the codewords in one module plane and scores each
+ * mask pattern by inverting its modules of that plane in place and back, as {@link LowMemorySymbolEncoder} does.
+ * <br />
+ * The plan also holds what {@link IncrementalEncoder} needs to update a symbol when only some data codewords change:
+ * where each codeword lands in the final codeword sequence, and the error correction codewords that a data codeword
+ * of value 1 contributes to its block. Since the error correction codewords are linear in the data codewords, the
+ * change to them is the exclusive or of these contributions scaled by the change to each data codeword.
+ * <br />
+ * Plans hold no mutable state apart from the arrays each thread encodes into, which are kept per thread, so one plan
+ * can be shared by any number of threads.
+ */
+public class EncodingPlan {
+
+    private static final int[] PAD_CODEWORDS = { 0b11101100, 0b00010001 };
+
+    private static final int TERMINATOR_LENGTH_IN_BITS = 4;
+
+    private final DataEncoder encoder;
+
+    private final int numCharacters;
+
+    private final Version version;
+
+    private final ErrorCorrectionLevel errorCorrectionLevel;
+
+    /** The symbol information for each mask pattern */
+    private final List<SymbolInfo> candidates;
+
+    /** The index in the final codeword sequence of each data codeword */
+    private final int[] dataCodewordPositions;
+
+    /** The block of each data codeword */
+    private final int[] dataCodewordBlocks;
+
+    /** The indices in the final codeword sequence of the error correction codewords of each block */
+    private final int[][] errorCorrectionPositions;
+
+    /** The number of data codewords of each block */
+    private final int[] blockLengths;
+
+    /** The modules of the symbol without data and with the format information of the first mask pattern, row after row */
+    private final byte[] functionPlane;
+
+    /** The index in the module plane of each data module, in placement order */
+    private final int[] dataModuleIndices;
+
+    /**
+     * The indices in the module plane of the modules each mask pattern inverts, which are the data modules it masks and
+     * the format information modules that differ from those of the first mask pattern
+     */
+    private final int[][] maskedModuleIndices;
+
+    /** The arrays each thread encodes into */
+    private final ThreadLocal<Scratch> scratches = ThreadLocal.withInitial(() -> new Scratch(this));
+
+    /** The error correction codewords of the block of each data codeword if only that codeword were 1 and the rest 0 */
+    private final int[][] unitErrorCorrectionCodewords;
+
+    private EncodingPlan(DataEncoder encoder, int numCharacters, Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        this.encoder = encoder;
+        this.numCharacters = numCharacters;
+        this.version = version;
+        this.errorCorrectionLevel = errorCorrectionLevel;
+        this.candidates = Collections.unmodifiableList(SymbolInfo.forEachMaskPattern(version, errorCorrectionLevel));
+
+        SymbolGenerator symbolGenerator = new SymbolGenerator();
+        List<Coordinate> coordinates = symbolGenerator.getDataModuleCoordinates(candidates.get(0));
+        int[] dataModuleRows = new int[coordinates.size()];
+        int[] dataModuleColumns = new int[coordinates.size()];
+        for (int n = 0; n < coordinates.size(); n++) {
+            dataModuleRows[n] = coordinates.get(n).getI();
+            dataModuleColumns[n] = coordinates.get(n).getJ();
+        }
+
+        int sideLength = version.getSymbolSideLength();
+        // the modules of the symbol without data and whether each data module is inverted, for each mask pattern
+        boolean[][][] functionModules = new boolean[candidates.size()][sideLength][sideLength];
+        boolean[][] maskedDataModules = new boolean[candidates.size()][coordinates.size()];
+        for (int m = 0; m < candidates.size(); m++) {
+            SymbolInfo symbolInfo = candidates.get(m);
+            ModuleMatrix symbol = symbolGenerator.generateSymbol(symbolInfo);
+            for (int i = 0; i < sideLength; i++) {
+                for (int j = 0; j < sideLength; j++) {
+                    functionModules[m][i][j] = !symbolInfo.isCoordinateAvailableForData(i, j)
+                            && symbol.isDark(i, j);
+                }
+            }
+            MaskPattern maskPattern = symbolInfo.getMaskPattern();
+            for (int n = 0; n < coordinates.size(); n++) {
+                maskedDataModules[m][n] = maskPattern.isMasked(dataModuleRows[n], dataModuleColumns[n]);
+            }
+        }
+
+        functionPlane = new byte[sideLength * sideLength];
+        for (int i = 0; i < sideLength; i++) {
+            for (int j = 0; j < sideLength; j++) {
+                functionPlane[i * sideLength + j] = functionModules[0][i][j] ? ModuleMatrix.DARK : ModuleMatrix.LIGHT;
+            }
+        }
+        dataModuleIndices = new int[coordinates.size()];
+        for (int n = 0; n < coordinates.size(); n++) {
+            dataModuleIndices[n] = dataModuleRows[n] * sideLength + dataModuleColumns[n];
+        }
+        maskedModuleIndices = new int[candidates.size()][];
+        for (int m = 0; m < candidates.size(); m++) {
+            int[] indices = new int[sideLength * sideLength];
+            int count = 0;
+            for (int n = 0; n < coordinates.size(); n++) {
+                if (maskedDataModules[m][n]) {
+                    indices[count++] = dataModuleIndices[n];
+                }
+            }
+            for (int i = 0; i < sideLength; i++) {
+                for (int j = 0; j < sideLength; j++) {
+                    if (functionModules[m][i][j] != functionModules[0][i][j]) {
+                        indices[count++] = i * sideLength + j;
+                    }
+                }
+            }
+            maskedModuleIndices[m] = Arrays.copyOf(indices, count);
+        }
+
+        SymbolInfo symbolInfo = candidates.get(0);
+        int numBlocks = symbolInfo.getNumberOfBlocks();
+        int numDataCodewords = symbolInfo.getDataCodewords();
+        dataCodewordPositions = new int[numDataCodewords];
+        dataCodewordBlocks = new int[numDataCodewords];
+        errorCorrectionPositions = new int[numBlocks][];
+        blockLengths = new int[numBlocks];
+        unitErrorCorrectionCodewords = new int[numDataCodewords][];
+        int[] blockStarts = new int[numBlocks];
+        int maxDataLength = 0;
+        int maxErrorCorrectionLength = 0;
+        for (int b = 0, start = 0; b < numBlocks; b++) {
+            BlockInfo blockInfo = symbolInfo.getBlockInfo(b + 1);
+            blockStarts[b] = start;
+            errorCorrectionPositions[b] = new int[blockInfo.getErrorCorrectionCodewords()];
+            blockLengths[b] = blockInfo.getDataCodewords();
+            addUnitErrorCorrectionCodewords(start, blockInfo);
+            for (int k = start; k < start + blockInfo.getDataCodewords(); k++) {
+                dataCodewordBlocks[k] = b;
+            }
+            start += blockInfo.getDataCodewords();
+            maxDataLength = Math.max(maxDataLength, blockInfo.getDataCodewords());
+            maxErrorCorrectionLength = Math.max(maxErrorCorrectionLength, blockInfo.getErrorCorrectionCodewords());
+        }
+
+        // follow the interleaving of the final codeword sequence
+        int position = 0;
+        for (int i = 0; i < maxDataLength; i++) {
+            for (int b = 0; b < numBlocks; b++) {
+                if (i < symbolInfo.getBlockInfo(b + 1).getDataCodewords()) {
+                    dataCodewordPositions[blockStarts[b] + i] = position++;
+                }
+            }
+        }
+        for (int i = 0; i < maxErrorCorrectionLength; i++) {
+            for (int b = 0; b < numBlocks; b++) {
+                if (i < errorCorrectionPositions[b].length) {
+                    errorCorrectionPositions[b][i] = position++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Work out the error correction codewords of a block for a data codeword of 1 at each position of the block. The
+     * last position gives the remainder of x^n divided by the generator polynomial, whose coefficients are then those
+     * of the generator polynomial, and each earlier position is one more step of the division with a 0 input.
+     */
+    private void addUnitErrorCorrectionCodewords(int start, BlockInfo blockInfo) {
+        int numErrorCorrectionCodewords = blockInfo.getErrorCorrectionCodewords();
+        int last = start + blockInfo.getDataCodewords() - 1;
+        int[] generator = ErrorCorrectionUtils.getErrorCorrectionCodewords(Collections.singletonList(1), numErrorCorrectionCodewords)
+                .stream().mapToInt(Integer::intValue).toArray();
+        unitErrorCorrectionCodewords[last] = generator;
+        for (int k = last - 1; k >= start; k--) {
+            int[] next = unitErrorCorrectionCodewords[k + 1];
+            int[] codewords = new int[numErrorCorrectionCodewords];
+            for (int e = 0; e < numErrorCorrectionCodewords; e++) {
+                codewords[e] = GF256Number.mul(next[0], generator[e])
+                        ^ (e + 1 < numErrorCorrectionCodewords ? next[e + 1] : 0);
+            }
+            unitErrorCorrectionCodewords[k] = codewords;
+        }
+    }
+
+    /**
+     * Compile a plan for payloads of the same shape as a template text, encoded in the smallest version that can
+     * hold it at a given error correction level
+     *
+     * @param template A text of the same length and character class as the payloads
+     * @param errorCorrectionLevel The error correction level of the symbols
+     * @return The plan
+     */
+    public static EncodingPlan compile(String template, ErrorCorrectionLevel errorCorrectionLevel) {
+        DataEncoder encoder = DataEncodationUtils.getEncoder(template);
+        return compile(encoder, DataEncodationUtils.getCharacters(template, encoder).size(), errorCorrectionLevel);
+    }
+
+    /**
+     * Compile a plan for payloads of a given number of characters, encoded in the smallest version that can hold
+     * them at a given error correction level
+     *
+     * @param encoder The data encoder to encode the payloads with, which must be safe to share between threads
+     * @param numCharacters The number of characters of every payload, as counted by the encoder
+     * @param errorCorrectionLevel The error correction level of the symbols
+     * @return The plan
+     */
+    public static EncodingPlan compile(DataEncoder encoder, int numCharacters, ErrorCorrectionLevel errorCorrectionLevel) {
+        Version version = DataEncodationUtils.getMinimumVersion(encoder, numCharacters, errorCorrectionLevel);
+        return compile(encoder, numCharacters, version, errorCorrectionLevel);
+    }
+
+    /**
+     * Compile a plan for payloads of a given number of characters, encoded in a given version and error correction level
+     *
+     * @param encoder The data encoder to encode the payloads with, which must be safe to share between threads
+     * @param numCharacters The number of characters of every payload, as counted by the encoder
+     * @param version The version of the symbols
+     * @param errorCorrectionLevel The error correction level of the symbols
+     * @return The plan
+     */
+    public static EncodingPlan compile(DataEncoder encoder, int numCharacters, Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return new EncodingPlan(encoder, numCharacters, version, errorCorrectionLevel);
+    }
+
+    public DataEncoder getEncoder() {
+        return encoder;
+    }
+
+    public int getNumberOfCharacters() {
+        return numCharacters;
+    }
+
+    public Version getVersion() {
+        return version;
+    }
+
+    public ErrorCorrectionLevel getErrorCorrectionLevel() {
+        return errorCorrectionLevel;
+    }
+
+    List<SymbolInfo> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Get the characters of a payload, checking that it has the shape the plan was compiled for
+     *
+     * @param text The payload
+     * @return The characters of the payload in the form expected by the data encoder
+     */
+    List<Integer> getCharacters(String text) {
+        if (encoder.getMode() == Mode.NUMERIC && !text.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            throw new IllegalArgumentException(String.format("Text %s cannot be encoded in Numeric mode", text));
+        }
+        List<Integer> data = DataEncodationUtils.getCharacters(text, encoder);
+        if (data.size() != numCharacters) {
+            throw new IllegalArgumentException(String.format("Text %s has %s characters, but the plan was compiled for %s",
+                    text, data.size(), numCharacters));
+        }
+        return data;
+    }
+
+    int getDataCodewordPosition(int dataCodeword) {
+        return dataCodewordPositions[dataCodeword];
+    }
+
+    int getDataCodewordBlock(int dataCodeword) {
+        return dataCodewordBlocks[dataCodeword];
+    }
+
+    int[] getErrorCorrectionPositions(int block) {
+        return errorCorrectionPositions[block];
+    }
+
+    int[] getUnitErrorCorrectionCodewords(int dataCodeword) {
+        return unitErrorCorrectionCodewords[dataCodeword];
+    }
+
+    int getDataModuleIndex(int dataModule) {
+        return dataModuleIndices[dataModule];
+    }
+
+    /**
+     * Get the arrays the calling thread encodes into, which hold the last payload it encoded through the plan
+     *
+     * @return The arrays of the calling thread
+     */
+    Scratch getScratch() {
+        return scratches.get();
+    }
+
+    /**
+     * Write the data codewords of a payload, checking that it has the shape the plan was compiled for. The mode and
+     * character count indicators, the characters, the terminator and the pad codewords are packed straight into the
+     * data codewords for the Numeric, Alphanumeric and UTF-8 Byte modes, and any other data encoder goes through
+     * {@link DataEncodationUtils#getDataCodewords(DataEncoder, List, Version, ErrorCorrectionLevel)}.
+     *
+     * @param text The payload
+     * @param scratch The arrays of the calling thread, whose data codewords are replaced
+     */
+    void writeDataCodewords(String text, Scratch scratch) {
+        byte[] dataCodewords = scratch.dataCodewords;
+        Class<?> encoderClass = encoder.getClass();
+        if (encoderClass != NumericDataEncoder.class && encoderClass != AlphanumericDataEncoder.class
+                && encoderClass != ByteDataEncoder.class) {
+            List<Integer> codewords = DataEncodationUtils.getDataCodewords(encoder, getCharacters(text), version, errorCorrectionLevel);
+            for (int k = 0; k < dataCodewords.length; k++) {
+                dataCodewords[k] = (byte) (int) codewords.get(k);
+            }
+            return;
+        }
+
+        Mode mode = encoder.getMode();
+        byte[] bytes = mode == Mode.BYTE ? text.getBytes(StandardCharsets.UTF_8) : null;
+        int length = bytes == null ? text.length() : bytes.length;
+        if (length != numCharacters) {
+            throw new IllegalArgumentException(String.format("Text %s has %s characters, but the plan was compiled for %s",
+                    text, length, numCharacters));
+        }
+        Arrays.fill(dataCodewords, (byte) 0);
+        scratch.bitPosition = 0;
+        appendBits(scratch, mode.getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
+        appendBits(scratch, numCharacters, version.getCharacterCountIndicatorLength(mode));
+        if (mode == Mode.NUMERIC) {
+            for (int i = 0; i < length; i += 3) {
+                int group = Math.min(3, length - i);
+                int value = 0;
+                for (int k = i; k < i + group; k++) {
+                    char c = text.charAt(k);
+                    if (c < '0' || c > '9') {
+                        throw new IllegalArgumentException(String.format("Text %s cannot be encoded in Numeric mode", text));
+                    }
+                    value = value * 10 + c - '0';
+                }
+                // 3 digits take 10 bits, 2 digits 7 bits and 1 digit 4 bits
+                appendBits(scratch, value, 3 * group + 1);
+            }
+        } else if (mode == Mode.ALPHANUMERIC) {
+            for (int i = 0; i < length; i += 2) {
+                int value = getAlphanumericValue(text.charAt(i));
+                if (i + 1 < length) {
+                    appendBits(scratch, value * 45 + getAlphanumericValue(text.charAt(i + 1)), 11);
+                } else {
+                    appendBits(scratch, value, 6);
+                }
+            }
+        } else {
+            for (byte b : bytes) {
+                appendBits(scratch, b & 0xFF, 8);
+            }
+        }
+
+        // the terminator and the bits up to the codeword boundary are already 0
+        int terminatedLength = Math.min(scratch.bitPosition + TERMINATOR_LENGTH_IN_BITS, dataCodewords.length * 8);
+        for (int k = (terminatedLength + 7) / 8, pad = 0; k < dataCodewords.length; k++, pad++) {
+            dataCodewords[k] = (byte) PAD_CODEWORDS[pad % PAD_CODEWORDS.length];
+        }
+    }
+
+    private static int getAlphanumericValue(char c) {
+        int value = AlphanumericDataEncoder.getValue(c);
+        if (value < 0) {
+            throw new IllegalArgumentException(String.format("Character %s cannot be encoded in Alphanumeric mode", c));
+        }
+        return value;
+    }
+
+    /**
+     * Append the lowest bits of a value to the data codewords, most significant bit first
+     */
+    private static void appendBits(Scratch scratch, int value, int numBits) {
+        for (int bit = numBits - 1; bit >= 0; bit--) {
+            if ((value >>> bit & 1) != 0) {
+                scratch.dataCodewords[scratch.bitPosition / 8] |= (byte) (0x80 >>> scratch.bitPosition % 8);
+            }
+            scratch.bitPosition++;
+        }
+    }
+
+    /**
+     * Generate the error correction codewords of every block and interleave them with the data codewords into the
+     * final codeword sequence, as described by section 8.6 of the QR Code specification ISO/IEC 18004
+     *
+     * @param scratch The arrays of the calling thread, holding the data codewords
+     */
+    void writeCodewords(Scratch scratch) {
+        int numErrorCorrectionCodewords = errorCorrectionPositions[0].length;
+        ReedSolomonEncoders.getDefault().encodeBlocks(scratch.dataCodewords, blockLengths, numErrorCorrectionCodewords,
+                scratch.errorCorrectionCodewords);
+        for (int k = 0; k < dataCodewordPositions.length; k++) {
+            scratch.codewords[dataCodewordPositions[k]] = scratch.dataCodewords[k];
+        }
+        for (int b = 0; b < errorCorrectionPositions.length; b++) {
+            for (int e = 0; e < numErrorCorrectionCodewords; e++) {
+                scratch.codewords[errorCorrectionPositions[b][e]] = scratch.errorCorrectionCodewords[b * numErrorCorrectionCodewords + e];
+            }
+        }
+    }
+
+    /**
+     * Place the final codeword sequence in the module plane with the function patterns and the format information of
+     * the first mask pattern, leaving the data modules unmasked and the remainder bits 0
+     *
+     * @param scratch The arrays of the calling thread, holding the final codeword sequence
+     */
+    void placeCodewords(Scratch scratch) {
+        byte[] modules = scratch.modules;
+        System.arraycopy(functionPlane, 0, modules, 0, functionPlane.length);
+        byte[] codewords = scratch.codewords;
+        int numBits = Math.min(codewords.length * 8, dataModuleIndices.length);
+        for (int n = 0; n < numBits; n++) {
+            modules[dataModuleIndices[n]] = (byte) (codewords[n >>> 3] >>> (7 - (n & 7)) & 1);
+        }
+    }
+
+    /**
+     * Invert the modules of the module plane that a mask pattern inverts. Applying it to the unmasked plane gives the
+     * symbol masked with that pattern, and applying it again restores the unmasked plane.
+     *
+     * @param scratch The arrays of the calling thread
+     * @param candidate The index of the mask pattern in {@link #getCandidates()}
+     */
+    void toggleMask(Scratch scratch, int candidate) {
+        byte[] modules = scratch.modules;
+        for (int index : maskedModuleIndices[candidate]) {
+            modules[index] ^= ModuleMatrix.DARK;
+        }
+    }
+
+    /**
+     * The arrays one thread encodes payloads of a plan into, or one {@link IncrementalEncoder} keeps its run in
+     */
+    static class Scratch {
+
+        final byte[] dataCodewords;
+
+        final byte[] errorCorrectionCodewords;
+
+        /** The final codeword sequence */
+        final byte[] codewords;
+
+        /** The module plane, row after row */
+        final byte[] modules;
+
+        /** The number of bits of the data codewords written so far */
+        int bitPosition;
+
+        Scratch(EncodingPlan plan) {
+            dataCodewords = new byte[plan.dataCodewordPositions.length];
+            errorCorrectionCodewords = new byte[plan.errorCorrectionPositions.length * plan.errorCorrectionPositions[0].length];
+            codewords = new byte[dataCodewords.length + errorCorrectionCodewords.length];
+            modules = new byte[plan.functionPlane.length];
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package symbol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encoder of a 1 bit image as ESC/POS GS v 0 raster bit image commands for receipt and label printers. The command
+ * carries the raster uncompressed, so bytes are saved by letting the printer scale instead: in quadruple mode every dot
+ * sent prints as 2x2 dots, and a symbol at an even scale is sent at half its size, in a quarter of the bytes. Tall
+ * images are sent in bands of {@link #BAND_HEIGHT} rows, since printers limit the height of one command.
+ */
+class EscPosEncoder implements RasterEncoder {
+
+    /** The command GS v 0 */
+    static final byte[] RASTER_BIT_IMAGE = { 0x1D, 'v', '0' };
+
+    static final int NORMAL = 0;
+
+    /** The mode in which each dot sent prints as 2x2 dots */
+    static final int QUADRUPLE = 3;
+
+    /** The largest number of rows of one command, well within the limit of common printers */
+    static final int BAND_HEIGHT = 960;
+
+    private final OutputStream out;
+
+    private final int height;
+
+    private final int rowLength;
+
+    private final int mode;
+
+    private final byte[] row;
+
+    private int rowsWritten;
+
+    /**
+     * Create an EscPosEncoder
+     *
+     * @param out The stream to write the commands to, which is left open
+     * @param width The width of the image in dots sent
+     * @param height The height of the image in dots sent
+     * @param mode {@link #NORMAL}, or {@link #QUADRUPLE} for the printer to double the image along each side
+     */
+    EscPosEncoder(OutputStream out, int width, int height, int mode) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(String.format("Image of %sx%s dots is not valid", width, height));
+        }
+        this.out = out;
+        this.height = height;
+        this.rowLength = RasterEncoder.getRowLength(width);
+        if (rowLength > 0xFFFF) {
+            throw new IllegalArgumentException(String.format("Image of %s dots is too wide for a raster bit image", width));
+        }
+        this.mode = mode;
+        this.row = new byte[rowLength];
+    }
+
+    /**
+     * Write a symbol as raster bit image commands, surrounded by a light quiet zone
+     *
+     * @param symbol The modules of the symbol
+     * @param scale The number of dots per module along each side
+     * @param quietZoneWidth The width of the quiet zone in modules
+     * @param out The stream to write the commands to, which is left open
+     * @throws IOException If the commands could not be written
+     */
+    static void write(ModuleMatrix symbol, int scale, int quietZoneWidth, OutputStream out) throws IOException {
+        boolean quadruple = scale % 2 == 0;
+        int scaleSent = quadruple ? scale / 2 : scale;
+        int imageSideLength = (symbol.getSideLength() + 2 * quietZoneWidth) * scaleSent;
+        EscPosEncoder encoder = new EscPosEncoder(out, imageSideLength, imageSideLength, quadruple ? QUADRUPLE : NORMAL);
+        RasterEncoder.writeSymbol(encoder, symbol, scaleSent, quietZoneWidth);
+    }
+
+    @Override
+    public void writeRows(byte[] rows, int rowCount) throws IOException {
+        if (rowsWritten + rowCount > height) {
+            throw new IllegalStateException(String.format("Image of %s rows has no room for %s more rows", height, rowCount));
+        }
+        for (int r = 0; r < rowCount; r++) {
+            if (rowsWritten % BAND_HEIGHT == 0) {
+                int bandHeight = Math.min(BAND_HEIGHT, height - rowsWritten);
+                out.write(RASTER_BIT_IMAGE);
+                out.write(mode);
+                out.write(rowLength & 0xFF);
+                out.write(rowLength >>> 8);
+                out.write(bandHeight & 0xFF);
+                out.write(bandHeight >>> 8);
+            }
+            // ESC/POS prints set bits, so the white bits of the raster are inverted
+            for (int n = 0; n < rowLength; n++) {
+                row[n] = (byte) ~rows[r * rowLength + n];
+            }
+            out.write(row);
+            rowsWritten++;
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (rowsWritten != height) {
+            throw new IllegalStateException(String.format("Image of %s rows was finished after %s rows", height, rowsWritten));
+        }
+    }
+}
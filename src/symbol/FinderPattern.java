@@ -0,0 +1,101 @@
+package symbol;
+
+/**
+ * Model class representing a finder pattern located in an image, as described by section 6.3.3 of the
+ * QR Code specification ISO/IEC 18004.
+ */
+public class FinderPattern {
+
+    /** The horizontal position of the center in pixels */
+    private final float x;
+
+    /** The vertical position of the center in pixels */
+    private final float y;
+
+    /** The estimated width of one module in pixels */
+    private final float moduleSize;
+
+    /** The number of scan lines that found this finder pattern */
+    private final int count;
+
+    /**
+     * Create a FinderPattern
+     *
+     * @param x The horizontal position of the center in pixels
+     * @param y The vertical position of the center in pixels
+     * @param moduleSize The estimated width of one module in pixels
+     * @param count The number of scan lines that found this finder pattern
+     */
+    public FinderPattern(float x, float y, float moduleSize, int count) {
+        this.x = x;
+        this.y = y;
+        this.moduleSize = moduleSize;
+        this.count = count;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getModuleSize() {
+        return moduleSize;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Whether another sighting is of this same finder pattern, meaning that it is centered within
+     * one module of this one and has a similar module size
+     *
+     * @param other The other finder pattern
+     * @return true if both are the same finder pattern
+     */
+    public boolean isSameAs(FinderPattern other) {
+        float tolerance = Math.max(moduleSize, other.moduleSize);
+        return Math.abs(x - other.x) <= tolerance && Math.abs(y - other.y) <= tolerance
+                && Math.abs(moduleSize - other.moduleSize) <= tolerance / 2;
+    }
+
+    /**
+     * Combine this finder pattern with another sighting of it, weighting each by the number of scan lines that found it
+     *
+     * @param other The other sighting of this finder pattern
+     * @return The combined finder pattern
+     */
+    public FinderPattern combine(FinderPattern other) {
+        int total = count + other.count;
+        return new FinderPattern(
+                (x * count + other.x * other.count) / total,
+                (y * count + other.y * other.count) / total,
+                (moduleSize * count + other.moduleSize * other.count) / total,
+                total);
+    }
+
+    /**
+     * The distance to another finder pattern in pixels
+     *
+     * @param other The other finder pattern
+     * @return The distance between the centers
+     */
+    public float distanceTo(FinderPattern other) {
+        float dx = x - other.x;
+        float dy = y - other.y;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Override
+    public String toString() {
+        return "FinderPattern{" +
+                "x=" + x +
+                ", y=" + y +
+                ", moduleSize=" + moduleSize +
+                ", count=" + count +
+                '}';
+    }
+}
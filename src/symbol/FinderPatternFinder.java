@@ -0,0 +1,186 @@
+package symbol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Finder of the finder patterns drawn by {@link SymbolGenerator}, which read as dark, light, dark, light and dark runs
+ * with widths in the ratio 1:1:3:1:1 along any line through their center. Every row is scanned for runs in this ratio,
+ * and each hit is confirmed with a vertical and then a horizontal scan through its center. Hits of the same
+ * finder pattern on different rows are combined.
+ * <br />
+ * Scanning is linear in the number of pixels. Large images are split into horizontal bands that are scanned in parallel.
+ */
+public class FinderPatternFinder {
+
+    /** The number of rows in each band that is scanned in parallel */
+    private static final int BAND_HEIGHT = 32;
+
+    /** The fraction of a module that each run may differ from its expected width */
+    private static final float MAX_VARIANCE = 0.5f;
+
+    /**
+     * Find all finder patterns in a binarized image
+     *
+     * @param image The image to search
+     * @return The finder patterns, ordered by the number of scan lines that found them with the most found first
+     */
+    public static List<FinderPattern> find(BinarizedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int numBands = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+
+        List<List<FinderPattern>> bands = BinarizedImage.rows(numBands, width * height)
+                .mapToObj(band -> scanBand(image, band * BAND_HEIGHT, Math.min(height, (band + 1) * BAND_HEIGHT)))
+                .collect(Collectors.toList());
+
+        List<FinderPattern> patterns = new ArrayList<>();
+        for (List<FinderPattern> band : bands) {
+            for (FinderPattern pattern : band) {
+                addOrCombine(patterns, pattern);
+            }
+        }
+        patterns.sort((a, b) -> Integer.compare(b.getCount(), a.getCount()));
+        return patterns;
+    }
+
+    private static List<FinderPattern> scanBand(BinarizedImage image, int startY, int endY) {
+        List<FinderPattern> patterns = new ArrayList<>();
+        int width = image.getWidth();
+        int[] runs = new int[5];
+        float[] crossCheck = new float[2];
+
+        for (int y = startY; y < endY; y++) {
+            int numRuns = 0;
+            boolean runDark = image.isDark(0, y);
+            int runLength = 0;
+            for (int x = 0; x <= width; x++) {
+                boolean dark = x < width ? image.isDark(x, y) : !runDark;
+                if (dark == runDark) {
+                    runLength++;
+                    continue;
+                }
+                if (numRuns == runs.length) {
+                    System.arraycopy(runs, 1, runs, 0, runs.length - 1);
+                    numRuns--;
+                }
+                runs[numRuns++] = runLength;
+                if (numRuns == runs.length && runDark && hasFinderRatio(runs)) {
+                    int total = runs[0] + runs[1] + runs[2] + runs[3] + runs[4];
+                    float centerX = x - runs[4] - runs[3] - runs[2] / 2.0f;
+                    FinderPattern pattern = confirm(image, centerX, y, total, crossCheck);
+                    if (pattern != null) {
+                        addOrCombine(patterns, pattern);
+                    }
+                }
+                runDark = dark;
+                runLength = 1;
+            }
+        }
+        return patterns;
+    }
+
+    private static void addOrCombine(List<FinderPattern> patterns, FinderPattern pattern) {
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).isSameAs(pattern)) {
+                patterns.set(i, patterns.get(i).combine(pattern));
+                return;
+            }
+        }
+        patterns.add(pattern);
+    }
+
+    /**
+     * Confirm a horizontal hit with a vertical scan through its center, then refine its horizontal center with a
+     * horizontal scan through the vertical center
+     *
+     * @return The confirmed finder pattern, or null if the hit is not a finder pattern
+     */
+    private static FinderPattern confirm(BinarizedImage image, float centerX, int y, int horizontalTotal, float[] crossCheck) {
+        if (!crossCheck(image, (int) centerX, y, true, horizontalTotal, crossCheck)) {
+            return null;
+        }
+        float centerY = crossCheck[0];
+        float verticalTotal = crossCheck[1];
+        if (!crossCheck(image, (int) centerX, (int) centerY, false, horizontalTotal, crossCheck)) {
+            return null;
+        }
+        float moduleSize = (crossCheck[1] + verticalTotal) / 14.0f;
+        return new FinderPattern(crossCheck[0], centerY, moduleSize, 1);
+    }
+
+    /**
+     * Scan outwards from a point in both directions along one axis, checking that the runs around it
+     * are in the finder pattern ratio and have a total width similar to an expected one
+     *
+     * @param result Set to the center along the axis and the total width of the runs if the check passes
+     * @return true if the runs are in the finder pattern ratio
+     */
+    private static boolean crossCheck(BinarizedImage image, int x, int y, boolean vertical, int expectedTotal, float[] result) {
+        int[] runs = new int[5];
+        int maxRun = expectedTotal;
+        int position = vertical ? y : x;
+        int limit = vertical ? image.getHeight() : image.getWidth();
+
+        // runs before the center: center run, light run, outer dark run
+        int p = position;
+        for (int state = 2; state >= 0; state--) {
+            boolean wantDark = state != 1;
+            while (p >= 0 && isDark(image, vertical, x, y, p) == wantDark && runs[state] <= maxRun) {
+                runs[state]++;
+                p--;
+            }
+            if (runs[state] == 0 || runs[state] > maxRun || (p < 0 && state > 0)) {
+                return false;
+            }
+        }
+        // runs after the center, continuing the center run
+        p = position + 1;
+        for (int state = 2; state <= 4; state++) {
+            boolean wantDark = state != 3;
+            while (p < limit && isDark(image, vertical, x, y, p) == wantDark && runs[state] <= maxRun) {
+                runs[state]++;
+                p++;
+            }
+            if (runs[state] == 0 || runs[state] > maxRun || (p >= limit && state < 4)) {
+                return false;
+            }
+        }
+
+        int total = runs[0] + runs[1] + runs[2] + runs[3] + runs[4];
+        if (Math.abs(total - expectedTotal) * 5 >= expectedTotal * 2 || !hasFinderRatio(runs)) {
+            return false;
+        }
+        result[0] = p - runs[4] - runs[3] - runs[2] / 2.0f;
+        result[1] = total;
+        return true;
+    }
+
+    private static boolean isDark(BinarizedImage image, boolean vertical, int x, int y, int position) {
+        return vertical ? image.isDark(x, position) : image.isDark(position, y);
+    }
+
+    /**
+     * Whether five runs have widths in the ratio 1:1:3:1:1
+     */
+    static boolean hasFinderRatio(int[] runs) {
+        int total = 0;
+        for (int run : runs) {
+            if (run == 0) {
+                return false;
+            }
+            total += run;
+        }
+        if (total < 7) {
+            return false;
+        }
+        float moduleSize = total / 7.0f;
+        float maxVariance = moduleSize * MAX_VARIANCE;
+        return Math.abs(moduleSize - runs[0]) < maxVariance
+                && Math.abs(moduleSize - runs[1]) < maxVariance
+                && Math.abs(3 * moduleSize - runs[2]) < 3 * maxVariance
+                && Math.abs(moduleSize - runs[3]) < maxVariance
+                && Math.abs(moduleSize - runs[4]) < maxVariance;
+    }
+}
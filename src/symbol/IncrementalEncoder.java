@@ -0,0 +1,272 @@
+package symbol;
+
+import error.GF256Number;
+import metrics.EncodeListener;
+import metrics.EncodeStage;
+import metrics.StageRecorder;
+import model.SymbolInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encoder for runs of payloads that differ from one to the next in only a few characters, such as consecutive
+ * serial numbers, all of the shape of one {@link EncodingPlan}. The encoder keeps the codewords and the unmasked module
+ * plane of the previous symbol, and the penalty of every row and column of it under each mask pattern. For each new
+ * payload the data codewords are packed and compared with the previous ones, and only the changed data codewords, the
+ * error correction codewords of their blocks and the modules of those codewords are updated. Each mask pattern is then
+ * applied to the plane in place as {@link SymbolEncoder#encode(EncodingPlan, String)} does, but only the rows and
+ * columns holding a changed module are scored again.
+ * <br />
+ * The error correction codewords are updated without dividing the block again: the Reed-Solomon remainder is linear
+ * over GF(256), so the new error correction codewords are the old ones added to the change of each data codeword
+ * multiplied by the error correction codewords of a 1 at its position, which the plan has worked out in advance.
+ * <br />
+ * An encoder holds the state of one run and is not thread-safe.
+ */
+public class IncrementalEncoder {
+
+    private final EncodingPlan plan;
+
+    private final EncodeListener listener;
+
+    private final int sideLength;
+
+    /** The final codeword sequence and the unmasked module plane of the previous symbol */
+    private final EncodingPlan.Scratch scratch;
+
+    /** The data codewords of the previous symbol */
+    private final byte[] previousDataCodewords;
+
+    /** Whether a symbol has been placed in the module plane */
+    private boolean placed;
+
+    /** Whether each codeword of the final codeword sequence has changed since it was last placed */
+    private final boolean[] changedCodewords;
+
+    /** Whether each row and column has had a module changed since the mask patterns were last scored */
+    private final boolean[] changedRows;
+    private final boolean[] changedColumns;
+
+    /** The penalty of the runs and finder-like patterns of each row and column under each mask pattern */
+    private final int[][] rowPenalties;
+    private final int[][] columnPenalties;
+
+    /**
+     * The penalty of the 2x2 blocks whose top left module is in each column, and the number of dark modules of each
+     * column, under each mask pattern. These follow the columns rather than the rows since the error correction
+     * codewords of a block, which all change with any of its data codewords, fill columns from the top to the bottom
+     * of the symbol, so fewer columns than rows change.
+     */
+    private final int[][] blockPenalties;
+    private final int[][] columnDarkModules;
+
+    public IncrementalEncoder(EncodingPlan plan) {
+        this(plan, EncodeListener.NONE);
+    }
+
+    /**
+     * Create an IncrementalEncoder that reports the cost of each stage of every encode to a listener
+     *
+     * @param plan The plan every payload is encoded through
+     * @param listener The listener to report to
+     */
+    public IncrementalEncoder(EncodingPlan plan, EncodeListener listener) {
+        this.plan = plan;
+        this.listener = listener;
+        this.sideLength = plan.getVersion().getSymbolSideLength();
+        this.scratch = new EncodingPlan.Scratch(plan);
+        this.previousDataCodewords = new byte[scratch.dataCodewords.length];
+        this.changedCodewords = new boolean[scratch.codewords.length];
+        this.changedRows = new boolean[sideLength];
+        this.changedColumns = new boolean[sideLength];
+        int numCandidates = plan.getCandidates().size();
+        this.rowPenalties = new int[numCandidates][sideLength];
+        this.columnPenalties = new int[numCandidates][sideLength];
+        this.blockPenalties = new int[numCandidates][sideLength];
+        this.columnDarkModules = new int[numCandidates][sideLength];
+        Arrays.fill(changedRows, true);
+        Arrays.fill(changedColumns, true);
+    }
+
+    /**
+     * Create an IncrementalEncoder that continues from a symbol that was encoded through the same plan
+     *
+     * @param plan The plan every payload is encoded through
+     * @param previous The previous symbol of the run
+     */
+    public IncrementalEncoder(EncodingPlan plan, EncodedSymbol previous) {
+        this(plan);
+        List<Integer> previousCodewords = previous.getCodewords();
+        if (previousCodewords.size() != scratch.codewords.length
+                || previous.getSymbolInfo().getVersion().getVersion() != plan.getVersion().getVersion()
+                || previous.getSymbolInfo().getErrorCorrectionLevel() != plan.getErrorCorrectionLevel()) {
+            throw new IllegalArgumentException("The previous symbol was not encoded through the plan");
+        }
+        for (int n = 0; n < scratch.codewords.length; n++) {
+            scratch.codewords[n] = (byte) (int) previousCodewords.get(n);
+        }
+        for (int k = 0; k < previousDataCodewords.length; k++) {
+            previousDataCodewords[k] = scratch.codewords[plan.getDataCodewordPosition(k)];
+        }
+        plan.placeCodewords(scratch);
+        placed = true;
+    }
+
+    /**
+     * Encode the next payload of the run. The first payload of an encoder that was not given a previous symbol
+     * is encoded in full.
+     *
+     * @param text The payload, of the same shape as the template of the plan
+     * @return The encoded symbol
+     */
+    public EncodedSymbol encode(String text) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        plan.writeDataCodewords(text, scratch);
+        recorder.end(EncodeStage.DATA_ENCODING, scratch.dataCodewords.length);
+
+        int numModules = sideLength * sideLength;
+        if (!placed) {
+            recorder.begin();
+            plan.writeCodewords(scratch);
+            recorder.end(EncodeStage.ERROR_CORRECTION, scratch.codewords.length);
+            recorder.begin();
+            plan.placeCodewords(scratch);
+            System.arraycopy(scratch.dataCodewords, 0, previousDataCodewords, 0, previousDataCodewords.length);
+            placed = true;
+            recorder.end(EncodeStage.PLACEMENT, numModules);
+        } else {
+            update(recorder);
+        }
+
+        List<SymbolInfo> candidates = plan.getCandidates();
+        int bestCandidate = 0;
+        int bestPenaltyScore = Integer.MAX_VALUE;
+        for (int m = 0; m < candidates.size(); m++) {
+            recorder.begin();
+            plan.toggleMask(scratch, m);
+            int penaltyScore = getPenaltyScore(m);
+            plan.toggleMask(scratch, m);
+            recorder.end(EncodeStage.MASK_SELECTION, numModules);
+            if (penaltyScore < bestPenaltyScore) {
+                bestCandidate = m;
+                bestPenaltyScore = penaltyScore;
+            }
+        }
+        Arrays.fill(changedRows, false);
+        Arrays.fill(changedColumns, false);
+
+        // the copy of the selected symbol is timed with the placement, whose output was counted above
+        recorder.begin();
+        plan.toggleMask(scratch, bestCandidate);
+        ModuleMatrix modules = new ModuleMatrix(sideLength);
+        System.arraycopy(scratch.modules, 0, modules.getModules(), 0, numModules);
+        plan.toggleMask(scratch, bestCandidate);
+        List<Integer> codewords = new ArrayList<>(scratch.codewords.length);
+        for (byte codeword : scratch.codewords) {
+            codewords.add(codeword & 0xFF);
+        }
+        SymbolInfo symbolInfo = candidates.get(bestCandidate);
+        EncodedSymbol symbol = new EncodedSymbol(symbolInfo, codewords, modules, bestPenaltyScore);
+        recorder.end(EncodeStage.PLACEMENT, 0);
+
+        recorder.report();
+        if (recorder.isEnabled()) {
+            listener.onSymbol(plan.getVersion(), Collections.singletonList(plan.getEncoder().getMode()),
+                    symbolInfo.getMaskPattern(), bestPenaltyScore);
+        }
+        return symbol;
+    }
+
+    /**
+     * Apply the change of each data codeword to the final codeword sequence and place the changed codewords in the
+     * module plane
+     */
+    private void update(StageRecorder recorder) {
+        recorder.begin();
+        byte[] dataCodewords = scratch.dataCodewords;
+        byte[] codewords = scratch.codewords;
+        int numChanged = 0;
+        for (int k = 0; k < dataCodewords.length; k++) {
+            int change = (previousDataCodewords[k] ^ dataCodewords[k]) & 0xFF;
+            if (change == 0) {
+                continue;
+            }
+            numChanged++;
+            previousDataCodewords[k] = dataCodewords[k];
+            int position = plan.getDataCodewordPosition(k);
+            codewords[position] = dataCodewords[k];
+            changedCodewords[position] = true;
+
+            int[] positions = plan.getErrorCorrectionPositions(plan.getDataCodewordBlock(k));
+            int[] unit = plan.getUnitErrorCorrectionCodewords(k);
+            for (int e = 0; e < positions.length; e++) {
+                codewords[positions[e]] ^= (byte) GF256Number.mul(change, unit[e]);
+                changedCodewords[positions[e]] = true;
+            }
+        }
+        recorder.end(EncodeStage.ERROR_CORRECTION, numChanged);
+
+        recorder.begin();
+        int numPlaced = 0;
+        for (int position = 0; position < changedCodewords.length; position++) {
+            if (changedCodewords[position]) {
+                placeCodeword(position);
+                changedCodewords[position] = false;
+                numPlaced++;
+            }
+        }
+        recorder.end(EncodeStage.PLACEMENT, numPlaced * 8);
+    }
+
+    /**
+     * Place the bits of one codeword of the final codeword sequence in the unmasked module plane, marking the rows and
+     * columns of the modules that change
+     */
+    private void placeCodeword(int position) {
+        byte[] modules = scratch.modules;
+        int codeword = scratch.codewords[position];
+        for (int bit = 0, n = 8 * position; bit < 8; bit++, n++) {
+            int index = plan.getDataModuleIndex(n);
+            byte module = (byte) (codeword >>> (7 - bit) & 1);
+            if (modules[index] != module) {
+                modules[index] = module;
+                changedRows[index / sideLength] = true;
+                changedColumns[index % sideLength] = true;
+            }
+        }
+    }
+
+    /**
+     * Get the penalty score of the module plane with a mask pattern applied, scoring again only the rows, columns and
+     * 2x2 blocks that hold a module changed since the last encode
+     */
+    private int getPenaltyScore(int candidate) {
+        byte[] modules = scratch.modules;
+        int[] rows = rowPenalties[candidate];
+        int[] columns = columnPenalties[candidate];
+        int[] blocks = blockPenalties[candidate];
+        int[] darkModules = columnDarkModules[candidate];
+        int penalty = 0;
+        int totalDarkModules = 0;
+        for (int n = 0; n < sideLength; n++) {
+            if (changedRows[n]) {
+                rows[n] = MaskEvaluationUtils.getLinePenalty(modules, n * sideLength, 1, sideLength);
+            }
+            if (changedColumns[n]) {
+                columns[n] = MaskEvaluationUtils.getLinePenalty(modules, n, sideLength, sideLength);
+                darkModules[n] = MaskEvaluationUtils.getDarkModules(modules, n, sideLength, sideLength);
+            }
+            // the blocks of a column also hold modules of the column to its right
+            if (n < sideLength - 1 && (changedColumns[n] || changedColumns[n + 1])) {
+                blocks[n] = MaskEvaluationUtils.getBlockPenalty(modules, n, sideLength, sideLength, sideLength);
+            }
+            penalty += rows[n] + columns[n] + blocks[n];
+            totalDarkModules += darkModules[n];
+        }
+        return penalty + MaskEvaluationUtils.getProportionPenalty(totalDarkModules, sideLength * sideLength);
+    }
+}
@@ -0,0 +1,47 @@
+package symbol;
+
+/**
+ * Model class representing a symbol found in an image by a {@link MultiSymbolDetector}, with the finder patterns
+ * that locate it and its decoded contents.
+ */
+public class LocatedSymbol {
+
+    private final FinderPattern topLeft;
+
+    private final FinderPattern topRight;
+
+    private final FinderPattern bottomLeft;
+
+    private final DecodedSymbol decodedSymbol;
+
+    /**
+     * Create a LocatedSymbol
+     *
+     * @param topLeft The top left finder pattern of the symbol
+     * @param topRight The top right finder pattern of the symbol
+     * @param bottomLeft The bottom left finder pattern of the symbol
+     * @param decodedSymbol The decoded contents of the symbol
+     */
+    public LocatedSymbol(FinderPattern topLeft, FinderPattern topRight, FinderPattern bottomLeft, DecodedSymbol decodedSymbol) {
+        this.topLeft = topLeft;
+        this.topRight = topRight;
+        this.bottomLeft = bottomLeft;
+        this.decodedSymbol = decodedSymbol;
+    }
+
+    public FinderPattern getTopLeft() {
+        return topLeft;
+    }
+
+    public FinderPattern getTopRight() {
+        return topRight;
+    }
+
+    public FinderPattern getBottomLeft() {
+        return bottomLeft;
+    }
+
+    public DecodedSymbol getDecodedSymbol() {
+        return decodedSymbol;
+    }
+}
@@ -0,0 +1,732 @@
+package symbol;
+
+import error.GF256Number;
+import error.ReedSolomonEncoders;
+import metrics.EncodeListener;
+import metrics.EncodeStage;
+import metrics.StageRecorder;
+import model.CodewordCapacity;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.Mode;
+import model.SpecificationTables;
+import model.SymbolInfo;
+import model.Version;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encoder for heaps too small to hold the intermediate objects of {@link SymbolEncoder}. All of the scratch work of an
+ * encode (the data bit stream, the error correction codewords of every block, the interleaved codeword sequence, the
+ * module plane, the masked plane of each candidate mask pattern and the rows of the rendered image) is done in one
+ * direct {@link ByteBuffer} arena allocated when the encoder is created, sized for the largest version it accepts.
+ * The function patterns are stamped into the module plane from small tables built once per JVM, so an encode allocates
+ * nothing on the heap after the first one.
+ * <br />
+ * Text is encoded the same way as {@link SymbolEncoder#encode(String, ErrorCorrectionLevel)}: in Numeric mode if it is
+ * only digits and otherwise in Byte mode as UTF-8, in the smallest version that can hold it, so both encoders produce
+ * the same symbol. The symbol stays in the arena until the next encode, where it can be read module by module or
+ * rendered to a channel as a PBM image.
+ * <br />
+ * The heap bytes allocated by the thread during each encode are measured, and the largest is kept as
+ * {@link #getPeakAllocatedBytes()}, so a deployment can check its budget. Instances are not thread-safe.
+ */
+public class LowMemorySymbolEncoder {
+
+    /** The largest number of pixels along each side of a rendered image */
+    public static final int MAXIMUM_IMAGE_SIDE_LENGTH = 8192;
+
+    /**
+     * The most heap bytes an encode may allocate once the encoder has warmed up, in the check of {@link #main}. A warm
+     * encode allocates nothing, and the ceiling leaves room for the few objects the JVM may charge to the thread while
+     * it compiles the encoder, which is still under a thousandth of what a {@link SymbolEncoder} encode allocates.
+     */
+    public static final long DEFAULT_HEAP_CEILING_BYTES = 1024;
+
+    /** The value of a dark module in the module planes */
+    private static final byte DARK = 1;
+
+    /** The flag of a module of the module plane that belongs to a function pattern, format or version information */
+    private static final byte FUNCTION = 2;
+
+    private static final int[] PAD_CODEWORDS = { 0b11101100, 0b00010001 };
+
+    private static final int TERMINATOR_LENGTH_IN_BITS = 4;
+
+    /** Every version, so that none is created during an encode */
+    private static final Version[] VERSIONS = new Version[Version.MAXIMUM_VERSION + 1];
+
+    /** The rows and columns of the alignment pattern centers of each version, in pairs */
+    private static final int[][] ALIGNMENT_PATTERN_CENTERS = new int[Version.MAXIMUM_VERSION + 1][];
+
+    /** The 18 bits of version information of each version, with the bit of version information coordinate k at bit k */
+    private static final int[] VERSION_INFO = SpecificationTables.VERSION_INFO;
+
+    /** The 15 masked bits of format information, with the bit of format information coordinate k at bit k */
+    private static final int[][] FORMAT_INFO = SpecificationTables.FORMAT_INFO;
+
+    private static final MaskPattern[] MASK_PATTERNS = MaskPattern.values();
+
+    static {
+        for (int v = Version.MINIMUM_VERSION; v <= Version.MAXIMUM_VERSION; v++) {
+            VERSIONS[v] = new Version(v);
+            int[] positions = SpecificationTables.ALIGNMENT_PATTERN_POSITIONS[v];
+            int last = positions.length - 1;
+            int[] centers = new int[2 * Math.max(0, positions.length * positions.length - 3)];
+            int c = 0;
+            for (int x = 0; x <= last; x++) {
+                for (int y = 0; y <= last; y++) {
+                    // the centers (a, a), (a, z) and (z, a) of positions [a, ..., z] overlap the finder patterns
+                    if ((x == 0 && (y == 0 || y == last)) || (x == last && y == 0)) {
+                        continue;
+                    }
+                    centers[c++] = positions[x];
+                    centers[c++] = positions[y];
+                }
+            }
+            ALIGNMENT_PATTERN_CENTERS[v] = centers;
+        }
+    }
+
+    private final int maximumVersion;
+
+    private final EncodeListener listener;
+
+    private final ByteBuffer arena;
+
+    /** The offsets of the regions of the arena */
+    private final int modulesOffset;
+    private final int maskedModulesOffset;
+    private final int dataOffset;
+    private final int errorCorrectionOffset;
+    private final int codewordsOffset;
+    private final int rowOffset;
+
+    /** The state of the last encode */
+    private int version;
+    private ErrorCorrectionLevel errorCorrectionLevel;
+    private MaskPattern maskPattern;
+    private int penaltyScore;
+    private int sideLength;
+    private int bitPosition;
+
+    private long allocatedBytes = -1;
+    private long peakAllocatedBytes = -1;
+
+    public LowMemorySymbolEncoder() {
+        this(new Version(Version.MAXIMUM_VERSION), EncodeListener.NONE);
+    }
+
+    /**
+     * Create a LowMemorySymbolEncoder with an arena sized for symbols up to a given version, that reports the cost of
+     * each stage of every encode to a listener
+     *
+     * @param maximumVersion The largest version of the symbols to encode
+     * @param listener The listener to report to, or {@link EncodeListener#NONE}
+     */
+    public LowMemorySymbolEncoder(Version maximumVersion, EncodeListener listener) {
+        this.maximumVersion = maximumVersion.getVersion();
+        this.listener = listener;
+
+        int maximumSideLength = maximumVersion.getSymbolSideLength();
+        int maximumTotalCodewords = CodewordCapacity.getTotalCodewords(maximumVersion);
+        int maximumErrorCorrectionCodewords = 0;
+        for (int v = Version.MINIMUM_VERSION; v <= this.maximumVersion; v++) {
+            for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+                maximumErrorCorrectionCodewords = Math.max(maximumErrorCorrectionCodewords,
+                        CodewordCapacity.getNumberOfBlocks(VERSIONS[v], level) * CodewordCapacity.getErrorCorrectionCodewordsPerBlock(VERSIONS[v], level));
+            }
+        }
+        modulesOffset = 0;
+        maskedModulesOffset = modulesOffset + maximumSideLength * maximumSideLength;
+        dataOffset = maskedModulesOffset + maximumSideLength * maximumSideLength;
+        errorCorrectionOffset = dataOffset + maximumTotalCodewords;
+        codewordsOffset = errorCorrectionOffset + maximumErrorCorrectionCodewords;
+        rowOffset = codewordsOffset + maximumTotalCodewords;
+        arena = ByteBuffer.allocateDirect(rowOffset + MAXIMUM_IMAGE_SIDE_LENGTH / 8);
+    }
+
+    /**
+     * Encode a text in the smallest version that can hold it at a given error correction level, replacing the
+     * symbol of the last encode
+     *
+     * @param text The text to encode
+     * @param errorCorrectionLevel The error correction level of the symbol
+     */
+    public void encode(CharSequence text, ErrorCorrectionLevel errorCorrectionLevel) {
+        long startAllocatedBytes = StageRecorder.getCurrentThreadAllocatedBytes();
+        StageRecorder recorder = StageRecorder.forListener(listener);
+
+        recorder.begin();
+        boolean numeric = isNumeric(text);
+        Mode mode = numeric ? Mode.NUMERIC : Mode.BYTE;
+        int numCharacters = numeric ? text.length() : getUtf8Length(text);
+        version = getMinimumVersion(mode, numCharacters, errorCorrectionLevel);
+        this.errorCorrectionLevel = errorCorrectionLevel;
+        sideLength = VERSIONS[version].getSymbolSideLength();
+        int numDataCodewords = CodewordCapacity.getDataCodewords(VERSIONS[version], errorCorrectionLevel);
+        writeDataCodewords(text, numeric, numCharacters, numDataCodewords);
+        recorder.end(EncodeStage.DATA_ENCODING, numDataCodewords);
+
+        recorder.begin();
+        int numCodewords = writeCodewords(numDataCodewords);
+        recorder.end(EncodeStage.ERROR_CORRECTION, numCodewords);
+
+        recorder.begin();
+        drawFunctionPatterns();
+        placeCodewords(numCodewords);
+        recorder.end(EncodeStage.PLACEMENT, sideLength * sideLength);
+
+        int bestPenaltyScore = Integer.MAX_VALUE;
+        MaskPattern bestMaskPattern = null;
+        for (MaskPattern candidate : MASK_PATTERNS) {
+            recorder.begin();
+            applyMask(candidate);
+            recorder.end(EncodeStage.PLACEMENT, sideLength * sideLength);
+
+            recorder.begin();
+            int score = MaskEvaluationUtils.getPenaltyScore(arena, maskedModulesOffset, sideLength);
+            recorder.end(EncodeStage.MASK_SELECTION, sideLength * sideLength);
+            if (score < bestPenaltyScore) {
+                bestPenaltyScore = score;
+                bestMaskPattern = candidate;
+            }
+        }
+        recorder.begin();
+        applyMask(bestMaskPattern);
+        recorder.end(EncodeStage.PLACEMENT, sideLength * sideLength);
+        maskPattern = bestMaskPattern;
+        penaltyScore = bestPenaltyScore;
+
+        recorder.report();
+        if (recorder.isEnabled()) {
+            listener.onSymbol(VERSIONS[version], Collections.singletonList(mode), maskPattern, penaltyScore);
+        }
+        if (startAllocatedBytes >= 0) {
+            allocatedBytes = StageRecorder.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+            peakAllocatedBytes = Math.max(peakAllocatedBytes, allocatedBytes);
+        }
+    }
+
+    public Version getVersion() {
+        return VERSIONS[version];
+    }
+
+    public ErrorCorrectionLevel getErrorCorrectionLevel() {
+        return errorCorrectionLevel;
+    }
+
+    public MaskPattern getMaskPattern() {
+        return maskPattern;
+    }
+
+    public int getPenaltyScore() {
+        return penaltyScore;
+    }
+
+    public int getSymbolSideLength() {
+        return sideLength;
+    }
+
+    /**
+     * Whether a module of the last encoded symbol is dark
+     *
+     * @param i The row of the module
+     * @param j The column of the module
+     * @return true if the module is dark, false if it is light
+     */
+    public boolean isDarkModule(int i, int j) {
+        return arena.get(maskedModulesOffset + i * sideLength + j) == DARK;
+    }
+
+    /**
+     * Get the heap bytes the thread allocated during the last encode
+     *
+     * @return The number of bytes, or -1 if the JVM does not support allocation accounting
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Get the most heap bytes the thread allocated during any one encode of this encoder
+     *
+     * @return The number of bytes, or -1 if the JVM does not support allocation accounting
+     */
+    public long getPeakAllocatedBytes() {
+        return peakAllocatedBytes;
+    }
+
+    /**
+     * Forget the peak heap bytes of the encodes so far, such as those that warmed up the encoder
+     */
+    public void resetPeakAllocatedBytes() {
+        peakAllocatedBytes = allocatedBytes < 0 ? -1 : 0;
+    }
+
+    /**
+     * Get the size of the off-heap arena holding the scratch work of an encode
+     *
+     * @return The number of bytes of the arena
+     */
+    public int getArenaCapacity() {
+        return arena.capacity();
+    }
+
+    /**
+     * Render the last encoded symbol with its quiet zone and write it as a binary PBM image, one row of pixels at a time
+     * from the arena
+     *
+     * @param scale The number of pixels per module along each side
+     * @param out The channel to write the image to
+     * @return The number of bytes written
+     * @throws IOException If the image could not be written
+     */
+    public long writePbm(int scale, WritableByteChannel out) throws IOException {
+        int imageSideLength = (sideLength + 2 * SymbolRenderer.QUIET_ZONE_WIDTH) * scale;
+        if (scale < 1 || imageSideLength > MAXIMUM_IMAGE_SIDE_LENGTH) {
+            throw new IllegalArgumentException(String.format("Scale %s is not valid", scale));
+        }
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        long written = 0;
+
+        // P4 <width> <height>
+        int position = rowOffset;
+        arena.put(position++, (byte) 'P');
+        arena.put(position++, (byte) '4');
+        arena.put(position++, (byte) '\n');
+        position = putDecimal(imageSideLength, position);
+        arena.put(position++, (byte) ' ');
+        position = putDecimal(imageSideLength, position);
+        arena.put(position++, (byte) '\n');
+        written += write(out, rowOffset, position);
+
+        int rowBytes = (imageSideLength + 7) / 8;
+        for (int y = 0; y < imageSideLength; y += scale) {
+            int i = y / scale - SymbolRenderer.QUIET_ZONE_WIDTH;
+            for (int b = 0; b < rowBytes; b++) {
+                int pixels = 0;
+                for (int bit = 0; bit < 8; bit++) {
+                    int j = (8 * b + bit) / scale - SymbolRenderer.QUIET_ZONE_WIDTH;
+                    if (i >= 0 && i < sideLength && j >= 0 && j < sideLength && isDarkModule(i, j)) {
+                        pixels |= 0x80 >>> bit;
+                    }
+                }
+                arena.put(rowOffset + b, (byte) pixels);
+            }
+            for (int repeat = 0; repeat < scale; repeat++) {
+                written += write(out, rowOffset, rowOffset + rowBytes);
+            }
+        }
+        recorder.end(EncodeStage.RENDERING, written);
+        recorder.report();
+        return written;
+    }
+
+    private int write(WritableByteChannel out, int from, int to) throws IOException {
+        arena.limit(to).position(from);
+        while (arena.hasRemaining()) {
+            out.write(arena);
+        }
+        arena.clear();
+        return to - from;
+    }
+
+    private int putDecimal(int value, int position) {
+        int digits = 1;
+        for (int n = value; n >= 10; n /= 10) {
+            digits++;
+        }
+        for (int d = digits - 1, n = value; d >= 0; d--, n /= 10) {
+            arena.put(position + d, (byte) ('0' + n % 10));
+        }
+        return position + digits;
+    }
+
+    private static boolean isNumeric(CharSequence text) {
+        if (text.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of bytes of the UTF-8 encoding of a text, in which an unpaired surrogate is replaced by '?' as
+     * {@link String#getBytes} does
+     */
+    private static int getUtf8Length(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private int getMinimumVersion(Mode mode, int numCharacters, ErrorCorrectionLevel errorCorrectionLevel) {
+        for (int v = Version.MINIMUM_VERSION; v <= maximumVersion; v++) {
+            int bits = Mode.INDICATOR_LENGTH_IN_BITS + VERSIONS[v].getCharacterCountIndicatorLength(mode);
+            bits += mode == Mode.NUMERIC
+                    ? 10 * (numCharacters / 3) + (numCharacters % 3 == 0 ? 0 : 3 * (numCharacters % 3) + 1)
+                    : 8 * numCharacters;
+            if (bits <= CodewordCapacity.getDataCodewords(VERSIONS[v], errorCorrectionLevel) * 8) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "%s characters do not fit in version %s at error correction level %s", numCharacters, maximumVersion, errorCorrectionLevel));
+    }
+
+    /**
+     * Write the data bit stream, terminator and pad codewords to the data region of the arena
+     */
+    private void writeDataCodewords(CharSequence text, boolean numeric, int numCharacters, int numDataCodewords) {
+        for (int k = 0; k < numDataCodewords; k++) {
+            arena.put(dataOffset + k, (byte) 0);
+        }
+        bitPosition = 0;
+        Mode mode = numeric ? Mode.NUMERIC : Mode.BYTE;
+        appendBits(mode.getIndicator(), Mode.INDICATOR_LENGTH_IN_BITS);
+        appendBits(numCharacters, VERSIONS[version].getCharacterCountIndicatorLength(mode));
+        if (numeric) {
+            int i = 0;
+            for (; i + 3 <= numCharacters; i += 3) {
+                appendBits((text.charAt(i) - '0') * 100 + (text.charAt(i + 1) - '0') * 10 + (text.charAt(i + 2) - '0'), 10);
+            }
+            if (numCharacters - i == 2) {
+                appendBits((text.charAt(i) - '0') * 10 + (text.charAt(i + 1) - '0'), 7);
+            } else if (numCharacters - i == 1) {
+                appendBits(text.charAt(i) - '0', 4);
+            }
+        } else {
+            appendUtf8(text);
+        }
+
+        // the terminator and the bits up to the codeword boundary are already 0
+        bitPosition = Math.min(bitPosition + TERMINATOR_LENGTH_IN_BITS, numDataCodewords * 8);
+        for (int k = (bitPosition + 7) / 8, pad = 0; k < numDataCodewords; k++, pad++) {
+            arena.put(dataOffset + k, (byte) PAD_CODEWORDS[pad % PAD_CODEWORDS.length]);
+        }
+    }
+
+    private void appendUtf8(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                appendBits(c, 8);
+            } else if (c < 0x800) {
+                appendBits(0xC0 | c >> 6, 8);
+                appendBits(0x80 | c & 0x3F, 8);
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                appendBits(0xF0 | codePoint >> 18, 8);
+                appendBits(0x80 | codePoint >> 12 & 0x3F, 8);
+                appendBits(0x80 | codePoint >> 6 & 0x3F, 8);
+                appendBits(0x80 | codePoint & 0x3F, 8);
+            } else if (Character.isSurrogate(c)) {
+                appendBits('?', 8);
+            } else {
+                appendBits(0xE0 | c >> 12, 8);
+                appendBits(0x80 | c >> 6 & 0x3F, 8);
+                appendBits(0x80 | c & 0x3F, 8);
+            }
+        }
+    }
+
+    /**
+     * Append the lowest bits of a value to the data region, most significant bit first
+     */
+    private void appendBits(int value, int numBits) {
+        for (int bit = numBits - 1; bit >= 0; bit--) {
+            if ((value >>> bit & 1) != 0) {
+                int index = dataOffset + bitPosition / 8;
+                arena.put(index, (byte) (arena.get(index) | 0x80 >>> bitPosition % 8));
+            }
+            bitPosition++;
+        }
+    }
+
+    /**
+     * Generate the error correction codewords of every block and interleave them with the data codewords into the
+     * codeword region, as described by section 8.6 of the QR Code specification ISO/IEC 18004
+     *
+     * @return The total number of codewords
+     */
+    private int writeCodewords(int numDataCodewords) {
+        int numBlocks = CodewordCapacity.getNumberOfBlocks(VERSIONS[version], errorCorrectionLevel);
+        int numErrorCorrectionCodewords = CodewordCapacity.getErrorCorrectionCodewordsPerBlock(VERSIONS[version], errorCorrectionLevel);
+        int totalCodewords = CodewordCapacity.getTotalCodewords(VERSIONS[version]);
+        // blocks in the second group hold one more data codeword than blocks in the first group
+        int numLongBlocks = totalCodewords % numBlocks;
+        int shortBlockLength = totalCodewords / numBlocks - numErrorCorrectionCodewords;
+        int[] generator = ReedSolomonEncoders.getGenerator(numErrorCorrectionCodewords);
+
+        for (int b = 0, start = 0; b < numBlocks; b++) {
+            int length = b < numBlocks - numLongBlocks ? shortBlockLength : shortBlockLength + 1;
+            int remainder = errorCorrectionOffset + b * numErrorCorrectionCodewords;
+            int last = remainder + numErrorCorrectionCodewords - 1;
+            for (int e = remainder; e <= last; e++) {
+                arena.put(e, (byte) 0);
+            }
+            for (int k = start; k < start + length; k++) {
+                int feedback = (arena.get(dataOffset + k) ^ arena.get(remainder)) & 0xFF;
+                for (int e = 0; e < numErrorCorrectionCodewords - 1; e++) {
+                    arena.put(remainder + e, (byte) (arena.get(remainder + e + 1) ^ GF256Number.mul(feedback, generator[e])));
+                }
+                arena.put(last, (byte) GF256Number.mul(feedback, generator[numErrorCorrectionCodewords - 1]));
+            }
+            start += length;
+        }
+
+        int position = codewordsOffset;
+        for (int i = 0; i <= shortBlockLength; i++) {
+            for (int b = 0, start = 0; b < numBlocks; b++) {
+                int length = b < numBlocks - numLongBlocks ? shortBlockLength : shortBlockLength + 1;
+                if (i < length) {
+                    arena.put(position++, arena.get(dataOffset + start + i));
+                }
+                start += length;
+            }
+        }
+        for (int e = 0; e < numErrorCorrectionCodewords; e++) {
+            for (int b = 0; b < numBlocks; b++) {
+                arena.put(position++, arena.get(errorCorrectionOffset + b * numErrorCorrectionCodewords + e));
+            }
+        }
+        return position - codewordsOffset;
+    }
+
+    /**
+     * Stamp the finder patterns with their separators, the alignment patterns, the timing patterns, the dark module and
+     * the version information into the module plane, in the order of {@link SymbolGenerator}, and reserve the format
+     * information modules, which are written for each mask pattern
+     */
+    private void drawFunctionPatterns() {
+        for (int n = 0; n < sideLength * sideLength; n++) {
+            arena.put(modulesOffset + n, (byte) 0);
+        }
+        int far = sideLength - SymbolInfo.DETECTION_PATTERN_RADIUS - 1;
+        drawFinderPattern(SymbolInfo.DETECTION_PATTERN_RADIUS, SymbolInfo.DETECTION_PATTERN_RADIUS);
+        drawFinderPattern(SymbolInfo.DETECTION_PATTERN_RADIUS, far);
+        drawFinderPattern(far, SymbolInfo.DETECTION_PATTERN_RADIUS);
+
+        int[] centers = ALIGNMENT_PATTERN_CENTERS[version];
+        for (int c = 0; c < centers.length; c += 2) {
+            for (int i = centers[c] - SymbolInfo.ALIGNMENT_PATTERN_RADIUS; i <= centers[c] + SymbolInfo.ALIGNMENT_PATTERN_RADIUS; i++) {
+                for (int j = centers[c + 1] - SymbolInfo.ALIGNMENT_PATTERN_RADIUS; j <= centers[c + 1] + SymbolInfo.ALIGNMENT_PATTERN_RADIUS; j++) {
+                    int distance = Math.max(Math.abs(i - centers[c]), Math.abs(j - centers[c + 1]));
+                    setFunctionModule(i, j, distance != 1);
+                }
+            }
+        }
+
+        // the rest of row and column 6 lies in the finder patterns and their separators
+        for (int n = SymbolInfo.TIMING_PATTERN_OFFSET; n < sideLength - SymbolInfo.TIMING_PATTERN_OFFSET; n++) {
+            setFunctionModule(SymbolInfo.TIMING_PATTERN_COORDINATE, n, n % 2 == 0);
+            setFunctionModule(n, SymbolInfo.TIMING_PATTERN_COORDINATE, n % 2 == 0);
+        }
+
+        for (int k = 0; k < 15; k++) {
+            setFunctionModule(getTopLeftFormatInfoRow(k), getTopLeftFormatInfoColumn(k), false);
+            setFunctionModule(getSplitFormatInfoRow(k), getSplitFormatInfoColumn(k), false);
+        }
+        setFunctionModule(sideLength - SymbolInfo.DETECTION_PATTERN_DIAMETER - 1, SymbolInfo.DETECTION_PATTERN_DIAMETER + 1, true);
+
+        if (VERSIONS[version].hasVersionInfo()) {
+            for (int k = 0; k < 18; k++) {
+                boolean dark = (VERSION_INFO[version] >>> k & 1) != 0;
+                setFunctionModule(k / 3, sideLength - 11 + k % 3, dark);
+                setFunctionModule(sideLength - 11 + k % 3, k / 3, dark);
+            }
+        }
+    }
+
+    private void drawFinderPattern(int centerI, int centerJ) {
+        int radius = SymbolInfo.DETECTION_PATTERN_RADIUS + 1;
+        for (int i = centerI - radius; i <= centerI + radius; i++) {
+            for (int j = centerJ - radius; j <= centerJ + radius; j++) {
+                if (i < 0 || i >= sideLength || j < 0 || j >= sideLength) {
+                    continue;
+                }
+                int distance = Math.max(Math.abs(i - centerI), Math.abs(j - centerJ));
+                setFunctionModule(i, j, distance != 2 && distance != 4);
+            }
+        }
+    }
+
+    private void setFunctionModule(int i, int j, boolean dark) {
+        arena.put(modulesOffset + i * sideLength + j, (byte) (FUNCTION | (dark ? DARK : 0)));
+    }
+
+    private boolean isFunctionModule(int i, int j) {
+        return (arena.get(modulesOffset + i * sideLength + j) & FUNCTION) != 0;
+    }
+
+    /**
+     * Place the bits of the codewords in the modules that are not function modules, in the order of
+     * {@link SymbolGenerator#getDataModuleCoordinates}, leaving the remainder bits 0
+     */
+    private void placeCodewords(int numCodewords) {
+        int numBits = numCodewords * 8;
+        int n = 0;
+        boolean upwards = true;
+        for (int right = sideLength - 1; right >= 1; right -= 2) {
+            if (right == SymbolInfo.TIMING_PATTERN_COORDINATE) {
+                right--;
+            }
+            for (int vertical = 0; vertical < sideLength; vertical++) {
+                int i = upwards ? sideLength - 1 - vertical : vertical;
+                for (int j = right; j >= right - 1; j--) {
+                    if (isFunctionModule(i, j)) {
+                        continue;
+                    }
+                    if (n < numBits && (arena.get(codewordsOffset + n / 8) & 0x80 >>> n % 8) != 0) {
+                        arena.put(modulesOffset + i * sideLength + j, DARK);
+                    }
+                    n++;
+                }
+            }
+            upwards = !upwards;
+        }
+    }
+
+    /**
+     * Write the module plane with a mask pattern applied to the data modules, and the format information of the mask
+     * pattern, to the masked plane
+     */
+    private void applyMask(MaskPattern candidate) {
+        for (int i = 0; i < sideLength; i++) {
+            int row = i * sideLength;
+            for (int j = 0; j < sideLength; j++) {
+                int module = arena.get(modulesOffset + row + j);
+                int dark = module & DARK;
+                if ((module & FUNCTION) == 0 && candidate.isMasked(i, j)) {
+                    dark ^= DARK;
+                }
+                arena.put(maskedModulesOffset + row + j, (byte) dark);
+            }
+        }
+        int formatInfo = FORMAT_INFO[errorCorrectionLevel.getIndex()][candidate.ordinal()];
+        for (int k = 0; k < 15; k++) {
+            byte dark = (byte) (formatInfo >>> k & 1);
+            arena.put(maskedModulesOffset + getTopLeftFormatInfoRow(k) * sideLength + getTopLeftFormatInfoColumn(k), dark);
+            arena.put(maskedModulesOffset + getSplitFormatInfoRow(k) * sideLength + getSplitFormatInfoColumn(k), dark);
+        }
+    }
+
+    /** The coordinates of format information bit k next to the top left finder pattern, skipping the timing patterns */
+    private static int getTopLeftFormatInfoRow(int k) {
+        return k <= 5 ? k : k <= 7 ? k + 1 : SymbolInfo.DETECTION_PATTERN_DIAMETER + 1;
+    }
+
+    private static int getTopLeftFormatInfoColumn(int k) {
+        return k <= 7 ? SymbolInfo.DETECTION_PATTERN_DIAMETER + 1 : k == 8 ? 7 : 14 - k;
+    }
+
+    /** The coordinates of format information bit k split between the top right and bottom left finder patterns */
+    private int getSplitFormatInfoRow(int k) {
+        return k <= 7 ? SymbolInfo.DETECTION_PATTERN_DIAMETER + 1 : sideLength - 15 + k;
+    }
+
+    private int getSplitFormatInfoColumn(int k) {
+        return k <= 7 ? sideLength - 1 - k : SymbolInfo.DETECTION_PATTERN_DIAMETER + 1;
+    }
+
+    /**
+     * Check that version 40 symbols at every error correction level are the same as those of {@link SymbolEncoder},
+     * and that once every payload has been encoded to warm up the encoder, no encode allocates more than a ceiling of
+     * heap bytes, {@link #DEFAULT_HEAP_CEILING_BYTES} unless given as the first argument. Exits with status 1 if either
+     * check fails, or if the JVM cannot measure the heap bytes of a thread so that the second check cannot be made.
+     */
+    public static void main(String[] args) {
+        long ceiling = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_HEAP_CEILING_BYTES;
+        LowMemorySymbolEncoder lowMemoryEncoder = new LowMemorySymbolEncoder();
+        SymbolEncoder encoder = new SymbolEncoder();
+        List<String> texts = new ArrayList<>();
+        List<ErrorCorrectionLevel> levels = new ArrayList<>();
+        java.util.Random random = new java.util.Random(0);
+        boolean passed = true;
+
+        for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+            // the largest payloads that fit in version 40
+            int capacity = CodewordCapacity.getDataCodewords(VERSIONS[Version.MAXIMUM_VERSION], level) * 8 - 4 - 16;
+            StringBuilder digits = new StringBuilder();
+            for (int n = 0; n < capacity * 3 / 10; n++) {
+                digits.append((char) ('0' + random.nextInt(10)));
+            }
+            StringBuilder bytes = new StringBuilder();
+            for (int n = 0; n < capacity / 8; n++) {
+                bytes.append((char) (' ' + random.nextInt(95)));
+            }
+            for (String text : new String[] { digits.toString(), bytes.toString() }) {
+                texts.add(text);
+                levels.add(level);
+            }
+        }
+
+        // the first encodes also warm up the encoder, and are left out of the peak
+        for (int n = 0; n < texts.size(); n++) {
+            EncodedSymbol expected = encoder.encode(texts.get(n), levels.get(n));
+            lowMemoryEncoder.encode(texts.get(n), levels.get(n));
+            boolean same = expected.getSymbolInfo().getMaskPattern() == lowMemoryEncoder.getMaskPattern()
+                    && expected.getPenaltyScore() == lowMemoryEncoder.getPenaltyScore();
+            for (int i = 0; i < lowMemoryEncoder.getSymbolSideLength(); i++) {
+                for (int j = 0; j < lowMemoryEncoder.getSymbolSideLength(); j++) {
+                    same &= expected.getModules().isDark(i, j) == lowMemoryEncoder.isDarkModule(i, j);
+                }
+            }
+            passed &= same;
+            if (!same) {
+                System.out.printf("version %s-%s, %s characters: DIFFERENT SYMBOL%n",
+                        lowMemoryEncoder.getVersion().getVersion(), levels.get(n), texts.get(n).length());
+            }
+        }
+        lowMemoryEncoder.resetPeakAllocatedBytes();
+
+        for (int n = 0; n < texts.size(); n++) {
+            long before = StageRecorder.getCurrentThreadAllocatedBytes();
+            encoder.encode(texts.get(n), levels.get(n));
+            long heapEncoderBytes = before < 0 ? -1 : StageRecorder.getCurrentThreadAllocatedBytes() - before;
+            lowMemoryEncoder.encode(texts.get(n), levels.get(n));
+            System.out.printf("version %s-%s, %s characters: %d heap bytes per encode (SymbolEncoder %d)%n",
+                    lowMemoryEncoder.getVersion().getVersion(), levels.get(n), texts.get(n).length(),
+                    lowMemoryEncoder.getAllocatedBytes(), heapEncoderBytes);
+        }
+        long peakAllocatedBytes = lowMemoryEncoder.getPeakAllocatedBytes();
+        if (peakAllocatedBytes < 0) {
+            passed = false;
+            System.out.printf("arena %d bytes off heap, heap bytes per encode not measured since the JVM does not support "
+                    + "allocation accounting, ceiling %d: FAILED%n", lowMemoryEncoder.getArenaCapacity(), ceiling);
+        } else {
+            passed &= peakAllocatedBytes <= ceiling;
+            System.out.printf("arena %d bytes off heap, peak %d heap bytes per encode after warm-up, ceiling %d: %s%n",
+                    lowMemoryEncoder.getArenaCapacity(), peakAllocatedBytes, ceiling, passed ? "passed" : "FAILED");
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package symbol;
+
+import model.Version;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Util class for evaluating masked symbols, which is described in section 8.8.2 of
+ * the QR Code specification ISO/IEC 18004.
+ */
+public class MaskEvaluationUtils {
+
+    /** Penalty weight for adjacent modules in a row or column of the same color */
+    private static final int N1 = 3;
+
+    /** Penalty weight for 2x2 blocks of modules of the same color */
+    private static final int N2 = 3;
+
+    /** Penalty weight for 1:1:3:1:1 patterns in a row or column preceded or followed by 4 light modules */
+    private static final int N3 = 40;
+
+    /** Penalty weight for each 5% deviation of the proportion of dark modules from 50% */
+    private static final int N4 = 10;
+
+    /** The 1:1:3:1:1 finder-like pattern with 4 light modules following it */
+    private static final boolean[] FINDER_PATTERN_LIGHT_AFTER =
+            { true, false, true, true, true, false, true, false, false, false, false };
+
+    /** The 1:1:3:1:1 finder-like pattern with 4 light modules preceding it */
+    private static final boolean[] FINDER_PATTERN_LIGHT_BEFORE =
+            { false, false, false, false, true, false, true, true, true, false, true };
+
+    /** The finder-like patterns as the bits of a window of 11 modules, with the first module in the highest bit */
+    private static final int FINDER_PATTERN_LIGHT_AFTER_BITS = toBits(FINDER_PATTERN_LIGHT_AFTER);
+    private static final int FINDER_PATTERN_LIGHT_BEFORE_BITS = toBits(FINDER_PATTERN_LIGHT_BEFORE);
+
+    private static final int FINDER_PATTERN_WINDOW_MASK = (1 << FINDER_PATTERN_LIGHT_AFTER.length) - 1;
+
+    /** Two rows of the largest symbol, which the modules of a buffer are copied to a line at a time */
+    private static final ThreadLocal<byte[]> LINES =
+            ThreadLocal.withInitial(() -> new byte[2 * new Version(Version.MAXIMUM_VERSION).getSymbolSideLength()]);
+
+    /**
+     * Get the penalty score of a masked symbol. The mask pattern whose symbol has the lowest
+     * penalty score is the one that should be selected.
+     *
+     * @param symbol The modules of the masked symbol
+     * @return The penalty score of the symbol
+     */
+    public static int getPenaltyScore(ModuleMatrix symbol) {
+        return getPenaltyScore(symbol.getModules(), symbol.getSideLength());
+    }
+
+    /**
+     * Get the penalty score of a masked symbol held in an array with one byte per module, row after row, such as a
+     * module plane that each mask pattern is applied to in turn. Each row and column is walked once, counting the runs
+     * of adjacent modules and matching the finder-like patterns against the last 11 modules as the bits of a window.
+     *
+     * @param modules The modules, with 1 for dark modules and 0 for light modules
+     * @param sideLength The number of modules along each side of the symbol
+     * @return The penalty score of the symbol
+     */
+    public static int getPenaltyScore(byte[] modules, int sideLength) {
+        int penalty = 0;
+        int darkModules = 0;
+        for (int n = 0; n < sideLength; n++) {
+            int row = n * sideLength;
+            penalty += getLinePenalty(modules, row, 1, sideLength) + getLinePenalty(modules, n, sideLength, sideLength);
+            darkModules += getDarkModules(modules, row, 1, sideLength);
+        }
+        for (int i = 0; i < sideLength - 1; i++) {
+            penalty += getBlockPenalty(modules, i * sideLength, 1, sideLength, sideLength);
+        }
+        return penalty + getProportionPenalty(darkModules, sideLength * sideLength);
+    }
+
+    /**
+     * Get the penalty of the runs of adjacent modules of the same color and of the finder-like patterns along a row
+     * or column
+     *
+     * @param modules The modules, with 1 for dark modules and 0 for light modules
+     * @param start The index of the first module of the line
+     * @param stride The distance between the indices of adjacent modules of the line
+     * @param length The number of modules of the line
+     * @return The penalty of the line
+     */
+    static int getLinePenalty(byte[] modules, int start, int stride, int length) {
+        // written without data dependent branches, since masked modules are close to random
+        int penalty = 0;
+        int run = 0;
+        int color = -1;
+        int window = 0;
+        for (int n = 0, position = start; n < length; n++, position += stride) {
+            int module = modules[position];
+            boolean same = module == color;
+            penalty += same ? 0 : getRunPenalty(run);
+            run = same ? run + 1 : 1;
+            color = module;
+            window = (window << 1 | module) & FINDER_PATTERN_WINDOW_MASK;
+            penalty += n + 1 >= FINDER_PATTERN_LIGHT_AFTER.length
+                    && (window == FINDER_PATTERN_LIGHT_AFTER_BITS || window == FINDER_PATTERN_LIGHT_BEFORE_BITS) ? N3 : 0;
+        }
+        return penalty + getRunPenalty(run);
+    }
+
+    /**
+     * Get the penalty of the 2x2 blocks of modules of the same color whose top left module is in a row or column
+     *
+     * @param modules The modules, with 1 for dark modules and 0 for light modules, row after row
+     * @param start The index of the first module of the row or column
+     * @param stride The distance between the indices of adjacent modules of the row or column
+     * @param length The number of modules of the row or column to take, so that length - 1 blocks are counted
+     * @param sideLength The number of modules along each side of the symbol
+     * @return The penalty of the blocks
+     */
+    static int getBlockPenalty(byte[] modules, int start, int stride, int length, int sideLength) {
+        int penalty = 0;
+        for (int n = 1, position = start; n < length; n++, position += stride) {
+            int color = modules[position];
+            int differences = (modules[position + 1] ^ color) | (modules[position + sideLength] ^ color)
+                    | (modules[position + sideLength + 1] ^ color);
+            penalty += differences == 0 ? N2 : 0;
+        }
+        return penalty;
+    }
+
+    /**
+     * Count the dark modules of a row or column
+     *
+     * @param modules The modules, with 1 for dark modules and 0 for light modules
+     * @param start The index of the first module of the row or column
+     * @param stride The distance between the indices of adjacent modules of the row or column
+     * @param length The number of modules of the row or column
+     * @return The number of dark modules
+     */
+    static int getDarkModules(byte[] modules, int start, int stride, int length) {
+        int darkModules = 0;
+        for (int n = 0, position = start; n < length; n++, position += stride) {
+            darkModules += modules[position];
+        }
+        return darkModules;
+    }
+
+    /**
+     * Get the penalty of the proportion of dark modules, for each full 5% step away from 50%
+     *
+     * @param darkModules The number of dark modules
+     * @param totalModules The number of modules
+     * @return The penalty of the proportion
+     */
+    static int getProportionPenalty(int darkModules, int totalModules) {
+        int k = Math.abs(darkModules * 20 - totalModules * 10) / totalModules;
+        return k * N4;
+    }
+
+    private static int toBits(boolean[] pattern) {
+        int bits = 0;
+        for (boolean dark : pattern) {
+            bits = bits << 1 | (dark ? 1 : 0);
+        }
+        return bits;
+    }
+
+    /**
+     * Get the penalty score of a masked symbol of which some modules will be covered, such as by a logo. Covered
+     * modules are left out of every rule: they end runs of adjacent modules, no 2x2 block or finder-like pattern that
+     * holds one is counted, and the proportion of dark modules is that of the modules left visible.
+     *
+     * @param symbol The modules of the masked symbol
+     * @param excluded The modules to leave out, which are dark in this matrix
+     * @return The penalty score of the visible modules of the symbol
+     */
+    public static int getPenaltyScore(ModuleMatrix symbol, ModuleMatrix excluded) {
+        int sideLength = symbol.getSideLength();
+        if (excluded.getSideLength() != sideLength) {
+            throw new IllegalArgumentException(String.format("Excluded modules of side length %s do not match a symbol of side length %s",
+                    excluded.getSideLength(), sideLength));
+        }
+        byte[] modules = symbol.getModules();
+        byte[] hidden = excluded.getModules();
+        int penalty = 0;
+        for (int n = 0; n < sideLength; n++) {
+            penalty += getVisibleLinePenalty(modules, hidden, n * sideLength, 1, sideLength)
+                    + getVisibleLinePenalty(modules, hidden, n, sideLength, sideLength);
+        }
+
+        // a block is visible when both of its columns are visible in both of its rows
+        for (int i = 0; i < sideLength - 1; i++) {
+            int row = i * sideLength;
+            int j = 0;
+            while (j < sideLength) {
+                int first = j;
+                while (j < sideLength && (hidden[row + j] | hidden[row + sideLength + j]) == 0) {
+                    j++;
+                }
+                if (j - first > 1) {
+                    penalty += getBlockPenalty(modules, row + first, 1, j - first, sideLength);
+                }
+                j++;
+            }
+        }
+
+        int darkModules = 0;
+        int visibleModules = 0;
+        for (int n = 0; n < modules.length; n++) {
+            if (hidden[n] != ModuleMatrix.DARK) {
+                visibleModules++;
+                darkModules += modules[n];
+            }
+        }
+        if (visibleModules == 0) {
+            return penalty;
+        }
+        return penalty + getProportionPenalty(darkModules, visibleModules);
+    }
+
+    /**
+     * Get the penalty of the visible modules of a row or column, scoring each stretch of them between covered modules
+     * as a line of its own
+     */
+    private static int getVisibleLinePenalty(byte[] modules, byte[] hidden, int start, int stride, int length) {
+        int penalty = 0;
+        int n = 0;
+        while (n < length) {
+            int first = n;
+            while (n < length && hidden[start + n * stride] != ModuleMatrix.DARK) {
+                n++;
+            }
+            if (n > first) {
+                penalty += getLinePenalty(modules, start + first * stride, stride, n - first);
+            }
+            n++;
+        }
+        return penalty;
+    }
+
+    /**
+     * Get the penalty score of a masked symbol held in a buffer with one byte per module, row after row, without
+     * copying it to the heap. Each row, with the row below it for the 2x2 blocks, and each column is copied in turn to
+     * a small array kept per thread and scored as {@link #getPenaltyScore(byte[], int)} scores it.
+     *
+     * @param modules The buffer holding the modules, with 1 for dark modules and 0 for light modules
+     * @param offset The index of the first module in the buffer
+     * @param sideLength The number of modules along each side of the symbol
+     * @return The penalty score of the symbol
+     */
+    public static int getPenaltyScore(ByteBuffer modules, int offset, int sideLength) {
+        byte[] lines = LINES.get();
+        int penalty = 0;
+        int darkModules = 0;
+        for (int i = 0; i < sideLength; i++) {
+            boolean lastRow = i == sideLength - 1;
+            modules.get(offset + i * sideLength, lines, 0, lastRow ? sideLength : 2 * sideLength);
+            penalty += getLinePenalty(lines, 0, 1, sideLength);
+            darkModules += getDarkModules(lines, 0, 1, sideLength);
+            if (!lastRow) {
+                penalty += getBlockPenalty(lines, 0, 1, sideLength, sideLength);
+            }
+        }
+        for (int j = 0; j < sideLength; j++) {
+            for (int i = 0; i < sideLength; i++) {
+                lines[i] = modules.get(offset + i * sideLength + j);
+            }
+            penalty += getLinePenalty(lines, 0, 1, sideLength);
+        }
+        return penalty + getProportionPenalty(darkModules, sideLength * sideLength);
+    }
+
+    private static int getRunPenalty(int run) {
+        return run >= 5 ? N1 + (run - 5) : 0;
+    }
+}
@@ -0,0 +1,62 @@
+package symbol;
+
+/**
+ * Util class for evaluating masked Micro QR symbols, which is described in section 8.8.2 of
+ * the QR Code specification ISO/IEC 18004. Unlike QR symbols, the mask pattern of a Micro QR symbol
+ * is chosen to put as many dark modules as possible on the two edges opposite the finder pattern,
+ * which keeps the symbol outline visible to a reader.
+ */
+public class MicroMaskEvaluationUtils {
+
+    /** Weight given to the edge with fewer dark modules */
+    private static final int SMALLER_SUM_WEIGHT = 16;
+
+    /**
+     * Get the evaluation score of a masked symbol. The mask pattern whose symbol has the highest
+     * score is the one that should be selected.
+     *
+     * @param symbol The modules of the masked symbol
+     * @return The evaluation score of the symbol
+     */
+    public static int getScore(ModuleMatrix symbol) {
+        int sideLength = symbol.getSideLength();
+        int rightEdge = 0;
+        int bottomEdge = 0;
+        for (int n = 1; n < sideLength; n++) {
+            if (symbol.isDark(n, sideLength - 1)) {
+                rightEdge++;
+            }
+            if (symbol.isDark(sideLength - 1, n)) {
+                bottomEdge++;
+            }
+        }
+        return getScore(rightEdge, bottomEdge);
+    }
+
+    /**
+     * Get the evaluation score of a masked symbol.
+     *
+     * @param modules The modules of the symbol indexed by row and column, with true for dark modules
+     * @return The evaluation score of the symbol
+     */
+    public static int getScore(boolean[][] modules) {
+        int sideLength = modules.length;
+        int rightEdge = 0;
+        int bottomEdge = 0;
+        for (int n = 1; n < sideLength; n++) {
+            if (modules[n][sideLength - 1]) {
+                rightEdge++;
+            }
+            if (modules[sideLength - 1][n]) {
+                bottomEdge++;
+            }
+        }
+        return getScore(rightEdge, bottomEdge);
+    }
+
+    private static int getScore(int rightEdge, int bottomEdge) {
+        return rightEdge <= bottomEdge
+                ? rightEdge * SMALLER_SUM_WEIGHT + bottomEdge
+                : bottomEdge * SMALLER_SUM_WEIGHT + rightEdge;
+    }
+}
@@ -0,0 +1,127 @@
+package symbol;
+
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import error.ErrorCorrectionUtils;
+import metrics.EncodeListener;
+import metrics.EncodeStage;
+import metrics.StageRecorder;
+import model.Coordinate;
+import model.ErrorCorrectionLevel;
+import model.MicroSymbolInfo;
+import model.MicroVersion;
+
+import java.util.List;
+
+/**
+ * Encoder that runs the whole encoding process of section 7.1 of the QR Code specification ISO/IEC 18004
+ * for Micro QR symbols, from data analysis through to mask pattern selection.
+ */
+public class MicroSymbolEncoder {
+
+    private final MicroSymbolGenerator symbolGenerator;
+
+    /** The listener notified of the cost of each stage, or {@link EncodeListener#NONE} to skip measurement */
+    private final EncodeListener listener;
+
+    public MicroSymbolEncoder() {
+        this(EncodeListener.NONE);
+    }
+
+    /**
+     * Create a MicroSymbolEncoder that reports the cost of each stage of every encode to a listener
+     *
+     * @param listener The listener to report to
+     */
+    public MicroSymbolEncoder(EncodeListener listener) {
+        this.symbolGenerator = new MicroSymbolGenerator();
+        this.listener = listener;
+    }
+
+    /**
+     * Encode a text in the smallest Micro QR version that can hold it at a given error correction level
+     *
+     * @param text The text to encode
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedMicroSymbol encode(String text, ErrorCorrectionLevel errorCorrectionLevel) {
+        DataEncoder encoder = DataEncodationUtils.getEncoder(text);
+        return encode(encoder, DataEncodationUtils.getCharacters(text, encoder), errorCorrectionLevel);
+    }
+
+    /**
+     * Encode characters in the smallest Micro QR version that can hold them at a given error correction level
+     *
+     * @param encoder The data encoder to encode the characters with
+     * @param data The characters to encode
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedMicroSymbol encode(DataEncoder encoder, List<Integer> data, ErrorCorrectionLevel errorCorrectionLevel) {
+        MicroVersion version = DataEncodationUtils.getMinimumMicroVersion(encoder, data.size(), errorCorrectionLevel);
+        return encode(encoder, data, version, errorCorrectionLevel);
+    }
+
+    /**
+     * Encode characters in a given Micro QR version and error correction level
+     *
+     * @param encoder The data encoder to encode the characters with
+     * @param data The characters to encode
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedMicroSymbol encode(DataEncoder encoder, List<Integer> data, MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        List<Integer> dataCodewords = DataEncodationUtils.getDataCodewords(encoder, data, version, errorCorrectionLevel);
+        recorder.end(EncodeStage.DATA_ENCODING, dataCodewords.size());
+        return encodeCodewords(dataCodewords, version, errorCorrectionLevel, recorder);
+    }
+
+    /**
+     * Encode data codewords that have already been terminated and padded in a given Micro QR version and error
+     * correction level. Error correction codewords are generated, the codewords are placed in the symbol once for
+     * each of the four mask patterns, and the masked symbol with the highest evaluation score is selected.
+     *
+     * @param dataCodewords The data codewords of the symbol
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedMicroSymbol encodeCodewords(List<Integer> dataCodewords, MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return encodeCodewords(dataCodewords, version, errorCorrectionLevel, StageRecorder.forListener(listener));
+    }
+
+    private EncodedMicroSymbol encodeCodewords(List<Integer> dataCodewords, MicroVersion version, ErrorCorrectionLevel errorCorrectionLevel,
+                                               StageRecorder recorder) {
+        recorder.begin();
+        List<MicroSymbolInfo> candidates = MicroSymbolInfo.forEachMaskPattern(version, errorCorrectionLevel);
+        List<Coordinate> dataModuleCoordinates = symbolGenerator.getDataModuleCoordinates(candidates.get(0));
+        recorder.end(EncodeStage.PLACEMENT, 0);
+
+        recorder.begin();
+        List<Integer> codewords = ErrorCorrectionUtils.getFinalCodewordSequence(dataCodewords, candidates.get(0));
+        recorder.end(EncodeStage.ERROR_CORRECTION, codewords.size());
+
+        int numModules = version.getSymbolSideLength() * version.getSymbolSideLength();
+
+        EncodedMicroSymbol best = null;
+        for (MicroSymbolInfo symbolInfo : candidates) {
+            recorder.begin();
+            ModuleMatrix modules = symbolGenerator.generateSymbol(symbolInfo, codewords, dataModuleCoordinates);
+            recorder.end(EncodeStage.PLACEMENT, numModules);
+
+            recorder.begin();
+            int score = MicroMaskEvaluationUtils.getScore(modules);
+            recorder.end(EncodeStage.MASK_SELECTION, numModules);
+            if (best == null || score > best.getScore()) {
+                best = new EncodedMicroSymbol(symbolInfo, codewords, modules, score);
+            }
+        }
+
+        recorder.report();
+        return best;
+    }
+}
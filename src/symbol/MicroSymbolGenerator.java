@@ -0,0 +1,118 @@
+package symbol;
+
+import model.BinaryData;
+import model.Coordinate;
+import model.MaskPattern;
+import model.MicroCodewordCapacity;
+import model.MicroSymbolInfo;
+import model.SymbolInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generator of Micro QR symbols, which places the single finder pattern, the timing patterns, the format
+ * information and the codewords as described by sections 6.3 and 8.7 of the QR Code specification ISO/IEC 18004.
+ */
+public class MicroSymbolGenerator {
+
+    public ModuleMatrix generateSymbol(MicroSymbolInfo symbolInfo) {
+        ModuleMatrix symbol = new ModuleMatrix(symbolInfo.getSymbolSideLength());
+        addDetectionPattern(symbolInfo, symbol);
+        addTimingPatterns(symbolInfo, symbol);
+        addFormatInfo(symbolInfo, symbol);
+
+        return symbol;
+    }
+
+    /**
+     * Generate a symbol with function patterns, format information and the given codewords placed in the
+     * encoding region with the mask pattern of the symbol information applied.
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @param codewords The final codeword sequence of the symbol
+     * @param dataModuleCoordinates The coordinates of the modules in the encoding region, in placement order
+     * @return The modules of the symbol
+     */
+    public ModuleMatrix generateSymbol(MicroSymbolInfo symbolInfo, List<Integer> codewords, List<Coordinate> dataModuleCoordinates) {
+        ModuleMatrix symbol = generateSymbol(symbolInfo);
+        addData(symbolInfo, symbol, codewords, dataModuleCoordinates);
+
+        return symbol;
+    }
+
+    /**
+     * Get the coordinates of the modules in the encoding region of a symbol in the order that codeword bits are
+     * placed in them. Placement follows the same two module wide columns as QR symbols, starting at the bottom
+     * right corner, with the vertical timing pattern in the leftmost column.
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @return The coordinates of the modules available for data, in placement order
+     */
+    public List<Coordinate> getDataModuleCoordinates(MicroSymbolInfo symbolInfo) {
+        int sideLength = symbolInfo.getSymbolSideLength();
+        List<Coordinate> coordinates = new ArrayList<>(symbolInfo.getTotalCodewords() * 8);
+        boolean upwards = true;
+        for (int right = sideLength - 1; right >= 1; right -= 2) {
+            for (int vertical = 0; vertical < sideLength; vertical++) {
+                int i = upwards ? sideLength - 1 - vertical : vertical;
+                for (int j = right; j >= right - 1; j--) {
+                    if (symbolInfo.isCoordinateAvailableForData(i, j)) {
+                        coordinates.add(new Coordinate(i, j));
+                    }
+                }
+            }
+            upwards = !upwards;
+        }
+        return coordinates;
+    }
+
+    private void addDetectionPattern(MicroSymbolInfo symbolInfo, ModuleMatrix symbol) {
+        // the finder pattern and the separator along its bottom and right edges
+        Coordinate center = MicroSymbolInfo.DETECTION_PATTERN_CENTER;
+        for (int i = 0; i <= SymbolInfo.DETECTION_PATTERN_DIAMETER; i++) {
+            for (int j = 0; j <= SymbolInfo.DETECTION_PATTERN_DIAMETER; j++) {
+                int distance = new Coordinate(i, j).radialDistanceTo(center);
+                symbol.setDark(i, j, distance != 2 && distance != 4);
+            }
+        }
+    }
+
+    private void addTimingPatterns(MicroSymbolInfo symbolInfo, ModuleMatrix symbol) {
+        for (int n = SymbolInfo.DETECTION_PATTERN_DIAMETER + 1; n < symbolInfo.getSymbolSideLength(); n++) {
+            boolean dark = n % 2 == 0;
+            symbol.setDark(MicroSymbolInfo.TIMING_PATTERN_COORDINATE, n, dark);
+            symbol.setDark(n, MicroSymbolInfo.TIMING_PATTERN_COORDINATE, dark);
+        }
+    }
+
+    private void addFormatInfo(MicroSymbolInfo symbolInfo, ModuleMatrix symbol) {
+        BinaryData formatInfo = symbolInfo.getFormatInfo();
+        List<Coordinate> formatInfoCoordinates = symbolInfo.getFormatInfoCoordinates();
+
+        // the coordinates are ordered from the least significant bit, and the format info from the most significant bit
+        for (int i = 0; i < formatInfo.size(); i++) {
+            Coordinate coordinate = formatInfoCoordinates.get(formatInfo.size() - 1 - i);
+            symbol.setDark(coordinate.getI(), coordinate.getJ(), formatInfo.isBitSet(i));
+        }
+    }
+
+    private void addData(MicroSymbolInfo symbolInfo, ModuleMatrix symbol, List<Integer> codewords, List<Coordinate> dataModuleCoordinates) {
+        MaskPattern maskPattern = symbolInfo.getMaskPattern();
+        int dataBits = MicroCodewordCapacity.getDataCapacityInBits(symbolInfo.getVersion(), symbolInfo.getErrorCorrectionLevel());
+        int dataCodewords = symbolInfo.getDataCodewords();
+        int numBits = dataBits + (codewords.size() - dataCodewords) * 8;
+        for (int n = 0; n < dataModuleCoordinates.size(); n++) {
+            Coordinate coordinate = dataModuleCoordinates.get(n);
+            // the error correction codewords follow directly after the 4 bits of a short last data codeword
+            int codeword = n < dataBits ? n / 8 : dataCodewords + (n - dataBits) / 8;
+            int bit = n < dataBits ? n % 8 : (n - dataBits) % 8;
+            // remainder bits after the last codeword are 0
+            boolean dark = n < numBits && (codewords.get(codeword) & (0x80 >>> bit)) != 0;
+            if (maskPattern.isMasked(coordinate.getI(), coordinate.getJ())) {
+                dark = !dark;
+            }
+            symbol.setDark(coordinate.getI(), coordinate.getJ(), dark);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package symbol;
+
+/**
+ * Model class representing the modules of a square symbol, with one byte per module row after row. It holds nothing
+ * but whether each module is dark, so symbols are laid out, evaluated and rendered without the java.desktop module.
+ */
+public class ModuleMatrix {
+
+    /** The value of a dark module */
+    static final byte DARK = 1;
+
+    /** The value of a light module */
+    static final byte LIGHT = 0;
+
+    private final int sideLength;
+
+    /** Whether each module is dark, row after row */
+    private final byte[] modules;
+
+    /**
+     * Create a ModuleMatrix with every module light
+     *
+     * @param sideLength The number of modules along each side
+     */
+    public ModuleMatrix(int sideLength) {
+        if (sideLength < 1) {
+            throw new IllegalArgumentException(String.format("Side length %s is not valid", sideLength));
+        }
+        this.sideLength = sideLength;
+        this.modules = new byte[sideLength * sideLength];
+    }
+
+    /**
+     * Create a ModuleMatrix from the modules of a symbol
+     *
+     * @param modules The modules of the symbol indexed by row and column, with true for dark modules
+     */
+    public ModuleMatrix(boolean[][] modules) {
+        this(modules.length);
+        for (int i = 0; i < sideLength; i++) {
+            if (modules[i].length != sideLength) {
+                throw new IllegalArgumentException(String.format("Row %s has %s modules instead of %s", i, modules[i].length, sideLength));
+            }
+            for (int j = 0; j < sideLength; j++) {
+                this.modules[i * sideLength + j] = modules[i][j] ? DARK : LIGHT;
+            }
+        }
+    }
+
+    public int getSideLength() {
+        return sideLength;
+    }
+
+    /**
+     * Whether the module at a given coordinate is dark
+     *
+     * @param i The row of the module
+     * @param j The column of the module
+     * @return true if the module is dark, false if it is light
+     */
+    public boolean isDark(int i, int j) {
+        return modules[i * sideLength + j] == DARK;
+    }
+
+    /**
+     * Set whether the module at a given coordinate is dark
+     *
+     * @param i The row of the module
+     * @param j The column of the module
+     * @param dark true for a dark module, false for a light module
+     */
+    public void setDark(int i, int j, boolean dark) {
+        modules[i * sideLength + j] = dark ? DARK : LIGHT;
+    }
+
+    /**
+     * Copy the modules to a new array
+     *
+     * @return The modules indexed by row and column, with true for dark modules
+     */
+    public boolean[][] toArray() {
+        boolean[][] array = new boolean[sideLength][sideLength];
+        for (int i = 0; i < sideLength; i++) {
+            for (int j = 0; j < sideLength; j++) {
+                array[i][j] = modules[i * sideLength + j] == DARK;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Get the backing array, for bulk copies within the package
+     *
+     * @return The value of each module, row after row
+     */
+    byte[] getModules() {
+        return modules;
+    }
+}
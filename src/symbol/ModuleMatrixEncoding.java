@@ -0,0 +1,41 @@
+package symbol;
+
+/**
+ * Enum representing the ways the modules of a symbol are stored in a record of the binary format written by
+ * {@link ModuleMatrixFormat}.
+ */
+public enum ModuleMatrixEncoding {
+    /** One bit per module, row after row from the most significant bit, with a set bit for a dark module */
+    PACKED(0),
+    /** The lengths of alternating runs of light and dark modules, row after row, as unsigned variable length integers */
+    RUN_LENGTH(1),
+    /** The final codeword sequence alone, from which the reader places the modules as the encoder did */
+    CODEWORDS(2);
+
+    /** The 4 bit identifier of this encoding in the first byte of a record */
+    private final int id;
+
+    ModuleMatrixEncoding(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the encoding with a given identifier
+     *
+     * @param id The 4 bit identifier of the encoding
+     * @return The encoding with the identifier
+     * @throws IllegalArgumentException If no encoding has the identifier
+     */
+    public static ModuleMatrixEncoding forId(int id) {
+        for (ModuleMatrixEncoding encoding : values()) {
+            if (encoding.id == id) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Encoding %s is not valid", id));
+    }
+}
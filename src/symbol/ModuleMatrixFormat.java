@@ -0,0 +1,210 @@
+package symbol;
+
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.SymbolInfo;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Writer of symbols in a compact binary format, so that symbols encoded once are stored or sent in a few bytes each and
+ * read back by {@link ModuleMatrixReader} without decoding them again. Each record is:
+ * <ul>
+ *     <li>a byte holding the format version in its high 4 bits and the {@link ModuleMatrixEncoding} in its low 4 bits</li>
+ *     <li>a byte holding the version of the symbol</li>
+ *     <li>a byte holding the 2 bit error correction level indicator and 3 bit mask pattern reference, in the order of
+ *     the format information of section 8.9 of the QR Code specification ISO/IEC 18004</li>
+ *     <li>the length of the payload in bytes, as an unsigned variable length integer</li>
+ *     <li>the payload in the encoding of the record</li>
+ * </ul>
+ * Unsigned variable length integers are written 7 bits to a byte from the least significant bits, with the high bit
+ * set on every byte but the last. Records follow one another with nothing in between.
+ */
+public class ModuleMatrixFormat {
+
+    /** The version of the format, which a reader must match */
+    public static final int FORMAT_VERSION = 1;
+
+    /** The length of a record before its payload length */
+    static final int HEADER_LENGTH = 3;
+
+    /** A view of 8 modules as a long, with the first module in the least significant byte */
+    private static final VarHandle MODULES_AS_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** Moves bit 8k of a long to bit 63 - k, for each of its 8 bytes */
+    private static final long GATHER_BITS = 0x8040201008040201L;
+
+    private ModuleMatrixFormat() {
+    }
+
+    /**
+     * Get the length of the record of a symbol
+     *
+     * @param symbol The symbol
+     * @param encoding The encoding of the record
+     * @return The length of the record in bytes
+     */
+    public static int getLength(EncodedSymbol symbol, ModuleMatrixEncoding encoding) {
+        int payloadLength = getPayloadLength(symbol.getSymbolInfo(), symbol.getModules(), symbol.getCodewords(), encoding);
+        return HEADER_LENGTH + getVarintLength(payloadLength) + payloadLength;
+    }
+
+    /**
+     * Write the record of a symbol at the position of a buffer, and move the position past it
+     *
+     * @param symbol The symbol
+     * @param encoding The encoding of the record
+     * @param buffer The buffer to write the record to
+     * @return The length of the record in bytes
+     * @throws java.nio.BufferOverflowException If the buffer has no room for the record
+     */
+    public static int write(EncodedSymbol symbol, ModuleMatrixEncoding encoding, ByteBuffer buffer) {
+        return write(symbol.getSymbolInfo(), symbol.getModules(), symbol.getCodewords(), encoding, buffer);
+    }
+
+    /**
+     * Write the record of the modules of a symbol at the position of a buffer, and move the position past it
+     *
+     * @param symbolInfo The symbol information of the symbol, including its mask pattern
+     * @param modules The modules of the symbol
+     * @param encoding The encoding of the record, which cannot be {@link ModuleMatrixEncoding#CODEWORDS}
+     * @param buffer The buffer to write the record to
+     * @return The length of the record in bytes
+     * @throws java.nio.BufferOverflowException If the buffer has no room for the record
+     */
+    public static int write(SymbolInfo symbolInfo, ModuleMatrix modules, ModuleMatrixEncoding encoding, ByteBuffer buffer) {
+        if (encoding == ModuleMatrixEncoding.CODEWORDS) {
+            throw new IllegalArgumentException("Records of codewords are written from an encoded symbol");
+        }
+        return write(symbolInfo, modules, null, encoding, buffer);
+    }
+
+    private static int write(SymbolInfo symbolInfo, ModuleMatrix modules, List<Integer> codewords,
+                             ModuleMatrixEncoding encoding, ByteBuffer buffer) {
+        if (modules.getSideLength() != symbolInfo.getSymbolSideLength()) {
+            throw new IllegalArgumentException(String.format("Symbol of side length %s is not of version %s",
+                    modules.getSideLength(), symbolInfo.getVersion().getVersion()));
+        }
+        int start = buffer.position();
+        int payloadLength = getPayloadLength(symbolInfo, modules, codewords, encoding);
+        buffer.put((byte) (FORMAT_VERSION << 4 | encoding.getId()));
+        buffer.put((byte) symbolInfo.getVersion().getVersion());
+        buffer.put((byte) getFormatIndicators(symbolInfo.getErrorCorrectionLevel(), symbolInfo.getMaskPattern()));
+        putVarint(buffer, payloadLength);
+        switch (encoding) {
+            case PACKED:
+                putPacked(modules.getModules(), buffer);
+                break;
+            case RUN_LENGTH:
+                putRuns(modules.getModules(), buffer);
+                break;
+            case CODEWORDS:
+                for (int codeword : codewords) {
+                    buffer.put((byte) codeword);
+                }
+                break;
+        }
+        return buffer.position() - start;
+    }
+
+    /**
+     * Get the byte holding an error correction level indicator and mask pattern reference
+     */
+    static int getFormatIndicators(ErrorCorrectionLevel errorCorrectionLevel, MaskPattern maskPattern) {
+        return errorCorrectionLevel.getIndicator() << MaskPattern.INDICATOR_LENGTH_IN_BITS | maskPattern.getIndicator();
+    }
+
+    /**
+     * Get the length of the packed modules of a symbol
+     *
+     * @param sideLength The side length of the symbol
+     * @return The number of bytes holding one bit per module
+     */
+    static int getPackedLength(int sideLength) {
+        return (sideLength * sideLength + 7) / 8;
+    }
+
+    private static int getPayloadLength(SymbolInfo symbolInfo, ModuleMatrix modules, List<Integer> codewords,
+                                        ModuleMatrixEncoding encoding) {
+        switch (encoding) {
+            case PACKED:
+                return getPackedLength(modules.getSideLength());
+            case RUN_LENGTH:
+                return getRunsLength(modules.getModules());
+            default:
+                if (codewords.size() != symbolInfo.getTotalCodewords()) {
+                    throw new IllegalArgumentException(String.format("Symbol has %s codewords instead of %s",
+                            codewords.size(), symbolInfo.getTotalCodewords()));
+                }
+                return codewords.size();
+        }
+    }
+
+    private static void putPacked(byte[] modules, ByteBuffer buffer) {
+        int n = 0;
+        for (; n + 8 <= modules.length; n += 8) {
+            // each of the 8 modules is 0 or 1, and the multiplication gathers them into the top byte, first module first
+            long eightModules = (long) MODULES_AS_LONG.get(modules, n);
+            buffer.put((byte) ((eightModules * GATHER_BITS) >>> 56));
+        }
+        if (n < modules.length) {
+            int last = 0;
+            for (int k = n; k < modules.length; k++) {
+                last |= modules[k] << (7 - (k - n));
+            }
+            buffer.put((byte) last);
+        }
+    }
+
+    /**
+     * Get the length of the runs of the modules of a symbol. The first run is of light modules and may be empty.
+     */
+    private static int getRunsLength(byte[] modules) {
+        int length = 0;
+        byte value = ModuleMatrix.LIGHT;
+        int run = 0;
+        for (byte module : modules) {
+            if (module != value) {
+                length += getVarintLength(run);
+                value = module;
+                run = 0;
+            }
+            run++;
+        }
+        return length + getVarintLength(run);
+    }
+
+    private static void putRuns(byte[] modules, ByteBuffer buffer) {
+        byte value = ModuleMatrix.LIGHT;
+        int run = 0;
+        for (byte module : modules) {
+            if (module != value) {
+                putVarint(buffer, run);
+                value = module;
+                run = 0;
+            }
+            run++;
+        }
+        putVarint(buffer, run);
+    }
+
+    static int getVarintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
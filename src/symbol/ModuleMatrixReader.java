@@ -0,0 +1,426 @@
+package symbol;
+
+import model.CodewordCapacity;
+import model.Coordinate;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.SymbolInfo;
+import model.Version;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reader of the records written by {@link ModuleMatrixFormat}, which moves over the records of a buffer one at a time
+ * without copying them. The header of a record is read by {@link #next()}, and packed modules are read straight from
+ * the buffer, so reading a record allocates nothing. Records of runs or codewords are decoded on first use into a
+ * single array that is reused for every record, and records of codewords place the modules as the encoder did.
+ * A reader is not safe for use by multiple threads, but any number of readers may share one buffer.
+ */
+public class ModuleMatrixReader {
+
+    private static final Version[] VERSIONS = new Version[Version.MAXIMUM_VERSION + 1];
+
+    private static final ErrorCorrectionLevel[] ERROR_CORRECTION_LEVELS = new ErrorCorrectionLevel[1 << ErrorCorrectionLevel.INDICATOR_LENGTH_IN_BITS];
+
+    private static final MaskPattern[] MASK_PATTERNS = new MaskPattern[1 << MaskPattern.INDICATOR_LENGTH_IN_BITS];
+
+    static {
+        for (int v = Version.MINIMUM_VERSION; v <= Version.MAXIMUM_VERSION; v++) {
+            VERSIONS[v] = new Version(v);
+        }
+        for (ErrorCorrectionLevel errorCorrectionLevel : ErrorCorrectionLevel.values()) {
+            ERROR_CORRECTION_LEVELS[errorCorrectionLevel.getIndicator()] = errorCorrectionLevel;
+        }
+        for (MaskPattern maskPattern : MaskPattern.values()) {
+            MASK_PATTERNS[maskPattern.getIndicator()] = maskPattern;
+        }
+    }
+
+    /** The symbol information of each version and format indicators, created on first use */
+    private static final AtomicReferenceArray<SymbolInfo> SYMBOL_INFOS =
+            new AtomicReferenceArray<>((Version.MAXIMUM_VERSION + 1) << (ErrorCorrectionLevel.INDICATOR_LENGTH_IN_BITS + MaskPattern.INDICATOR_LENGTH_IN_BITS));
+
+    /** The coordinates of the modules in the encoding region of each version, created on first use */
+    private static final AtomicReferenceArray<List<Coordinate>> DATA_MODULE_COORDINATES = new AtomicReferenceArray<>(Version.MAXIMUM_VERSION + 1);
+
+    private static final SymbolGenerator SYMBOL_GENERATOR = new SymbolGenerator();
+
+    /** The largest unsigned variable length integer the format holds, in bytes */
+    private static final int MAXIMUM_VARINT_LENGTH = 5;
+
+    private final ByteBuffer buffer;
+
+    private ModuleMatrixEncoding encoding;
+
+    private int version;
+
+    private int formatIndicators;
+
+    private int sideLength;
+
+    private int payloadOffset;
+
+    private int payloadLength;
+
+    /** The modules of the current record, when it is not packed and has been decoded */
+    private final byte[] modules = new byte[VERSIONS[Version.MAXIMUM_VERSION].getSymbolSideLength() * VERSIONS[Version.MAXIMUM_VERSION].getSymbolSideLength()];
+
+    private boolean decoded;
+
+    /**
+     * Create a ModuleMatrixReader of the records from the position to the limit of a buffer. The position and limit of
+     * the buffer itself are left unchanged.
+     *
+     * @param buffer The buffer holding the records
+     */
+    public ModuleMatrixReader(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    /**
+     * Create a ModuleMatrixReader of the records of a file, mapped into memory rather than read
+     *
+     * @param path The path of the file
+     * @return The reader of the records of the file
+     * @throws IOException If the file could not be mapped
+     */
+    public static ModuleMatrixReader map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ModuleMatrixReader(buffer);
+        }
+    }
+
+    /**
+     * Move to the next record and read its header
+     *
+     * @return true if there was a next record, false if every record has been read
+     * @throws IllegalArgumentException If the next record is not valid
+     */
+    public boolean next() {
+        if (!buffer.hasRemaining()) {
+            encoding = null;
+            return false;
+        }
+        int start = buffer.position();
+        if (buffer.remaining() < ModuleMatrixFormat.HEADER_LENGTH + 1) {
+            throw new IllegalArgumentException(String.format("Record at byte %s is truncated", start));
+        }
+        int first = buffer.get() & 0xFF;
+        if (first >>> 4 != ModuleMatrixFormat.FORMAT_VERSION) {
+            throw new IllegalArgumentException(String.format("Record at byte %s is of format version %s", start, first >>> 4));
+        }
+        ModuleMatrixEncoding recordEncoding = ModuleMatrixEncoding.forId(first & 0xF);
+        int recordVersion = buffer.get() & 0xFF;
+        if (recordVersion < Version.MINIMUM_VERSION || recordVersion > Version.MAXIMUM_VERSION) {
+            throw new IllegalArgumentException(String.format("Record at byte %s has version %s", start, recordVersion));
+        }
+        int indicators = buffer.get() & 0xFF;
+        if (indicators >>> (ErrorCorrectionLevel.INDICATOR_LENGTH_IN_BITS + MaskPattern.INDICATOR_LENGTH_IN_BITS) != 0) {
+            throw new IllegalArgumentException(String.format("Record at byte %s has format indicators %s", start, indicators));
+        }
+        int length = getVarint(start);
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException(String.format("Record at byte %s has %s bytes of payload but %s remain",
+                    start, length, buffer.remaining()));
+        }
+        int recordSideLength = VERSIONS[recordVersion].getSymbolSideLength();
+        int expectedLength = recordEncoding == ModuleMatrixEncoding.PACKED ? ModuleMatrixFormat.getPackedLength(recordSideLength)
+                : recordEncoding == ModuleMatrixEncoding.CODEWORDS ? CodewordCapacity.getTotalCodewords(VERSIONS[recordVersion]) : length;
+        if (length != expectedLength) {
+            throw new IllegalArgumentException(String.format("Record at byte %s has %s bytes of payload instead of %s",
+                    start, length, expectedLength));
+        }
+        encoding = recordEncoding;
+        version = recordVersion;
+        formatIndicators = indicators;
+        sideLength = recordSideLength;
+        payloadOffset = buffer.position();
+        payloadLength = length;
+        decoded = false;
+        buffer.position(payloadOffset + length);
+        return true;
+    }
+
+    public ModuleMatrixEncoding getEncoding() {
+        return encoding;
+    }
+
+    public Version getVersion() {
+        return VERSIONS[version];
+    }
+
+    public ErrorCorrectionLevel getErrorCorrectionLevel() {
+        return ERROR_CORRECTION_LEVELS[formatIndicators >>> MaskPattern.INDICATOR_LENGTH_IN_BITS];
+    }
+
+    public MaskPattern getMaskPattern() {
+        return MASK_PATTERNS[formatIndicators & ((1 << MaskPattern.INDICATOR_LENGTH_IN_BITS) - 1)];
+    }
+
+    public int getSideLength() {
+        return sideLength;
+    }
+
+    /**
+     * Get the symbol information of the current record, which is shared by every record of the same version, error
+     * correction level and mask pattern
+     *
+     * @return The symbol information of the current record
+     */
+    public SymbolInfo getSymbolInfo() {
+        int index = version << (ErrorCorrectionLevel.INDICATOR_LENGTH_IN_BITS + MaskPattern.INDICATOR_LENGTH_IN_BITS) | formatIndicators;
+        SymbolInfo symbolInfo = SYMBOL_INFOS.get(index);
+        if (symbolInfo == null) {
+            symbolInfo = new SymbolInfo(getVersion(), getErrorCorrectionLevel(), getMaskPattern());
+            SYMBOL_INFOS.compareAndSet(index, null, symbolInfo);
+        }
+        return symbolInfo;
+    }
+
+    /**
+     * Whether the module of the current record at a given coordinate is dark
+     *
+     * @param i The row of the module
+     * @param j The column of the module
+     * @return true if the module is dark, false if it is light
+     * @throws IllegalArgumentException If the runs or codewords of the record are not valid
+     */
+    public boolean isDark(int i, int j) {
+        int n = Objects.checkIndex(i, sideLength) * sideLength + Objects.checkIndex(j, sideLength);
+        if (encoding == ModuleMatrixEncoding.PACKED) {
+            return (buffer.get(payloadOffset + (n >>> 3)) & (0x80 >>> (n & 7))) != 0;
+        }
+        decode();
+        return modules[n] == ModuleMatrix.DARK;
+    }
+
+    /**
+     * Copy the modules of the current record to a new matrix
+     *
+     * @return The modules of the current record
+     * @throws IllegalArgumentException If the runs or codewords of the record are not valid
+     */
+    public ModuleMatrix getModules() {
+        checkRecord();
+        ModuleMatrix symbol = new ModuleMatrix(sideLength);
+        byte[] symbolModules = symbol.getModules();
+        if (encoding == ModuleMatrixEncoding.PACKED) {
+            for (int n = 0; n < symbolModules.length; n++) {
+                symbolModules[n] = (byte) ((buffer.get(payloadOffset + (n >>> 3)) >>> (7 - (n & 7))) & 1);
+            }
+        } else {
+            decode();
+            System.arraycopy(modules, 0, symbolModules, 0, symbolModules.length);
+        }
+        return symbol;
+    }
+
+    /**
+     * Get the final codeword sequence of the current record, which only records of codewords hold
+     *
+     * @return The codewords of the current record
+     * @throws IllegalStateException If the current record is not of codewords
+     */
+    public List<Integer> getCodewords() {
+        checkRecord();
+        if (encoding != ModuleMatrixEncoding.CODEWORDS) {
+            throw new IllegalStateException(String.format("Record of %s holds no codewords", encoding));
+        }
+        List<Integer> codewords = new ArrayList<>(payloadLength);
+        for (int n = 0; n < payloadLength; n++) {
+            codewords.add(buffer.get(payloadOffset + n) & 0xFF);
+        }
+        return codewords;
+    }
+
+    private void checkRecord() {
+        if (encoding == null) {
+            throw new IllegalStateException("No record has been read");
+        }
+    }
+
+    /**
+     * Decode the runs or codewords of the current record into the modules, once per record
+     */
+    private void decode() {
+        checkRecord();
+        if (decoded) {
+            return;
+        }
+        int total = sideLength * sideLength;
+        if (encoding == ModuleMatrixEncoding.RUN_LENGTH) {
+            int saved = buffer.position();
+            buffer.position(payloadOffset);
+            try {
+                int end = payloadOffset + payloadLength;
+                int n = 0;
+                byte value = ModuleMatrix.LIGHT;
+                while (buffer.position() < end) {
+                    int run = getVarint(payloadOffset);
+                    if (run > total - n) {
+                        throw new IllegalArgumentException(String.format("Record at byte %s has runs past module %s", payloadOffset, total));
+                    }
+                    Arrays.fill(modules, n, n + run, value);
+                    n += run;
+                    value = value == ModuleMatrix.LIGHT ? ModuleMatrix.DARK : ModuleMatrix.LIGHT;
+                }
+                if (n != total || buffer.position() != end) {
+                    throw new IllegalArgumentException(String.format("Record at byte %s has runs of %s modules instead of %s", payloadOffset, n, total));
+                }
+            } finally {
+                buffer.position(saved);
+            }
+        } else {
+            SymbolInfo symbolInfo = getSymbolInfo();
+            ModuleMatrix symbol = SYMBOL_GENERATOR.generateSymbol(symbolInfo, getCodewords(), getDataModuleCoordinates(symbolInfo));
+            System.arraycopy(symbol.getModules(), 0, modules, 0, total);
+        }
+        decoded = true;
+    }
+
+    private static List<Coordinate> getDataModuleCoordinates(SymbolInfo symbolInfo) {
+        int version = symbolInfo.getVersion().getVersion();
+        List<Coordinate> coordinates = DATA_MODULE_COORDINATES.get(version);
+        if (coordinates == null) {
+            coordinates = SYMBOL_GENERATOR.getDataModuleCoordinates(symbolInfo);
+            DATA_MODULE_COORDINATES.compareAndSet(version, null, coordinates);
+        }
+        return coordinates;
+    }
+
+    /**
+     * Read an unsigned variable length integer at the position of the buffer
+     *
+     * @param recordStart The start of the record, for the message of a malformed integer
+     */
+    private int getVarint(int recordStart) {
+        int value = 0;
+        for (int n = 0; n < MAXIMUM_VARINT_LENGTH; n++) {
+            if (!buffer.hasRemaining()) {
+                break;
+            }
+            int b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << (7 * n);
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Record at byte %s has a malformed length", recordStart));
+    }
+
+    /**
+     * Write symbols of every version, error correction level and mask pattern in each encoding, read them back from a
+     * buffer and from a mapped file and check every module, then time writing and reading
+     */
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(18004);
+        List<EncodedSymbol> symbols = new ArrayList<>();
+        for (int v = Version.MINIMUM_VERSION; v <= Version.MAXIMUM_VERSION; v++) {
+            for (ErrorCorrectionLevel errorCorrectionLevel : ErrorCorrectionLevel.values()) {
+                for (MaskPattern maskPattern : MaskPattern.values()) {
+                    SymbolInfo symbolInfo = new SymbolInfo(VERSIONS[v], errorCorrectionLevel, maskPattern);
+                    List<Integer> codewords = new ArrayList<>();
+                    for (int n = 0; n < symbolInfo.getTotalCodewords(); n++) {
+                        codewords.add(random.nextInt(256));
+                    }
+                    ModuleMatrix modules = SYMBOL_GENERATOR.generateSymbol(symbolInfo, codewords, getDataModuleCoordinates(symbolInfo));
+                    symbols.add(new EncodedSymbol(symbolInfo, codewords, modules, 0));
+                }
+            }
+        }
+        int failures = 0;
+        Path file = Files.createTempFile("symbols", ".bin");
+        try {
+            for (ModuleMatrixEncoding encoding : ModuleMatrixEncoding.values()) {
+                ByteBuffer buffer = ByteBuffer.allocate(symbols.stream().mapToInt(symbol -> ModuleMatrixFormat.getLength(symbol, encoding)).sum());
+                for (EncodedSymbol symbol : symbols) {
+                    ModuleMatrixFormat.write(symbol, encoding, buffer);
+                }
+                failures += buffer.hasRemaining() ? 1 : 0;
+                buffer.flip();
+                Files.write(file, Arrays.copyOf(buffer.array(), buffer.limit()));
+                failures += check(new ModuleMatrixReader(buffer), symbols, encoding);
+                failures += check(map(file), symbols, encoding);
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        // sizes of typical symbols, which are masked and so have short runs
+        SymbolEncoder encoder = new SymbolEncoder();
+        System.out.printf("%-8s %8s %8s %8s %10s%n", "version", "packed", "runs", "codewords", "one byte");
+        for (String text : new String[] { "1", "https://example.com/item/12345", "x".repeat(500), "x".repeat(2000) }) {
+            EncodedSymbol symbol = encoder.encode(text, ErrorCorrectionLevel.M);
+            int sideLength = symbol.getModules().getSideLength();
+            System.out.printf("%-8s %8s %8s %8s %10s%n", symbol.getSymbolInfo().getVersion().getVersion(),
+                    ModuleMatrixFormat.getLength(symbol, ModuleMatrixEncoding.PACKED),
+                    ModuleMatrixFormat.getLength(symbol, ModuleMatrixEncoding.RUN_LENGTH),
+                    ModuleMatrixFormat.getLength(symbol, ModuleMatrixEncoding.CODEWORDS), sideLength * sideLength);
+        }
+
+        EncodedSymbol symbol = encoder.encode("https://example.com/item/12345", ErrorCorrectionLevel.M);
+        int count = 200_000;
+        for (ModuleMatrixEncoding encoding : ModuleMatrixEncoding.values()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(count * ModuleMatrixFormat.getLength(symbol, encoding));
+            for (int round = 0; round < 3; round++) {
+                buffer.clear();
+                long start = System.nanoTime();
+                for (int n = 0; n < count; n++) {
+                    ModuleMatrixFormat.write(symbol, encoding, buffer);
+                }
+                long written = System.nanoTime();
+                buffer.flip();
+                ModuleMatrixReader reader = new ModuleMatrixReader(buffer);
+                int dark = 0;
+                while (reader.next()) {
+                    dark += reader.isDark(reader.getSideLength() / 2, reader.getSideLength() / 2) ? 1 : 0;
+                }
+                long read = System.nanoTime();
+                if (round == 2) {
+                    System.out.printf("%-10s write %8.0f/ms, read %8.0f/ms (%s dark)%n", encoding,
+                            count / ((written - start) / 1e6), count / ((read - written) / 1e6), dark);
+                }
+            }
+        }
+        System.out.println(failures == 0 ? "passed" : failures + " FAILED");
+    }
+
+    private static int check(ModuleMatrixReader reader, List<EncodedSymbol> symbols, ModuleMatrixEncoding encoding) {
+        int failures = 0;
+        for (EncodedSymbol symbol : symbols) {
+            if (!reader.next()) {
+                return failures + 1;
+            }
+            SymbolInfo symbolInfo = symbol.getSymbolInfo();
+            boolean matches = reader.getEncoding() == encoding
+                    && reader.getVersion().getVersion() == symbolInfo.getVersion().getVersion()
+                    && reader.getErrorCorrectionLevel() == symbolInfo.getErrorCorrectionLevel()
+                    && reader.getMaskPattern() == symbolInfo.getMaskPattern()
+                    && Arrays.equals(reader.getModules().getModules(), symbol.getModules().getModules())
+                    && (encoding != ModuleMatrixEncoding.CODEWORDS || reader.getCodewords().equals(symbol.getCodewords()));
+            for (int i = 0; matches && i < reader.getSideLength(); i++) {
+                for (int j = 0; j < reader.getSideLength(); j++) {
+                    matches &= reader.isDark(i, j) == symbol.getModules().isDark(i, j);
+                }
+            }
+            failures += matches ? 0 : 1;
+        }
+        return failures + (reader.next() ? 1 : 0);
+    }
+}
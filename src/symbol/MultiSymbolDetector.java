@@ -0,0 +1,439 @@
+package symbol;
+
+import model.DecodeException;
+import model.ErrorCorrectionLevel;
+import model.SymbolInfo;
+import model.Version;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Detector that locates and decodes every symbol in a large image, such as a scan of a sheet or pallet of labels.
+ * The finder patterns of the whole image are found by {@link FinderPatternFinder}, which scans bands of the image in
+ * parallel, and are then grouped into symbols:
+ * <ol>
+ *     <li>every three finder patterns with similar module sizes that lie close enough to belong to one symbol and form
+ *     the corners of a right isosceles triangle are a candidate</li>
+ *     <li>each candidate is scored in parallel by how well the timing patterns of section 6.3.5 of the QR Code
+ *     specification ISO/IEC 18004 line up between its finder patterns</li>
+ *     <li>the candidates are claimed from the best score down, skipping any that shares a finder pattern with one
+ *     already claimed, and the claimed candidates are sampled and decoded in parallel</li>
+ *     <li>a candidate that fails to decode is dropped and releases its finder patterns, and the candidates left are
+ *     claimed again, until a round claims none</li>
+ * </ol>
+ * The timing patterns tell apart the finder patterns of one symbol from those of neighboring symbols laid out in a
+ * grid, which form triangles just as regular. When a false candidate still scores best, its decoding fails and the
+ * finder patterns it took go to the candidates that follow it.
+ * <br />
+ * A detector holds no state, so one instance can be shared between threads.
+ */
+public class MultiSymbolDetector {
+
+    /** The fewest scan lines that must find a finder pattern for it to be grouped, which rules out most data modules */
+    private static final int MIN_FINDER_PATTERN_COUNT = 2;
+
+    /** The largest difference between the module sizes of the finder patterns of a symbol, as a fraction of the larger */
+    private static final float MAX_MODULE_SIZE_DIFFERENCE = 0.4f;
+
+    /** The largest triangle score of three finder patterns of a symbol, as scored by {@link SymbolDetector} */
+    private static final float MAX_TRIANGLE_SCORE = 0.3f;
+
+    /** The fewest matching timing pattern modules out of 1000 for a candidate to be claimed */
+    private static final int MIN_TIMING_PATTERN_SCORE = 900;
+
+    /** The largest distance between the centers of two finder patterns of a symbol, in modules */
+    private static final float MAX_FINDER_PATTERN_DISTANCE = (float) Math.sqrt(2)
+            * (new Version(Version.MAXIMUM_VERSION).getSymbolSideLength() - SymbolInfo.DETECTION_PATTERN_DIAMETER);
+
+    /**
+     * The fewest matching modules out of 1000 of the timing pattern along one side of a candidate, which is as low as
+     * the other side may score while the candidate still reaches {@link #MIN_TIMING_PATTERN_SCORE}
+     */
+    private static final int MIN_LEG_TIMING_PATTERN_SCORE = 2 * MIN_TIMING_PATTERN_SCORE - 1000;
+
+    /** The distance from the center of a finder pattern to the edge of the symbol, in modules */
+    private static final float FINDER_PATTERN_CENTER_OFFSET = SymbolInfo.DETECTION_PATTERN_RADIUS + 0.5f;
+
+    /** The side to the left of a line between two finder patterns */
+    private static final byte LEFT = 1;
+
+    /** The side to the right of a line between two finder patterns */
+    private static final byte RIGHT = 2;
+
+    /** The decoder of each thread, since decoders keep scratch buffers between calls */
+    private static final ThreadLocal<SymbolDecoder> DECODERS = ThreadLocal.withInitial(SymbolDecoder::new);
+
+    /**
+     * Detect and decode every symbol in a binarized image
+     *
+     * @param image The image to search
+     * @return The decoded symbols, ordered by the position of their top left finder pattern from top to bottom and
+     * then from left to right
+     */
+    public List<LocatedSymbol> detect(BinarizedImage image) {
+        List<FinderPattern> patterns = FinderPatternFinder.find(image).stream()
+                .filter(pattern -> pattern.getCount() >= MIN_FINDER_PATTERN_COUNT)
+                .collect(Collectors.toList());
+        List<Candidate> candidates = getCandidates(image, patterns);
+
+        List<LocatedSymbol> symbols = new ArrayList<>();
+        // the finder patterns of the symbols decoded so far
+        boolean[] used = new boolean[patterns.size()];
+        while (true) {
+            boolean[] claimed = used.clone();
+            List<Candidate> round = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                if (candidate.failed || claimed[candidate.indexes[0]] || claimed[candidate.indexes[1]] || claimed[candidate.indexes[2]]) {
+                    continue;
+                }
+                for (int index : candidate.indexes) {
+                    claimed[index] = true;
+                }
+                round.add(candidate);
+            }
+            if (round.isEmpty()) {
+                break;
+            }
+            round.parallelStream().forEach(candidate -> candidate.symbol = decode(image, candidate.ordered));
+            for (Candidate candidate : round) {
+                if (candidate.symbol == null) {
+                    candidate.failed = true;
+                    continue;
+                }
+                for (int index : candidate.indexes) {
+                    used[index] = true;
+                }
+                symbols.add(candidate.symbol);
+            }
+        }
+        symbols.sort(Comparator.comparing((LocatedSymbol symbol) -> symbol.getTopLeft().getY())
+                .thenComparing(symbol -> symbol.getTopLeft().getX()));
+        return symbols;
+    }
+
+    /**
+     * Find the triples of finder patterns that may be the finder patterns of a symbol. A symbol has a timing pattern
+     * along each of the two sides of its triangle that meet at the top left finder pattern, so each finder pattern is
+     * first paired with the neighbors it would share a timing pattern with. Only pairs of such legs from one finder pattern are scored as triangles, which keeps the
+     * finder patterns of neighboring symbols in a grid from being tried in every combination.
+     *
+     * @param image The image the finder patterns were found in
+     * @param patterns The finder patterns
+     * @return The candidates whose timing patterns line up well enough, from the best to the worst
+     */
+    private static List<Candidate> getCandidates(BinarizedImage image, List<FinderPattern> patterns) {
+        int n = patterns.size();
+        // the sides of the line from each finder pattern to each other one with a timing pattern along them, as a bit
+        // for the left and a bit for the right of the line, looking from the first finder pattern to the second
+        byte[] legs = new byte[n * n];
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                if (areNeighbors(patterns.get(a), patterns.get(b))) {
+                    legs[a * n + b] = getTimingPatternSides(image, patterns.get(a), patterns.get(b));
+                    // the left of the line seen from one end is its right seen from the other
+                    legs[b * n + a] = (byte) (((legs[a * n + b] & LEFT) << 1) | ((legs[a * n + b] & RIGHT) >> 1));
+                }
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                // seen from the top left finder pattern, the bottom left one is on the right of the line to the top
+                // right one, and the top right one is on the left of the line to the bottom left one
+                if ((legs[a * n + b] & RIGHT) == 0) {
+                    continue;
+                }
+                for (int c = 0; c < n; c++) {
+                    if ((legs[a * n + c] & LEFT) == 0 || !areNeighbors(patterns.get(b), patterns.get(c))) {
+                        continue;
+                    }
+                    FinderPattern[] ordered = { patterns.get(a), patterns.get(b), patterns.get(c) };
+                    if (SymbolDetector.orderFinderPatterns(ordered[0], ordered[1], ordered[2])[0] != ordered[0]) {
+                        continue;
+                    }
+                    float triangleScore = SymbolDetector.getTriangleScore(ordered);
+                    if (triangleScore <= MAX_TRIANGLE_SCORE) {
+                        candidates.add(new Candidate(new int[]{ a, b, c }, ordered, triangleScore));
+                    }
+                }
+            }
+        }
+
+        candidates.parallelStream().forEach(candidate -> candidate.timingPatternScore = getTimingPatternScore(image, candidate.ordered));
+        return candidates.stream()
+                .filter(candidate -> candidate.timingPatternScore >= MIN_TIMING_PATTERN_SCORE)
+                .sorted(Comparator.comparingInt((Candidate candidate) -> -candidate.timingPatternScore)
+                        .thenComparingDouble(candidate -> candidate.triangleScore))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find the sides of the line between two finder patterns along which a symbol would have its timing pattern. The
+     * number of modules between the finder patterns is estimated from their distance as {@link SymbolDetector} does,
+     * and a side is kept if the modules along it line up with a timing pattern for that number or the valid numbers on
+     * either side of it.
+     *
+     * @return {@link #LEFT} and {@link #RIGHT} for the sides of the line, looking from the first finder pattern
+     */
+    private static byte getTimingPatternSides(BinarizedImage image, FinderPattern from, FinderPattern to) {
+        float length = from.distanceTo(to);
+        float span = length / SymbolDetector.measureModuleSize(image, from, to);
+        int estimate = Math.round((span + 2 * FINDER_PATTERN_CENTER_OFFSET - 17) / 4);
+        byte sides = 0;
+        for (int version = Math.max(Version.MINIMUM_VERSION, estimate - 1);
+             version <= Math.min(Version.MAXIMUM_VERSION, estimate + 1); version++) {
+            int sideLength = new Version(version).getSymbolSideLength();
+            float centerSpan = sideLength - 2 * FINDER_PATTERN_CENTER_OFFSET;
+            // one module to the left of the line, for a symbol of this side length
+            float leftX = (to.getY() - from.getY()) / centerSpan;
+            float leftY = -(to.getX() - from.getX()) / centerSpan;
+            if (getTimingPatternScore(image, from, to, sideLength, leftX, leftY) >= MIN_LEG_TIMING_PATTERN_SCORE) {
+                sides |= LEFT;
+            }
+            if (getTimingPatternScore(image, from, to, sideLength, -leftX, -leftY) >= MIN_LEG_TIMING_PATTERN_SCORE) {
+                sides |= RIGHT;
+            }
+        }
+        return sides;
+    }
+
+    /**
+     * Score how well the modules along one side of the line between two finder patterns line up with the timing
+     * pattern of a symbol of a given side length
+     *
+     * @param acrossX The horizontal step of one module from the line towards the timing pattern
+     * @param acrossY The vertical step of one module from the line towards the timing pattern
+     * @return The fraction of timing pattern modules that match, out of 1000
+     */
+    private static int getTimingPatternScore(BinarizedImage image, FinderPattern from, FinderPattern to, int sideLength,
+                                             float acrossX, float acrossY) {
+        float centerSpan = sideLength - 2 * FINDER_PATTERN_CENTER_OFFSET;
+        float across = SymbolInfo.TIMING_PATTERN_COORDINATE + 0.5f - FINDER_PATTERN_CENTER_OFFSET;
+        int matches = 0;
+        int total = 0;
+        for (int n = SymbolInfo.TIMING_PATTERN_OFFSET; n < sideLength - SymbolInfo.TIMING_PATTERN_OFFSET; n++) {
+            float t = (n + 0.5f - FINDER_PATTERN_CENTER_OFFSET) / centerSpan;
+            float x = from.getX() + t * (to.getX() - from.getX()) + across * acrossX;
+            float y = from.getY() + t * (to.getY() - from.getY()) + across * acrossY;
+            matches += image.isDark((int) x, (int) y) == (n % 2 == 0) ? 1 : 0;
+            total++;
+        }
+        return matches * 1000 / total;
+    }
+
+    /**
+     * Whether two finder patterns have module sizes and a distance that allow them to belong to the same symbol
+     */
+    private static boolean areNeighbors(FinderPattern p, FinderPattern q) {
+        float maxModuleSize = Math.max(p.getModuleSize(), q.getModuleSize());
+        return Math.abs(p.getModuleSize() - q.getModuleSize()) <= MAX_MODULE_SIZE_DIFFERENCE * maxModuleSize
+                && p.distanceTo(q) <= MAX_FINDER_PATTERN_DISTANCE * maxModuleSize;
+    }
+
+    /**
+     * Score the timing patterns of the symbol that ordered finder patterns would have
+     *
+     * @return The fraction of timing pattern modules that match, out of 1000, or 0 if the finder patterns do not give
+     * a valid version
+     */
+    private static int getTimingPatternScore(BinarizedImage image, FinderPattern[] ordered) {
+        try {
+            int sideLength = SymbolDetector.getSideLength(image, ordered[0], ordered[1], ordered[2]);
+            return SymbolDetector.getTimingPatternScore(image, ordered[0], ordered[1], ordered[2], sideLength);
+        } catch (DecodeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Sample and decode the symbol of a group of finder patterns
+     *
+     * @return The located symbol, or null if it could not be decoded
+     */
+    private static LocatedSymbol decode(BinarizedImage image, FinderPattern[] group) {
+        try {
+            boolean[][] modules = SymbolDetector.sample(image, group[0], group[1], group[2]);
+            return new LocatedSymbol(group[0], group[1], group[2], DECODERS.get().decode(modules));
+        } catch (DecodeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Three finder patterns that may be the top left, top right and bottom left finder patterns of a symbol
+     */
+    private static class Candidate {
+
+        /** The indexes of the finder patterns in the list being grouped */
+        private final int[] indexes;
+
+        private final FinderPattern[] ordered;
+
+        private final float triangleScore;
+
+        private int timingPatternScore;
+
+        /** The decoded symbol, once the candidate has been claimed and decoded */
+        private LocatedSymbol symbol;
+
+        /** Whether the candidate was claimed and could not be decoded */
+        private boolean failed;
+
+        private Candidate(int[] indexes, FinderPattern[] ordered, float triangleScore) {
+            this.indexes = indexes;
+            this.ordered = ordered;
+            this.triangleScore = triangleScore;
+        }
+    }
+
+    /**
+     * Detect the symbols of two composited test images and print the throughput in megapixels per second. The first
+     * holds symbols of versions 1 to 7 at random rotations and module sizes in a grid, under uneven lighting and noise.
+     * The second holds symbols of one version in a tight grid, one module apart, where the finder patterns of
+     * neighboring symbols form as many triangles as those of each symbol, and every seventh symbol has its data
+     * scrambled so that it is claimed and fails to decode. The optional arguments are the number of columns and rows
+     * of each grid and the number of timed iterations.
+     */
+    public static void main(String[] args) {
+        int columns = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Random random = new Random(18004);
+        SymbolEncoder encoder = new SymbolEncoder();
+        boolean passed = true;
+
+        int cellSize = 400;
+        int width = columns * cellSize;
+        int height = rows * cellSize;
+        int[] luminance = getBackground(width, height, random);
+        Map<String, Integer> expected = new HashMap<>();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                String text = String.format("RMA-%04d-%s", row * columns + column, "x".repeat(random.nextInt(100)));
+                expected.merge(text, 1, Integer::sum);
+                ModuleMatrix modules = encoder.encode(text, ErrorCorrectionLevel.M).getModules();
+                int sideLength = modules.getSideLength();
+                // the symbol and its quiet zone must fit in the cell at any rotation
+                float maxModuleSize = (cellSize - 8) / ((sideLength + 2 * SymbolRenderer.QUIET_ZONE_WIDTH) * (float) Math.sqrt(2));
+                float moduleSize = 2.5f + random.nextFloat() * (Math.min(6, maxModuleSize) - 2.5f);
+                draw(luminance, width, modules, column * cellSize + cellSize / 2.0f, row * cellSize + cellSize / 2.0f,
+                        moduleSize, random.nextDouble() * 2 * Math.PI, random);
+            }
+        }
+        passed &= run("rotated", luminance, width, height, expected, iterations);
+
+        int moduleSize = 3;
+        int gap = 1;
+        int sideLength = encoder.encode(String.format("PALLET-%06d", 0), ErrorCorrectionLevel.M).getModules().getSideLength();
+        int pitch = (sideLength + gap) * moduleSize;
+        width = columns * pitch + gap * moduleSize;
+        height = rows * pitch + gap * moduleSize;
+        luminance = getBackground(width, height, random);
+        expected.clear();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                String text = String.format("PALLET-%06d", row * columns + column);
+                EncodedSymbol symbol = encoder.encode(text, ErrorCorrectionLevel.M);
+                ModuleMatrix modules = symbol.getModules();
+                if ((row * columns + column) % 7 == 6) {
+                    for (int i = 0; i < sideLength; i++) {
+                        for (int j = 0; j < sideLength; j++) {
+                            if (symbol.getSymbolInfo().isCoordinateAvailableForData(i, j)) {
+                                modules.setDark(i, j, random.nextBoolean());
+                            }
+                        }
+                    }
+                } else {
+                    expected.merge(text, 1, Integer::sum);
+                }
+                float center = gap * moduleSize + sideLength * moduleSize / 2.0f;
+                draw(luminance, width, modules, center + column * pitch, center + row * pitch, moduleSize, 0, random);
+            }
+        }
+        passed &= run("tight grid", luminance, width, height, expected, iterations);
+        System.out.println(passed ? "passed" : "FAILED");
+    }
+
+    /**
+     * Get a light background whose lighting falls off from the top left corner to the bottom right one, with noise
+     */
+    private static int[] getBackground(int width, int height, Random random) {
+        int[] luminance = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                luminance[y * width + x] = 230 - 60 * (x + y) / (width + height) + random.nextInt(21) - 10;
+            }
+        }
+        return luminance;
+    }
+
+    /**
+     * Draw the dark modules of a symbol rotated about its center
+     */
+    private static void draw(int[] luminance, int width, ModuleMatrix modules, float centerX, float centerY, float moduleSize,
+                             double angle, Random random) {
+        int sideLength = modules.getSideLength();
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        int radius = (int) Math.ceil(sideLength * moduleSize * Math.sqrt(2) / 2);
+        int height = luminance.length / width;
+        for (int y = Math.max(0, (int) centerY - radius); y < Math.min(height, (int) centerY + radius + 1); y++) {
+            for (int x = Math.max(0, (int) centerX - radius); x < Math.min(width, (int) centerX + radius + 1); x++) {
+                float dx = x + 0.5f - centerX;
+                float dy = y + 0.5f - centerY;
+                float u = (cos * dx + sin * dy) / moduleSize + sideLength / 2.0f;
+                float v = (-sin * dx + cos * dy) / moduleSize + sideLength / 2.0f;
+                if (u >= 0 && v >= 0 && u < sideLength && v < sideLength && modules.isDark((int) v, (int) u)) {
+                    luminance[y * width + x] = 40 + random.nextInt(21);
+                }
+            }
+        }
+    }
+
+    /**
+     * Time binarizing and detecting an image, and check that exactly the expected texts were decoded
+     */
+    private static boolean run(String name, int[] luminance, int width, int height, Map<String, Integer> expected, int iterations) {
+        MultiSymbolDetector detector = new MultiSymbolDetector();
+        List<LocatedSymbol> symbols = null;
+        long binarizeNanos = 0;
+        long detectNanos = 0;
+        for (int i = -2; i < iterations; i++) {
+            long start = System.nanoTime();
+            BinarizedImage image = BinarizedImage.binarize(luminance, width, height);
+            long binarized = System.nanoTime();
+            symbols = detector.detect(image);
+            long detected = System.nanoTime();
+            // the first iterations warm up the compiler
+            if (i >= 0) {
+                binarizeNanos += binarized - start;
+                detectNanos += detected - binarized;
+            }
+        }
+
+        Map<String, Integer> found = new HashMap<>();
+        for (LocatedSymbol symbol : symbols) {
+            found.merge(new String(symbol.getDecodedSymbol().getData(), StandardCharsets.ISO_8859_1), 1, Integer::sum);
+        }
+        double megapixels = width * height / 1e6;
+        System.out.printf("%s: %s x %s pixels, %s processors%n", name, width, height, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-10s %10.1f ms %10.1f MP/s%n", "binarize", binarizeNanos / 1e6 / iterations,
+                megapixels * iterations / (binarizeNanos / 1e9));
+        System.out.printf("%-10s %10.1f ms %10.1f MP/s%n", "detect", detectNanos / 1e6 / iterations,
+                megapixels * iterations / (detectNanos / 1e9));
+        System.out.printf("%-10s %10.1f ms %10.1f MP/s%n", "total", (binarizeNanos + detectNanos) / 1e6 / iterations,
+                megapixels * iterations / ((binarizeNanos + detectNanos) / 1e9));
+        boolean passed = found.equals(expected);
+        System.out.printf("decoded %s of %s: %s%n", symbols.size(), expected.values().stream().mapToInt(Integer::intValue).sum(),
+                passed ? "passed" : "FAILED");
+        return passed;
+    }
+}
@@ -0,0 +1,157 @@
+package symbol;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encoder of single page PDF documents holding one 1 bit image that covers the page, as described by ISO 32000-1. The
+ * image is compressed with the FlateDecode filter and the PNG predictors, so its rows are filtered as in
+ * {@link PngEncoder}, and its length is written as an indirect object after it so that the rows can be streamed.
+ */
+class PdfEncoder implements RasterEncoder {
+
+    private static final int IMAGE_OBJECT = 5;
+
+    private static final int LENGTH_OBJECT = 6;
+
+    private static final int NUM_OBJECTS = 6;
+
+    /** The predictor value meaning that each row has its own PNG filter type */
+    private static final int PNG_OPTIMUM_PREDICTOR = 15;
+
+    private static final double POINTS_PER_INCH = 72;
+
+    private final CountingOutputStream out;
+
+    private final int height;
+
+    /** The offset of each object from the start of the document, by object number */
+    private final long[] objectOffsets = new long[NUM_OBJECTS + 1];
+
+    private final Deflater deflater = new Deflater();
+
+    private final DeflaterOutputStream data;
+
+    private final PngEncoder.FilteredRowWriter rowWriter;
+
+    private final long dataStart;
+
+    private int rowsWritten;
+
+    /**
+     * Create a PdfEncoder and write the document up to the start of the image data
+     *
+     * @param out The stream to write the document to, which is left open
+     * @param width The width of the image in pixels
+     * @param height The height of the image in pixels
+     * @param dotsPerInch The resolution of the image, which sets the size of the page
+     * @throws IOException If the start of the document could not be written
+     */
+    PdfEncoder(OutputStream out, int width, int height, int dotsPerInch) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(String.format("Image of %sx%s pixels is not valid", width, height));
+        }
+        if (dotsPerInch < 1) {
+            throw new IllegalArgumentException(String.format("Resolution of %s dpi is not valid", dotsPerInch));
+        }
+        this.out = new CountingOutputStream(out);
+        this.height = height;
+        String pageWidth = String.format(Locale.ROOT, "%.2f", width * POINTS_PER_INCH / dotsPerInch);
+        String pageHeight = String.format(Locale.ROOT, "%.2f", height * POINTS_PER_INCH / dotsPerInch);
+
+        // the binary comment marks the file as binary for transfer programs
+        write("%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+        writeObject(1, "<< /Type /Catalog /Pages 2 0 R >>");
+        writeObject(2, "<< /Type /Pages /Kids [3 0 R] /Count 1 >>");
+        writeObject(3, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + pageWidth + " " + pageHeight + "]"
+                + " /Resources << /XObject << /Im0 " + IMAGE_OBJECT + " 0 R >> >> /Contents 4 0 R >>");
+        String contents = "q " + pageWidth + " 0 0 " + pageHeight + " 0 0 cm /Im0 Do Q";
+        writeObject(4, "<< /Length " + contents.length() + " >>\nstream\n" + contents + "\nendstream");
+        objectOffsets[IMAGE_OBJECT] = this.out.count;
+        write(IMAGE_OBJECT + " 0 obj\n<< /Type /XObject /Subtype /Image /Width " + width + " /Height " + height
+                + " /ColorSpace /DeviceGray /BitsPerComponent 1 /Filter /FlateDecode"
+                + " /DecodeParms << /Predictor " + PNG_OPTIMUM_PREDICTOR + " /Colors 1 /BitsPerComponent 1 /Columns " + width + " >>"
+                + " /Length " + LENGTH_OBJECT + " 0 R >>\nstream\n");
+        dataStart = this.out.count;
+        data = new DeflaterOutputStream(this.out, deflater);
+        rowWriter = new PngEncoder.FilteredRowWriter(data, RasterEncoder.getRowLength(width));
+    }
+
+    @Override
+    public void writeRows(byte[] rows, int rowCount) throws IOException {
+        if (rowsWritten + rowCount > height) {
+            throw new IllegalStateException(String.format("Image of %s rows has no room for %s more rows", height, rowCount));
+        }
+        rowWriter.writeRows(rows, rowCount);
+        rowsWritten += rowCount;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException(String.format("Image of %s rows was finished after %s rows", height, rowsWritten));
+        }
+        try {
+            data.close();
+        } finally {
+            deflater.end();
+        }
+        long dataLength = out.count - dataStart;
+        write("\nendstream\nendobj\n");
+        writeObject(LENGTH_OBJECT, Long.toString(dataLength));
+
+        long xrefOffset = out.count;
+        StringBuilder xref = new StringBuilder("xref\n0 " + (NUM_OBJECTS + 1) + "\n0000000000 65535 f \n");
+        for (int object = 1; object <= NUM_OBJECTS; object++) {
+            xref.append(String.format("%010d 00000 n \n", objectOffsets[object]));
+        }
+        xref.append("trailer\n<< /Size ").append(NUM_OBJECTS + 1).append(" /Root 1 0 R >>\n");
+        xref.append("startxref\n").append(xrefOffset).append("\n%%EOF\n");
+        write(xref.toString());
+        out.flush();
+    }
+
+    private void writeObject(int object, String body) throws IOException {
+        objectOffsets[object] = out.count;
+        write(object + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Output stream that counts the bytes written through it, for the offsets of the cross-reference table, and only
+     * flushes the stream it writes to when closed, since the document goes on after the image data
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
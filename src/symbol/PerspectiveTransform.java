@@ -0,0 +1,95 @@
+package symbol;
+
+/**
+ * A projective transformation of the plane, used to map module coordinates of a symbol to pixel coordinates
+ * of an image in which the symbol may be seen at an angle. The transformation is represented by a 3x3 matrix
+ * that maps (x, y, 1) to (u, v, w), giving the point (u / w, v / w).
+ */
+public class PerspectiveTransform {
+
+    private final float a11, a12, a13, a21, a22, a23, a31, a32, a33;
+
+    private PerspectiveTransform(float a11, float a21, float a31,
+                                 float a12, float a22, float a32,
+                                 float a13, float a23, float a33) {
+        this.a11 = a11;
+        this.a12 = a12;
+        this.a13 = a13;
+        this.a21 = a21;
+        this.a22 = a22;
+        this.a23 = a23;
+        this.a31 = a31;
+        this.a32 = a32;
+        this.a33 = a33;
+    }
+
+    /**
+     * Create the transformation that maps one quadrilateral onto another, each given by its corners in the same order
+     *
+     * @return The transformation mapping each corner of the first quadrilateral to the matching corner of the second
+     */
+    public static PerspectiveTransform quadrilateralToQuadrilateral(
+            float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3,
+            float x0p, float y0p, float x1p, float y1p, float x2p, float y2p, float x3p, float y3p) {
+        PerspectiveTransform quadToSquare = squareToQuadrilateral(x0, y0, x1, y1, x2, y2, x3, y3).adjoint();
+        PerspectiveTransform squareToQuad = squareToQuadrilateral(x0p, y0p, x1p, y1p, x2p, y2p, x3p, y3p);
+        return squareToQuad.times(quadToSquare);
+    }
+
+    /**
+     * Create the transformation that maps the unit square (0, 0), (1, 0), (1, 1), (0, 1) onto a quadrilateral
+     */
+    private static PerspectiveTransform squareToQuadrilateral(
+            float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3) {
+        float dx3 = x0 - x1 + x2 - x3;
+        float dy3 = y0 - y1 + y2 - y3;
+        if (dx3 == 0.0f && dy3 == 0.0f) {
+            // the quadrilateral is a parallelogram, so the transformation is affine
+            return new PerspectiveTransform(x1 - x0, x2 - x1, x0, y1 - y0, y2 - y1, y0, 0.0f, 0.0f, 1.0f);
+        }
+        float dx1 = x1 - x2;
+        float dx2 = x3 - x2;
+        float dy1 = y1 - y2;
+        float dy2 = y3 - y2;
+        float denominator = dx1 * dy2 - dx2 * dy1;
+        float a13 = (dx3 * dy2 - dx2 * dy3) / denominator;
+        float a23 = (dx1 * dy3 - dx3 * dy1) / denominator;
+        return new PerspectiveTransform(
+                x1 - x0 + a13 * x1, x3 - x0 + a23 * x3, x0,
+                y1 - y0 + a13 * y1, y3 - y0 + a23 * y3, y0,
+                a13, a23, 1.0f);
+    }
+
+    private PerspectiveTransform adjoint() {
+        return new PerspectiveTransform(
+                a22 * a33 - a23 * a32, a23 * a31 - a21 * a33, a21 * a32 - a22 * a31,
+                a13 * a32 - a12 * a33, a11 * a33 - a13 * a31, a12 * a31 - a11 * a32,
+                a12 * a23 - a13 * a22, a13 * a21 - a11 * a23, a11 * a22 - a12 * a21);
+    }
+
+    private PerspectiveTransform times(PerspectiveTransform other) {
+        return new PerspectiveTransform(
+                a11 * other.a11 + a21 * other.a12 + a31 * other.a13,
+                a11 * other.a21 + a21 * other.a22 + a31 * other.a23,
+                a11 * other.a31 + a21 * other.a32 + a31 * other.a33,
+                a12 * other.a11 + a22 * other.a12 + a32 * other.a13,
+                a12 * other.a21 + a22 * other.a22 + a32 * other.a23,
+                a12 * other.a31 + a22 * other.a32 + a32 * other.a33,
+                a13 * other.a11 + a23 * other.a12 + a33 * other.a13,
+                a13 * other.a21 + a23 * other.a22 + a33 * other.a23,
+                a13 * other.a31 + a23 * other.a32 + a33 * other.a33);
+    }
+
+    /**
+     * Transform a point
+     *
+     * @param x The horizontal coordinate of the point
+     * @param y The vertical coordinate of the point
+     * @param result Set to the transformed horizontal and vertical coordinates
+     */
+    public void transform(float x, float y, float[] result) {
+        float w = a13 * x + a23 * y + a33;
+        result[0] = (a11 * x + a21 * y + a31) / w;
+        result[1] = (a12 * x + a22 * y + a32) / w;
+    }
+}
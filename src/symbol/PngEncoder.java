@@ -0,0 +1,236 @@
+package symbol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encoder of 1 bit grayscale PNG images, as described by the PNG specification ISO/IEC 15948, built on java.util.zip
+ * alone so that it needs nothing outside the java.base module. A row that repeats the one above it uses the Up filter,
+ * whose bytes are all 0, so each row of modules costs little more to compress than one row of pixels at any scale.
+ */
+class PngEncoder implements RasterEncoder {
+
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    private static final int HEADER_LENGTH = 13;
+
+    private static final int PHYSICAL_DIMENSIONS_LENGTH = 9;
+
+    private static final byte BIT_DEPTH = 1;
+
+    private static final byte GRAYSCALE = 0;
+
+    /** The unit of the physical pixel dimensions, which are in pixels per meter */
+    private static final byte METER = 1;
+
+    private static final double INCHES_PER_METER = 1000 / 25.4;
+
+    /** The largest number of bytes of compressed image data in one IDAT chunk */
+    private static final int CHUNK_SIZE = 1 << 15;
+
+    private final OutputStream out;
+
+    private final int height;
+
+    private final Deflater deflater = new Deflater();
+
+    private final DeflaterOutputStream data;
+
+    private final FilteredRowWriter rowWriter;
+
+    private int rowsWritten;
+
+    /**
+     * Create a PngEncoder and write the start of the image
+     *
+     * @param out The stream to write the image to, which is left open
+     * @param width The width of the image in pixels
+     * @param height The height of the image in pixels
+     * @param dotsPerInch The resolution to record in the image, or 0 to record none
+     * @throws IOException If the start of the image could not be written
+     */
+    PngEncoder(OutputStream out, int width, int height, int dotsPerInch) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(String.format("Image of %sx%s pixels is not valid", width, height));
+        }
+        this.out = out;
+        this.height = height;
+        out.write(SIGNATURE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH)
+                .putInt(width)
+                .putInt(height)
+                // no compression method, filter method or interlace method but the default
+                .put(BIT_DEPTH).put(GRAYSCALE).put((byte) 0).put((byte) 0).put((byte) 0);
+        writeChunk(out, "IHDR", header.array(), HEADER_LENGTH);
+        if (dotsPerInch > 0) {
+            int pixelsPerMeter = (int) Math.round(dotsPerInch * INCHES_PER_METER);
+            ByteBuffer dimensions = ByteBuffer.allocate(PHYSICAL_DIMENSIONS_LENGTH)
+                    .putInt(pixelsPerMeter).putInt(pixelsPerMeter).put(METER);
+            writeChunk(out, "pHYs", dimensions.array(), PHYSICAL_DIMENSIONS_LENGTH);
+        }
+        data = new DeflaterOutputStream(new ChunkOutputStream(out), deflater, CHUNK_SIZE);
+        rowWriter = new FilteredRowWriter(data, RasterEncoder.getRowLength(width));
+    }
+
+    /**
+     * Write a symbol as a PNG image, surrounded by a light quiet zone
+     *
+     * @param symbol The modules of the symbol
+     * @param scale The number of pixels per module along each side
+     * @param quietZoneWidth The width of the quiet zone in modules
+     * @param out The stream to write the image to, which is left open
+     * @throws IOException If the image could not be written
+     */
+    static void write(ModuleMatrix symbol, int scale, int quietZoneWidth, OutputStream out) throws IOException {
+        int imageSideLength = (symbol.getSideLength() + 2 * quietZoneWidth) * scale;
+        RasterEncoder.writeSymbol(new PngEncoder(out, imageSideLength, imageSideLength, 0), symbol, scale, quietZoneWidth);
+    }
+
+    @Override
+    public void writeRows(byte[] rows, int rowCount) throws IOException {
+        if (rowsWritten + rowCount > height) {
+            throw new IllegalStateException(String.format("Image of %s rows has no room for %s more rows", height, rowCount));
+        }
+        rowWriter.writeRows(rows, rowCount);
+        rowsWritten += rowCount;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException(String.format("Image of %s rows was finished after %s rows", height, rowsWritten));
+        }
+        try {
+            data.close();
+        } finally {
+            deflater.end();
+        }
+        writeChunk(out, "IEND", new byte[0], 0);
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.write(ByteBuffer.allocate(4).putInt(length).array());
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    /**
+     * Writer of packed rows preceded by their PNG filter type, which is Up for a row equal to the one above it and None
+     * otherwise. PDF images use the same filtered rows through the PNG predictors of the FlateDecode filter.
+     */
+    static class FilteredRowWriter {
+
+        private static final byte FILTER_NONE = 0;
+
+        private static final byte FILTER_UP = 2;
+
+        private final OutputStream out;
+
+        private final int rowLength;
+
+        /** The last row written, with the filter type in front */
+        private final byte[] previousRow;
+
+        /** A filtered row repeating the one above it */
+        private final byte[] repeatedRow;
+
+        private boolean hasPreviousRow;
+
+        /**
+         * Create a FilteredRowWriter
+         *
+         * @param out The stream to write the filtered rows to
+         * @param rowLength The number of bytes of a packed row
+         */
+        FilteredRowWriter(OutputStream out, int rowLength) {
+            this.out = out;
+            this.rowLength = rowLength;
+            this.previousRow = new byte[1 + rowLength];
+            this.repeatedRow = new byte[1 + rowLength];
+            previousRow[0] = FILTER_NONE;
+            repeatedRow[0] = FILTER_UP;
+        }
+
+        /**
+         * Filter and write packed rows
+         *
+         * @param rows The packed rows, one after the other
+         * @param rowCount The number of rows to write from the start of the array
+         * @throws IOException If the rows could not be written
+         */
+        void writeRows(byte[] rows, int rowCount) throws IOException {
+            for (int r = 0; r < rowCount; r++) {
+                int offset = r * rowLength;
+                if (hasPreviousRow && Arrays.equals(rows, offset, offset + rowLength, previousRow, 1, 1 + rowLength)) {
+                    out.write(repeatedRow);
+                } else {
+                    System.arraycopy(rows, offset, previousRow, 1, rowLength);
+                    out.write(previousRow);
+                    hasPreviousRow = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Output stream that writes compressed image data as IDAT chunks of up to {@link #CHUNK_SIZE} bytes, and leaves the
+     * stream it writes to open when closed
+     */
+    private static class ChunkOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+
+        private int count;
+
+        ChunkOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (count > 0) {
+                flushChunk();
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            writeChunk(out, "IDAT", buffer, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package symbol;
+
+import model.ErrorCorrectionLevel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stand-in for a label printer that parses the commands written by {@link ZplEncoder} and {@link EscPosEncoder} back
+ * into the dots a printer would print, so that both can be checked without a printer. Only the commands the encoders
+ * write are understood: one ZPL ^GF graphic field in ASCII hexadecimal with or without compression, and ESC/POS GS v 0
+ * raster bit images in any mode.
+ */
+class PrinterCommandParser {
+
+    /**
+     * Parse a ZPL label holding one ^GFA graphic field
+     *
+     * @param label The bytes of the label
+     * @return The printed dots indexed by row and column
+     * @throws IllegalArgumentException If the label holds no valid graphic field
+     */
+    static boolean[][] parseZpl(byte[] label) {
+        String text = new String(label, StandardCharsets.US_ASCII);
+        int start = text.indexOf("^GFA,");
+        if (start < 0) {
+            throw new IllegalArgumentException("Label has no ASCII graphic field");
+        }
+        String[] parameters = text.substring(start + 5).split(",", 4);
+        int totalBytes = Integer.parseInt(parameters[1]);
+        int rowLength = Integer.parseInt(parameters[2]);
+        String data = parameters[3].substring(0, parameters[3].indexOf('^'));
+        int height = totalBytes / rowLength;
+        int rowDigits = 2 * rowLength;
+
+        boolean[][] dots = new boolean[height][rowLength * 8];
+        char[] row = new char[rowDigits];
+        char[] previousRow = new char[rowDigits];
+        int rowNumber = 0;
+        int position = 0;
+        int count = 0;
+        for (int n = 0; n < data.length() && rowNumber < height; n++) {
+            char c = data.charAt(n);
+            if (c >= 'G' && c <= 'Y') {
+                count += c - 'G' + 1;
+            } else if (c >= 'g' && c <= 'z') {
+                count += (c - 'g' + 1) * 20;
+            } else if (c == ZplEncoder.FILL_WHITE || c == ZplEncoder.FILL_BLACK || c == ZplEncoder.REPEAT_ROW) {
+                if (c == ZplEncoder.REPEAT_ROW) {
+                    System.arraycopy(previousRow, 0, row, 0, rowDigits);
+                } else {
+                    while (position < rowDigits) {
+                        row[position++] = c == ZplEncoder.FILL_WHITE ? '0' : 'F';
+                    }
+                }
+                position = rowDigits;
+            } else if (Character.digit(c, 16) >= 0) {
+                for (int k = 0; k < Math.max(count, 1); k++) {
+                    row[position++] = c;
+                }
+                count = 0;
+            } else if (!Character.isWhitespace(c)) {
+                throw new IllegalArgumentException(String.format("Graphic field has invalid character %s", c));
+            }
+            if (position == rowDigits) {
+                for (int x = 0; x < rowLength * 8; x++) {
+                    dots[rowNumber][x] = (Character.digit(row[x / 4], 16) & (8 >>> (x % 4))) != 0;
+                }
+                System.arraycopy(row, 0, previousRow, 0, rowDigits);
+                rowNumber++;
+                position = 0;
+            }
+        }
+        if (rowNumber != height) {
+            throw new IllegalArgumentException(String.format("Graphic field has %s rows instead of %s", rowNumber, height));
+        }
+        return dots;
+    }
+
+    /**
+     * Parse ESC/POS GS v 0 raster bit image commands printed one below the other
+     *
+     * @param commands The bytes of the commands
+     * @return The printed dots indexed by row and column, with the scaling of each command applied
+     * @throws IllegalArgumentException If the bytes are not raster bit image commands
+     */
+    static boolean[][] parseEscPos(byte[] commands) {
+        List<boolean[]> rows = new ArrayList<>();
+        int n = 0;
+        while (n < commands.length) {
+            if (n + 8 > commands.length || commands[n] != EscPosEncoder.RASTER_BIT_IMAGE[0]
+                    || commands[n + 1] != EscPosEncoder.RASTER_BIT_IMAGE[1] || commands[n + 2] != EscPosEncoder.RASTER_BIT_IMAGE[2]) {
+                throw new IllegalArgumentException(String.format("Byte %s does not start a raster bit image", n));
+            }
+            int mode = commands[n + 3] & 0x3;
+            int rowLength = (commands[n + 4] & 0xFF) | (commands[n + 5] & 0xFF) << 8;
+            int height = (commands[n + 6] & 0xFF) | (commands[n + 7] & 0xFF) << 8;
+            n += 8;
+            int horizontalScale = (mode & 1) != 0 ? 2 : 1;
+            int verticalScale = (mode & 2) != 0 ? 2 : 1;
+            for (int y = 0; y < height; y++) {
+                boolean[] row = new boolean[rowLength * 8 * horizontalScale];
+                for (int x = 0; x < rowLength * 8; x++) {
+                    boolean dot = (commands[n + y * rowLength + x / 8] & (0x80 >>> (x % 8))) != 0;
+                    for (int k = 0; k < horizontalScale; k++) {
+                        row[x * horizontalScale + k] = dot;
+                    }
+                }
+                for (int k = 0; k < verticalScale; k++) {
+                    rows.add(row);
+                }
+            }
+            n += rowLength * height;
+        }
+        return rows.toArray(new boolean[0][]);
+    }
+
+    /**
+     * Print symbols as ZPL and ESC/POS at a range of scales, directly and through a local socket, parse the commands
+     * back and check every dot against the modules
+     */
+    public static void main(String[] args) throws Exception {
+        SymbolEncoder encoder = new SymbolEncoder();
+        String[] payloads = { "1", "https://example.com/item/12345", "x".repeat(500) };
+        int failures = 0;
+        System.out.printf("%-8s %5s %10s %10s %10s %10s%n", "version", "scale", "raster", "zpl", "escpos", "png");
+        for (String payload : payloads) {
+            ModuleMatrix symbol = encoder.encode(payload, ErrorCorrectionLevel.M).getModules();
+            for (int scale = 1; scale <= 6; scale++) {
+                SymbolRenderer renderer = new SymbolRenderer(scale);
+                ByteArrayOutputStream zpl = new ByteArrayOutputStream();
+                renderer.writeZpl(symbol, zpl);
+                ByteArrayOutputStream escPos = new ByteArrayOutputStream();
+                renderer.writeEscPos(symbol, escPos);
+                ByteArrayOutputStream png = new ByteArrayOutputStream();
+                renderer.writePng(symbol, png);
+                failures += compare(parseZpl(zpl.toByteArray()), symbol, scale) ? 0 : 1;
+                failures += compare(parseEscPos(escPos.toByteArray()), symbol, scale) ? 0 : 1;
+                int sideLength = (symbol.getSideLength() + 2 * SymbolRenderer.QUIET_ZONE_WIDTH) * scale;
+                System.out.printf("%-8s %5s %10s %10s %10s %10s%n", (symbol.getSideLength() - 17) / 4, scale,
+                        RasterEncoder.getRowLength(sideLength) * sideLength, zpl.size(), escPos.size(), png.size());
+            }
+        }
+
+        // a local printer that parses whatever each connection sends
+        ModuleMatrix symbol = encoder.encode(payloads[1], ErrorCorrectionLevel.M).getModules();
+        SymbolRenderer renderer = new SymbolRenderer(4);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ServerSocket printer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            for (boolean zpl : new boolean[] { true, false }) {
+                Future<byte[]> received = executor.submit(() -> {
+                    try (Socket connection = printer.accept(); InputStream in = connection.getInputStream()) {
+                        return in.readAllBytes();
+                    }
+                });
+                try (Socket socket = new Socket(printer.getInetAddress(), printer.getLocalPort());
+                     OutputStream out = socket.getOutputStream()) {
+                    if (zpl) {
+                        renderer.writeZpl(symbol, out);
+                    } else {
+                        renderer.writeEscPos(symbol, out);
+                    }
+                }
+                byte[] bytes = received.get();
+                boolean[][] dots = zpl ? parseZpl(bytes) : parseEscPos(bytes);
+                failures += compare(dots, symbol, 4) ? 0 : 1;
+                System.out.printf("%s over a socket: %s bytes%n", zpl ? "zpl" : "escpos", bytes.length);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        System.out.println(failures == 0 ? "passed" : failures + " FAILED");
+    }
+
+    /**
+     * Whether printed dots show a symbol at a scale with the standard quiet zone, ignoring the padding of the last byte
+     */
+    private static boolean compare(boolean[][] dots, ModuleMatrix symbol, int scale) {
+        int quietZoneWidth = SymbolRenderer.QUIET_ZONE_WIDTH;
+        int sideLength = (symbol.getSideLength() + 2 * quietZoneWidth) * scale;
+        if (dots.length != sideLength) {
+            return false;
+        }
+        for (int y = 0; y < dots.length; y++) {
+            if (dots[y].length < sideLength) {
+                return false;
+            }
+            for (int x = 0; x < dots[y].length; x++) {
+                int i = y / scale - quietZoneWidth;
+                int j = x / scale - quietZoneWidth;
+                boolean dark = x < sideLength && i >= 0 && i < symbol.getSideLength() && j >= 0 && j < symbol.getSideLength()
+                        && symbol.isDark(i, j);
+                if (dots[y][x] != dark) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
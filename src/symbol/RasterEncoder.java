@@ -0,0 +1,92 @@
+package symbol;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Encoder of a 1 bit image written row after row from the top, so that an image of any size is encoded while only a few
+ * of its rows are held in memory. Each row is packed 8 pixels to a byte from the most significant bit, with a set bit
+ * for a white pixel and unused bits at the end of the last byte.
+ */
+interface RasterEncoder {
+
+    /**
+     * Encode the next rows of the image
+     *
+     * @param rows The packed rows, one after the other
+     * @param rowCount The number of rows to encode from the start of the array
+     * @throws IOException If the rows could not be written
+     */
+    void writeRows(byte[] rows, int rowCount) throws IOException;
+
+    /**
+     * Write the end of the image once every row has been encoded, leaving the stream it writes to open
+     *
+     * @throws IOException If the image could not be written
+     * @throws IllegalStateException If fewer or more rows were encoded than the image has
+     */
+    void finish() throws IOException;
+
+    /**
+     * Get the number of bytes of a packed row of pixels
+     *
+     * @param width The number of pixels of the row
+     * @return The number of bytes of the row
+     */
+    static int getRowLength(int width) {
+        return (width + 7) / 8;
+    }
+
+    /**
+     * Encode a symbol surrounded by a light quiet zone, one row of modules at a time
+     *
+     * @param encoder The encoder of an image of the side length of the symbol and quiet zone
+     * @param symbol The modules of the symbol
+     * @param scale The number of pixels per module along each side
+     * @param quietZoneWidth The width of the quiet zone in modules
+     * @throws IOException If the image could not be written
+     */
+    static void writeSymbol(RasterEncoder encoder, ModuleMatrix symbol, int scale, int quietZoneWidth) throws IOException {
+        int sideLength = symbol.getSideLength();
+        byte[] row = new byte[getRowLength((sideLength + 2 * quietZoneWidth) * scale)];
+        for (int i = -quietZoneWidth; i < sideLength + quietZoneWidth; i++) {
+            Arrays.fill(row, (byte) 0xFF);
+            if (i >= 0 && i < sideLength) {
+                for (int j = 0; j < sideLength; j++) {
+                    if (symbol.isDark(i, j)) {
+                        clearBits(row, 0, (j + quietZoneWidth) * scale, (j + quietZoneWidth + 1) * scale);
+                    }
+                }
+            }
+            for (int r = 0; r < scale; r++) {
+                encoder.writeRows(row, 1);
+            }
+        }
+        encoder.finish();
+    }
+
+    /**
+     * Clear the bits of a range of pixels of a packed row, making them black
+     *
+     * @param rows The packed rows
+     * @param offset The index of the first byte of the row
+     * @param from The first pixel to clear
+     * @param to The pixel after the last pixel to clear
+     */
+    static void clearBits(byte[] rows, int offset, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = offset + (from >>> 3);
+        int last = offset + ((to - 1) >>> 3);
+        int firstMask = 0xFF >>> (from & 7);
+        int lastMask = 0xFF << (7 - ((to - 1) & 7));
+        if (first == last) {
+            rows[first] &= ~(firstMask & lastMask);
+            return;
+        }
+        rows[first] &= ~firstMask;
+        Arrays.fill(rows, first + 1, last, (byte) 0);
+        rows[last] &= ~lastMask;
+    }
+}
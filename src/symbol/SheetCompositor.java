@@ -0,0 +1,353 @@
+package symbol;
+
+import model.ErrorCorrectionLevel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Compositor that encodes many payloads and tiles their symbols into one label sheet, such as an A4 page at 600 dpi.
+ * The page is rendered in horizontal stripes of {@link #STRIPE_HEIGHT} rows, each sampling the module matrices of the
+ * symbols it crosses, and the stripes are rendered in parallel and written in order to a {@link SheetFormat}. Payloads
+ * are taken from their source and encoded only when the first stripe crossing their row of cells is submitted, and
+ * the symbols of a row of cells are dropped once every stripe crossing it is submitted, so memory stays proportional
+ * to the stripes in flight rather than to the page.
+ * <br />
+ * A compositor holds no mutable state, so one compositor can write any number of sheets from any number of threads.
+ */
+public class SheetCompositor {
+
+    /** The number of rows of pixels rendered by one task */
+    static final int STRIPE_HEIGHT = 128;
+
+    /** The number of stripes rendered ahead of the stripe being written, for each thread */
+    private static final int STRIPES_IN_FLIGHT_PER_THREAD = 2;
+
+    private final SymbolEncoder encoder;
+
+    private final ErrorCorrectionLevel errorCorrectionLevel;
+
+    private final SheetLayout layout;
+
+    private final int threads;
+
+    /**
+     * Create a SheetCompositor
+     *
+     * @param encoder The encoder of the payloads, which is shared by the threads
+     * @param errorCorrectionLevel The error correction level of every symbol
+     * @param layout The layout of the sheet
+     * @param threads The number of threads that encode payloads and render stripes
+     */
+    public SheetCompositor(SymbolEncoder encoder, ErrorCorrectionLevel errorCorrectionLevel, SheetLayout layout, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format("Thread count %s is not valid", threads));
+        }
+        this.encoder = encoder;
+        this.errorCorrectionLevel = errorCorrectionLevel;
+        this.layout = layout;
+        this.threads = threads;
+    }
+
+    /**
+     * Encode payloads and write them as one sheet. The sheet takes payloads from the source until every cell is filled
+     * or the source ends, and the cells left over are blank, so a source longer than one sheet can be written as
+     * several sheets with the same iterator.
+     *
+     * @param payloads The source of the payloads
+     * @param format The format of the sheet
+     * @param out The stream to write the sheet to, which is left open
+     * @return The number of payloads on the sheet
+     * @throws IOException If the sheet could not be written
+     * @throws InterruptedException If the thread was interrupted while waiting for a stripe
+     * @throws IllegalArgumentException If a payload cannot be encoded, or its symbol does not fit in a cell
+     */
+    public int write(Iterator<String> payloads, SheetFormat format, OutputStream out) throws IOException, InterruptedException {
+        return write(payloads, format.open(out, layout.getPageWidth(), layout.getPageHeight(), layout.getDotsPerInch()));
+    }
+
+    /**
+     * Encode payloads and write them as one sheet to a raster encoder of the size of the page
+     *
+     * @return The number of payloads on the sheet
+     */
+    int write(Iterator<String> payloads, RasterEncoder raster) throws IOException, InterruptedException {
+        int pageHeight = layout.getPageHeight();
+        int rowLength = RasterEncoder.getRowLength(layout.getPageWidth());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "qrcode-sheet");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // the symbols of each row of cells, until no stripe left to submit crosses it
+            List<List<Future<ModuleMatrix>>> cellRows = new ArrayList<>(layout.getRows());
+            int placed = 0;
+            Queue<Future<byte[]>> pending = new ArrayDeque<>();
+            int maxPending = threads * STRIPES_IN_FLIGHT_PER_THREAD;
+            for (int top = 0; top < pageHeight; top += STRIPE_HEIGHT) {
+                int stripeTop = top;
+                int stripeBottom = Math.min(pageHeight, top + STRIPE_HEIGHT);
+                // the executor runs tasks in submission order, so the symbols a stripe waits for are never queued behind it
+                while (cellRows.size() < layout.getRows() && layout.getCellTop(cellRows.size()) < stripeBottom) {
+                    List<Future<ModuleMatrix>> symbols = new ArrayList<>(layout.getColumns());
+                    for (int column = 0; column < layout.getColumns() && payloads.hasNext(); column++) {
+                        String payload = payloads.next();
+                        int number = ++placed;
+                        symbols.add(executor.submit(() -> encode(payload, number)));
+                    }
+                    cellRows.add(symbols);
+                }
+                int[] crossedRows = getCrossedRows(stripeTop, stripeBottom, cellRows.size());
+                List<List<Future<ModuleMatrix>>> crossed = new ArrayList<>(crossedRows.length);
+                for (int row : crossedRows) {
+                    crossed.add(cellRows.get(row));
+                }
+                pending.add(executor.submit(() -> renderStripe(stripeTop, stripeBottom, rowLength, crossedRows, crossed)));
+                for (int row : crossedRows) {
+                    if (layout.getCellTop(row + 1) <= stripeBottom) {
+                        cellRows.set(row, null);
+                    }
+                }
+                if (pending.size() >= maxPending) {
+                    writeStripe(raster, pending.remove(), rowLength);
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeStripe(raster, pending.remove(), rowLength);
+            }
+            raster.finish();
+            return placed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ModuleMatrix encode(String payload, int number) {
+        ModuleMatrix symbol;
+        try {
+            symbol = encoder.encode(payload, errorCorrectionLevel).getModules();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Payload %s: %s", number, e.getMessage()), e);
+        }
+        if (symbol.getSideLength() > layout.getMaximumSideLength()) {
+            throw new IllegalArgumentException(String.format("Payload %s: symbol of %s modules does not fit in a cell of %s modules",
+                    number, symbol.getSideLength(), layout.getMaximumSideLength()));
+        }
+        return symbol;
+    }
+
+    /**
+     * Get the rows of cells, among those encoded so far, that cross a stripe
+     */
+    private int[] getCrossedRows(int top, int bottom, int encodedRows) {
+        return IntStream.range(0, encodedRows)
+                .filter(row -> layout.getCellTop(row) < bottom && layout.getCellTop(row + 1) > top)
+                .toArray();
+    }
+
+    /**
+     * Render the packed rows of a stripe from the symbols of the rows of cells it crosses
+     */
+    private byte[] renderStripe(int top, int bottom, int rowLength, int[] rows, List<List<Future<ModuleMatrix>>> symbols)
+            throws IOException, InterruptedException {
+        byte[] stripe = new byte[(bottom - top) * rowLength];
+        Arrays.fill(stripe, (byte) 0xFF);
+        int scale = layout.getScale();
+        for (int n = 0; n < rows.length; n++) {
+            List<Future<ModuleMatrix>> cellRow = symbols.get(n);
+            for (int column = 0; column < cellRow.size(); column++) {
+                ModuleMatrix symbol = join(cellRow.get(column));
+                int sideLength = symbol.getSideLength();
+                int symbolTop = layout.getSymbolTop(rows[n], sideLength);
+                int left = layout.getSymbolLeft(column, sideLength);
+                int from = Math.max(top, symbolTop);
+                int to = Math.min(bottom, symbolTop + sideLength * scale);
+                for (int y = from; y < to; y++) {
+                    int i = (y - symbolTop) / scale;
+                    int offset = (y - top) * rowLength;
+                    // clear each run of dark modules at once
+                    int j = 0;
+                    while (j < sideLength) {
+                        if (!symbol.isDark(i, j)) {
+                            j++;
+                            continue;
+                        }
+                        int start = j;
+                        while (j < sideLength && symbol.isDark(i, j)) {
+                            j++;
+                        }
+                        RasterEncoder.clearBits(stripe, offset, left + start * scale, left + j * scale);
+                    }
+                }
+            }
+        }
+        return stripe;
+    }
+
+    private static void writeStripe(RasterEncoder raster, Future<byte[]> stripe, int rowLength) throws IOException, InterruptedException {
+        byte[] rows = join(stripe);
+        raster.writeRows(rows, rows.length / rowLength);
+    }
+
+    /**
+     * Wait for the result of a task, rethrowing what it threw
+     */
+    private static <T> T join(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Render A4 sheets at 600 dpi through {@link #write}, one with a payload for every cell and one with a source that
+     * ends early, and check every symbol on them against its module matrix, that the cells past the end of the source
+     * are blank, and that payloads are only taken from the source a few stripes ahead of the stripe being written.
+     * Then report how long each format takes to write.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SheetLayout layout = SheetLayout.ofMillimeters(SheetLayout.A4_WIDTH_MILLIMETERS, SheetLayout.A4_HEIGHT_MILLIMETERS,
+                600, 10, 5, 7, 8);
+        SymbolEncoder encoder = new SymbolEncoder();
+        List<String> payloads = new ArrayList<>();
+        for (int n = 0; n < layout.getCells(); n++) {
+            payloads.add(String.format("https://example.com/item/%05d", n));
+        }
+        // a fixed number of threads, so that the stripes in flight do not cover the whole page on a large machine
+        int threads = 2;
+        SheetCompositor compositor = new SheetCompositor(encoder, ErrorCorrectionLevel.M, layout, threads);
+
+        boolean passed = true;
+        for (int count : new int[] { layout.getCells(), layout.getCells() - layout.getColumns() - 2 }) {
+            passed &= check(compositor, encoder, layout, payloads.subList(0, count), threads * STRIPES_IN_FLIGHT_PER_THREAD);
+        }
+        System.out.println(passed ? "passed" : "FAILED");
+
+        for (SheetFormat format : SheetFormat.values()) {
+            long[] bytes = new long[1];
+            OutputStream counter = new OutputStream() {
+                @Override
+                public void write(int b) {
+                    bytes[0]++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    bytes[0] += len;
+                }
+            };
+            // the first sheet warms up the JVM
+            compositor.write(payloads.iterator(), format, counter);
+            bytes[0] = 0;
+            long start = System.nanoTime();
+            compositor.write(payloads.iterator(), format, counter);
+            System.out.printf("%-4s %8.1f ms %10d bytes%n", format, (System.nanoTime() - start) / 1e6, bytes[0]);
+        }
+    }
+
+    /**
+     * Write a sheet of payloads through a capturing raster encoder and check the page
+     */
+    private static boolean check(SheetCompositor compositor, SymbolEncoder encoder, SheetLayout layout, List<String> payloads,
+                                 int maxPending) throws IOException, InterruptedException {
+        int rowLength = RasterEncoder.getRowLength(layout.getPageWidth());
+        byte[] page = new byte[rowLength * layout.getPageHeight()];
+        int[] taken = new int[1];
+        int[] rowsWritten = new int[1];
+        int[] finished = new int[1];
+        int[] lateTakes = new int[1];
+        Iterator<String> source = payloads.iterator();
+        Iterator<String> counting = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public String next() {
+                // a row of cells is taken when the first stripe crossing it is submitted, at most maxPending stripes
+                // ahead of the stripe being written
+                int row = taken[0]++ / layout.getColumns();
+                if (layout.getCellTop(row) >= rowsWritten[0] + (maxPending + 1) * STRIPE_HEIGHT) {
+                    lateTakes[0]++;
+                }
+                return source.next();
+            }
+        };
+        RasterEncoder capture = new RasterEncoder() {
+            @Override
+            public void writeRows(byte[] rows, int rowCount) {
+                System.arraycopy(rows, 0, page, rowsWritten[0] * rowLength, rowCount * rowLength);
+                rowsWritten[0] += rowCount;
+            }
+
+            @Override
+            public void finish() {
+                finished[0]++;
+            }
+        };
+        int placed = compositor.write(counting, capture);
+
+        long expectedDarkPixels = 0;
+        int failures = 0;
+        int scale = layout.getScale();
+        for (int n = 0; n < payloads.size(); n++) {
+            ModuleMatrix symbol = encoder.encode(payloads.get(n), ErrorCorrectionLevel.M).getModules();
+            int sideLength = symbol.getSideLength();
+            int top = layout.getSymbolTop(n / layout.getColumns(), sideLength);
+            int left = layout.getSymbolLeft(n % layout.getColumns(), sideLength);
+            for (int i = 0; i < sideLength; i++) {
+                for (int j = 0; j < sideLength; j++) {
+                    int y = top + i * scale + scale / 2;
+                    int x = left + j * scale + scale / 2;
+                    boolean dark = (page[y * rowLength + (x >>> 3)] & (0x80 >>> (x & 7))) == 0;
+                    if (dark != symbol.isDark(i, j)) {
+                        failures++;
+                    }
+                    if (symbol.isDark(i, j)) {
+                        expectedDarkPixels += scale * scale;
+                    }
+                }
+            }
+        }
+        // any dark pixel outside the symbols, such as in a cell past the end of the source, adds to the count
+        long darkPixels = 0;
+        for (int y = 0; y < layout.getPageHeight(); y++) {
+            for (int x = 0; x < layout.getPageWidth(); x++) {
+                if ((page[y * rowLength + (x >>> 3)] & (0x80 >>> (x & 7))) == 0) {
+                    darkPixels++;
+                }
+            }
+        }
+        boolean passed = failures == 0 && darkPixels == expectedDarkPixels && placed == payloads.size()
+                && rowsWritten[0] == layout.getPageHeight() && finished[0] == 1 && lateTakes[0] == 0;
+        System.out.printf("%sx%s pixels, %s of %s cells: %s placed, %s module mismatches, %s dark pixels of %s expected, "
+                        + "%s payloads taken too early, %s rows written: %s%n",
+                layout.getPageWidth(), layout.getPageHeight(), payloads.size(), layout.getCells(), placed, failures,
+                darkPixels, expectedDarkPixels, lateTakes[0], rowsWritten[0], passed ? "passed" : "FAILED");
+        return passed;
+    }
+}
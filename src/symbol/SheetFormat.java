@@ -0,0 +1,56 @@
+package symbol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Enum representing the output formats of a label sheet, each written row after row as the sheet is rendered
+ */
+public enum SheetFormat {
+    PNG("png") {
+        @Override
+        RasterEncoder open(OutputStream out, int width, int height, int dotsPerInch) throws IOException {
+            return new PngEncoder(out, width, height, dotsPerInch);
+        }
+    },
+    TIFF("tiff") {
+        @Override
+        RasterEncoder open(OutputStream out, int width, int height, int dotsPerInch) throws IOException {
+            return new TiffEncoder(out, width, height, dotsPerInch);
+        }
+    },
+    PDF("pdf") {
+        @Override
+        RasterEncoder open(OutputStream out, int width, int height, int dotsPerInch) throws IOException {
+            return new PdfEncoder(out, width, height, dotsPerInch);
+        }
+    };
+
+    /** The file name extension of this format */
+    private final String extension;
+
+    /**
+     * Create a SheetFormat with a given file name extension
+     *
+     * @param extension The file name extension of this format
+     */
+    SheetFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Start writing an image in this format
+     *
+     * @param out The stream to write the image to, which is left open
+     * @param width The width of the image in pixels
+     * @param height The height of the image in pixels
+     * @param dotsPerInch The resolution of the image
+     * @return The encoder to write the rows of the image to
+     * @throws IOException If the start of the image could not be written
+     */
+    abstract RasterEncoder open(OutputStream out, int width, int height, int dotsPerInch) throws IOException;
+}
@@ -0,0 +1,186 @@
+package symbol;
+
+/**
+ * Immutable layout of a label sheet: a page of a given size and resolution divided into a grid of equal cells inside
+ * its margins, with one symbol centered in each cell at a given number of pixels per module. The cells are filled row
+ * after row from the top left.
+ */
+public class SheetLayout {
+
+    public static final double MILLIMETERS_PER_INCH = 25.4;
+
+    /** The width of an A4 sheet in millimeters, as defined by ISO 216 */
+    public static final double A4_WIDTH_MILLIMETERS = 210;
+
+    public static final double A4_HEIGHT_MILLIMETERS = 297;
+
+    /** The width of an A3 sheet in millimeters, as defined by ISO 216 */
+    public static final double A3_WIDTH_MILLIMETERS = 297;
+
+    public static final double A3_HEIGHT_MILLIMETERS = 420;
+
+    private final int pageWidth;
+
+    private final int pageHeight;
+
+    private final int dotsPerInch;
+
+    private final int margin;
+
+    private final int columns;
+
+    private final int rows;
+
+    private final int scale;
+
+    private final int quietZoneWidth;
+
+    private final int cellWidth;
+
+    private final int cellHeight;
+
+    /**
+     * Create a SheetLayout with every size in pixels
+     *
+     * @param pageWidth The width of the page in pixels
+     * @param pageHeight The height of the page in pixels
+     * @param dotsPerInch The resolution of the page
+     * @param margin The width of the blank margin on each side of the page in pixels
+     * @param columns The number of columns of cells
+     * @param rows The number of rows of cells
+     * @param scale The number of pixels per module along each side
+     * @param quietZoneWidth The width of the quiet zone around each symbol in modules
+     */
+    public SheetLayout(int pageWidth, int pageHeight, int dotsPerInch, int margin, int columns, int rows, int scale, int quietZoneWidth) {
+        if (pageWidth < 1 || pageHeight < 1) {
+            throw new IllegalArgumentException(String.format("Page of %sx%s pixels is not valid", pageWidth, pageHeight));
+        }
+        if (dotsPerInch < 1) {
+            throw new IllegalArgumentException(String.format("Resolution of %s dpi is not valid", dotsPerInch));
+        }
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException(String.format("Grid of %sx%s cells is not valid", columns, rows));
+        }
+        if (scale < 1) {
+            throw new IllegalArgumentException(String.format("Scale %s is not valid", scale));
+        }
+        if (quietZoneWidth < 0) {
+            throw new IllegalArgumentException(String.format("Quiet zone width %s is not valid", quietZoneWidth));
+        }
+        if (margin < 0 || (pageWidth - 2 * margin) / columns < 1 || (pageHeight - 2 * margin) / rows < 1) {
+            throw new IllegalArgumentException(String.format("Margin of %s pixels leaves no room for %sx%s cells on a page of %sx%s pixels",
+                    margin, columns, rows, pageWidth, pageHeight));
+        }
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.dotsPerInch = dotsPerInch;
+        this.margin = margin;
+        this.columns = columns;
+        this.rows = rows;
+        this.scale = scale;
+        this.quietZoneWidth = quietZoneWidth;
+        this.cellWidth = (pageWidth - 2 * margin) / columns;
+        this.cellHeight = (pageHeight - 2 * margin) / rows;
+    }
+
+    /**
+     * Create a SheetLayout for a page and margin measured in millimeters, such as an A4 sheet, with the standard quiet
+     * zone around each symbol
+     *
+     * @param pageWidthMillimeters The width of the page in millimeters
+     * @param pageHeightMillimeters The height of the page in millimeters
+     * @param dotsPerInch The resolution of the page
+     * @param marginMillimeters The width of the blank margin on each side of the page in millimeters
+     * @param columns The number of columns of cells
+     * @param rows The number of rows of cells
+     * @param scale The number of pixels per module along each side
+     * @return The layout
+     */
+    public static SheetLayout ofMillimeters(double pageWidthMillimeters, double pageHeightMillimeters, int dotsPerInch,
+                                            double marginMillimeters, int columns, int rows, int scale) {
+        return new SheetLayout(toPixels(pageWidthMillimeters, dotsPerInch), toPixels(pageHeightMillimeters, dotsPerInch),
+                dotsPerInch, toPixels(marginMillimeters, dotsPerInch), columns, rows, scale, SymbolRenderer.QUIET_ZONE_WIDTH);
+    }
+
+    public int getPageWidth() {
+        return pageWidth;
+    }
+
+    public int getPageHeight() {
+        return pageHeight;
+    }
+
+    public int getDotsPerInch() {
+        return dotsPerInch;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int getQuietZoneWidth() {
+        return quietZoneWidth;
+    }
+
+    /**
+     * Get the number of symbols on a sheet
+     *
+     * @return The number of cells of the grid
+     */
+    public int getCells() {
+        return columns * rows;
+    }
+
+    /**
+     * Get the largest number of modules along each side of a symbol that fits in a cell with its quiet zone
+     *
+     * @return The largest side length, which may be below the side length of any symbol
+     */
+    public int getMaximumSideLength() {
+        return Math.min(cellWidth, cellHeight) / scale - 2 * quietZoneWidth;
+    }
+
+    /**
+     * Get the left edge of the top left module of a symbol centered in a cell
+     *
+     * @param column The column of the cell
+     * @param sideLength The number of modules along each side of the symbol
+     * @return The x coordinate in pixels
+     */
+    int getSymbolLeft(int column, int sideLength) {
+        return margin + column * cellWidth + (cellWidth - sideLength * scale) / 2;
+    }
+
+    /**
+     * Get the top edge of the top left module of a symbol centered in a cell
+     *
+     * @param row The row of the cell
+     * @param sideLength The number of modules along each side of the symbol
+     * @return The y coordinate in pixels
+     */
+    int getSymbolTop(int row, int sideLength) {
+        return margin + row * cellHeight + (cellHeight - sideLength * scale) / 2;
+    }
+
+    /**
+     * Get the top edge of a row of cells
+     *
+     * @param row The row of cells, or the number of rows for the bottom edge of the grid
+     * @return The y coordinate in pixels
+     */
+    int getCellTop(int row) {
+        return margin + row * cellHeight;
+    }
+
+    private static int toPixels(double millimeters, int dotsPerInch) {
+        return (int) Math.round(millimeters / MILLIMETERS_PER_INCH * dotsPerInch);
+    }
+}
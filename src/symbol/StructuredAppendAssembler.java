@@ -0,0 +1,116 @@
+package symbol;
+
+import model.DecodeException;
+import model.StructuredAppendHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collection;
+
+/**
+ * Reassembles a message from the decoded symbols of a Structured Append sequence, as described by section 8 of the
+ * QR Code specification ISO/IEC 18004. Symbols can be added in any order, as they are scanned, and the message is
+ * available once every position of the sequence has been seen. A symbol that is not part of a sequence is a
+ * complete message on its own.
+ * <br />
+ * An assembler holds one sequence at a time and is not thread-safe.
+ */
+public class StructuredAppendAssembler {
+
+    /** The decoded data of each position of the sequence, or null for positions not seen yet */
+    private byte[][] parts;
+
+    /** The parity byte shared by every symbol of the sequence */
+    private int parity;
+
+    private int received;
+
+    /**
+     * Reassemble a message from all of the symbols of a sequence, in any order
+     *
+     * @param symbols The decoded symbols of the sequence
+     * @return The bytes of the whole message
+     * @throws DecodeException If the symbols do not form one complete sequence, or the message fails the parity check
+     */
+    public static byte[] assemble(Collection<DecodedSymbol> symbols) throws DecodeException {
+        StructuredAppendAssembler assembler = new StructuredAppendAssembler();
+        for (DecodedSymbol symbol : symbols) {
+            assembler.add(symbol);
+        }
+        return assembler.getData();
+    }
+
+    /**
+     * Add a decoded symbol of the sequence. Adding a symbol at a position that has already been seen has no effect.
+     *
+     * @param symbol The decoded symbol
+     * @return Whether every symbol of the sequence has now been added
+     * @throws DecodeException If the symbol belongs to a different sequence than the symbols added before it
+     */
+    public boolean add(DecodedSymbol symbol) throws DecodeException {
+        StructuredAppendHeader header = symbol.getStructuredAppendHeader();
+        if (header == null) {
+            header = new StructuredAppendHeader(0, 1, getParity(symbol.getData()));
+        }
+        if (parts == null) {
+            parts = new byte[header.getTotal()][];
+            parity = header.getParity();
+        } else if (header.getTotal() != parts.length || header.getParity() != parity) {
+            throw new DecodeException(String.format("Symbol with %s does not belong to a sequence of %s symbols with parity %s",
+                    header, parts.length, parity));
+        }
+        if (parts[header.getPosition()] == null) {
+            parts[header.getPosition()] = symbol.getData();
+            received++;
+        }
+        return isComplete();
+    }
+
+    /**
+     * Get whether every symbol of the sequence has been added
+     *
+     * @return Whether the sequence is complete
+     */
+    public boolean isComplete() {
+        return parts != null && received == parts.length;
+    }
+
+    /**
+     * Get the whole message by joining the data of each symbol in the order of its position
+     *
+     * @return The bytes of the whole message
+     * @throws DecodeException If the sequence is not complete, or the message fails the parity check
+     */
+    public byte[] getData() throws DecodeException {
+        if (!isComplete()) {
+            throw new DecodeException(String.format("%s of %s symbols of the sequence have been added",
+                    received, parts == null ? 0 : parts.length));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int messageParity = 0;
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+            messageParity ^= getParity(part);
+        }
+        if (messageParity != parity) {
+            throw new DecodeException(String.format("Message parity %s does not match the sequence parity %s", messageParity, parity));
+        }
+        return out.toByteArray();
+    }
+
+    private static int getParity(byte[] data) {
+        int parity = 0;
+        for (byte b : data) {
+            parity ^= b & 0xFF;
+        }
+        return parity;
+    }
+
+    /**
+     * Forget the current sequence so that the assembler can be used for another one
+     */
+    public void reset() {
+        parts = null;
+        parity = 0;
+        received = 0;
+    }
+}
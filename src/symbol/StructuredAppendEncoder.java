@@ -0,0 +1,141 @@
+package symbol;
+
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import metrics.EncodeListener;
+import model.BinaryData;
+import model.CodewordCapacity;
+import model.ErrorCorrectionLevel;
+import model.Mode;
+import model.StructuredAppendHeader;
+import model.Version;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Encoder that splits a message across a sequence of up to 16 symbols in Structured Append mode, as described by
+ * section 8 of the QR Code specification ISO/IEC 18004. The message is divided into parts of equal length that each
+ * fit in a given maximum version, and the parts are encoded in parallel since every symbol is independent of the others.
+ */
+public class StructuredAppendEncoder {
+
+    private final SymbolEncoder symbolEncoder;
+
+    public StructuredAppendEncoder() {
+        this(EncodeListener.NONE);
+    }
+
+    /**
+     * Create a StructuredAppendEncoder that reports the cost of each stage of every symbol to a listener,
+     * which must be safe to call from several threads at once
+     *
+     * @param listener The listener to report to
+     */
+    public StructuredAppendEncoder(EncodeListener listener) {
+        this.symbolEncoder = new SymbolEncoder(listener);
+    }
+
+    /**
+     * Encode a text in as few symbols as possible with no symbol larger than a maximum version
+     *
+     * @param text The text to encode
+     * @param errorCorrectionLevel The error correction level of every symbol
+     * @param maximumVersion The largest version of any symbol in the sequence
+     * @return The encoded symbols, in the order of their position in the sequence
+     */
+    public List<EncodedSymbol> encode(String text, ErrorCorrectionLevel errorCorrectionLevel, Version maximumVersion) {
+        DataEncoder encoder = DataEncodationUtils.getEncoder(text);
+        return encode(encoder, DataEncodationUtils.getCharacters(text, encoder), errorCorrectionLevel, maximumVersion);
+    }
+
+    /**
+     * Encode characters in as few symbols as possible with no symbol larger than a maximum version. Characters that
+     * fit in a single symbol are encoded without a Structured Append header. Otherwise each symbol holds an equal
+     * share of the characters, up to one more for the first symbols, in the smallest version that can hold it.
+     *
+     * @param encoder The data encoder to encode the characters with
+     * @param data The characters to encode
+     * @param errorCorrectionLevel The error correction level of every symbol
+     * @param maximumVersion The largest version of any symbol in the sequence
+     * @return The encoded symbols, in the order of their position in the sequence
+     */
+    public List<EncodedSymbol> encode(DataEncoder encoder, List<Integer> data, ErrorCorrectionLevel errorCorrectionLevel,
+                                      Version maximumVersion) {
+        if (fits(encoder, data.size(), 0, maximumVersion, errorCorrectionLevel)) {
+            return Collections.singletonList(symbolEncoder.encode(encoder, data, errorCorrectionLevel));
+        }
+
+        int total = getNumberOfSymbols(encoder, data.size(), errorCorrectionLevel, maximumVersion);
+        int parity = getParity(encoder.getMode(), data);
+        int partLength = data.size() / total;
+        int remainder = data.size() % total;
+
+        return IntStream.range(0, total)
+                .parallel()
+                .mapToObj(position -> {
+                    int start = position * partLength + Math.min(position, remainder);
+                    int end = start + partLength + (position < remainder ? 1 : 0);
+                    return encodePart(encoder, data.subList(start, end), new StructuredAppendHeader(position, total, parity),
+                            errorCorrectionLevel);
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the parity byte of a message, which is the exclusive or of every byte of the message. The digits of
+     * Numeric mode take part as their ASCII values.
+     *
+     * @param mode The mode the characters are encoded in
+     * @param data The characters of the message
+     * @return The parity byte
+     */
+    public static int getParity(Mode mode, List<Integer> data) {
+        int parity = 0;
+        for (int character : data) {
+            parity ^= mode == Mode.NUMERIC ? '0' + character : character;
+        }
+        return parity & 0xFF;
+    }
+
+    private EncodedSymbol encodePart(DataEncoder encoder, List<Integer> part, StructuredAppendHeader header,
+                                     ErrorCorrectionLevel errorCorrectionLevel) {
+        Version version = getMinimumVersion(encoder, part.size(), errorCorrectionLevel);
+        BinaryData binaryData = new BinaryData();
+        header.appendTo(binaryData);
+        encoder.encode(part, version, binaryData);
+        List<Integer> dataCodewords = DataEncodationUtils.getDataCodewords(binaryData, version, errorCorrectionLevel);
+        return symbolEncoder.encodeCodewords(dataCodewords, version, errorCorrectionLevel);
+    }
+
+    private static int getNumberOfSymbols(DataEncoder encoder, int numCharacters, ErrorCorrectionLevel errorCorrectionLevel,
+                                          Version maximumVersion) {
+        for (int total = 2; total <= StructuredAppendHeader.MAXIMUM_SYMBOLS; total++) {
+            int largestPart = (numCharacters + total - 1) / total;
+            if (fits(encoder, largestPart, StructuredAppendHeader.LENGTH_IN_BITS, maximumVersion, errorCorrectionLevel)) {
+                return total;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "%s characters do not fit in %s symbols of version %s at error correction level %s",
+                numCharacters, StructuredAppendHeader.MAXIMUM_SYMBOLS, maximumVersion.getVersion(), errorCorrectionLevel));
+    }
+
+    private static Version getMinimumVersion(DataEncoder encoder, int numCharacters, ErrorCorrectionLevel errorCorrectionLevel) {
+        for (int v = Version.MINIMUM_VERSION; v < Version.MAXIMUM_VERSION; v++) {
+            Version version = new Version(v);
+            if (fits(encoder, numCharacters, StructuredAppendHeader.LENGTH_IN_BITS, version, errorCorrectionLevel)) {
+                return version;
+            }
+        }
+        return new Version(Version.MAXIMUM_VERSION);
+    }
+
+    private static boolean fits(DataEncoder encoder, int numCharacters, int headerLength, Version version,
+                                ErrorCorrectionLevel errorCorrectionLevel) {
+        return headerLength + encoder.getEncodedBitStreamLength(numCharacters, version)
+                <= CodewordCapacity.getDataCodewords(version, errorCorrectionLevel) * 8;
+    }
+}
@@ -0,0 +1,313 @@
+package symbol;
+
+import data.DataDecodationUtils;
+import error.ReedSolomonDecoder;
+import model.BinaryData;
+import model.BlockInfo;
+import model.CodewordCapacity;
+import model.Coordinate;
+import model.DecodeException;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.Mode;
+import model.StructuredAppendHeader;
+import model.SymbolInfo;
+import model.Version;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Decoder that reads the contents of a symbol from its module matrix, reversing the encoding process of
+ * section 7.1 of the QR Code specification ISO/IEC 18004 as described by section 12.
+ * <br />
+ * A decoder keeps scratch buffers between calls and the layout of each version is cached, so decoding allocates
+ * little more than its result. Instances are therefore not thread-safe and each thread should use its own.
+ */
+public class SymbolDecoder {
+
+    /** The largest number of bits in which a format information word may differ from a valid one */
+    private static final int MAX_FORMAT_INFO_ERRORS = 3;
+
+    /** The length of the format information in bits */
+    private static final int FORMAT_INFO_LENGTH_IN_BITS = 15;
+
+    /** Every valid masked format information word, indexed by error correction level and mask pattern */
+    private static final int[][] FORMAT_INFO_WORDS = generateFormatInfoWords();
+
+    /** The symbol information of each version and error correction level, created on first use */
+    private static final AtomicReferenceArray<SymbolInfo> SYMBOL_INFOS =
+            new AtomicReferenceArray<>((Version.MAXIMUM_VERSION + 1) * ErrorCorrectionLevel.values().length);
+
+    /** The data module positions (i * side length + j) of each version in placement order, created on first use */
+    private static final AtomicReferenceArray<int[]> DATA_MODULE_POSITIONS = new AtomicReferenceArray<>(Version.MAXIMUM_VERSION + 1);
+
+    private final ReedSolomonDecoder reedSolomonDecoder = new ReedSolomonDecoder();
+
+    /** The codewords as read from the symbol, in interleaved order */
+    private final int[] codewords = new int[CodewordCapacity.getTotalCodewords(new Version(Version.MAXIMUM_VERSION))];
+
+    /** The codewords of each block one after another, each with its data codewords followed by its error correction codewords */
+    private final int[] blocks = new int[codewords.length];
+
+    private final int[] dataCodewords = new int[codewords.length];
+
+    /** 1 for each codeword read with a bit in an erased module, in interleaved order */
+    private final int[] erasedCodewords = new int[codewords.length];
+
+    /** The erased codewords of each block, in the order of {@link #blocks} */
+    private final int[] erasedBlocks = new int[codewords.length];
+
+    /** The indexes within its block of each erased codeword of the block being corrected */
+    private final int[] erasures = new int[codewords.length];
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    /**
+     * Decode a symbol from its modules
+     *
+     * @param symbol The modules of the symbol
+     * @return The decoded symbol
+     * @throws DecodeException If the symbol could not be decoded
+     */
+    public DecodedSymbol decode(ModuleMatrix symbol) throws DecodeException {
+        return decode(symbol.toArray(), null);
+    }
+
+    /**
+     * Decode a symbol whose modules are known to be unreliable in some places, such as under a logo. Each codeword
+     * with a bit in an unreliable module is corrected as an erasure, which costs its block half as much error
+     * correction as an error.
+     *
+     * @param symbol The modules of the symbol
+     * @param erased The modules that are unreliable, which are dark, such as from {@link SymbolOverlay#getOccludedModules}
+     * @return The decoded symbol
+     * @throws DecodeException If the symbol could not be decoded
+     */
+    public DecodedSymbol decode(ModuleMatrix symbol, ModuleMatrix erased) throws DecodeException {
+        if (erased.getSideLength() != symbol.getSideLength()) {
+            throw new IllegalArgumentException(String.format("Erased modules of side length %s do not match a symbol of side length %s",
+                    erased.getSideLength(), symbol.getSideLength()));
+        }
+        return decode(symbol.toArray(), erased);
+    }
+
+    /**
+     * Decode a symbol from its module matrix
+     *
+     * @param modules The modules of the symbol indexed by row and column, with true for dark modules
+     * @return The decoded symbol
+     * @throws DecodeException If the symbol could not be decoded
+     */
+    public DecodedSymbol decode(boolean[][] modules) throws DecodeException {
+        return decode(modules, null);
+    }
+
+    private DecodedSymbol decode(boolean[][] modules, ModuleMatrix erased) throws DecodeException {
+        Version version = getVersion(modules.length);
+        SymbolInfo layout = getSymbolInfo(version, ErrorCorrectionLevel.M);
+
+        int formatInfo = readFormatInfo(modules, layout);
+        ErrorCorrectionLevel errorCorrectionLevel = ErrorCorrectionLevel.values()[formatInfo / MaskPattern.values().length];
+        MaskPattern maskPattern = MaskPattern.values()[formatInfo % MaskPattern.values().length];
+        SymbolInfo symbolInfo = getSymbolInfo(version, errorCorrectionLevel);
+
+        int totalCodewords = symbolInfo.getTotalCodewords();
+        readCodewords(modules, version, maskPattern, totalCodewords);
+        deinterleave(symbolInfo, codewords, blocks);
+        if (erased != null) {
+            readErasedCodewords(erased, version, totalCodewords);
+            deinterleave(symbolInfo, erasedCodewords, erasedBlocks);
+        }
+        int correctedCodewords = correctBlocks(symbolInfo, erased != null);
+
+        out.reset();
+        List<Mode> segments = new ArrayList<>(1);
+        StructuredAppendHeader structuredAppendHeader =
+                DataDecodationUtils.decode(dataCodewords, symbolInfo.getDataCodewords(), version, out, segments);
+        return new DecodedSymbol(version, errorCorrectionLevel, maskPattern, out.toByteArray(), segments, correctedCodewords,
+                structuredAppendHeader);
+    }
+
+    private static Version getVersion(int sideLength) throws DecodeException {
+        int version = (sideLength - 17) / 4;
+        if ((sideLength - 17) % 4 != 0 || version < Version.MINIMUM_VERSION || version > Version.MAXIMUM_VERSION) {
+            throw new DecodeException(String.format("Side length %s is not valid", sideLength));
+        }
+        return new Version(version);
+    }
+
+    /**
+     * Read both copies of the format information and find the valid word closest to either of them
+     *
+     * @return The index of the format information word, which is the error correction level index * 8 + the mask pattern index
+     */
+    private static int readFormatInfo(boolean[][] modules, SymbolInfo layout) throws DecodeException {
+        int topLeft = readBits(modules, layout.getTopLeftFormatInfoCoordinates());
+        int split = readBits(modules, layout.getSplitFormatInfoCoordinates());
+
+        int bestIndex = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int level = 0; level < FORMAT_INFO_WORDS.length; level++) {
+            for (int mask = 0; mask < FORMAT_INFO_WORDS[level].length; mask++) {
+                int word = FORMAT_INFO_WORDS[level][mask];
+                int distance = Math.min(Integer.bitCount(word ^ topLeft), Integer.bitCount(word ^ split));
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestIndex = level * MaskPattern.values().length + mask;
+                }
+            }
+        }
+        if (bestDistance > MAX_FORMAT_INFO_ERRORS) {
+            throw new DecodeException("Format information could not be read");
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Read bits from the modules at a list of coordinates, with the first coordinate holding the least significant bit
+     */
+    private static int readBits(boolean[][] modules, List<Coordinate> coordinates) {
+        int bits = 0;
+        for (int k = 0; k < coordinates.size(); k++) {
+            Coordinate coordinate = coordinates.get(k);
+            if (modules[coordinate.getI()][coordinate.getJ()]) {
+                bits |= 1 << k;
+            }
+        }
+        return bits;
+    }
+
+    private void readCodewords(boolean[][] modules, Version version, MaskPattern maskPattern, int totalCodewords) {
+        int sideLength = modules.length;
+        int[] positions = getDataModulePositions(version);
+        for (int n = 0; n < totalCodewords; n++) {
+            int codeword = 0;
+            for (int bit = 0; bit < 8; bit++) {
+                int position = positions[n * 8 + bit];
+                int i = position / sideLength;
+                int j = position % sideLength;
+                boolean dark = modules[i][j] ^ maskPattern.isMasked(i, j);
+                codeword = (codeword << 1) | (dark ? 1 : 0);
+            }
+            codewords[n] = codeword;
+        }
+    }
+
+    private void readErasedCodewords(ModuleMatrix erased, Version version, int totalCodewords) {
+        int sideLength = erased.getSideLength();
+        int[] positions = getDataModulePositions(version);
+        for (int n = 0; n < totalCodewords; n++) {
+            int isErased = 0;
+            for (int bit = 0; bit < 8; bit++) {
+                int position = positions[n * 8 + bit];
+                if (erased.isDark(position / sideLength, position % sideLength)) {
+                    isErased = 1;
+                }
+            }
+            erasedCodewords[n] = isErased;
+        }
+    }
+
+    /**
+     * Reverse the interleaving of section 8.6, placing the codewords of each block next to each other
+     *
+     * @param source The codewords in interleaved order
+     * @param target The array to place the codewords of each block in
+     */
+    private static void deinterleave(SymbolInfo symbolInfo, int[] source, int[] target) {
+        int numberOfBlocks = symbolInfo.getNumberOfBlocks();
+        int shortDataLength = symbolInfo.getBlockInfo(1).getDataCodewords();
+        int longDataLength = symbolInfo.getBlockInfo(numberOfBlocks).getDataCodewords();
+        int errorCorrectionLength = symbolInfo.getBlockInfo(1).getErrorCorrectionCodewords();
+
+        int n = 0;
+        for (int i = 0; i < longDataLength; i++) {
+            int offset = 0;
+            for (int blockNumber = 1; blockNumber <= numberOfBlocks; blockNumber++) {
+                BlockInfo blockInfo = symbolInfo.getBlockInfo(blockNumber);
+                if (i < blockInfo.getDataCodewords()) {
+                    target[offset + i] = source[n++];
+                }
+                offset += blockInfo.getTotalCodewords();
+            }
+        }
+        for (int i = 0; i < errorCorrectionLength; i++) {
+            int offset = 0;
+            for (int blockNumber = 1; blockNumber <= numberOfBlocks; blockNumber++) {
+                BlockInfo blockInfo = symbolInfo.getBlockInfo(blockNumber);
+                target[offset + blockInfo.getDataCodewords() + i] = source[n++];
+                offset += blockInfo.getTotalCodewords();
+            }
+        }
+    }
+
+    /**
+     * Correct the errors in each block and collect the data codewords of all blocks in order
+     *
+     * @param hasErasures Whether {@link #erasedBlocks} marks erased codewords to correct as erasures
+     * @return The total number of corrected codewords
+     */
+    private int correctBlocks(SymbolInfo symbolInfo, boolean hasErasures) throws DecodeException {
+        int correctedCodewords = 0;
+        int offset = 0;
+        int dataOffset = 0;
+        for (int blockNumber = 1; blockNumber <= symbolInfo.getNumberOfBlocks(); blockNumber++) {
+            BlockInfo blockInfo = symbolInfo.getBlockInfo(blockNumber);
+            int numErasures = 0;
+            if (hasErasures) {
+                for (int i = 0; i < blockInfo.getTotalCodewords(); i++) {
+                    if (erasedBlocks[offset + i] != 0) {
+                        erasures[numErasures++] = i;
+                    }
+                }
+            }
+            correctedCodewords += reedSolomonDecoder.decode(blocks, offset, blockInfo.getTotalCodewords(),
+                    blockInfo.getErrorCorrectionCodewords(), erasures, numErasures);
+            System.arraycopy(blocks, offset, dataCodewords, dataOffset, blockInfo.getDataCodewords());
+            offset += blockInfo.getTotalCodewords();
+            dataOffset += blockInfo.getDataCodewords();
+        }
+        return correctedCodewords;
+    }
+
+    private static SymbolInfo getSymbolInfo(Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        int index = version.getVersion() * ErrorCorrectionLevel.values().length + errorCorrectionLevel.getIndex();
+        SymbolInfo symbolInfo = SYMBOL_INFOS.get(index);
+        if (symbolInfo == null) {
+            symbolInfo = new SymbolInfo(version, errorCorrectionLevel, MaskPattern.ZERO);
+            SYMBOL_INFOS.compareAndSet(index, null, symbolInfo);
+        }
+        return symbolInfo;
+    }
+
+    private static int[] getDataModulePositions(Version version) {
+        int[] positions = DATA_MODULE_POSITIONS.get(version.getVersion());
+        if (positions == null) {
+            List<Coordinate> coordinates = new SymbolGenerator().getDataModuleCoordinates(getSymbolInfo(version, ErrorCorrectionLevel.M));
+            positions = new int[coordinates.size()];
+            for (int n = 0; n < positions.length; n++) {
+                positions[n] = coordinates.get(n).getI() * version.getSymbolSideLength() + coordinates.get(n).getJ();
+            }
+            DATA_MODULE_POSITIONS.compareAndSet(version.getVersion(), null, positions);
+        }
+        return positions;
+    }
+
+    private static int[][] generateFormatInfoWords() {
+        int[][] words = new int[ErrorCorrectionLevel.values().length][MaskPattern.values().length];
+        for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+            for (MaskPattern maskPattern : MaskPattern.values()) {
+                BinaryData formatInfo = SymbolInfo.getFormatInfo(level, maskPattern);
+                int word = 0;
+                for (int i = 0; i < FORMAT_INFO_LENGTH_IN_BITS; i++) {
+                    word = (word << 1) | (formatInfo.isBitSet(i) ? 1 : 0);
+                }
+                words[level.getIndex()][maskPattern.ordinal()] = word;
+            }
+        }
+        return words;
+    }
+}
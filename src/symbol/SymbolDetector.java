@@ -0,0 +1,342 @@
+package symbol;
+
+import model.DecodeException;
+import model.SymbolInfo;
+import model.Version;
+
+import java.util.List;
+
+/**
+ * Detector that locates a symbol in an image and samples its module matrix, which can then be read by a
+ * {@link SymbolDecoder}. The image is binarized, the three finder patterns are located, the version is estimated
+ * from their spacing and the modules are sampled through a perspective transform anchored on the finder patterns
+ * and, from version 2, the bottom right alignment pattern.
+ */
+public class SymbolDetector {
+
+    /** The largest number of finder pattern candidates that are considered when choosing three of them */
+    private static final int MAX_CANDIDATES = 12;
+
+    /** The smallest number of matching samples out of 25 for an alignment pattern to be accepted */
+    private static final int MIN_ALIGNMENT_PATTERN_MATCHES = 23;
+
+    /** The distance from the center of the bottom right alignment pattern to the edge of the symbol, in modules */
+    private static final float ALIGNMENT_PATTERN_CENTER_OFFSET = 6.5f;
+
+    /** The distance from the center of a finder pattern to the edge of the symbol, in modules */
+    private static final float FINDER_PATTERN_CENTER_OFFSET = SymbolInfo.DETECTION_PATTERN_RADIUS + 0.5f;
+
+    /**
+     * Detect a symbol in a binarized image
+     *
+     * @param image The image to search
+     * @return The modules of the symbol indexed by row and column, with true for dark modules
+     * @throws DecodeException If no symbol could be located
+     */
+    public boolean[][] detect(BinarizedImage image) throws DecodeException {
+        FinderPattern[] finderPatterns = selectFinderPatterns(FinderPatternFinder.find(image));
+        return sample(image, finderPatterns[0], finderPatterns[1], finderPatterns[2]);
+    }
+
+    /**
+     * Choose the three finder patterns that best form the corners of a symbol, which are the ones with the most similar
+     * module sizes whose centers are closest to a right isosceles triangle
+     *
+     * @param candidates The finder pattern candidates, ordered with the most reliable first
+     * @return The top left, top right and bottom left finder patterns
+     * @throws DecodeException If fewer than three candidates were found
+     */
+    static FinderPattern[] selectFinderPatterns(List<FinderPattern> candidates) throws DecodeException {
+        // sightings on few scan lines are usually data modules that happen to look like a finder pattern,
+        // so they are only considered when there are not three reliable candidates
+        int n = Math.min(candidates.size(), MAX_CANDIDATES);
+        if (n > 3) {
+            int minCount = Math.max(2, candidates.get(0).getCount() / 4);
+            int reliable = 0;
+            while (reliable < n && candidates.get(reliable).getCount() >= minCount) {
+                reliable++;
+            }
+            if (reliable >= 3) {
+                n = reliable;
+            }
+        }
+        FinderPattern[] best = null;
+        float bestScore = Float.MAX_VALUE;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                for (int c = b + 1; c < n; c++) {
+                    FinderPattern[] ordered = orderFinderPatterns(candidates.get(a), candidates.get(b), candidates.get(c));
+                    float score = getTriangleScore(ordered);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        best = ordered;
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            throw new DecodeException("Three finder patterns could not be found");
+        }
+        return best;
+    }
+
+    /**
+     * Order three finder patterns as top left, top right and bottom left. The top left one is opposite the longest
+     * side of their triangle, and the other two are ordered so that the symbol is not mirrored.
+     */
+    static FinderPattern[] orderFinderPatterns(FinderPattern p0, FinderPattern p1, FinderPattern p2) {
+        float d01 = p0.distanceTo(p1);
+        float d12 = p1.distanceTo(p2);
+        float d02 = p0.distanceTo(p2);
+        FinderPattern topLeft;
+        FinderPattern other1;
+        FinderPattern other2;
+        if (d12 >= d01 && d12 >= d02) {
+            topLeft = p0;
+            other1 = p1;
+            other2 = p2;
+        } else if (d02 >= d01 && d02 >= d12) {
+            topLeft = p1;
+            other1 = p0;
+            other2 = p2;
+        } else {
+            topLeft = p2;
+            other1 = p0;
+            other2 = p1;
+        }
+        float cross = (other1.getX() - topLeft.getX()) * (other2.getY() - topLeft.getY())
+                - (other1.getY() - topLeft.getY()) * (other2.getX() - topLeft.getX());
+        return cross >= 0
+                ? new FinderPattern[]{ topLeft, other1, other2 }
+                : new FinderPattern[]{ topLeft, other2, other1 };
+    }
+
+    /**
+     * Score how far ordered finder patterns are from the corners of a symbol, with lower being better
+     */
+    static float getTriangleScore(FinderPattern[] ordered) {
+        FinderPattern topLeft = ordered[0];
+        float a = topLeft.distanceTo(ordered[1]);
+        float b = topLeft.distanceTo(ordered[2]);
+        float c = ordered[1].distanceTo(ordered[2]);
+        float minModuleSize = Math.min(topLeft.getModuleSize(), Math.min(ordered[1].getModuleSize(), ordered[2].getModuleSize()));
+        float maxModuleSize = Math.max(topLeft.getModuleSize(), Math.max(ordered[1].getModuleSize(), ordered[2].getModuleSize()));
+        if (a < SymbolInfo.DETECTION_PATTERN_DIAMETER * minModuleSize || b < SymbolInfo.DETECTION_PATTERN_DIAMETER * minModuleSize) {
+            return Float.MAX_VALUE;
+        }
+        float sideDifference = Math.abs(a - b) / Math.max(a, b);
+        float hypotenuseDifference = Math.abs(c - (float) Math.sqrt(a * a + b * b)) / c;
+        float moduleSizeDifference = (maxModuleSize - minModuleSize) / maxModuleSize;
+        return sideDifference + hypotenuseDifference + moduleSizeDifference;
+    }
+
+    /**
+     * Sample the module matrix of a symbol given its three finder patterns
+     *
+     * @param image The binarized image containing the symbol
+     * @param topLeft The top left finder pattern
+     * @param topRight The top right finder pattern
+     * @param bottomLeft The bottom left finder pattern
+     * @return The modules of the symbol indexed by row and column, with true for dark modules
+     * @throws DecodeException If the finder patterns do not give a valid version
+     */
+    public static boolean[][] sample(BinarizedImage image, FinderPattern topLeft, FinderPattern topRight, FinderPattern bottomLeft)
+            throws DecodeException {
+        int sideLength = getSideLength(image, topLeft, topRight, bottomLeft);
+        float centerSpan = sideLength - 2 * FINDER_PATTERN_CENTER_OFFSET;
+
+        // the corner opposite the top left finder pattern, assuming the symbol is seen without perspective
+        float bottomRightX = topRight.getX() + bottomLeft.getX() - topLeft.getX();
+        float bottomRightY = topRight.getY() + bottomLeft.getY() - topLeft.getY();
+        float bottomRightOffset = FINDER_PATTERN_CENTER_OFFSET;
+
+        if (sideLength > new Version(Version.MINIMUM_VERSION).getSymbolSideLength()) {
+            // look for the bottom right alignment pattern near where an undistorted symbol would have it
+            float fraction = (centerSpan - (ALIGNMENT_PATTERN_CENTER_OFFSET - FINDER_PATTERN_CENTER_OFFSET)) / centerSpan;
+            float estimateX = topLeft.getX() + fraction * (bottomRightX - topLeft.getX());
+            float estimateY = topLeft.getY() + fraction * (bottomRightY - topLeft.getY());
+            float[] alignment = findAlignmentPattern(image, estimateX, estimateY,
+                    (topRight.getX() - topLeft.getX()) / centerSpan, (topRight.getY() - topLeft.getY()) / centerSpan,
+                    (bottomLeft.getX() - topLeft.getX()) / centerSpan, (bottomLeft.getY() - topLeft.getY()) / centerSpan);
+            if (alignment != null) {
+                bottomRightX = alignment[0];
+                bottomRightY = alignment[1];
+                bottomRightOffset = ALIGNMENT_PATTERN_CENTER_OFFSET;
+            }
+        }
+
+        float near = FINDER_PATTERN_CENTER_OFFSET;
+        float far = sideLength - FINDER_PATTERN_CENTER_OFFSET;
+        float bottomRight = sideLength - bottomRightOffset;
+        PerspectiveTransform transform = PerspectiveTransform.quadrilateralToQuadrilateral(
+                near, near, far, near, bottomRight, bottomRight, near, far,
+                topLeft.getX(), topLeft.getY(), topRight.getX(), topRight.getY(),
+                bottomRightX, bottomRightY, bottomLeft.getX(), bottomLeft.getY());
+
+        boolean[][] modules = new boolean[sideLength][sideLength];
+        float[] point = new float[2];
+        for (int i = 0; i < sideLength; i++) {
+            for (int j = 0; j < sideLength; j++) {
+                transform.transform(j + 0.5f, i + 0.5f, point);
+                modules[i][j] = image.isDark((int) point[0], (int) point[1]);
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Get the side length of a symbol in modules from its finder patterns, checked against its timing patterns
+     *
+     * @throws DecodeException If the finder patterns do not give a valid version
+     */
+    static int getSideLength(BinarizedImage image, FinderPattern topLeft, FinderPattern topRight, FinderPattern bottomLeft)
+            throws DecodeException {
+        return chooseSideLength(image, topLeft, topRight, bottomLeft, estimateSideLength(image, topLeft, topRight, bottomLeft));
+    }
+
+    /**
+     * Estimate the side length of a symbol in modules from the distances between its finder patterns, rounded to the
+     * nearest valid side length. The module size is measured along the lines joining the finder patterns, so that it is
+     * not overestimated when the symbol is rotated.
+     */
+    private static int estimateSideLength(BinarizedImage image, FinderPattern topLeft, FinderPattern topRight, FinderPattern bottomLeft)
+            throws DecodeException {
+        float horizontalModuleSize = measureModuleSize(image, topLeft, topRight);
+        float verticalModuleSize = measureModuleSize(image, topLeft, bottomLeft);
+        float span = (topLeft.distanceTo(topRight) / horizontalModuleSize + topLeft.distanceTo(bottomLeft) / verticalModuleSize) / 2;
+        int version = Math.round((span + 2 * FINDER_PATTERN_CENTER_OFFSET - 17) / 4);
+        if (version < Version.MINIMUM_VERSION || version > Version.MAXIMUM_VERSION) {
+            throw new DecodeException(String.format("Estimated version %s is not valid", version));
+        }
+        return new Version(version).getSymbolSideLength();
+    }
+
+    /**
+     * Choose between an estimated side length and the valid side lengths on either side of it by checking which one
+     * places the timing patterns on alternating dark and light modules. A small error in the measured module size is
+     * enough to misjudge the side length of a large symbol, but only the right side length lines up with its timing patterns.
+     */
+    private static int chooseSideLength(BinarizedImage image, FinderPattern topLeft, FinderPattern topRight, FinderPattern bottomLeft,
+                                        int estimate) {
+        int best = estimate;
+        int bestMatches = -1;
+        for (int version = (estimate - 17) / 4 - 1; version <= (estimate - 17) / 4 + 1; version++) {
+            if (version < Version.MINIMUM_VERSION || version > Version.MAXIMUM_VERSION) {
+                continue;
+            }
+            int sideLength = new Version(version).getSymbolSideLength();
+            int score = getTimingPatternScore(image, topLeft, topRight, bottomLeft, sideLength);
+            if (score > bestMatches) {
+                bestMatches = score;
+                best = sideLength;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Score how well the timing patterns of a symbol of a given side length line up with alternating dark and light
+     * modules, mapping the modules through the parallelogram spanned by the finder patterns
+     *
+     * @return The fraction of timing pattern modules that match, out of 1000
+     */
+    static int getTimingPatternScore(BinarizedImage image, FinderPattern topLeft, FinderPattern topRight, FinderPattern bottomLeft,
+                                     int sideLength) {
+        float near = FINDER_PATTERN_CENTER_OFFSET;
+        float far = sideLength - FINDER_PATTERN_CENTER_OFFSET;
+        PerspectiveTransform transform = PerspectiveTransform.quadrilateralToQuadrilateral(
+                near, near, far, near, far, far, near, far,
+                topLeft.getX(), topLeft.getY(), topRight.getX(), topRight.getY(),
+                topRight.getX() + bottomLeft.getX() - topLeft.getX(), topRight.getY() + bottomLeft.getY() - topLeft.getY(),
+                bottomLeft.getX(), bottomLeft.getY());
+        float[] point = new float[2];
+        int matches = 0;
+        int total = 0;
+        float timing = SymbolInfo.TIMING_PATTERN_COORDINATE + 0.5f;
+        for (int n = SymbolInfo.TIMING_PATTERN_OFFSET; n < sideLength - SymbolInfo.TIMING_PATTERN_OFFSET; n++) {
+            boolean expectDark = n % 2 == 0;
+            transform.transform(n + 0.5f, timing, point);
+            matches += image.isDark((int) point[0], (int) point[1]) == expectDark ? 1 : 0;
+            transform.transform(timing, n + 0.5f, point);
+            matches += image.isDark((int) point[0], (int) point[1]) == expectDark ? 1 : 0;
+            total += 2;
+        }
+        // compare the fraction of matching modules, scaled to avoid floating point
+        return matches * 1000 / total;
+    }
+
+    /**
+     * Measure the module size along the line joining two finder patterns. From the center of each finder pattern
+     * towards the other, the dark center, light ring and dark ring end 3.5 modules away.
+     */
+    static float measureModuleSize(BinarizedImage image, FinderPattern from, FinderPattern to) {
+        float distance = measureToEdge(image, from, to) + measureToEdge(image, to, from);
+        if (Float.isNaN(distance)) {
+            return (from.getModuleSize() + to.getModuleSize()) / 2;
+        }
+        return distance / (2 * FINDER_PATTERN_CENTER_OFFSET);
+    }
+
+    /**
+     * Walk from the center of a finder pattern towards another point until leaving the outer dark ring
+     *
+     * @return The distance walked in pixels, or NaN if the finder pattern edge was not found
+     */
+    private static float measureToEdge(BinarizedImage image, FinderPattern from, FinderPattern to) {
+        float length = from.distanceTo(to);
+        float stepX = (to.getX() - from.getX()) / length;
+        float stepY = (to.getY() - from.getY()) / length;
+        float limit = Math.min(length, 2 * SymbolInfo.DETECTION_PATTERN_DIAMETER * from.getModuleSize());
+        // the states are dark center, light ring and dark ring
+        int state = 0;
+        for (float t = 0; t < limit; t += 0.5f) {
+            boolean dark = image.isDark((int) (from.getX() + t * stepX), (int) (from.getY() + t * stepY));
+            if (dark == (state == 1)) {
+                if (state == 2) {
+                    return t;
+                }
+                state++;
+            }
+        }
+        return Float.NaN;
+    }
+
+    /**
+     * Search for an alignment pattern around an estimated center by matching the 5x5 pattern of dark outer ring,
+     * light inner ring and dark center at every pixel offset within 4 modules of the estimate
+     *
+     * @return The center of the best match, or null if no position matches well enough
+     */
+    private static float[] findAlignmentPattern(BinarizedImage image, float estimateX, float estimateY,
+                                                float columnX, float columnY, float rowX, float rowY) {
+        float moduleSize = (float) Math.sqrt(columnX * columnX + columnY * columnY);
+        int radius = Math.max(1, Math.round(4 * moduleSize));
+        int bestMatches = MIN_ALIGNMENT_PATTERN_MATCHES - 1;
+        float bestDistance = Float.MAX_VALUE;
+        float[] best = null;
+        for (int dy = -radius; dy <= radius; dy++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                float centerX = estimateX + dx;
+                float centerY = estimateY + dy;
+                int matches = 0;
+                for (int i = -SymbolInfo.ALIGNMENT_PATTERN_RADIUS; i <= SymbolInfo.ALIGNMENT_PATTERN_RADIUS; i++) {
+                    for (int j = -SymbolInfo.ALIGNMENT_PATTERN_RADIUS; j <= SymbolInfo.ALIGNMENT_PATTERN_RADIUS; j++) {
+                        boolean expectDark = Math.max(Math.abs(i), Math.abs(j)) != 1;
+                        int x = (int) (centerX + j * columnX + i * rowX);
+                        int y = (int) (centerY + j * columnY + i * rowY);
+                        if (image.isDark(x, y) == expectDark) {
+                            matches++;
+                        }
+                    }
+                }
+                float distance = dx * dx + dy * dy;
+                if (matches > bestMatches || (matches == bestMatches && best != null && distance < bestDistance)) {
+                    bestMatches = matches;
+                    bestDistance = distance;
+                    best = new float[]{ centerX, centerY };
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,317 @@
+package symbol;
+
+import data.CharsetDataEncoder;
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import data.Gs1Encoder;
+import error.ErrorCorrectionUtils;
+import metrics.EncodeListener;
+import metrics.EncodeStage;
+import metrics.StageRecorder;
+import model.BinaryData;
+import model.Coordinate;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.Mode;
+import model.SymbolInfo;
+import model.Version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encoder that runs the whole encoding process of section 7.1 of the QR Code specification ISO/IEC 18004,
+ * from data analysis through to mask pattern selection.
+ */
+public class SymbolEncoder {
+
+    private final SymbolGenerator symbolGenerator;
+
+    /** The listener notified of each encode, or {@link EncodeListener#NONE} to skip measurement */
+    private final EncodeListener listener;
+
+    public SymbolEncoder() {
+        this(EncodeListener.NONE);
+    }
+
+    /**
+     * Create a SymbolEncoder that reports the cost of each stage of every encode to a listener
+     *
+     * @param listener The listener to report to
+     */
+    public SymbolEncoder(EncodeListener listener) {
+        this.symbolGenerator = new SymbolGenerator();
+        this.listener = listener;
+    }
+
+    /**
+     * Encode a text in the smallest version that can hold it at a given error correction level
+     *
+     * @param text The text to encode
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedSymbol encode(String text, ErrorCorrectionLevel errorCorrectionLevel) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        DataEncoder encoder = DataEncodationUtils.getEncoder(text);
+        List<Integer> data = DataEncodationUtils.getCharacters(text, encoder);
+        Version version = DataEncodationUtils.getMinimumVersion(encoder, data.size(), errorCorrectionLevel);
+        return encode(encoder, data, version, errorCorrectionLevel, recorder);
+    }
+
+    /**
+     * Encode a text in the smallest version between two bounds that can hold it at a given error correction level,
+     * with a given mask pattern or with the mask pattern whose symbol has the lowest penalty score
+     *
+     * @param text The text to encode
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @param minimumVersion The smallest version the symbol may have
+     * @param maximumVersion The largest version the symbol may have
+     * @param maskPattern The mask pattern of the symbol, or null to select the one with the lowest penalty score
+     * @return The encoded symbol
+     * @throws IllegalArgumentException If the text does not fit in the largest version
+     */
+    public EncodedSymbol encode(String text, ErrorCorrectionLevel errorCorrectionLevel, Version minimumVersion,
+                                Version maximumVersion, MaskPattern maskPattern) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        DataEncoder encoder = DataEncodationUtils.getEncoder(text);
+        List<Integer> data = DataEncodationUtils.getCharacters(text, encoder);
+        Version version = DataEncodationUtils.getMinimumVersion(encoder, data.size(), errorCorrectionLevel);
+        if (version.getVersion() > maximumVersion.getVersion()) {
+            throw new IllegalArgumentException(String.format("%s characters do not fit in version %s at error correction level %s",
+                    data.size(), maximumVersion.getVersion(), errorCorrectionLevel));
+        }
+        if (version.getVersion() < minimumVersion.getVersion()) {
+            version = minimumVersion;
+        }
+        List<Integer> dataCodewords = DataEncodationUtils.getDataCodewords(encoder, data, version, errorCorrectionLevel);
+        recorder.end(EncodeStage.DATA_ENCODING, dataCodewords.size());
+        return encodeCodewords(dataCodewords, version, errorCorrectionLevel, maskPattern, null,
+                Collections.singletonList(encoder.getMode()), recorder);
+    }
+
+    /**
+     * Encode a text in the smallest version that can hold it with an overlay, such as a logo, destroying the modules
+     * under it. The error correction level is the highest of that version whose blocks recover the codewords under the
+     * overlay as erasures, and the modules under the overlay are left out of the penalty scores of the mask patterns.
+     *
+     * @param text The text to encode
+     * @param minimumErrorCorrectionLevel The lowest error correction level the symbol may have
+     * @param overlay The overlay the symbol will be printed with
+     * @return The encoded symbol
+     * @throws IllegalArgumentException If no version holds the text with the overlay
+     */
+    public EncodedSymbol encode(String text, ErrorCorrectionLevel minimumErrorCorrectionLevel, SymbolOverlay overlay) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        DataEncoder encoder = DataEncodationUtils.getEncoder(text);
+        List<Integer> data = DataEncodationUtils.getCharacters(text, encoder);
+        SymbolInfo plan = overlay.plan(encoder, data.size(), minimumErrorCorrectionLevel);
+        Version version = plan.getVersion();
+        ErrorCorrectionLevel errorCorrectionLevel = plan.getErrorCorrectionLevel();
+        List<Integer> dataCodewords = DataEncodationUtils.getDataCodewords(encoder, data, version, errorCorrectionLevel);
+        recorder.end(EncodeStage.DATA_ENCODING, dataCodewords.size());
+        return encodeCodewords(dataCodewords, version, errorCorrectionLevel, null, overlay.getOccludedModules(version.getSymbolSideLength()),
+                Collections.singletonList(encoder.getMode()), recorder);
+    }
+
+    /**
+     * Encode characters in the smallest version that can hold them at a given error correction level
+     *
+     * @param encoder The data encoder to encode the characters with
+     * @param data The characters to encode
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedSymbol encode(DataEncoder encoder, List<Integer> data, ErrorCorrectionLevel errorCorrectionLevel) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        Version version = DataEncodationUtils.getMinimumVersion(encoder, data.size(), errorCorrectionLevel);
+        return encode(encoder, data, version, errorCorrectionLevel, recorder);
+    }
+
+    /**
+     * Encode characters in a given version and error correction level
+     *
+     * @param encoder The data encoder to encode the characters with
+     * @param data The characters to encode
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedSymbol encode(DataEncoder encoder, List<Integer> data, Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        return encode(encoder, data, version, errorCorrectionLevel, recorder);
+    }
+
+    /**
+     * Encode a text in the character set of an encoder, in the smallest version that can hold it at a given error
+     * correction level. The text is transcoded straight into the data bit stream, after an ECI header announcing
+     * the character set if it needs one.
+     *
+     * @param text The text to encode
+     * @param encoder The encoder of the character set, whose buffers are reused between calls
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedSymbol encode(CharSequence text, CharsetDataEncoder encoder, ErrorCorrectionLevel errorCorrectionLevel) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        Version version = DataEncodationUtils.getMinimumVersion(encoder, encoder.getEncodedLength(text), errorCorrectionLevel);
+        BinaryData binaryData = new BinaryData();
+        encoder.encode(text, version, binaryData);
+        List<Integer> dataCodewords = DataEncodationUtils.getDataCodewords(binaryData, version, errorCorrectionLevel);
+        recorder.end(EncodeStage.DATA_ENCODING, dataCodewords.size());
+        List<Mode> segments = encoder.getEciAssignment() < 0
+                ? Collections.singletonList(Mode.BYTE)
+                : Arrays.asList(Mode.ECI, Mode.BYTE);
+        return encodeCodewords(dataCodewords, version, errorCorrectionLevel, null, null, segments, recorder);
+    }
+
+    /**
+     * Encode GS1 element strings in FNC1 mode, in the smallest version that can hold them at a given error correction
+     * level. The element strings are given in their human readable form, such as {@code (01)09501101530003(10)AB12}.
+     *
+     * @param elementString The element strings to encode
+     * @param encoder The GS1 encoder, whose buffers are reused between calls
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedSymbol encode(CharSequence elementString, Gs1Encoder encoder, ErrorCorrectionLevel errorCorrectionLevel) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        encoder.parse(elementString);
+        Version version = encoder.getMinimumVersion(errorCorrectionLevel);
+        BinaryData binaryData = new BinaryData();
+        encoder.encode(version, binaryData);
+        List<Integer> dataCodewords = DataEncodationUtils.getDataCodewords(binaryData, version, errorCorrectionLevel);
+        recorder.end(EncodeStage.DATA_ENCODING, dataCodewords.size());
+        return encodeCodewords(dataCodewords, version, errorCorrectionLevel, null, null, encoder.getSegmentModes(), recorder);
+    }
+
+    /**
+     * Encode a text through a plan compiled for texts of its shape. The data bits, the error correction codewords and
+     * the module plane are written to arrays the plan keeps for the calling thread, each mask pattern is applied to
+     * the plane and scored in place, and only the symbol of the selected mask pattern is copied out.
+     *
+     * @param plan The plan, compiled by {@link EncodingPlan#compile(String, ErrorCorrectionLevel)}
+     * @param text The text to encode, of the same shape as the template of the plan
+     * @return The encoded symbol
+     */
+    public EncodedSymbol encode(EncodingPlan plan, String text) {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        EncodingPlan.Scratch scratch = plan.getScratch();
+        plan.writeDataCodewords(text, scratch);
+        recorder.end(EncodeStage.DATA_ENCODING, scratch.dataCodewords.length);
+
+        recorder.begin();
+        plan.writeCodewords(scratch);
+        recorder.end(EncodeStage.ERROR_CORRECTION, scratch.codewords.length);
+
+        int sideLength = plan.getVersion().getSymbolSideLength();
+        int numModules = sideLength * sideLength;
+        recorder.begin();
+        plan.placeCodewords(scratch);
+        recorder.end(EncodeStage.PLACEMENT, numModules);
+
+        List<SymbolInfo> candidates = plan.getCandidates();
+        int bestCandidate = 0;
+        int bestPenaltyScore = Integer.MAX_VALUE;
+        for (int m = 0; m < candidates.size(); m++) {
+            recorder.begin();
+            plan.toggleMask(scratch, m);
+            int penaltyScore = MaskEvaluationUtils.getPenaltyScore(scratch.modules, sideLength);
+            plan.toggleMask(scratch, m);
+            recorder.end(EncodeStage.MASK_SELECTION, numModules);
+            if (penaltyScore < bestPenaltyScore) {
+                bestCandidate = m;
+                bestPenaltyScore = penaltyScore;
+            }
+        }
+
+        // the copy of the selected symbol is timed with the placement, whose output was counted above
+        recorder.begin();
+        plan.toggleMask(scratch, bestCandidate);
+        ModuleMatrix modules = new ModuleMatrix(sideLength);
+        System.arraycopy(scratch.modules, 0, modules.getModules(), 0, numModules);
+        List<Integer> codewords = new ArrayList<>(scratch.codewords.length);
+        for (byte codeword : scratch.codewords) {
+            codewords.add(codeword & 0xFF);
+        }
+        EncodedSymbol best = new EncodedSymbol(candidates.get(bestCandidate), codewords, modules, bestPenaltyScore);
+        recorder.end(EncodeStage.PLACEMENT, 0);
+
+        recorder.report();
+        if (recorder.isEnabled()) {
+            listener.onSymbol(plan.getVersion(), Collections.singletonList(plan.getEncoder().getMode()),
+                    best.getSymbolInfo().getMaskPattern(), best.getPenaltyScore());
+        }
+        return best;
+    }
+
+    private EncodedSymbol encode(DataEncoder encoder, List<Integer> data, Version version, ErrorCorrectionLevel errorCorrectionLevel,
+                                 StageRecorder recorder) {
+        List<Integer> dataCodewords = DataEncodationUtils.getDataCodewords(encoder, data, version, errorCorrectionLevel);
+        recorder.end(EncodeStage.DATA_ENCODING, dataCodewords.size());
+        return encodeCodewords(dataCodewords, version, errorCorrectionLevel, null, null, Collections.singletonList(encoder.getMode()), recorder);
+    }
+
+    /**
+     * Encode data codewords that have already been terminated and padded in a given version and error correction level.
+     * Error correction codewords are generated, the codewords are placed in the symbol once for each mask pattern,
+     * and the masked symbol with the lowest penalty score is selected.
+     *
+     * @param dataCodewords The data codewords of the symbol
+     * @param version The version of the symbol
+     * @param errorCorrectionLevel The error correction level of the symbol
+     * @return The encoded symbol
+     */
+    public EncodedSymbol encodeCodewords(List<Integer> dataCodewords, Version version, ErrorCorrectionLevel errorCorrectionLevel) {
+        return encodeCodewords(dataCodewords, version, errorCorrectionLevel, null, null, Collections.emptyList(), StageRecorder.forListener(listener));
+    }
+
+    private EncodedSymbol encodeCodewords(List<Integer> dataCodewords, Version version, ErrorCorrectionLevel errorCorrectionLevel,
+                                          MaskPattern maskPattern, ModuleMatrix excluded, List<Mode> segments,
+                                          StageRecorder recorder) {
+        recorder.begin();
+        List<SymbolInfo> candidates = maskPattern == null
+                ? SymbolInfo.forEachMaskPattern(version, errorCorrectionLevel)
+                : Collections.singletonList(new SymbolInfo(version, errorCorrectionLevel, maskPattern));
+        List<Coordinate> dataModuleCoordinates = symbolGenerator.getDataModuleCoordinates(candidates.get(0));
+        recorder.end(EncodeStage.PLACEMENT, 0);
+
+        recorder.begin();
+        List<Integer> codewords = ErrorCorrectionUtils.getFinalCodewordSequence(dataCodewords, candidates.get(0));
+        recorder.end(EncodeStage.ERROR_CORRECTION, codewords.size());
+
+        int numModules = version.getSymbolSideLength() * version.getSymbolSideLength();
+
+        EncodedSymbol best = null;
+        for (SymbolInfo symbolInfo : candidates) {
+            recorder.begin();
+            ModuleMatrix modules = symbolGenerator.generateSymbol(symbolInfo, codewords, dataModuleCoordinates);
+            recorder.end(EncodeStage.PLACEMENT, numModules);
+
+            recorder.begin();
+            int penaltyScore = excluded == null
+                    ? MaskEvaluationUtils.getPenaltyScore(modules)
+                    : MaskEvaluationUtils.getPenaltyScore(modules, excluded);
+            recorder.end(EncodeStage.MASK_SELECTION, numModules);
+            if (best == null || penaltyScore < best.getPenaltyScore()) {
+                best = new EncodedSymbol(symbolInfo, codewords, modules, penaltyScore);
+            }
+        }
+
+        recorder.report();
+        if (recorder.isEnabled()) {
+            listener.onSymbol(version, segments, best.getSymbolInfo().getMaskPattern(), best.getPenaltyScore());
+        }
+        return best;
+    }
+}
@@ -1,143 +1,239 @@
 package symbol;
 
-import error.ErrorCorrectionUtils;
+import metrics.EncodeListener;
 import model.*;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
 
 public class SymbolGenerator {
 
-    private static final int BLACK_MODULE = 0x000000;
+    private static final byte BLACK_MODULE = ModuleMatrix.DARK;
 
-    private static final int WHITE_MODULE = 0xFFFFFF;
+    private static final byte WHITE_MODULE = ModuleMatrix.LIGHT;
 
-    public SymbolGenerator() {
+    /** The rows of a finder pattern surrounded by its light separator */
+    private static final byte[][] FINDER_PATTERN_ROWS =
+            createPatternRows(SymbolInfo.DETECTION_PATTERN_RADIUS + 1, distance -> distance != 2 && distance != 4);
+
+    /** The rows of an alignment pattern */
+    private static final byte[][] ALIGNMENT_PATTERN_ROWS =
+            createPatternRows(SymbolInfo.ALIGNMENT_PATTERN_RADIUS, distance -> distance != 1);
+
+    /** The timing pattern of the largest symbol, starting from a dark module, of which each symbol uses the start */
+    private static final byte[] TIMING_PATTERN_ROW = new byte[Version.MAXIMUM_VERSION * 4 + 17 - 2 * SymbolInfo.TIMING_PATTERN_OFFSET];
+
+    static {
+        for (int n = 0; n < TIMING_PATTERN_ROW.length; n++) {
+            TIMING_PATTERN_ROW[n] = n % 2 == 0 ? BLACK_MODULE : WHITE_MODULE;
+        }
     }
 
-    public BufferedImage generateSymbol(SymbolInfo symbolInfo) {
-        int sideLength = symbolInfo.getSymbolSideLength();
-        BufferedImage image = new BufferedImage(sideLength, sideLength, BufferedImage.TYPE_INT_RGB);
-        addPatternsAndInfo(symbolInfo, image);
+    /** The modules of the function patterns, dark module and version information of each version, drawn on first use */
+    private static final AtomicReferenceArray<byte[]> TEMPLATES = new AtomicReferenceArray<>(Version.MAXIMUM_VERSION + 1);
 
-        return image;
+    public SymbolGenerator() {
     }
 
-    private void addPatternsAndInfo(SymbolInfo symbolInfo, BufferedImage image) {
-        addDetectionPatterns(symbolInfo, image);
-        addAlignmentPatterns(symbolInfo, image);
-        addTimingPatterns(symbolInfo, image);
-        addFormatInfo(symbolInfo, image);
-        addVersionInfo(symbolInfo, image);
+    /**
+     * Generate a symbol with function patterns, format and version information and no data. The function patterns,
+     * dark module and version information are copied from a template of the version in one array copy, and only the
+     * format information is drawn for the symbol.
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @return The modules of the symbol
+     */
+    public ModuleMatrix generateSymbol(SymbolInfo symbolInfo) {
+        ModuleMatrix symbol = new ModuleMatrix(symbolInfo.getSymbolSideLength());
+        byte[] modules = symbol.getModules();
+        System.arraycopy(getTemplate(symbolInfo), 0, modules, 0, modules.length);
+        addFormatInfo(symbolInfo, symbol);
+
+        return symbol;
     }
 
-    private void addDetectionPatterns(SymbolInfo symbolInfo, BufferedImage image) {
-        // add detection patterns and extra white ring around detection patterns
-        for (Coordinate center : symbolInfo.getDetectionPatternCenters()) {
-            Coordinate topLeft = new Coordinate(
-                    center.getI() - SymbolInfo.DETECTION_PATTERN_RADIUS - 1,
-                    center.getJ() - SymbolInfo.DETECTION_PATTERN_RADIUS - 1
-            );
-            Coordinate bottomRight = new Coordinate(
-                    center.getI() + SymbolInfo.DETECTION_PATTERN_RADIUS + 1,
-                    center.getJ() + SymbolInfo.DETECTION_PATTERN_RADIUS + 1
-            );
-
-            Coordinate.withinRectangle(topLeft, bottomRight).forEach((Coordinate pixel) -> {
-                if (symbolInfo.isCoordinateOutOfBounds(pixel)) {
-                    return;
-                }
-                int distance = pixel.radialDistanceTo(center);
-                if (distance == 2 || distance == 4) {
-                    image.setRGB(pixel.getJ(), pixel.getI(), WHITE_MODULE);
-                } else {
-                    image.setRGB(pixel.getJ(), pixel.getI(), BLACK_MODULE);
-                }
-            });
-        }
+    /**
+     * Generate a symbol with function patterns, format and version information, and the given codewords
+     * placed in the encoding region with the mask pattern of the symbol information applied.
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @param codewords The final codeword sequence of the symbol
+     * @param dataModuleCoordinates The coordinates of the modules in the encoding region, in placement order
+     * @return The modules of the symbol
+     */
+    public ModuleMatrix generateSymbol(SymbolInfo symbolInfo, List<Integer> codewords, List<Coordinate> dataModuleCoordinates) {
+        ModuleMatrix symbol = generateSymbol(symbolInfo);
+        addData(symbolInfo, symbol, codewords, dataModuleCoordinates);
+
+        return symbol;
     }
 
-    private void addAlignmentPatterns(SymbolInfo symbolInfo, BufferedImage image) {
-        for (Coordinate center : symbolInfo.getAlignmentPatternCenters()) {
-            Coordinate topLeft = new Coordinate(
-                    center.getI() - SymbolInfo.ALIGNMENT_PATTERN_RADIUS,
-                    center.getJ() - SymbolInfo.ALIGNMENT_PATTERN_RADIUS
-            );
-            Coordinate bottomRight = new Coordinate(
-                    center.getI() + SymbolInfo.ALIGNMENT_PATTERN_RADIUS,
-                    center.getJ() + SymbolInfo.ALIGNMENT_PATTERN_RADIUS
-            );
-
-            Coordinate.withinRectangle(topLeft, bottomRight).forEach((Coordinate pixel) -> {
-                if (pixel.radialDistanceTo(center) == 1) {
-                    image.setRGB(pixel.getJ(), pixel.getI(), WHITE_MODULE);
-                } else {
-                    image.setRGB(pixel.getJ(), pixel.getI(), BLACK_MODULE);
+    /**
+     * Get the coordinates of the modules in the encoding region of a symbol in the order that codeword
+     * bits are placed in them, as described by section 8.7.3 of the QR Code specification ISO/IEC 18004.
+     * Placement starts at the bottom right corner and moves in two module wide columns alternately
+     * upwards and downwards, skipping the vertical timing pattern and any function patterns.
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @return The coordinates of the modules available for data, in placement order
+     */
+    public List<Coordinate> getDataModuleCoordinates(SymbolInfo symbolInfo) {
+        int sideLength = symbolInfo.getSymbolSideLength();
+        List<Coordinate> coordinates = new ArrayList<>(symbolInfo.getTotalCodewords() * 8);
+        boolean upwards = true;
+        for (int right = sideLength - 1; right >= 1; right -= 2) {
+            if (right == SymbolInfo.TIMING_PATTERN_COORDINATE) {
+                right--;
+            }
+            for (int vertical = 0; vertical < sideLength; vertical++) {
+                int i = upwards ? sideLength - 1 - vertical : vertical;
+                for (int j = right; j >= right - 1; j--) {
+                    if (symbolInfo.isCoordinateAvailableForData(i, j)) {
+                        coordinates.add(new Coordinate(i, j));
+                    }
                 }
-            });
+            }
+            upwards = !upwards;
         }
+        return coordinates;
     }
 
-    private void addTimingPatterns(SymbolInfo symbolInfo, BufferedImage image) {
-        for (int n = SymbolInfo.TIMING_PATTERN_OFFSET; n < symbolInfo.getSymbolSideLength() - SymbolInfo.TIMING_PATTERN_OFFSET; n++) {
-            if (n % 2 == 0) {
-                image.setRGB(n, SymbolInfo.TIMING_PATTERN_COORDINATE, BLACK_MODULE);
-                image.setRGB(SymbolInfo.TIMING_PATTERN_COORDINATE, n, BLACK_MODULE);
-            } else {
-                image.setRGB(n, SymbolInfo.TIMING_PATTERN_COORDINATE, WHITE_MODULE);
-                image.setRGB(SymbolInfo.TIMING_PATTERN_COORDINATE, n, WHITE_MODULE);
-            }
+    /**
+     * Get the function patterns, dark module and version information of the version of a symbol, which are the same
+     * for every error correction level and mask pattern. The template is drawn the first time a version is used.
+     */
+    private static byte[] getTemplate(SymbolInfo symbolInfo) {
+        int v = symbolInfo.getVersion().getVersion();
+        byte[] template = TEMPLATES.get(v);
+        if (template == null) {
+            // drawing a template twice on a race gives equal templates, so either may be kept
+            template = createTemplate(symbolInfo);
+            TEMPLATES.compareAndSet(v, null, template);
         }
+        return template;
     }
 
-    private void addFormatInfo(SymbolInfo symbolInfo, BufferedImage image) {
-        BinaryData formatInfo = symbolInfo.getFormatInfo();
-
-        List<Coordinate> topLeftFormatInfoCoordinates = symbolInfo.getTopLeftFormatInfoCoordinates();
-        List<Coordinate> splitFormatInfoCoordinates = symbolInfo.getSplitFormatInfoCoordinates();
-
-        for (int i = 0; i < formatInfo.size(); i++) {
-            Coordinate topLeftCoordinate = topLeftFormatInfoCoordinates.get(i);
-            Coordinate splitCoordinate = splitFormatInfoCoordinates.get(i);
-            int rgb = formatInfo.isBitSet(i) ? BLACK_MODULE : WHITE_MODULE;
+    private static byte[] createTemplate(SymbolInfo symbolInfo) {
+        int sideLength = symbolInfo.getSymbolSideLength();
+        byte[] modules = new byte[sideLength * sideLength];
 
-            image.setRGB(topLeftCoordinate.getJ(), topLeftCoordinate.getI(), rgb);
-            image.setRGB(splitCoordinate.getJ(), splitCoordinate.getI(), rgb);
+        // the finder patterns and their separators, clipped to the symbol at the corners
+        int radius = SymbolInfo.DETECTION_PATTERN_RADIUS + 1;
+        for (Coordinate center : symbolInfo.getDetectionPatternCenters()) {
+            stamp(modules, sideLength, FINDER_PATTERN_ROWS, center.getI() - radius, center.getJ() - radius);
+        }
+        for (Coordinate center : symbolInfo.getAlignmentPatternCenters()) {
+            stamp(modules, sideLength, ALIGNMENT_PATTERN_ROWS,
+                    center.getI() - SymbolInfo.ALIGNMENT_PATTERN_RADIUS, center.getJ() - SymbolInfo.ALIGNMENT_PATTERN_RADIUS);
+        }
 
-            if (i == 8) {
-                image.setRGB(splitCoordinate.getJ(), splitCoordinate.getI() - 1, BLACK_MODULE);
-            }
+        int timingLength = sideLength - 2 * SymbolInfo.TIMING_PATTERN_OFFSET;
+        System.arraycopy(TIMING_PATTERN_ROW, 0, modules,
+                SymbolInfo.TIMING_PATTERN_COORDINATE * sideLength + SymbolInfo.TIMING_PATTERN_OFFSET, timingLength);
+        for (int n = SymbolInfo.TIMING_PATTERN_OFFSET; n < sideLength - SymbolInfo.TIMING_PATTERN_OFFSET; n++) {
+            modules[n * sideLength + SymbolInfo.TIMING_PATTERN_COORDINATE] = TIMING_PATTERN_ROW[n - SymbolInfo.TIMING_PATTERN_OFFSET];
         }
-    }
 
-    private void addVersionInfo(SymbolInfo symbolInfo, BufferedImage image) {
+        Coordinate darkModule = symbolInfo.getDarkModuleCoordinate();
+        modules[darkModule.getI() * sideLength + darkModule.getJ()] = BLACK_MODULE;
+
         if (symbolInfo.hasVersionInfo()) {
-            BinaryData versionInfo = symbolInfo.getVersionInfo();
-            ErrorCorrectionUtils.appendErrorCorrectionBitsToVersionInfo(versionInfo);
+            int versionInfo = SpecificationTables.VERSION_INFO[symbolInfo.getVersion().getVersion()];
 
             List<Coordinate> topRightVersionInfoCoordinates = symbolInfo.getTopRightVersionInfoCoordinates();
             List<Coordinate> bottomLeftVersionInfoCoordinates = symbolInfo.getBottomLeftVersionInfoCoordinates();
 
-            for (int i = 0; i < versionInfo.size(); i++) {
-                Coordinate topRightCoordinate = topRightVersionInfoCoordinates.get(i);
-                Coordinate bottomLeftCoordinate = bottomLeftVersionInfoCoordinates.get(i);
+            // the coordinates are ordered from the least significant bit
+            for (int k = 0; k < SymbolInfo.VERSION_INFO_LENGTH_IN_BITS; k++) {
+                Coordinate topRightCoordinate = topRightVersionInfoCoordinates.get(k);
+                Coordinate bottomLeftCoordinate = bottomLeftVersionInfoCoordinates.get(k);
+
+                byte module = (versionInfo >>> k & 1) != 0 ? BLACK_MODULE : WHITE_MODULE;
+                modules[topRightCoordinate.getI() * sideLength + topRightCoordinate.getJ()] = module;
+                modules[bottomLeftCoordinate.getI() * sideLength + bottomLeftCoordinate.getJ()] = module;
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Copy the rows of a square pattern into the modules of a symbol, clipping the parts outside the symbol
+     *
+     * @param modules The modules of the symbol, row after row
+     * @param sideLength The number of modules along each side of the symbol
+     * @param rows The rows of the pattern
+     * @param top The row of the symbol of the first row of the pattern, which may be negative
+     * @param left The column of the symbol of the first column of the pattern, which may be negative
+     */
+    private static void stamp(byte[] modules, int sideLength, byte[][] rows, int top, int left) {
+        int from = Math.max(0, left);
+        int to = Math.min(sideLength, left + rows.length);
+        for (int r = 0; r < rows.length; r++) {
+            int i = top + r;
+            if (i >= 0 && i < sideLength && from < to) {
+                System.arraycopy(rows[r], from - left, modules, i * sideLength + from, to - from);
+            }
+        }
+    }
+
+    /**
+     * Create the rows of a square pattern of concentric rings around its center
+     *
+     * @param radius The distance from the center to the outer ring
+     * @param isDark Whether the ring at each distance from the center is dark
+     */
+    private static byte[][] createPatternRows(int radius, IntPredicate isDark) {
+        byte[][] rows = new byte[2 * radius + 1][2 * radius + 1];
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows.length; j++) {
+                int distance = Math.max(Math.abs(i - radius), Math.abs(j - radius));
+                rows[i][j] = isDark.test(distance) ? BLACK_MODULE : WHITE_MODULE;
+            }
+        }
+        return rows;
+    }
 
-                int rgb = versionInfo.isBitSet(i) ? BLACK_MODULE : WHITE_MODULE;
-                image.setRGB(topRightCoordinate.getJ(), topRightCoordinate.getI(), rgb);
-                image.setRGB(bottomLeftCoordinate.getJ(), bottomLeftCoordinate.getI(), rgb);
+    private void addData(SymbolInfo symbolInfo, ModuleMatrix symbol, List<Integer> codewords, List<Coordinate> dataModuleCoordinates) {
+        MaskPattern maskPattern = symbolInfo.getMaskPattern();
+        int numBits = codewords.size() * 8;
+        for (int n = 0; n < dataModuleCoordinates.size(); n++) {
+            Coordinate coordinate = dataModuleCoordinates.get(n);
+            // remainder bits after the last codeword are 0
+            boolean dark = n < numBits && (codewords.get(n / 8) & (0x80 >>> (n % 8))) != 0;
+            if (maskPattern.isMasked(coordinate.getI(), coordinate.getJ())) {
+                dark = !dark;
             }
+            symbol.setDark(coordinate.getI(), coordinate.getJ(), dark);
+        }
+    }
+
+    private void addFormatInfo(SymbolInfo symbolInfo, ModuleMatrix symbol) {
+        BinaryData formatInfo = symbolInfo.getFormatInfo();
+
+        List<Coordinate> topLeftFormatInfoCoordinates = symbolInfo.getTopLeftFormatInfoCoordinates();
+        List<Coordinate> splitFormatInfoCoordinates = symbolInfo.getSplitFormatInfoCoordinates();
+
+        // the coordinates are ordered from the least significant bit, and the format info from the most significant bit
+        for (int i = 0; i < formatInfo.size(); i++) {
+            Coordinate topLeftCoordinate = topLeftFormatInfoCoordinates.get(formatInfo.size() - 1 - i);
+            Coordinate splitCoordinate = splitFormatInfoCoordinates.get(formatInfo.size() - 1 - i);
+            boolean dark = formatInfo.isBitSet(i);
+
+            symbol.setDark(topLeftCoordinate.getI(), topLeftCoordinate.getJ(), dark);
+            symbol.setDark(splitCoordinate.getI(), splitCoordinate.getJ(), dark);
         }
     }
 
     public static void main(String[] args) {
         SymbolInfo info = new SymbolInfo(new Version(14), ErrorCorrectionLevel.M, MaskPattern.FIVE);
-        BufferedImage symbol = new SymbolGenerator().generateSymbol(info);
-        File outputFile = new File("data/symbol.png");
-        try {
-            ImageIO.write(symbol, "PNG", outputFile);
+        ModuleMatrix symbol = new SymbolGenerator().generateSymbol(info);
+        try (OutputStream out = new FileOutputStream("data/symbol.png")) {
+            new SymbolRenderer(1, 0, EncodeListener.NONE).writePng(symbol, out);
         } catch (IOException e) {
             e.printStackTrace();
         }
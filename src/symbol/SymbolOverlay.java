@@ -0,0 +1,317 @@
+package symbol;
+
+import data.DataEncodationUtils;
+import data.DataEncoder;
+import model.BlockInfo;
+import model.CodewordCapacity;
+import model.Coordinate;
+import model.DecodeException;
+import model.ErrorCorrectionLevel;
+import model.MaskPattern;
+import model.SymbolInfo;
+import model.Version;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Model class representing a rectangle laid over a symbol, such as a logo, that destroys the modules under it. The
+ * rectangle is given in fractions of the side length of the symbol, so that it covers the same part of a symbol of any
+ * version, and every module it touches counts as destroyed.
+ * <br />
+ * The codewords with a bit in a destroyed module are found with the placement of section 8.7.3 of the QR Code
+ * specification ISO/IEC 18004 and the interleaving of section 8.6. A decoder told where the overlay is can treat them
+ * as erasures, which cost each Reed-Solomon block one error correction codeword rather than the two of an error, so
+ * {@link #plan} picks a version and error correction level by counting the erasures of each block instead of guessing.
+ * An overlay may cover alignment patterns, but not the finder patterns, timing patterns, format information or version
+ * information, without which a symbol cannot be found or read.
+ */
+public class SymbolOverlay {
+
+    /** The fraction of the error correction codewords of each block that the erasures of an overlay may not use */
+    public static final double DEFAULT_RESERVED_ERROR_CORRECTION = 0.25;
+
+    private final double left;
+
+    private final double top;
+
+    private final double width;
+
+    private final double height;
+
+    /** The fraction of the error correction codewords of each block kept for errors elsewhere in the symbol */
+    private final double reservedErrorCorrection;
+
+    /**
+     * Create a SymbolOverlay that leaves {@link #DEFAULT_RESERVED_ERROR_CORRECTION} of each block for other errors
+     *
+     * @param left The distance of the rectangle from the left edge of the symbol, as a fraction of its side length
+     * @param top The distance of the rectangle from the top edge of the symbol, as a fraction of its side length
+     * @param width The width of the rectangle, as a fraction of the side length of the symbol
+     * @param height The height of the rectangle, as a fraction of the side length of the symbol
+     */
+    public SymbolOverlay(double left, double top, double width, double height) {
+        this(left, top, width, height, DEFAULT_RESERVED_ERROR_CORRECTION);
+    }
+
+    /**
+     * Create a SymbolOverlay
+     *
+     * @param left The distance of the rectangle from the left edge of the symbol, as a fraction of its side length
+     * @param top The distance of the rectangle from the top edge of the symbol, as a fraction of its side length
+     * @param width The width of the rectangle, as a fraction of the side length of the symbol
+     * @param height The height of the rectangle, as a fraction of the side length of the symbol
+     * @param reservedErrorCorrection The fraction of the error correction codewords of each block that the erasures
+     *                                of the overlay may not use, so that the symbol still corrects other errors
+     */
+    public SymbolOverlay(double left, double top, double width, double height, double reservedErrorCorrection) {
+        if (!(left >= 0 && top >= 0 && width > 0 && height > 0 && left + width <= 1 && top + height <= 1)) {
+            throw new IllegalArgumentException(String.format("Overlay at %s, %s of size %s x %s is not within the symbol",
+                    left, top, width, height));
+        }
+        if (!(reservedErrorCorrection >= 0 && reservedErrorCorrection < 1)) {
+            throw new IllegalArgumentException(String.format("Reserved error correction %s is not valid", reservedErrorCorrection));
+        }
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+        this.reservedErrorCorrection = reservedErrorCorrection;
+    }
+
+    /**
+     * Create a SymbolOverlay in the center of the symbol
+     *
+     * @param width The width of the rectangle, as a fraction of the side length of the symbol
+     * @param height The height of the rectangle, as a fraction of the side length of the symbol
+     * @return The overlay
+     */
+    public static SymbolOverlay centered(double width, double height) {
+        return new SymbolOverlay((1 - width) / 2, (1 - height) / 2, width, height);
+    }
+
+    /**
+     * Get the modules that the overlay touches in a symbol of a given side length
+     *
+     * @param sideLength The side length of the symbol
+     * @return The modules of the symbol, dark where the overlay destroys a module
+     */
+    public ModuleMatrix getOccludedModules(int sideLength) {
+        ModuleMatrix occluded = new ModuleMatrix(sideLength);
+        int firstColumn = (int) Math.floor(left * sideLength);
+        int lastColumn = Math.min(sideLength, (int) Math.ceil((left + width) * sideLength)) - 1;
+        int firstRow = (int) Math.floor(top * sideLength);
+        int lastRow = Math.min(sideLength, (int) Math.ceil((top + height) * sideLength)) - 1;
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstColumn; j <= lastColumn; j++) {
+                occluded.setDark(i, j, true);
+            }
+        }
+        return occluded;
+    }
+
+    /**
+     * Whether the overlay touches a module that a decoder needs to find or read a symbol, which is any module of a
+     * function pattern other than an alignment pattern, or of the format or version information
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @return true if the overlay touches a finder or timing pattern, a separator, or format or version information
+     */
+    public boolean coversFunctionPatterns(SymbolInfo symbolInfo) {
+        ModuleMatrix occluded = getOccludedModules(symbolInfo.getSymbolSideLength());
+        for (int i = 0; i < occluded.getSideLength(); i++) {
+            for (int j = 0; j < occluded.getSideLength(); j++) {
+                if (occluded.isDark(i, j) && !symbolInfo.isCoordinateAvailableForData(i, j) && !isInAlignmentPattern(symbolInfo, i, j)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of codewords of each block that have a bit in a module the overlay touches
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @return The number of erased codewords of each block, indexed from the first block
+     */
+    public int[] getErasedCodewords(SymbolInfo symbolInfo) {
+        return getErasedCodewords(symbolInfo, new SymbolGenerator().getDataModuleCoordinates(symbolInfo));
+    }
+
+    /**
+     * Whether every block of a symbol can recover the codewords the overlay erases and still have its reserved error
+     * correction codewords left
+     *
+     * @param symbolInfo The symbol information of the symbol
+     * @return true if a decoder told where the overlay is can read the symbol with its reserve of error correction
+     */
+    public boolean isRecoverable(SymbolInfo symbolInfo) {
+        return !coversFunctionPatterns(symbolInfo)
+                && isRecoverable(symbolInfo, getErasedCodewords(symbolInfo, new SymbolGenerator().getDataModuleCoordinates(symbolInfo)));
+    }
+
+    /**
+     * Find the smallest version, and the highest error correction level of that version, whose symbol holds a text
+     * and recovers the codewords the overlay erases. The error correction level is never below a given one.
+     *
+     * @param encoder The data encoder the characters will be encoded with
+     * @param numCharacters The number of characters to be encoded
+     * @param minimumErrorCorrectionLevel The lowest error correction level the symbol may have
+     * @return The symbol information of the symbol, with the first mask pattern
+     * @throws IllegalArgumentException If no version holds the text with the overlay
+     */
+    public SymbolInfo plan(DataEncoder encoder, int numCharacters, ErrorCorrectionLevel minimumErrorCorrectionLevel) {
+        Version minimumVersion = DataEncodationUtils.getMinimumVersion(encoder, numCharacters, minimumErrorCorrectionLevel);
+        ErrorCorrectionLevel[] levels = ErrorCorrectionLevel.values();
+        SymbolGenerator generator = new SymbolGenerator();
+        for (int v = minimumVersion.getVersion(); v <= Version.MAXIMUM_VERSION; v++) {
+            Version version = new Version(v);
+            List<Coordinate> dataModuleCoordinates = null;
+            for (int level = levels.length - 1; level >= minimumErrorCorrectionLevel.getIndex(); level--) {
+                if (encoder.getEncodedBitStreamLength(numCharacters, version) > CodewordCapacity.getDataCodewords(version, levels[level]) * 8) {
+                    continue;
+                }
+                SymbolInfo symbolInfo = new SymbolInfo(version, levels[level], MaskPattern.ZERO);
+                if (dataModuleCoordinates == null) {
+                    if (coversFunctionPatterns(symbolInfo)) {
+                        break;
+                    }
+                    dataModuleCoordinates = generator.getDataModuleCoordinates(symbolInfo);
+                }
+                if (isRecoverable(symbolInfo, getErasedCodewords(symbolInfo, dataModuleCoordinates))) {
+                    return symbolInfo;
+                }
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "%s characters with the overlay do not fit in any version at error correction level %s or above",
+                numCharacters, minimumErrorCorrectionLevel));
+    }
+
+    private boolean isRecoverable(SymbolInfo symbolInfo, int[] erasedCodewords) {
+        for (int b = 0; b < erasedCodewords.length; b++) {
+            int errorCorrectionCodewords = symbolInfo.getBlockInfo(b + 1).getErrorCorrectionCodewords();
+            if (erasedCodewords[b] > (int) Math.floor(errorCorrectionCodewords * (1 - reservedErrorCorrection))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] getErasedCodewords(SymbolInfo symbolInfo, List<Coordinate> dataModuleCoordinates) {
+        ModuleMatrix occluded = getOccludedModules(symbolInfo.getSymbolSideLength());
+        int[] blocks = getCodewordBlocks(symbolInfo);
+        boolean[] erased = new boolean[blocks.length];
+        // remainder bits after the last codeword belong to no codeword
+        for (int n = 0; n < blocks.length * 8; n++) {
+            Coordinate coordinate = dataModuleCoordinates.get(n);
+            erased[n / 8] |= occluded.isDark(coordinate.getI(), coordinate.getJ());
+        }
+        int[] erasedCodewords = new int[symbolInfo.getNumberOfBlocks()];
+        for (int n = 0; n < blocks.length; n++) {
+            if (erased[n]) {
+                erasedCodewords[blocks[n]]++;
+            }
+        }
+        return erasedCodewords;
+    }
+
+    /**
+     * Get the block of each codeword of the final codeword sequence, which interleaves the data codewords of the blocks
+     * and then their error correction codewords
+     *
+     * @return The index of the block of each codeword, indexed from the first block
+     */
+    static int[] getCodewordBlocks(SymbolInfo symbolInfo) {
+        int numberOfBlocks = symbolInfo.getNumberOfBlocks();
+        int[] blocks = new int[symbolInfo.getTotalCodewords()];
+        int n = 0;
+        for (int i = 0; i < symbolInfo.getBlockInfo(numberOfBlocks).getDataCodewords(); i++) {
+            for (int b = 0; b < numberOfBlocks; b++) {
+                if (i < symbolInfo.getBlockInfo(b + 1).getDataCodewords()) {
+                    blocks[n++] = b;
+                }
+            }
+        }
+        for (int i = 0; i < symbolInfo.getBlockInfo(1).getErrorCorrectionCodewords(); i++) {
+            for (int b = 0; b < numberOfBlocks; b++) {
+                blocks[n++] = b;
+            }
+        }
+        return blocks;
+    }
+
+    private static boolean isInAlignmentPattern(SymbolInfo symbolInfo, int i, int j) {
+        Coordinate coordinate = new Coordinate(i, j);
+        for (Coordinate center : symbolInfo.getAlignmentPatternCenters()) {
+            if (coordinate.radialDistanceTo(center) <= SymbolInfo.ALIGNMENT_PATTERN_RADIUS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encode texts under centered overlays of growing size, then destroy the covered modules and check that each
+     * symbol decodes with the covered codewords as erasures. The version and error correction level of each plan are
+     * printed beside those of the text without an overlay.
+     */
+    public static void main(String[] args) throws DecodeException {
+        SymbolEncoder encoder = new SymbolEncoder();
+        SymbolDecoder decoder = new SymbolDecoder();
+        Random random = new Random(18004);
+        String[] texts = { "https://example.com/item/12345", "https://example.com/campaign/spring?utm_source=print&utm_medium=label",
+                "x".repeat(300) };
+        double[] sizes = { 0.1, 0.2, 0.25, 0.3 };
+        int failures = 0;
+        System.out.printf("%-6s %6s %10s %12s %10s %17s%n", "chars", "logo", "plain", "overlay", "erased", "without erasures");
+        for (String text : texts) {
+            EncodedSymbol plain = encoder.encode(text, ErrorCorrectionLevel.M);
+            for (double size : sizes) {
+                SymbolOverlay overlay = centered(size, size);
+                EncodedSymbol symbol;
+                try {
+                    symbol = encoder.encode(text, ErrorCorrectionLevel.M, overlay);
+                } catch (IllegalArgumentException e) {
+                    System.out.printf("%-6s %5.0f%% %s%n", text.length(), size * 100, e.getMessage());
+                    continue;
+                }
+                SymbolInfo symbolInfo = symbol.getSymbolInfo();
+                int sideLength = symbolInfo.getSymbolSideLength();
+                ModuleMatrix occluded = overlay.getOccludedModules(sideLength);
+                ModuleMatrix damaged = new ModuleMatrix(sideLength);
+                for (int i = 0; i < sideLength; i++) {
+                    for (int j = 0; j < sideLength; j++) {
+                        damaged.setDark(i, j, occluded.isDark(i, j) ? random.nextBoolean() : symbol.getModules().isDark(i, j));
+                    }
+                }
+                DecodedSymbol decoded = decoder.decode(damaged, occluded);
+                failures += Arrays.equals(decoded.getData(), text.getBytes(StandardCharsets.ISO_8859_1)) ? 0 : 1;
+                failures += overlay.isRecoverable(symbolInfo) ? 0 : 1;
+                String withoutErasures;
+                try {
+                    withoutErasures = Arrays.equals(decoder.decode(damaged).getData(), text.getBytes(StandardCharsets.ISO_8859_1)) ? "read" : "misread";
+                } catch (DecodeException e) {
+                    withoutErasures = "unreadable";
+                }
+                int[] erased = overlay.getErasedCodewords(symbolInfo);
+                BlockInfo blockInfo = symbolInfo.getBlockInfo(1);
+                System.out.printf("%-6s %5.0f%% %7s-%s %9s-%s %6s/%-3s %17s%n", text.length(), size * 100,
+                        plain.getSymbolInfo().getVersion().getVersion(), plain.getSymbolInfo().getErrorCorrectionLevel(),
+                        symbolInfo.getVersion().getVersion(), symbolInfo.getErrorCorrectionLevel(),
+                        Arrays.stream(erased).max().orElse(0), blockInfo.getErrorCorrectionCodewords(), withoutErasures);
+            }
+        }
+
+        // the penalty of a symbol with nothing excluded is the penalty of the whole symbol
+        for (String text : texts) {
+            ModuleMatrix modules = encoder.encode(text, ErrorCorrectionLevel.M).getModules();
+            failures += MaskEvaluationUtils.getPenaltyScore(modules, new ModuleMatrix(modules.getSideLength()))
+                    == MaskEvaluationUtils.getPenaltyScore(modules) ? 0 : 1;
+        }
+        System.out.println(failures == 0 ? "passed" : failures + " FAILED");
+    }
+}
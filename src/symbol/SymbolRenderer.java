@@ -0,0 +1,233 @@
+package symbol;
+
+import metrics.EncodeListener;
+import metrics.EncodeStage;
+import metrics.StageRecorder;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Renderer that turns the modules of a symbol into output images, surrounded by the quiet zone described by
+ * section 6.3.8 of the QR Code specification ISO/IEC 18004. Every format is written with the java.base module alone;
+ * images for java.awt are made by the optional qrcode-awt module.
+ */
+public class SymbolRenderer {
+
+    /** The width of the light quiet zone around the symbol, in modules */
+    public static final int QUIET_ZONE_WIDTH = 4;
+
+    /** The width of the light quiet zone around a Micro QR symbol, in modules */
+    public static final int MICRO_QUIET_ZONE_WIDTH = 2;
+
+    private static final String SVG_FOOTER = "\"/></svg>";
+
+    private static final char FULL_BLOCK = '\u2588';
+
+    private static final char UPPER_HALF_BLOCK = '\u2580';
+
+    private static final char LOWER_HALF_BLOCK = '\u2584';
+
+    /** The number of pixels per module */
+    private final int scale;
+
+    /** The width of the quiet zone in modules */
+    private final int quietZoneWidth;
+
+    /** The listener notified of the cost of each rendering, or {@link EncodeListener#NONE} to skip measurement */
+    private final EncodeListener listener;
+
+    /**
+     * Create a SymbolRenderer with a given scale
+     *
+     * @param scale The number of pixels per module along each side
+     */
+    public SymbolRenderer(int scale) {
+        this(scale, EncodeListener.NONE);
+    }
+
+    /**
+     * Create a SymbolRenderer with a given scale that reports the cost of each rendering to a listener
+     *
+     * @param scale The number of pixels per module along each side
+     * @param listener The listener to report to
+     */
+    public SymbolRenderer(int scale, EncodeListener listener) {
+        this(scale, QUIET_ZONE_WIDTH, listener);
+    }
+
+    /**
+     * Create a SymbolRenderer with a given scale and quiet zone width, such as {@link #MICRO_QUIET_ZONE_WIDTH}
+     * for Micro QR symbols, that reports the cost of each rendering to a listener
+     *
+     * @param scale The number of pixels per module along each side
+     * @param quietZoneWidth The width of the quiet zone in modules
+     * @param listener The listener to report to
+     */
+    public SymbolRenderer(int scale, int quietZoneWidth, EncodeListener listener) {
+        if (scale < 1) {
+            throw new IllegalArgumentException(String.format("Scale %s is not valid", scale));
+        }
+        if (quietZoneWidth < 0) {
+            throw new IllegalArgumentException(String.format("Quiet zone width %s is not valid", quietZoneWidth));
+        }
+        this.scale = scale;
+        this.quietZoneWidth = quietZoneWidth;
+        this.listener = listener;
+    }
+
+    /**
+     * Render a symbol and write it as a 1 bit grayscale PNG image
+     *
+     * @param symbol The modules of the symbol
+     * @param out The stream to write the PNG image to
+     * @throws IOException If the image could not be written
+     */
+    public void writePng(ModuleMatrix symbol, OutputStream out) throws IOException {
+        writeRaster(symbol, out, PngEncoder::write);
+    }
+
+    /**
+     * Render a symbol and write it as a ZPL II label for Zebra label printers, holding one compressed graphic field
+     * whose dots are the pixels of this renderer
+     *
+     * @param symbol The modules of the symbol
+     * @param out The stream to write the label to, such as the raw port of a printer
+     * @throws IOException If the label could not be written
+     */
+    public void writeZpl(ModuleMatrix symbol, OutputStream out) throws IOException {
+        writeRaster(symbol, out, ZplEncoder::write);
+    }
+
+    /**
+     * Render a symbol and write it as ESC/POS raster bit image commands for receipt and label printers, whose dots are
+     * the pixels of this renderer
+     *
+     * @param symbol The modules of the symbol
+     * @param out The stream to write the commands to, such as the raw port of a printer
+     * @throws IOException If the commands could not be written
+     */
+    public void writeEscPos(ModuleMatrix symbol, OutputStream out) throws IOException {
+        writeRaster(symbol, out, EscPosEncoder::write);
+    }
+
+    private void writeRaster(ModuleMatrix symbol, OutputStream out, SymbolWriter writer) throws IOException {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        if (!recorder.isEnabled()) {
+            writer.write(symbol, scale, quietZoneWidth, out);
+            return;
+        }
+        recorder.begin();
+        CountingOutputStream countingOut = new CountingOutputStream(out);
+        writer.write(symbol, scale, quietZoneWidth, countingOut);
+        recorder.end(EncodeStage.RENDERING, countingOut.count);
+        recorder.report();
+    }
+
+    /**
+     * Render a symbol and write it as an SVG image, with a single path covering all dark modules
+     *
+     * @param symbol The modules of the symbol
+     * @param out The writer to write the SVG image to
+     * @throws IOException If the image could not be written
+     */
+    public void writeSvg(ModuleMatrix symbol, Writer out) throws IOException {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        long written = 0;
+        int sideLength = symbol.getSideLength();
+        int viewBoxSideLength = sideLength + 2 * quietZoneWidth;
+        int imageSideLength = viewBoxSideLength * scale;
+
+        String header = String.format("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" viewBox=\"0 0 %d %d\" shape-rendering=\"crispEdges\">"
+                        + "<rect width=\"100%%\" height=\"100%%\" fill=\"#FFFFFF\"/><path fill=\"#000000\" d=\"",
+                imageSideLength, imageSideLength, viewBoxSideLength, viewBoxSideLength);
+        out.write(header);
+        written += header.length();
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < sideLength; i++) {
+            for (int j = 0; j < sideLength; j++) {
+                if (symbol.isDark(i, j)) {
+                    path.append('M').append(j + quietZoneWidth).append(' ').append(i + quietZoneWidth).append("h1v1h-1z");
+                }
+            }
+            out.append(path);
+            written += path.length();
+            path.setLength(0);
+        }
+        out.write(SVG_FOOTER);
+        out.flush();
+        recorder.end(EncodeStage.RENDERING, written + SVG_FOOTER.length());
+        recorder.report();
+    }
+
+    /**
+     * Render a symbol as text for a terminal, with each character covering one module across and two modules down
+     * using the Unicode half block characters, followed by a line break after each row of characters. Dark modules
+     * are drawn with blocks and light modules with spaces, so the symbol reads on a light background. The scale is
+     * not used.
+     *
+     * @param symbol The modules of the symbol
+     * @param out The writer to write the text to
+     * @throws IOException If the text could not be written
+     */
+    public void writeText(ModuleMatrix symbol, Writer out) throws IOException {
+        StageRecorder recorder = StageRecorder.forListener(listener);
+        recorder.begin();
+        int sideLength = symbol.getSideLength();
+        int textSideLength = sideLength + 2 * quietZoneWidth;
+        StringBuilder line = new StringBuilder(textSideLength + 1);
+        long written = 0;
+        for (int i = -quietZoneWidth; i < sideLength + quietZoneWidth; i += 2) {
+            for (int j = -quietZoneWidth; j < sideLength + quietZoneWidth; j++) {
+                boolean top = isDark(symbol, sideLength, i, j);
+                boolean bottom = isDark(symbol, sideLength, i + 1, j);
+                line.append(top ? (bottom ? FULL_BLOCK : UPPER_HALF_BLOCK) : (bottom ? LOWER_HALF_BLOCK : ' '));
+            }
+            line.append('\n');
+            out.append(line);
+            written += line.length();
+            line.setLength(0);
+        }
+        out.flush();
+        recorder.end(EncodeStage.RENDERING, written);
+        recorder.report();
+    }
+
+    private static boolean isDark(ModuleMatrix symbol, int sideLength, int i, int j) {
+        return i >= 0 && i < sideLength && j >= 0 && j < sideLength && symbol.isDark(i, j);
+    }
+
+    /**
+     * Writer of a symbol in a raster format, such as {@link PngEncoder#write}
+     */
+    private interface SymbolWriter {
+        void write(ModuleMatrix symbol, int scale, int quietZoneWidth, OutputStream out) throws IOException;
+    }
+
+    /**
+     * Output stream that counts the bytes written through it
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package symbol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encoder of uncompressed bilevel TIFF images, as described by section 3 of the TIFF specification revision 6.0. The
+ * data is left uncompressed so that the size of every strip is known before the first row is written, which lets the
+ * header and image file directory come first and the rows be streamed after them.
+ */
+class TiffEncoder implements RasterEncoder {
+
+    /** The byte order mark of big endian TIFF files, followed by the version 42 */
+    private static final int BIG_ENDIAN_HEADER = 0x4D4D002A;
+
+    private static final int HEADER_LENGTH = 8;
+
+    private static final short IMAGE_WIDTH = 256;
+
+    private static final short IMAGE_LENGTH = 257;
+
+    private static final short BITS_PER_SAMPLE = 258;
+
+    private static final short COMPRESSION = 259;
+
+    private static final short PHOTOMETRIC_INTERPRETATION = 262;
+
+    private static final short STRIP_OFFSETS = 273;
+
+    private static final short SAMPLES_PER_PIXEL = 277;
+
+    private static final short ROWS_PER_STRIP = 278;
+
+    private static final short STRIP_BYTE_COUNTS = 279;
+
+    private static final short X_RESOLUTION = 282;
+
+    private static final short Y_RESOLUTION = 283;
+
+    private static final short RESOLUTION_UNIT = 296;
+
+    private static final short SHORT = 3;
+
+    private static final short LONG = 4;
+
+    private static final short RATIONAL = 5;
+
+    private static final int NUM_ENTRIES = 12;
+
+    private static final int ENTRY_LENGTH = 12;
+
+    private static final int NO_COMPRESSION = 1;
+
+    /** The photometric interpretation in which a set bit is white */
+    private static final int BLACK_IS_ZERO = 1;
+
+    private static final int INCH = 2;
+
+    /** The number of bytes of image data in each strip, as recommended by the specification */
+    private static final int STRIP_SIZE = 8 * 1024;
+
+    private final OutputStream out;
+
+    private final int height;
+
+    private final int rowLength;
+
+    private int rowsWritten;
+
+    /**
+     * Create a TiffEncoder and write the header and image file directory
+     *
+     * @param out The stream to write the image to, which is left open
+     * @param width The width of the image in pixels
+     * @param height The height of the image in pixels
+     * @param dotsPerInch The resolution to record in the image
+     * @throws IOException If the start of the image could not be written
+     */
+    TiffEncoder(OutputStream out, int width, int height, int dotsPerInch) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(String.format("Image of %sx%s pixels is not valid", width, height));
+        }
+        rowLength = RasterEncoder.getRowLength(width);
+        if ((long) rowLength * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Image of %sx%s pixels is too large for a TIFF file", width, height));
+        }
+        this.out = out;
+        this.height = height;
+
+        int rowsPerStrip = Math.max(1, STRIP_SIZE / rowLength);
+        int numStrips = (height + rowsPerStrip - 1) / rowsPerStrip;
+        int directoryLength = 2 + NUM_ENTRIES * ENTRY_LENGTH + 4;
+        // values that do not fit in 4 bytes follow the directory: strip offsets, strip byte counts and resolutions
+        int stripOffsetsOffset = HEADER_LENGTH + directoryLength;
+        int stripByteCountsOffset = stripOffsetsOffset + (numStrips > 1 ? 4 * numStrips : 0);
+        int resolutionOffset = stripByteCountsOffset + (numStrips > 1 ? 4 * numStrips : 0);
+        int dataOffset = resolutionOffset + 2 * 8;
+
+        ByteBuffer buffer = ByteBuffer.allocate(dataOffset);
+        buffer.putInt(BIG_ENDIAN_HEADER).putInt(HEADER_LENGTH);
+        buffer.putShort((short) NUM_ENTRIES);
+        putEntry(buffer, IMAGE_WIDTH, LONG, 1, width);
+        putEntry(buffer, IMAGE_LENGTH, LONG, 1, height);
+        putShortEntry(buffer, BITS_PER_SAMPLE, 1);
+        putShortEntry(buffer, COMPRESSION, NO_COMPRESSION);
+        putShortEntry(buffer, PHOTOMETRIC_INTERPRETATION, BLACK_IS_ZERO);
+        putEntry(buffer, STRIP_OFFSETS, LONG, numStrips, numStrips > 1 ? stripOffsetsOffset : dataOffset);
+        putShortEntry(buffer, SAMPLES_PER_PIXEL, 1);
+        putEntry(buffer, ROWS_PER_STRIP, LONG, 1, rowsPerStrip);
+        putEntry(buffer, STRIP_BYTE_COUNTS, LONG, numStrips, numStrips > 1 ? stripByteCountsOffset : rowLength * height);
+        putEntry(buffer, X_RESOLUTION, RATIONAL, 1, resolutionOffset);
+        putEntry(buffer, Y_RESOLUTION, RATIONAL, 1, resolutionOffset + 8);
+        putShortEntry(buffer, RESOLUTION_UNIT, INCH);
+        // no further image file directory
+        buffer.putInt(0);
+        if (numStrips > 1) {
+            for (int strip = 0; strip < numStrips; strip++) {
+                buffer.putInt(dataOffset + strip * rowsPerStrip * rowLength);
+            }
+            for (int strip = 0; strip < numStrips; strip++) {
+                buffer.putInt(Math.min(rowsPerStrip, height - strip * rowsPerStrip) * rowLength);
+            }
+        }
+        buffer.putInt(dotsPerInch).putInt(1).putInt(dotsPerInch).putInt(1);
+        out.write(buffer.array());
+    }
+
+    @Override
+    public void writeRows(byte[] rows, int rowCount) throws IOException {
+        if (rowsWritten + rowCount > height) {
+            throw new IllegalStateException(String.format("Image of %s rows has no room for %s more rows", height, rowCount));
+        }
+        out.write(rows, 0, rowCount * rowLength);
+        rowsWritten += rowCount;
+    }
+
+    @Override
+    public void finish() {
+        if (rowsWritten != height) {
+            throw new IllegalStateException(String.format("Image of %s rows was finished after %s rows", height, rowsWritten));
+        }
+    }
+
+    private static void putShortEntry(ByteBuffer buffer, short tag, int value) {
+        // a SHORT value is left justified in the 4 bytes of the value
+        buffer.putShort(tag).putShort(SHORT).putInt(1).putShort((short) value).putShort((short) 0);
+    }
+
+    private static void putEntry(ByteBuffer buffer, short tag, short type, int count, int valueOrOffset) {
+        buffer.putShort(tag).putShort(type).putInt(count).putInt(valueOrOffset);
+    }
+}
@@ -0,0 +1,171 @@
+package symbol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encoder of a 1 bit image as a ZPL II label holding one ^GF graphic field in ASCII hexadecimal, compressed with the
+ * alternative data compression scheme of the ZPL II programming guide. Runs of a hexadecimal digit are written as a
+ * repeat count in front of the digit, a row ending in white or black is cut short by a comma or an exclamation mark,
+ * and a row equal to the one above it is a single colon, so each row of modules costs a few bytes at any scale.
+ */
+class ZplEncoder implements RasterEncoder {
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    /** Fills the rest of a row with 0, which is white */
+    static final byte FILL_WHITE = ',';
+
+    /** Fills the rest of a row with F, which is black */
+    static final byte FILL_BLACK = '!';
+
+    /** Repeats the row above */
+    static final byte REPEAT_ROW = ':';
+
+    /** The largest repeat count a single count letter pair can hold, z for 400 and Y for 19 */
+    static final int MAXIMUM_REPEAT_COUNT = 419;
+
+    private final OutputStream out;
+
+    private final int height;
+
+    /** The number of hexadecimal digits of a row, two per byte */
+    private final int rowDigits;
+
+    private final byte[] previousRow;
+
+    private final byte[] row;
+
+    /** The compressed row, which is never longer than twice the digits of the row */
+    private final byte[] compressedRow;
+
+    private int rowsWritten;
+
+    /**
+     * Create a ZplEncoder and write the start of the label
+     *
+     * @param out The stream to write the label to, which is left open
+     * @param width The width of the image in dots
+     * @param height The height of the image in dots
+     * @throws IOException If the start of the label could not be written
+     */
+    ZplEncoder(OutputStream out, int width, int height) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(String.format("Image of %sx%s dots is not valid", width, height));
+        }
+        this.out = out;
+        this.height = height;
+        int rowLength = RasterEncoder.getRowLength(width);
+        this.rowDigits = 2 * rowLength;
+        this.previousRow = new byte[rowDigits];
+        this.row = new byte[rowDigits];
+        this.compressedRow = new byte[2 * rowDigits + 1];
+        int totalBytes = rowLength * height;
+        // the byte count is that of the uncompressed field, in which a set bit is black
+        String header = String.format("^XA^FO0,0^GFA,%d,%d,%d,", totalBytes, totalBytes, rowLength);
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Write a symbol as a ZPL label, surrounded by a light quiet zone
+     *
+     * @param symbol The modules of the symbol
+     * @param scale The number of dots per module along each side
+     * @param quietZoneWidth The width of the quiet zone in modules
+     * @param out The stream to write the label to, which is left open
+     * @throws IOException If the label could not be written
+     */
+    static void write(ModuleMatrix symbol, int scale, int quietZoneWidth, OutputStream out) throws IOException {
+        int imageSideLength = (symbol.getSideLength() + 2 * quietZoneWidth) * scale;
+        RasterEncoder.writeSymbol(new ZplEncoder(out, imageSideLength, imageSideLength), symbol, scale, quietZoneWidth);
+    }
+
+    @Override
+    public void writeRows(byte[] rows, int rowCount) throws IOException {
+        if (rowsWritten + rowCount > height) {
+            throw new IllegalStateException(String.format("Image of %s rows has no room for %s more rows", height, rowCount));
+        }
+        int rowLength = rowDigits / 2;
+        for (int r = 0; r < rowCount; r++) {
+            for (int n = 0; n < rowLength; n++) {
+                // ZPL prints set bits, so the white bits of the raster are inverted
+                int value = ~rows[r * rowLength + n] & 0xFF;
+                row[2 * n] = HEX_DIGITS[value >>> 4];
+                row[2 * n + 1] = HEX_DIGITS[value & 0xF];
+            }
+            if (rowsWritten > 0 && Arrays.equals(row, previousRow)) {
+                out.write(REPEAT_ROW);
+            } else {
+                out.write(compressedRow, 0, compressRow());
+                System.arraycopy(row, 0, previousRow, 0, rowDigits);
+            }
+            rowsWritten++;
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException(String.format("Image of %s rows was finished after %s rows", height, rowsWritten));
+        }
+        out.write("^FS^XZ\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Compress the digits of the current row into the compressed row
+     *
+     * @return The length of the compressed row
+     */
+    private int compressRow() {
+        // a trailing run of 0 or F is cut short by a fill character
+        int end = rowDigits;
+        byte last = row[rowDigits - 1];
+        if (last == '0' || last == 'F') {
+            while (end > 0 && row[end - 1] == last) {
+                end--;
+            }
+        }
+        int length = 0;
+        int n = 0;
+        while (n < end) {
+            int start = n;
+            while (n < end && row[n] == row[start]) {
+                n++;
+            }
+            int run = n - start;
+            while (run > 0) {
+                int count = Math.min(run, MAXIMUM_REPEAT_COUNT);
+                // a count of 1 or 2 is no shorter written out
+                if (count <= 2) {
+                    for (int k = 0; k < count; k++) {
+                        compressedRow[length++] = row[start];
+                    }
+                } else {
+                    length = writeRepeatCount(count, length);
+                    compressedRow[length++] = row[start];
+                }
+                run -= count;
+            }
+        }
+        if (end < rowDigits) {
+            compressedRow[length++] = last == '0' ? FILL_WHITE : FILL_BLACK;
+        }
+        return length;
+    }
+
+    /**
+     * Write the letters of a repeat count of up to {@link #MAXIMUM_REPEAT_COUNT}: g to z for 20 to 400 in steps of 20,
+     * followed by G to Y for 1 to 19
+     */
+    private int writeRepeatCount(int count, int length) {
+        if (count >= 20) {
+            compressedRow[length++] = (byte) ('g' + count / 20 - 1);
+        }
+        if (count % 20 > 0) {
+            compressedRow[length++] = (byte) ('G' + count % 20 - 1);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,124 @@
+package error;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Reed-Solomon encoder that divides up to 16 blocks of a symbol in lockstep with the Java Vector API, one block per
+ * byte lane, provided to {@link ReedSolomonEncoders} through {@link java.util.ServiceLoader} under the name
+ * {@value #NAME}. Every block of a symbol has the same generator polynomial, so each step of the division multiplies the
+ * feedback of every lane by the same coefficients. Multiplication by a constant in GF(256) is linear over the bits of
+ * the other operand, so the product is looked up separately for the low and high 4 bits of the feedback in two
+ * 16 entry tables per coefficient, which are vector shuffles.
+ * <br />
+ * The blocks of a symbol differ in length by at most one codeword. Shorter blocks are fed a leading 0, which does not
+ * change their remainder, so that every lane runs the same number of steps. Single blocks and symbols with a single block are
+ * left to the scalar log table engine.
+ */
+public class VectorReedSolomonEncoder implements ReedSolomonEncoder {
+
+    public static final String NAME = "vector";
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+
+    private static final int LANES = SPECIES.length();
+
+    /** For each generator degree, the product of each coefficient with each value of the low 4 bits, 16 per coefficient */
+    private final byte[][] lowProducts = new byte[ReedSolomonEncoders.MAXIMUM_ERROR_CORRECTION_CODEWORDS + 1][];
+
+    /** For each generator degree, the product of each coefficient with each value of the high 4 bits, 16 per coefficient */
+    private final byte[][] highProducts = new byte[ReedSolomonEncoders.MAXIMUM_ERROR_CORRECTION_CODEWORDS + 1][];
+
+    private final ReedSolomonEncoder blockEncoder = new LogTableReedSolomonEncoder();
+
+    public VectorReedSolomonEncoder() {
+        for (int degree = 1; degree <= ReedSolomonEncoders.MAXIMUM_ERROR_CORRECTION_CODEWORDS; degree++) {
+            int[] generator = ReedSolomonEncoders.getGenerator(degree);
+            lowProducts[degree] = new byte[degree * LANES];
+            highProducts[degree] = new byte[degree * LANES];
+            for (int e = 0; e < degree; e++) {
+                for (int n = 0; n < 16; n++) {
+                    lowProducts[degree][e * LANES + n] = (byte) GF256Number.mul(generator[e], n);
+                    highProducts[degree][e * LANES + n] = (byte) GF256Number.mul(generator[e], n << 4);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void encode(byte[] data, int offset, int length, byte[] errorCorrection, int errorCorrectionOffset,
+                       int numErrorCorrectionCodewords) {
+        blockEncoder.encode(data, offset, length, errorCorrection, errorCorrectionOffset, numErrorCorrectionCodewords);
+    }
+
+    @Override
+    public void encodeBlocks(byte[] data, int[] blockLengths, int numErrorCorrectionCodewords, byte[] errorCorrection) {
+        if (blockLengths.length < 2) {
+            blockEncoder.encodeBlocks(data, blockLengths, numErrorCorrectionCodewords, errorCorrection);
+            return;
+        }
+        ReedSolomonEncoders.getGenerator(numErrorCorrectionCodewords);
+        int[] blockOffsets = new int[blockLengths.length];
+        int maxLength = 0;
+        for (int b = 0, offset = 0; b < blockLengths.length; offset += blockLengths[b], b++) {
+            blockOffsets[b] = offset;
+            maxLength = Math.max(maxLength, blockLengths[b]);
+        }
+
+        byte[] lanes = new byte[maxLength * LANES];
+        byte[] registers = new byte[numErrorCorrectionCodewords * LANES];
+        for (int first = 0; first < blockLengths.length; first += LANES) {
+            int numLanes = Math.min(LANES, blockLengths.length - first);
+
+            // lay the blocks out one codeword of every lane after another, padding shorter blocks at the front
+            Arrays.fill(lanes, (byte) 0);
+            for (int lane = 0; lane < numLanes; lane++) {
+                int b = first + lane;
+                int padding = maxLength - blockLengths[b];
+                for (int i = 0; i < blockLengths[b]; i++) {
+                    lanes[(padding + i) * LANES + lane] = data[blockOffsets[b] + i];
+                }
+            }
+
+            divide(lanes, maxLength, registers, numErrorCorrectionCodewords);
+
+            for (int lane = 0; lane < numLanes; lane++) {
+                int offset = (first + lane) * numErrorCorrectionCodewords;
+                for (int e = 0; e < numErrorCorrectionCodewords; e++) {
+                    errorCorrection[offset + e] = registers[e * LANES + lane];
+                }
+            }
+        }
+    }
+
+    /**
+     * Divide every lane by the generator polynomial, leaving the remainders in the registers, highest degree first
+     */
+    private void divide(byte[] lanes, int length, byte[] registers, int degree) {
+        byte[] low = lowProducts[degree];
+        byte[] high = highProducts[degree];
+        Arrays.fill(registers, (byte) 0);
+        for (int i = 0; i < length; i++) {
+            ByteVector feedback = ByteVector.fromArray(SPECIES, lanes, i * LANES)
+                    .lanewise(VectorOperators.XOR, ByteVector.fromArray(SPECIES, registers, 0));
+            ByteVector lowBits = feedback.lanewise(VectorOperators.AND, (byte) 0x0F);
+            ByteVector highBits = feedback.lanewise(VectorOperators.LSHR, 4).lanewise(VectorOperators.AND, (byte) 0x0F);
+            for (int e = 0; e < degree; e++) {
+                ByteVector product = lowBits.selectFrom(ByteVector.fromArray(SPECIES, low, e * LANES))
+                        .lanewise(VectorOperators.XOR, highBits.selectFrom(ByteVector.fromArray(SPECIES, high, e * LANES)));
+                if (e + 1 < degree) {
+                    product = product.lanewise(VectorOperators.XOR, ByteVector.fromArray(SPECIES, registers, (e + 1) * LANES));
+                }
+                product.intoArray(registers, e * LANES);
+            }
+        }
+    }
+}